@@ -0,0 +1,5 @@
+-- order_items ids come from order_items_seq (allocation size 50) instead of the identity column.
+-- ddl-auto: update creates the sequence starting at 1, which collides with existing rows;
+-- start it past the highest id instead. Hibernate hands out the 50 ids below each value it reads.
+CREATE SEQUENCE IF NOT EXISTS order_items_seq INCREMENT BY 50;
+SELECT setval('order_items_seq', COALESCE((SELECT MAX(id) FROM order_items), 0) + 50);
@@ -0,0 +1,5 @@
+-- orders.sold_count_applied marks orders whose quantities are already in products.sold_count.
+-- Every existing order was counted by the old synchronous update, so existing rows start out true;
+-- false would make SoldCountAccumulator replay the whole order history on top of the counts.
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS sold_count_applied boolean NOT NULL DEFAULT true;
+ALTER TABLE orders ALTER COLUMN sold_count_applied DROP DEFAULT;
@@ -0,0 +1,11 @@
+-- products.final_price is the price after the product discount and its best offer active today,
+-- as EffectivePriceIndex computes it. Backfill it the same way (the index reprices the whole
+-- catalog again on startup), then make it NOT NULL.
+ALTER TABLE products ADD COLUMN IF NOT EXISTS final_price numeric(38,2);
+UPDATE products p
+SET final_price = GREATEST(ROUND(p.price, 2) - ROUND(COALESCE(p.discount, 0), 2) - COALESCE((
+        SELECT ROUND(MAX(o.discount), 2) FROM offers o
+        WHERE o.product_id = p.id AND o.start_date <= CURRENT_DATE AND o.end_date >= CURRENT_DATE
+    ), 0), 0)
+WHERE p.final_price IS NULL;
+ALTER TABLE products ALTER COLUMN final_price SET NOT NULL;
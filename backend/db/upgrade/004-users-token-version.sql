@@ -0,0 +1,4 @@
+-- users.token_version is bumped to revoke a user's access tokens. Existing users start at 0, like
+-- new ones; tokens issued before the upgrade carry no version and are checked the legacy way.
+ALTER TABLE users ADD COLUMN IF NOT EXISTS token_version bigint NOT NULL DEFAULT 0;
+ALTER TABLE users ALTER COLUMN token_version DROP DEFAULT;
@@ -0,0 +1,14 @@
+-- Refresh tokens are stored as their SHA-256 digest (token_hash) instead of the raw token column,
+-- which the entity no longer maps and which would otherwise reject every insert as NOT NULL.
+-- Existing tokens are hashed in place, so signed-in users stay signed in. ddl-auto: update adds
+-- the unique constraint on token_hash. Needs PostgreSQL 11+ for sha256().
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = current_schema() AND table_name = 'refresh_token' AND column_name = 'token') THEN
+        ALTER TABLE refresh_token ADD COLUMN IF NOT EXISTS token_hash bytea;
+        UPDATE refresh_token SET token_hash = sha256(convert_to(token, 'UTF8')) WHERE token_hash IS NULL;
+        ALTER TABLE refresh_token ALTER COLUMN token_hash SET NOT NULL;
+        ALTER TABLE refresh_token DROP COLUMN token;
+    END IF;
+END $$;
@@ -0,0 +1,63 @@
+// Load test for the product listing and checkout endpoints, used to compare platform threads
+// with virtual threads (VIRTUAL_THREADS=true on a Java 21+ runtime). See load/README.md.
+//
+//   k6 run -e BASE_URL=http://localhost:8080 load/listing-and-checkout.js
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const EMAIL = __ENV.EMAIL || 'john@example.com';
+const PASSWORD = __ENV.PASSWORD || 'password';
+
+export const options = {
+    scenarios: {
+        listing: {
+            executor: 'constant-arrival-rate',
+            exec: 'listing',
+            rate: Number(__ENV.LISTING_RATE || 500),
+            timeUnit: '1s',
+            duration: __ENV.DURATION || '2m',
+            preAllocatedVUs: 200,
+            maxVUs: 2000,
+        },
+        checkout: {
+            executor: 'constant-arrival-rate',
+            exec: 'checkout',
+            rate: Number(__ENV.CHECKOUT_RATE || 50),
+            timeUnit: '1s',
+            duration: __ENV.DURATION || '2m',
+            preAllocatedVUs: 50,
+            maxVUs: 500,
+        },
+    },
+    thresholds: {
+        'http_req_duration{scenario:listing}': ['p(95)<200'],
+        'http_req_duration{scenario:checkout}': ['p(95)<500'],
+        http_req_failed: ['rate<0.01'],
+    },
+};
+
+export function setup() {
+    const res = http.post(`${BASE_URL}/api/auth/login`, JSON.stringify({ email: EMAIL, password: PASSWORD }),
+        { headers: { 'Content-Type': 'application/json' } });
+    check(res, { 'logged in': (r) => r.status === 200 });
+    const products = http.get(`${BASE_URL}/api/products?size=50&count=false`).json('data');
+    return {
+        token: res.json('data.token'),
+        productIds: products.map((p) => p.id),
+    };
+}
+
+export function listing() {
+    const page = Math.floor(Math.random() * 3);
+    const res = http.get(`${BASE_URL}/api/products?page=${page}&size=20`);
+    check(res, { 'listing 200': (r) => r.status === 200 });
+}
+
+export function checkout(data) {
+    const productId = data.productIds[Math.floor(Math.random() * data.productIds.length)];
+    const res = http.post(`${BASE_URL}/api/orders`,
+        JSON.stringify({ items: [{ productId, quantity: 1 }] }),
+        { headers: { 'Content-Type': 'application/json', Authorization: `Bearer ${data.token}` } });
+    check(res, { 'checkout 2xx': (r) => r.status >= 200 && r.status < 300 });
+}
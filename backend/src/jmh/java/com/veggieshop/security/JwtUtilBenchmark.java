@@ -0,0 +1,75 @@
+package com.veggieshop.security;
+
+import com.veggieshop.user.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-token cost of {@link JwtUtil} with the key and parser built once, against the previous
+ * approach of passing the base64 secret to a new builder / parser for every token.
+ * <p>
+ * Run with {@code mvn -Pjmh test-compile exec:exec -Djmh.args='JwtUtilBenchmark -f 1'}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class JwtUtilBenchmark {
+
+    private static final long EXPIRATION_MS = 15 * 60 * 1000;
+
+    private String secret;
+    private JwtUtil jwtUtil;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        secret = Base64.getEncoder().encodeToString(Keys.secretKeyFor(SignatureAlgorithm.HS512).getEncoded());
+        jwtUtil = new JwtUtil(secret, EXPIRATION_MS, "k1", List.of());
+        user = User.builder().id(42L).email("user@example.com").role(User.Role.USER).build();
+        token = jwtUtil.generateAccessToken(user);
+    }
+
+    @Benchmark
+    public Claims parsePrebuilt() {
+        return jwtUtil.parseClaims(token);
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public Claims parsePerToken() {
+        return Jwts.parser()
+                .setSigningKey(secret)
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    @Benchmark
+    public String signPrebuilt() {
+        return jwtUtil.generateAccessToken(user);
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public String signPerToken() {
+        return Jwts.builder()
+                .setSubject(user.getEmail())
+                .claim(JwtUtil.CLAIM_USER_ID, user.getId())
+                .claim(JwtUtil.CLAIM_ROLE, user.getRole().name())
+                .claim(JwtUtil.CLAIM_TOKEN_VERSION, user.getTokenVersion())
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_MS))
+                .signWith(SignatureAlgorithm.HS512, secret)
+                .compact();
+    }
+}
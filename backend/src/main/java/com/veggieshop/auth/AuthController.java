@@ -3,7 +3,7 @@ package com.veggieshop.auth;
 import com.veggieshop.common.ApiResponse;
 import com.veggieshop.common.ApiError;
 import com.veggieshop.common.ApiResponseUtil;
-import com.veggieshop.user.UserRepository;
+import com.veggieshop.security.CurrentUserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -16,13 +16,13 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import jakarta.servlet.http.Cookie;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.Arrays;
+
 @RestController
 @RequestMapping("/api/auth")
 @RequiredArgsConstructor
@@ -31,7 +31,7 @@ import org.springframework.web.server.ResponseStatusException;
 public class AuthController {
 
     private final AuthService authService;
-    private final UserRepository userRepository;
+    private final CurrentUserService currentUserService;
     private final RefreshTokenRepository refreshTokenRepository;
     private final SessionMapper sessionMapper;
 
@@ -207,17 +207,15 @@ public class AuthController {
     })
     @GetMapping("/sessions")
     public ResponseEntity<ApiResponse<SessionsResponse>> getUserSessions(
-            @AuthenticationPrincipal UserDetails userDetails,
             @Parameter(hidden = true)
             @CookieValue(name = "refreshToken", required = false) String currentRefreshToken
     ) {
-        var user = userRepository.findByEmail(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        var tokens = refreshTokenRepository.findByUser(user);
+        var tokens = refreshTokenRepository.findByUserId(currentUserService.getCurrentUserId());
         var sessions = tokens.stream().map(sessionMapper::toSessionDto).toList();
 
+        byte[] currentHash = currentRefreshToken != null ? RefreshToken.hash(currentRefreshToken) : null;
         Long currentSessionId = tokens.stream()
-                .filter(token -> token.getToken().equals(currentRefreshToken))
+                .filter(token -> Arrays.equals(token.getTokenHash(), currentHash))
                 .map(RefreshToken::getId)
                 .findFirst()
                 .orElse(null);
@@ -241,17 +239,15 @@ public class AuthController {
     })
     @PostMapping("/sessions/{id}/revoke")
     public ResponseEntity<ApiResponse<Void>> revokeSession(
-            @AuthenticationPrincipal UserDetails userDetails,
             @Parameter(description = "Session ID to revoke", required = true)
             @PathVariable Long id
     ) {
-        var user = userRepository.findByEmail(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        Long userId = currentUserService.getCurrentUserId();
 
         var token = refreshTokenRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Session not found"));
 
-        if (!token.getUser().getId().equals(user.getId())) {
+        if (!token.getUser().getId().equals(userId)) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Forbidden");
         }
 
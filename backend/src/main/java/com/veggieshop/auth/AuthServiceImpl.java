@@ -4,6 +4,7 @@ import com.veggieshop.exception.BadRequestException;
 import com.veggieshop.exception.DuplicateException;
 import com.veggieshop.exception.ResourceNotFoundException;
 import com.veggieshop.security.JwtUtil;
+import com.veggieshop.security.TokenVersionRegistry;
 import com.veggieshop.user.User;
 import com.veggieshop.user.UserRepository;
 import com.veggieshop.user.UserMapper;
@@ -13,8 +14,6 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -32,6 +31,7 @@ public class AuthServiceImpl implements AuthService {
     private final EmailService emailService;
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
+    private final TokenVersionRegistry tokenVersionRegistry;
 
     @Value("${app.reset-link-base}")
     private String resetLinkBase;
@@ -57,8 +57,7 @@ public class AuthServiceImpl implements AuthService {
 
         user = userRepository.save(user);
 
-        UserDetails userDetails = buildUserDetails(user);
-        String accessToken = jwtUtil.generateAccessToken(userDetails);
+        String accessToken = jwtUtil.generateAccessToken(user);
         RefreshToken refreshToken = refreshTokenService.createToken(user, deviceInfo);
 
         setRefreshTokenCookie(response, refreshToken.getToken());
@@ -68,14 +67,14 @@ public class AuthServiceImpl implements AuthService {
 
     @Override
     public AuthDto.AuthResponse login(AuthDto.AuthRequest request, String deviceInfo, HttpServletResponse response) {
-        Authentication authentication = authenticationManager.authenticate(
+        authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
         );
 
         User user = userRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new BadRequestException("Invalid credentials"));
 
-        String accessToken = jwtUtil.generateAccessToken((UserDetails) authentication.getPrincipal());
+        String accessToken = jwtUtil.generateAccessToken(user);
         RefreshToken refreshToken = refreshTokenService.createToken(user, deviceInfo);
 
         setRefreshTokenCookie(response, refreshToken.getToken());
@@ -85,19 +84,15 @@ public class AuthServiceImpl implements AuthService {
 
     @Override
     public AuthDto.RefreshResponse refresh(String refreshTokenValue, String deviceInfo, HttpServletResponse response) {
-        RefreshToken existingToken = refreshTokenService.validateToken(refreshTokenValue);
+        RefreshToken newToken = refreshTokenService.rotateToken(refreshTokenValue, deviceInfo);
 
-        refreshTokenService.revokeToken(existingToken.getToken());
-        RefreshToken newToken = refreshTokenService.createToken(existingToken.getUser(), deviceInfo);
-
-        UserDetails userDetails = buildUserDetails(existingToken.getUser());
-        String newAccessToken = jwtUtil.generateAccessToken(userDetails);
+        String newAccessToken = jwtUtil.generateAccessToken(newToken.getUser());
 
         setRefreshTokenCookie(response, newToken.getToken());
 
         AuthDto.RefreshResponse resp = new AuthDto.RefreshResponse();
         resp.setAccessToken(newAccessToken);
-        resp.setUserEmail(existingToken.getUser().getEmail());
+        resp.setUserEmail(newToken.getUser().getEmail());
         return resp;
     }
 
@@ -122,6 +117,7 @@ public class AuthServiceImpl implements AuthService {
         PasswordResetToken token = passwordResetTokenService.validateToken(request.getToken());
         User user = token.getUser();
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
+        tokenVersionRegistry.revokeTokens(user);
         userRepository.save(user);
         passwordResetTokenService.markTokenAsUsed(token);
 
@@ -131,14 +127,6 @@ public class AuthServiceImpl implements AuthService {
 
     // ============== Helper methods ==============
 
-    private UserDetails buildUserDetails(User user) {
-        return org.springframework.security.core.userdetails.User
-                .withUsername(user.getEmail())
-                .password(user.getPassword())
-                .roles(user.getRole().name())
-                .build();
-    }
-
     private AuthDto.AuthResponse buildAuthResponse(String token, User user) {
         AuthDto.AuthResponse resp = new AuthDto.AuthResponse();
         resp.setToken(token);
@@ -2,7 +2,7 @@ package com.veggieshop.auth;
 
 public interface EmailService {
     /**
-     * Sends a password reset email with the given reset link.
+     * Queues a password reset email with the given reset link; it is delivered in the background.
      *
      * @param toEmail   The recipient's email address.
      * @param name      The recipient's display name.
@@ -0,0 +1,140 @@
+package com.veggieshop.auth;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deletes refresh tokens that are revoked or expired, password-reset tokens that are used or
+ * expired, and order idempotency keys past their retention.
+ * <p>
+ * Rows go in chunks of {@code batch-size} ({@code DELETE ... WHERE id IN (SELECT ... LIMIT n)}),
+ * each chunk its own short autocommit transaction, with a pause in between, so the purge never
+ * holds many row locks or long transactions. The chunk query skips rows locked by a request in
+ * flight ({@code SKIP LOCKED}) rather than waiting for them; the next run gets them. Only one
+ * replica purges at a time: the run holds a Postgres session advisory lock and is skipped when
+ * another node has it. Rows purged are logged per run and counted as {@code tokens.purged{table}}.
+ */
+@Component
+public class ExpiredTokenPurgeJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpiredTokenPurgeJob.class);
+
+    // Arbitrary application-wide key for pg_try_advisory_lock
+    public static final long LOCK_KEY = 0x5645474750555247L; // "VEGGPURG"
+
+    /**
+     * A table to purge and the condition selecting its dead rows ({@code ?} = now).
+     */
+    private record Target(String table, String deadRows) {
+
+        String deleteChunkSql() {
+            return "DELETE FROM " + table + " WHERE id IN (SELECT id FROM " + table
+                    + " WHERE " + deadRows + " LIMIT ? FOR UPDATE SKIP LOCKED)";
+        }
+    }
+
+    private static final List<Target> TARGETS = List.of(
+            new Target("refresh_token", "revoked OR expiry_date < ?"),
+            new Target("password_reset_tokens", "used OR expiry_date < ?"),
+            new Target("order_idempotency_keys", "expires_at < ?")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, Counter> purgedCounters = new LinkedHashMap<>();
+
+    @Value("${app.purge.batch-size:1000}")
+    private int batchSize = 1000;
+
+    @Value("${app.purge.pause:200ms}")
+    private Duration pause = Duration.ofMillis(200);
+
+    public ExpiredTokenPurgeJob(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        for (Target target : TARGETS) {
+            purgedCounters.put(target.table(), Counter.builder("tokens.purged")
+                    .description("Expired or revoked token rows deleted by the purge job")
+                    .tag("table", target.table())
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Purges every table, unless another node is already purging. Called by the scheduler.
+     *
+     * @return Rows deleted per table; empty if the run was skipped.
+     */
+    @Scheduled(cron = "${app.purge.cron:0 17 * * * *}")
+    public Map<String, Integer> purge() {
+        Map<String, Integer> purged = jdbcTemplate.execute((ConnectionCallback<Map<String, Integer>>) connection -> {
+            JdbcTemplate session = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            if (!Boolean.TRUE.equals(session.queryForObject("SELECT pg_try_advisory_lock(?)", Boolean.class, LOCK_KEY))) {
+                return Map.of();
+            }
+            boolean autoCommit = connection.getAutoCommit();
+            try {
+                connection.setAutoCommit(true);
+                Map<String, Integer> counts = new LinkedHashMap<>();
+                for (Target target : TARGETS) {
+                    counts.put(target.table(), purge(session, target));
+                }
+                return counts;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+                session.queryForObject("SELECT pg_advisory_unlock(?)", Boolean.class, LOCK_KEY);
+            }
+        });
+
+        if (purged == null || purged.isEmpty()) {
+            log.debug("Token purge skipped: another node holds the lock");
+            return Map.of();
+        }
+        purged.forEach((table, rows) -> purgedCounters.get(table).increment(rows));
+        int total = purged.values().stream().mapToInt(Integer::intValue).sum();
+        if (total > 0) {
+            log.info("Purged {} expired or revoked token rows: {}", total, purged);
+        }
+        return purged;
+    }
+
+    // ============== Helper methods ==============
+
+    private int purge(JdbcTemplate session, Target target) {
+        String sql = target.deleteChunkSql();
+        int total = 0;
+        while (true) {
+            int deleted = session.update(sql, Timestamp.from(Instant.now()), batchSize);
+            total += deleted;
+            if (deleted < batchSize || !pause()) {
+                return total;
+            }
+        }
+    }
+
+    /**
+     * Sleeps between chunks; false if interrupted (shutdown), which ends the run.
+     */
+    private boolean pause() {
+        try {
+            Thread.sleep(pause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -9,7 +9,8 @@ import java.time.Instant;
 @Table(
         name = "password_reset_tokens",
         indexes = {
-                @Index(columnList = "token", unique = true)
+                @Index(columnList = "token", unique = true),
+                @Index(columnList = "expiry_date")
         }
 )
 @Getter
@@ -21,7 +21,8 @@ public interface PasswordResetTokenService {
     void markTokenAsUsed(PasswordResetToken token);
 
     /**
-     * Delete all expired tokens (housekeeping/cronjob).
+     * Delete all expired tokens in one statement.
+     * Scheduled housekeeping goes through {@link ExpiredTokenPurgeJob}, which deletes in bounded chunks.
      */
     void deleteExpiredTokens();
 }
@@ -3,9 +3,18 @@ package com.veggieshop.auth;
 import com.veggieshop.user.User;
 import jakarta.persistence.*;
 import lombok.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 
 @Entity
+@Table(
+        indexes = {
+                @Index(columnList = "expiry_date")
+        }
+)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -17,7 +26,12 @@ public class RefreshToken {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false, unique = true)
+    // SHA-256 of the token; the token itself is never stored
+    @Column(name = "token_hash", nullable = false, unique = true, length = 32)
+    private byte[] tokenHash;
+
+    // Raw token value, only known on the instance returned when it is issued
+    @Transient
     private String token;
 
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
@@ -32,4 +46,15 @@ public class RefreshToken {
 
     @Column(nullable = false)
     private boolean revoked = false;
+
+    /**
+     * The digest stored for a raw token value.
+     */
+    public static byte[] hash(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
 }
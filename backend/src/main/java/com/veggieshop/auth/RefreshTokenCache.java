@@ -0,0 +1,75 @@
+package com.veggieshop.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * In-memory hot tier in front of the refresh-token table, keyed by token digest.
+ * <p>
+ * Remembers the expiry of tokens issued or validated recently, and which digests were rotated,
+ * revoked or never existed. Only rejections are answered from here: a token that is revoked,
+ * expired or unknown can never become valid again, so a replayed cookie or a second tab refreshing
+ * with an already-rotated token is turned away without a query. A token this tier considers valid
+ * is still checked by the database (it may have been revoked on another node). Hit/miss counters
+ * are published as {@code cache.*{cache=refresh.tokens}} meters.
+ */
+@Component
+public class RefreshTokenCache {
+
+    /**
+     * What is known about one digest: its expiry, or that it is rejected.
+     */
+    private record State(Instant expiryDate, boolean rejected) {
+    }
+
+    private static final State REJECTED = new State(null, true);
+
+    private final Cache<ByteBuffer, State> cache;
+
+    public RefreshTokenCache(
+            MeterRegistry meterRegistry,
+            @Value("${app.security.refresh-token-cache.max-size:10000}") long maxSize,
+            @Value("${app.security.refresh-token-cache.ttl:1h}") Duration ttl
+    ) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "refresh.tokens");
+    }
+
+    /**
+     * Records a token that is valid until {@code expiryDate}.
+     */
+    public void remember(byte[] tokenHash, Instant expiryDate) {
+        cache.put(ByteBuffer.wrap(tokenHash), new State(expiryDate, false));
+    }
+
+    /**
+     * Records a token that was rotated, revoked or not found.
+     */
+    public void reject(byte[] tokenHash) {
+        cache.put(ByteBuffer.wrap(tokenHash), REJECTED);
+    }
+
+    /**
+     * True when the token is known to be unusable at {@code now}; false means "ask the database".
+     */
+    public boolean isRejected(byte[] tokenHash, Instant now) {
+        State state = cache.getIfPresent(ByteBuffer.wrap(tokenHash));
+        return state != null && (state.rejected() || !state.expiryDate().isAfter(now));
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+}
@@ -2,12 +2,23 @@ package com.veggieshop.auth;
 
 import com.veggieshop.user.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import java.util.List;
 import java.util.Optional;
 
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
-    Optional<RefreshToken> findByToken(String token);
+    Optional<RefreshToken> findByTokenHash(byte[] tokenHash);
     void deleteByUser(User user);
 
     List<RefreshToken> findByUser(User user);
+
+    List<RefreshToken> findByUserId(Long userId);
+
+    // Revokes in place, without loading the entity
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.revoked = true WHERE t.tokenHash = :tokenHash AND t.revoked = false")
+    int revokeByTokenHash(@Param("tokenHash") byte[] tokenHash);
 }
@@ -6,6 +6,7 @@ public interface RefreshTokenService {
 
     /**
      * Create a new refresh token for a user/device.
+     * The raw token value is only available on the returned instance.
      */
     RefreshToken createToken(User user, String deviceInfo);
 
@@ -15,6 +16,12 @@ public interface RefreshTokenService {
      */
     RefreshToken validateToken(String token);
 
+    /**
+     * Rotate a refresh token: revoke it and issue its replacement for the same user, atomically.
+     * Throws 401 if the token is unknown, revoked, expired or was rotated concurrently.
+     */
+    RefreshToken rotateToken(String token, String deviceInfo);
+
     /**
      * Revoke (invalidate) a refresh token (logout a session).
      */
@@ -1,20 +1,46 @@
 package com.veggieshop.auth;
 
 import com.veggieshop.user.User;
+import com.veggieshop.user.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.sql.Timestamp;
 import java.time.Instant;
-import java.util.Optional;
+import java.util.List;
 import java.util.UUID;
 
+/**
+ * Refresh tokens are stored as their SHA-256 digest (unique index), so a leaked table does not
+ * leak usable tokens and every lookup is a fixed-length index probe. Rejections are answered from
+ * the {@link RefreshTokenCache} hot tier when possible.
+ */
 @Service
 @RequiredArgsConstructor
 public class RefreshTokenServiceImpl implements RefreshTokenService {
 
+    // Revokes the old token and inserts its replacement in one statement; the row lock on the old
+    // token makes a concurrent second rotation of the same token find it revoked and insert nothing
+    private static final String ROTATE_SQL = """
+            WITH rotated AS (
+                UPDATE refresh_token SET revoked = true
+                WHERE token_hash = ? AND revoked = false AND expiry_date > ?
+                RETURNING user_id
+            )
+            INSERT INTO refresh_token (token_hash, user_id, device_info, expiry_date, revoked)
+            SELECT ?, user_id, ?, ?, false FROM rotated
+            RETURNING id, user_id
+            """;
+
     private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final RefreshTokenCache refreshTokenCache;
 
     // 7 days in seconds
     public static final long REFRESH_TOKEN_VALIDITY_SECONDS = 7 * 24 * 60 * 60;
@@ -30,13 +56,16 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
 
         RefreshToken refreshToken = RefreshToken.builder()
                 .user(user)
-                .token(token)
+                .tokenHash(RefreshToken.hash(token))
                 .deviceInfo(deviceInfo)
                 .expiryDate(expiry)
                 .revoked(false)
                 .build();
 
-        return refreshTokenRepository.save(refreshToken);
+        RefreshToken saved = refreshTokenRepository.save(refreshToken);
+        saved.setToken(token);
+        afterCommit(() -> refreshTokenCache.remember(saved.getTokenHash(), expiry));
+        return saved;
     }
 
     /**
@@ -44,25 +73,77 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
      */
     @Override
     public RefreshToken validateToken(String token) {
-        RefreshToken refreshToken = refreshTokenRepository.findByToken(token)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Refresh token not found"));
+        byte[] tokenHash = RefreshToken.hash(token);
+        Instant now = Instant.now();
+        if (refreshTokenCache.isRejected(tokenHash, now)) {
+            throw new IllegalArgumentException("Refresh token is expired or revoked");
+        }
+
+        RefreshToken refreshToken = refreshTokenRepository.findByTokenHash(tokenHash)
+                .orElseThrow(() -> {
+                    refreshTokenCache.reject(tokenHash);
+                    return new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Refresh token not found");
+                });
 
-        if (refreshToken.isRevoked() || refreshToken.getExpiryDate().isBefore(Instant.now())) {
+        if (refreshToken.isRevoked() || refreshToken.getExpiryDate().isBefore(now)) {
+            refreshTokenCache.reject(tokenHash);
             throw new IllegalArgumentException("Refresh token is expired or revoked");
         }
+        refreshTokenCache.remember(tokenHash, refreshToken.getExpiryDate());
         return refreshToken;
     }
 
+    /**
+     * Rotate a refresh token in a single statement, then load the owner for the new access token.
+     */
+    @Override
+    public RefreshToken rotateToken(String token, String deviceInfo) {
+        byte[] oldHash = RefreshToken.hash(token);
+        Instant now = Instant.now();
+        if (refreshTokenCache.isRejected(oldHash, now)) {
+            throw invalidRefreshToken();
+        }
+
+        String newToken = UUID.randomUUID().toString();
+        byte[] newHash = RefreshToken.hash(newToken);
+        Instant expiry = now.plusSeconds(REFRESH_TOKEN_VALIDITY_SECONDS);
+        List<long[]> inserted = jdbcTemplate.query(ROTATE_SQL,
+                (rs, rowNum) -> new long[]{rs.getLong("id"), rs.getLong("user_id")},
+                oldHash, Timestamp.from(now), newHash, deviceInfo, Timestamp.from(expiry));
+
+        if (inserted.isEmpty()) {
+            // Nothing was written: the database already has the old token unusable
+            refreshTokenCache.reject(oldHash);
+            throw invalidRefreshToken();
+        }
+        afterCommit(() -> {
+            refreshTokenCache.reject(oldHash);
+            refreshTokenCache.remember(newHash, expiry);
+        });
+
+        // A disabled user's sessions end, even if a rotation raced the revocation
+        User user = userRepository.findById(inserted.get(0)[1])
+                .filter(User::isEnabled)
+                .orElseThrow(RefreshTokenServiceImpl::invalidRefreshToken);
+        return RefreshToken.builder()
+                .id(inserted.get(0)[0])
+                .tokenHash(newHash)
+                .token(newToken)
+                .user(user)
+                .deviceInfo(deviceInfo)
+                .expiryDate(expiry)
+                .revoked(false)
+                .build();
+    }
+
     /**
      * Revoke (invalidate) a specific refresh token.
      */
     @Override
     public void revokeToken(String token) {
-        Optional<RefreshToken> refreshTokenOpt = refreshTokenRepository.findByToken(token);
-        refreshTokenOpt.ifPresent(tokenEntity -> {
-            tokenEntity.setRevoked(true);
-            refreshTokenRepository.save(tokenEntity);
-        });
+        byte[] tokenHash = RefreshToken.hash(token);
+        refreshTokenRepository.revokeByTokenHash(tokenHash);
+        afterCommit(() -> refreshTokenCache.reject(tokenHash));
     }
 
     /**
@@ -72,4 +153,28 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
     public void revokeAllUserTokens(User user) {
         refreshTokenRepository.deleteByUser(user);
     }
+
+    // ============== Helper methods ==============
+
+    /**
+     * Runs a cache update that mirrors this transaction's writes once it commits (right away
+     * without a transaction). After a rollback the database still has the old state, so e.g. a
+     * token whose rotation failed must stay usable.
+     */
+    private static void afterCommit(Runnable cacheUpdate) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cacheUpdate.run();
+                }
+            });
+        } else {
+            cacheUpdate.run();
+        }
+    }
+
+    private static ResponseStatusException invalidRefreshToken() {
+        return new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Refresh token is invalid, expired or revoked");
+    }
 }
@@ -0,0 +1,292 @@
+package com.veggieshop.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Propagates catalog changes to the in-process caches of every backend replica.
+ * <p>
+ * Write paths {@link #publish} an event; after their transaction commits it is applied to the local
+ * listeners right away and queued for the other nodes. Queued events are coalesced for a short
+ * window and sent as one Postgres {@code NOTIFY} on {@value #CHANNEL}. Each node keeps one dedicated
+ * {@code LISTEN} connection; messages carry the sender's node ID and a per-node sequence number, and
+ * any gap (lost message, dropped connection, unreadable payload) makes the receiver flush everything.
+ */
+@Component
+public class CacheInvalidationBus {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    static final String CHANNEL = "catalog_invalidation";
+
+    // Postgres rejects NOTIFY payloads of 8000 bytes or more
+    private static final int MAX_PAYLOAD_BYTES = 7900;
+
+    /**
+     * What goes over the wire.
+     *
+     * @param node   ID of the sending node (random per process start).
+     * @param seq    Sender's message counter, starting at 1 and increasing by exactly one.
+     * @param events The coalesced events.
+     */
+    public record Message(String node, long seq, List<CacheInvalidationEvent> events) {
+    }
+
+    private final List<CacheInvalidationListener> listeners;
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final ObjectMapper objectMapper;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ConcurrentLinkedQueue<CacheInvalidationEvent> outbox = new ConcurrentLinkedQueue<>();
+    private final Map<String, Long> lastSequenceByNode = new ConcurrentHashMap<>();
+    private final ReentrantLock sendLock = new ReentrantLock();
+    private long sequence; // guarded by sendLock
+
+    private final boolean enabled;
+    private final int maxEventsPerMessage;
+    private final long reconnectDelayMs;
+
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    public CacheInvalidationBus(
+            // Lazy: listeners may themselves publish through the bus
+            @Lazy List<CacheInvalidationListener> listeners,
+            JdbcTemplate jdbcTemplate,
+            DataSourceProperties dataSourceProperties,
+            ObjectMapper objectMapper,
+            @Value("${app.cache.invalidation.enabled:true}") boolean enabled,
+            @Value("${app.cache.invalidation.max-events-per-message:100}") int maxEventsPerMessage,
+            @Value("${app.cache.invalidation.reconnect-delay-ms:5000}") long reconnectDelayMs
+    ) {
+        this.listeners = listeners;
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.maxEventsPerMessage = maxEventsPerMessage;
+        this.reconnectDelayMs = reconnectDelayMs;
+    }
+
+    /**
+     * Announces a change. Inside a transaction nothing happens until it commits, so a rollback
+     * never invalidates anything and no node can re-cache the pre-commit state.
+     */
+    public void publish(CacheInvalidationEvent event) {
+        Runnable publish = () -> {
+            deliver(event);
+            if (enabled) {
+                outbox.add(event);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish.run();
+                }
+            });
+        } else {
+            publish.run();
+        }
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    // ================== Sending ==================
+
+    /**
+     * Sends everything published since the last run as a single notification.
+     */
+    @Scheduled(fixedDelayString = "${app.cache.invalidation.coalesce-ms:100}")
+    public void flushOutbox() {
+        sendLock.lock();
+        try {
+            send();
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
+    private void send() {
+        Set<CacheInvalidationEvent> drained = new LinkedHashSet<>();
+        CacheInvalidationEvent next;
+        while ((next = outbox.poll()) != null) {
+            drained.add(next);
+        }
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        List<CacheInvalidationEvent> events = drained.size() > maxEventsPerMessage
+                || drained.stream().anyMatch(e -> e.kind() == CacheInvalidationEvent.Kind.ALL)
+                ? List.of(CacheInvalidationEvent.all())
+                : new ArrayList<>(drained);
+        try {
+            String payload = serialize(new Message(nodeId, sequence + 1, events));
+            if (payload.getBytes(StandardCharsets.UTF_8).length > MAX_PAYLOAD_BYTES) {
+                payload = serialize(new Message(nodeId, sequence + 1, List.of(CacheInvalidationEvent.all())));
+            }
+            notify(payload);
+            sequence++;
+        } catch (RuntimeException e) {
+            // Not sent, so the sequence was not consumed either: retry the same events next run
+            log.warn("Could not publish {} cache invalidation events, will retry: {}", events.size(), e.getMessage());
+            outbox.addAll(events);
+        }
+    }
+
+    private void notify(String payload) {
+        jdbcTemplate.execute("SELECT pg_notify(?, ?)", (PreparedStatementCallback<Boolean>) ps -> {
+            ps.setString(1, CHANNEL);
+            ps.setString(2, payload);
+            return ps.execute();
+        });
+    }
+
+    private String serialize(Message message) {
+        try {
+            return objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize cache invalidation message", e);
+        }
+    }
+
+    // ================== Receiving ==================
+
+    /**
+     * Applies a notification received from the channel. Our own messages are ignored (they were
+     * applied locally at commit); a skipped sequence number means we missed something, so
+     * everything is flushed.
+     */
+    public void handleNotification(String payload) {
+        Message message;
+        try {
+            message = objectMapper.readValue(payload, Message.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Unreadable cache invalidation message, flushing all caches: {}", e.getMessage());
+            deliver(CacheInvalidationEvent.all());
+            return;
+        }
+        if (nodeId.equals(message.node())) {
+            return;
+        }
+
+        Long previous = lastSequenceByNode.put(message.node(), message.seq());
+        if (previous != null && message.seq() != previous + 1) {
+            log.warn("Cache invalidation gap from node {} ({} -> {}), flushing all caches",
+                    message.node(), previous, message.seq());
+            deliver(CacheInvalidationEvent.all());
+            return;
+        }
+        message.events().forEach(this::deliver);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startListening() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        listenerThread = new Thread(this::listen, "cache-invalidation-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (enabled) {
+            flushOutbox();
+        }
+        if (listenerThread != null) {
+            listenerThread.join(reconnectDelayMs);
+        }
+    }
+
+    private void listen() {
+        boolean reconnecting = false;
+        while (running) {
+            // A dedicated connection outside the pool: LISTEN is bound to the session
+            try (Connection connection = DriverManager.getConnection(
+                    dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(),
+                    dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                if (reconnecting) {
+                    // Anything sent while we were disconnected is lost
+                    log.info("Cache invalidation listener reconnected, flushing all caches");
+                    lastSequenceByNode.clear();
+                    deliver(CacheInvalidationEvent.all());
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(500);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            handleNotification(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Cache invalidation listener lost its connection: {}", e.getMessage());
+                reconnecting = true;
+                try {
+                    Thread.sleep(reconnectDelayMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void deliver(CacheInvalidationEvent event) {
+        for (CacheInvalidationListener listener : listeners) {
+            try {
+                listener.onInvalidation(event);
+            } catch (RuntimeException e) {
+                log.error("Cache invalidation listener {} failed", listener.getClass().getSimpleName(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.veggieshop.cache;
+
+import java.util.Set;
+
+/**
+ * A change to catalog or account data that in-process caches must react to.
+ *
+ * @param kind        What changed.
+ * @param id          Product, category or user ID, null for {@link Kind#ALL}.
+ * @param categoryIds For {@link Kind#PRODUCT}: the categories the product was or is now in.
+ */
+public record CacheInvalidationEvent(Kind kind, Long id, Set<Long> categoryIds) {
+
+    public enum Kind {
+        /** A product was created, updated or deleted. */
+        PRODUCT,
+        /** Only how a product is displayed changed (e.g. its offers). */
+        PRODUCT_VIEWS,
+        /** A category was renamed or removed. */
+        CATEGORY,
+        /** A user's credentials, role or account changed: tokens issued before are revoked. */
+        USER,
+        /** Anything may have changed: drop everything. */
+        ALL
+    }
+
+    public CacheInvalidationEvent {
+        categoryIds = categoryIds == null ? Set.of() : Set.copyOf(categoryIds);
+    }
+
+    public static CacheInvalidationEvent product(Long productId, Set<Long> categoryIds) {
+        return new CacheInvalidationEvent(Kind.PRODUCT, productId, categoryIds);
+    }
+
+    public static CacheInvalidationEvent productViews(Long productId) {
+        return new CacheInvalidationEvent(Kind.PRODUCT_VIEWS, productId, Set.of());
+    }
+
+    public static CacheInvalidationEvent category(Long categoryId) {
+        return new CacheInvalidationEvent(Kind.CATEGORY, categoryId, Set.of());
+    }
+
+    public static CacheInvalidationEvent user(Long userId) {
+        return new CacheInvalidationEvent(Kind.USER, userId, Set.of());
+    }
+
+    public static CacheInvalidationEvent all() {
+        return new CacheInvalidationEvent(Kind.ALL, null, Set.of());
+    }
+}
@@ -0,0 +1,10 @@
+package com.veggieshop.cache;
+
+/**
+ * Implemented by in-process caches that must be invalidated when catalog data changes,
+ * on this node or on any other replica.
+ */
+public interface CacheInvalidationListener {
+
+    void onInvalidation(CacheInvalidationEvent event);
+}
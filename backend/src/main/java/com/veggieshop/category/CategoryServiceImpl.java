@@ -1,5 +1,7 @@
 package com.veggieshop.category;
 
+import com.veggieshop.cache.CacheInvalidationBus;
+import com.veggieshop.cache.CacheInvalidationEvent;
 import com.veggieshop.exception.BadRequestException;
 import com.veggieshop.exception.DuplicateException;
 import com.veggieshop.exception.ResourceNotFoundException;
@@ -18,6 +20,7 @@ public class CategoryServiceImpl implements CategoryService {
     private final CategoryRepository categoryRepository;
     private final ProductRepository productRepository;
     private final CategoryMapper categoryMapper;
+    private final CacheInvalidationBus invalidationBus;
 
     @Override
     public CategoryDto.CategoryResponse create(CategoryDto.CategoryCreateRequest request) {
@@ -39,6 +42,7 @@ public class CategoryServiceImpl implements CategoryService {
         category.setName(request.getName());
         category.setDescription(request.getDescription());
         Category updated = categoryRepository.save(category);
+        invalidationBus.publish(CacheInvalidationEvent.category(id));
         return categoryMapper.toCategoryResponse(updated);
     }
 
@@ -51,6 +55,7 @@ public class CategoryServiceImpl implements CategoryService {
             throw new BadRequestException("Cannot delete a category with associated products.");
         }
         categoryRepository.deleteById(id);
+        invalidationBus.publish(CacheInvalidationEvent.category(id));
     }
 
     @Override
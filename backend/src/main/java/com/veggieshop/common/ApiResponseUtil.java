@@ -1,6 +1,11 @@
 package com.veggieshop.common;
 
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
@@ -22,15 +27,54 @@ public class ApiResponseUtil {
                 .totalPages(page.getTotalPages())
                 .first(page.isFirst())
                 .last(page.isLast())
-                .sort(
-                        page.getSort().stream()
-                                .map(order -> order.getProperty() + "," + order.getDirection())
-                                .collect(Collectors.toList())
-                )
+                .hasNext(page.hasNext())
+                .sort(sortOf(page.getSort()))
                 .build();
         return ResponseEntity.ok(ApiResponse.success(page.getContent(), meta));
     }
 
+    /**
+     * Count-free mode (see {@link SlicePaging}): page flags without totals.
+     */
+    public static <T> ResponseEntity<ApiResponse<List<T>>> ok(Slice<T> slice) {
+        Meta meta = Meta.builder()
+                .page(slice.getNumber())
+                .size(slice.getSize())
+                .first(slice.isFirst())
+                .last(slice.isLast())
+                .hasNext(slice.hasNext())
+                .sort(sortOf(slice.getSort()))
+                .build();
+        return ResponseEntity.ok(ApiResponse.success(slice.getContent(), meta));
+    }
+
+    /**
+     * Keyset mode: {@code position} is the one the window was fetched from.
+     */
+    public static <T> ResponseEntity<ApiResponse<List<T>>> ok(Window<T> window, Pageable pageable,
+                                                              KeysetScrollPosition position) {
+        // A backward window's hasNext() means more rows before it
+        boolean moreBefore = position.scrollsBackward() ? window.hasNext() : !position.isInitial();
+        boolean moreAfter = position.scrollsBackward() ? !position.isInitial() : window.hasNext();
+        boolean empty = window.isEmpty();
+        Meta meta = Meta.builder()
+                .size(pageable.getPageSize())
+                .first(!moreBefore)
+                .last(!moreAfter)
+                .hasNext(moreAfter)
+                .sort(sortOf(pageable.getSort()))
+                .nextCursor(moreAfter && !empty ? KeysetCursor.encode(window.positionAt(window.size() - 1)) : null)
+                .prevCursor(moreBefore && !empty ? KeysetCursor.encode(window.positionAt(0)) : null)
+                .build();
+        return ResponseEntity.ok(ApiResponse.success(window.getContent(), meta));
+    }
+
+    private static List<String> sortOf(Sort sort) {
+        return sort.stream()
+                .map(order -> order.getProperty() + "," + order.getDirection())
+                .collect(Collectors.toList());
+    }
+
     public static <T> ResponseEntity<ApiResponse<T>> ok(T data, Meta meta) {
         return ResponseEntity.ok(ApiResponse.success(data, meta));
     }
@@ -5,12 +5,16 @@ import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.env.Environment;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.MissingRequestCookieException;
@@ -76,6 +80,28 @@ public class GlobalExceptionHandler {
         return errorResponse(HttpStatus.UNAUTHORIZED, "Invalid credentials provided.", req.getRequestURI());
     }
 
+    // === 401 - Disabled account (Spring Security) ===
+    @ExceptionHandler(DisabledException.class)
+    public ResponseEntity<ApiResponse<Object>> handleDisabled(DisabledException ex, HttpServletRequest req) {
+        return errorResponse(HttpStatus.UNAUTHORIZED, "This account is disabled.", req.getRequestURI());
+    }
+
+    // === 503 - Overloaded, retry shortly (custom) ===
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ApiResponse<Object>> handleServiceUnavailable(ServiceUnavailableException ex, HttpServletRequest req) {
+        ResponseEntity<ApiResponse<Object>> response = errorResponse(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage(), req.getRequestURI());
+        return ResponseEntity.status(response.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(response.getBody());
+    }
+
+    // === 503 - No database connection within the wait limit ===
+    @ExceptionHandler({CannotCreateTransactionException.class, DataAccessResourceFailureException.class})
+    public ResponseEntity<ApiResponse<Object>> handleDatabaseUnavailable(Exception ex, HttpServletRequest req) {
+        log.warn("Database unavailable at {}: {}", req.getRequestURI(), ex.getMessage());
+        return handleServiceUnavailable(new ServiceUnavailableException("Server is busy, please retry shortly."), req);
+    }
+
     // === 400 - Missing required cookie ===
     @ExceptionHandler(MissingRequestCookieException.class)
     public ResponseEntity<ApiResponse<Object>> handleMissingCookie(MissingRequestCookieException ex, HttpServletRequest req) {
@@ -0,0 +1,96 @@
+package com.veggieshop.common;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.cfg.JsonNodeFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.veggieshop.exception.BadRequestException;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PropertyPath;
+import org.springframework.data.mapping.PropertyReferenceException;
+
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Opaque cursors for keyset (seek) pagination.
+ * <p>
+ * A cursor is the sort-key values of a boundary row (base64url JSON). List endpoints accept it as
+ * {@code after} (rows following it) or {@code before} (rows preceding it); an empty {@code after}
+ * starts from the first row and an empty {@code before} from the last. The client must keep the
+ * same {@code sort} while following cursors.
+ */
+public final class KeysetCursor {
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            // Decimal keys keep their exact value and scale
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+            .disable(JsonNodeFeature.STRIP_TRAILING_BIGDECIMAL_ZEROES)
+            .build();
+
+    private KeysetCursor() {
+    }
+
+    /**
+     * Whether the request asks for keyset mode instead of page numbers.
+     */
+    public static boolean requested(String after, String before) {
+        return after != null || before != null;
+    }
+
+    /**
+     * Builds the scroll position for a request.
+     *
+     * @param domainType The entity being listed, to restore the key types.
+     * @throws BadRequestException if both cursors are given, or the cursor is malformed or was
+     *                             issued for a different sort.
+     */
+    public static KeysetScrollPosition position(String after, String before, Sort sort, Class<?> domainType) {
+        if (after != null && before != null) {
+            throw new BadRequestException("Use either 'after' or 'before', not both");
+        }
+        String cursor = after != null ? after : before;
+        Map<String, Object> keys = cursor.isEmpty() ? Map.of() : decode(cursor, sort, domainType);
+        return after != null ? ScrollPosition.forward(keys) : ScrollPosition.backward(keys);
+    }
+
+    public static String encode(ScrollPosition position) {
+        try {
+            byte[] json = MAPPER.writeValueAsBytes(((KeysetScrollPosition) position).getKeys());
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot encode cursor", e);
+        }
+    }
+
+    private static Map<String, Object> decode(String cursor, Sort sort, Class<?> domainType) {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        try {
+            Map<String, JsonNode> raw = MAPPER.readValue(Base64.getUrlDecoder().decode(cursor),
+                    new TypeReference<Map<String, JsonNode>>() {
+                    });
+            for (Map.Entry<String, JsonNode> entry : raw.entrySet()) {
+                Class<?> type = PropertyPath.from(entry.getKey(), domainType).getLeafType();
+                keys.put(entry.getKey(), MAPPER.treeToValue(entry.getValue(), type));
+            }
+        } catch (java.io.IOException | IllegalArgumentException | PropertyReferenceException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        for (Sort.Order order : sort) {
+            if (!keys.containsKey(order.getProperty())) {
+                throw new BadRequestException("Cursor does not match the requested sort");
+            }
+        }
+        return keys;
+    }
+}
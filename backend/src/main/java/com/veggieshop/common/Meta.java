@@ -1,6 +1,8 @@
 package com.veggieshop.common;
 
 import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 
 @Getter
@@ -9,11 +11,23 @@ import lombok.*;
 @AllArgsConstructor
 @Builder
 public class Meta {
-    private int page;
+    // Totals are absent with count=false, page numbers and totals in keyset (cursor) mode
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer page;
     private int size;
-    private long totalElements;
-    private int totalPages;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long totalElements;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer totalPages;
     private boolean first;
     private boolean last;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean hasNext;
     private List<String> sort;
+
+    // Keyset mode: pass as 'after' / 'before' to fetch the next / previous rows
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String prevCursor;
 }
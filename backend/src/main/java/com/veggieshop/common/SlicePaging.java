@@ -0,0 +1,31 @@
+package com.veggieshop.common;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Window;
+
+/**
+ * Count-free paging ({@code ?count=false}): a page is read through the same scroll queries as
+ * keyset mode, from an offset position, fetching one row past the page to tell whether there is a
+ * next one. No {@code count(*)} query runs, so the response carries no totals.
+ */
+public final class SlicePaging {
+
+    private SlicePaging() {
+    }
+
+    /**
+     * The offset position of a page. Offset positions point at the last row already seen.
+     */
+    public static ScrollPosition position(Pageable pageable) {
+        return pageable.getOffset() == 0
+                ? ScrollPosition.offset()
+                : ScrollPosition.offset(pageable.getOffset() - 1);
+    }
+
+    public static <T> Slice<T> toSlice(Window<T> window, Pageable pageable) {
+        return new SliceImpl<>(window.getContent(), pageable, window.hasNext());
+    }
+}
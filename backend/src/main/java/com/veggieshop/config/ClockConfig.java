@@ -0,0 +1,21 @@
+package com.veggieshop.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+import java.time.ZoneId;
+
+/**
+ * The shop's clock. Offers start and end on calendar days in the shop's time zone
+ * ({@code app.shop.zone-id}, server zone if empty), whatever zone the servers run in.
+ */
+@Configuration
+public class ClockConfig {
+
+    @Bean
+    public Clock shopClock(@Value("${app.shop.zone-id:}") String zoneId) {
+        return zoneId.isBlank() ? Clock.systemDefaultZone() : Clock.system(ZoneId.of(zoneId));
+    }
+}
@@ -22,8 +22,8 @@ public class CorsConfig {
         cfg.setAllowedOrigins(ALLOWED_ORIGINS);
 
         cfg.setAllowedMethods(List.of("GET","POST","PUT","PATCH","DELETE","OPTIONS"));
-        cfg.setAllowedHeaders(List.of("Authorization","Content-Type","X-Requested-With"));
-        cfg.setExposedHeaders(List.of());
+        cfg.setAllowedHeaders(List.of("Authorization","Content-Type","X-Requested-With","Idempotency-Key"));
+        cfg.setExposedHeaders(List.of("Idempotent-Replayed"));
         cfg.setAllowCredentials(true);
         cfg.setMaxAge(3600L);
 
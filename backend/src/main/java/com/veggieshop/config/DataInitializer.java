@@ -142,6 +142,7 @@ public class DataInitializer {
                     .user(user1)
                     .totalPrice(new BigDecimal("5.15"))
                     .status(Order.Status.PAID)
+                    .soldCountApplied(true) // seeded soldCount already includes these
                     .createdAt(LocalDateTime.now().minusDays(1))
                     .build();
             order1 = orderRepository.save(order1);
@@ -150,6 +151,7 @@ public class DataInitializer {
                     .user(user2)
                     .totalPrice(new BigDecimal("3.20"))
                     .status(Order.Status.SHIPPED)
+                    .soldCountApplied(true) // seeded soldCount already includes these
                     .createdAt(LocalDateTime.now().minusDays(2))
                     .build();
             order2 = orderRepository.save(order2);
@@ -158,6 +160,7 @@ public class DataInitializer {
                     .user(user3)
                     .totalPrice(new BigDecimal("7.50"))
                     .status(Order.Status.PENDING)
+                    .soldCountApplied(true) // seeded soldCount already includes these
                     .createdAt(LocalDateTime.now())
                     .build();
             order3 = orderRepository.save(order3);
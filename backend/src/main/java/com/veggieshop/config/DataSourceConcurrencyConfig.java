@@ -0,0 +1,43 @@
+package com.veggieshop.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Puts the application's DataSource behind a {@link ConcurrencyLimitedDataSource}. On by default
+ * in virtual-thread mode ({@code spring.threads.virtual.enabled}), where nothing else bounds how
+ * many requests reach the database at once.
+ * <p>
+ * The limit defaults to the Hikari pool size, so it is the pool size that should be tuned
+ * ({@code spring.datasource.hikari.maximum-pool-size}, roughly twice the database's cores).
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.concurrency-limit.enabled", havingValue = "true")
+public class DataSourceConcurrencyConfig {
+
+    @Bean
+    public static BeanPostProcessor concurrencyLimitedDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ConcurrencyLimitedDataSource) {
+                    return bean;
+                }
+                int permits = environment.getProperty("app.datasource.concurrency-limit.permits", Integer.class, 0);
+                if (permits <= 0) {
+                    permits = bean instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : 10;
+                }
+                Duration maxWait = environment.getProperty("app.datasource.concurrency-limit.max-wait",
+                        Duration.class, Duration.ofSeconds(5));
+                return new ConcurrencyLimitedDataSource(dataSource, permits, maxWait);
+            }
+        };
+    }
+}
@@ -0,0 +1,39 @@
+package com.veggieshop.config;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Carries the submitting thread's security context and request attributes onto executor threads,
+ * so work handed off by a request (async MVC handlers, {@code @Async} methods) sees the same
+ * principal, and the same per-request memoized state, as the request itself.
+ * <p>
+ * Spring Boot applies a unique {@link TaskDecorator} bean to the auto-configured application task
+ * executor, both the thread pool and the virtual-thread variant. Both holders are thread-local, and
+ * are restored afterwards so pooled threads do not leak one request's principal into the next task.
+ */
+@Component
+public class RequestContextTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        return () -> {
+            SecurityContext previousContext = SecurityContextHolder.getContext();
+            RequestAttributes previousAttributes = RequestContextHolder.getRequestAttributes();
+            SecurityContextHolder.setContext(securityContext);
+            RequestContextHolder.setRequestAttributes(requestAttributes);
+            try {
+                runnable.run();
+            } finally {
+                SecurityContextHolder.setContext(previousContext);
+                RequestContextHolder.setRequestAttributes(previousAttributes);
+            }
+        };
+    }
+}
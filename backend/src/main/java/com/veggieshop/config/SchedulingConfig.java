@@ -0,0 +1,13 @@
+package com.veggieshop.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background jobs (e.g. sold-count flushing). They run on a pool of
+ * {@code spring.task.scheduling.pool.size} threads, so a slow job does not delay the others.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
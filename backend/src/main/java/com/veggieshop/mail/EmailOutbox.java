@@ -0,0 +1,245 @@
+package com.veggieshop.mail;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Transactional outbox for outbound mail.
+ * <p>
+ * {@link #enqueue} only inserts a row, in the caller's transaction, so a request never waits on
+ * SMTP and a rolled-back request sends nothing. {@link #dispatch()} runs in the background on its
+ * own thread ({@link EmailOutboxDispatcher}): it claims due rows in batches ({@code FOR UPDATE
+ * SKIP LOCKED}, so replicas never claim the same row), sends each batch over a single SMTP connection outside any transaction, deletes what was
+ * delivered and reschedules failures with exponential backoff. A message still failing after
+ * {@code max-attempts} is dead-lettered ({@link OutboundEmail.Status#DEAD}) and kept for inspection.
+ * <p>
+ * Claiming pushes {@code next_attempt_at} out by the lease, so rows claimed by a node that dies
+ * mid-batch are retried once the lease runs out. Delivery is therefore at-least-once.
+ * Outcomes are counted as {@code mail.outbox.messages{result=sent|retried|dead}}.
+ */
+@Component
+public class EmailOutbox {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutbox.class);
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private static final String CLAIM_SQL = """
+            UPDATE email_outbox o SET attempts = o.attempts + 1, next_attempt_at = ?
+            FROM (SELECT id FROM email_outbox
+                  WHERE status = 'PENDING' AND next_attempt_at <= ?
+                  ORDER BY next_attempt_at, id
+                  LIMIT ?
+                  FOR UPDATE SKIP LOCKED) due
+            WHERE o.id = due.id
+            RETURNING o.id, o.recipient, o.subject, o.body, o.attempts
+            """;
+    private static final String DELETE_SENT_SQL = "DELETE FROM email_outbox WHERE id = ANY(?)";
+    private static final String RETRY_SQL =
+            "UPDATE email_outbox SET next_attempt_at = ?, last_error = ? WHERE id = ?";
+    private static final String DEAD_SQL =
+            "UPDATE email_outbox SET status = 'DEAD', last_error = ? WHERE id = ?";
+
+    private final OutboundEmailRepository outboundEmailRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final JavaMailSender mailSender;
+    private final Clock clock;
+
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter dead;
+
+    @Value("${app.mail.from:no-reply@veggieshop.com}")
+    private String fromAddress = "no-reply@veggieshop.com";
+
+    @Value("${app.mail.outbox.batch-size:50}")
+    private int batchSize = 50;
+
+    @Value("${app.mail.outbox.max-attempts:8}")
+    private int maxAttempts = 8;
+
+    @Value("${app.mail.outbox.initial-backoff:30s}")
+    private Duration initialBackoff = Duration.ofSeconds(30);
+
+    @Value("${app.mail.outbox.max-backoff:1h}")
+    private Duration maxBackoff = Duration.ofHours(1);
+
+    @Value("${app.mail.outbox.lease:5m}")
+    private Duration lease = Duration.ofMinutes(5);
+
+    public EmailOutbox(OutboundEmailRepository outboundEmailRepository, JdbcTemplate jdbcTemplate,
+                       TransactionTemplate transactionTemplate, JavaMailSender mailSender, Clock clock,
+                       MeterRegistry meterRegistry) {
+        this.outboundEmailRepository = outboundEmailRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.mailSender = mailSender;
+        this.clock = clock;
+        this.sent = counter(meterRegistry, "sent");
+        this.retried = counter(meterRegistry, "retried");
+        this.dead = counter(meterRegistry, "dead");
+    }
+
+    /**
+     * Queues a plain-text message for delivery. Joins the current transaction, if any.
+     */
+    public void enqueue(String recipient, String subject, String body) {
+        Instant now = clock.instant();
+        outboundEmailRepository.save(OutboundEmail.builder()
+                .recipient(recipient)
+                .subject(subject)
+                .body(body)
+                .status(OutboundEmail.Status.PENDING)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+    }
+
+    /**
+     * Delivers every message that is due, one batch at a time. Called by {@link EmailOutboxDispatcher}.
+     *
+     * @return The number of messages delivered.
+     */
+    public int dispatch() {
+        int delivered = 0;
+        List<Claimed> batch;
+        do {
+            batch = claim();
+            if (!batch.isEmpty()) {
+                delivered += deliver(batch);
+            }
+        } while (batch.size() == batchSize);
+        return delivered;
+    }
+
+    // ============== Helper methods ==============
+
+    private List<Claimed> claim() {
+        Instant now = clock.instant();
+        return transactionTemplate.execute(status -> jdbcTemplate.query(CLAIM_SQL,
+                (rs, rowNum) -> new Claimed(rs.getLong("id"), rs.getString("recipient"),
+                        rs.getString("subject"), rs.getString("body"), rs.getInt("attempts")),
+                Timestamp.from(now.plus(lease)), Timestamp.from(now), batchSize));
+    }
+
+    /**
+     * Sends the batch over one connection and records the outcome of each message.
+     */
+    private int deliver(List<Claimed> batch) {
+        SimpleMailMessage[] messages = new SimpleMailMessage[batch.size()];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = toMessage(batch.get(i));
+        }
+
+        Map<Object, Exception> failures;
+        try {
+            mailSender.send(messages);
+            failures = Map.of();
+        } catch (MailSendException e) {
+            // Lists each failed message (all of them if the connection failed); no detail means all failed
+            failures = e.getFailedMessages().isEmpty() ? allFailed(messages, e) : e.getFailedMessages();
+        } catch (MailException e) {
+            failures = allFailed(messages, e);
+        }
+
+        List<Long> delivered = new ArrayList<>();
+        List<Object[]> retries = new ArrayList<>();
+        List<Object[]> deadLetters = new ArrayList<>();
+        Instant now = clock.instant();
+        for (int i = 0; i < messages.length; i++) {
+            Claimed message = batch.get(i);
+            Exception failure = failures.get(messages[i]);
+            if (failure == null) {
+                delivered.add(message.id());
+            } else if (message.attempts() >= maxAttempts) {
+                log.warn("Dead-lettering email {} to {} after {} attempts: {}",
+                        message.id(), message.recipient(), message.attempts(), failure.getMessage());
+                deadLetters.add(new Object[]{errorText(failure), message.id()});
+            } else {
+                retries.add(new Object[]{Timestamp.from(now.plus(backoff(message.attempts()))),
+                        errorText(failure), message.id()});
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!delivered.isEmpty()) {
+                jdbcTemplate.update(DELETE_SENT_SQL, (Object) delivered.toArray(Long[]::new));
+            }
+            if (!retries.isEmpty()) {
+                jdbcTemplate.batchUpdate(RETRY_SQL, retries);
+            }
+            if (!deadLetters.isEmpty()) {
+                jdbcTemplate.batchUpdate(DEAD_SQL, deadLetters);
+            }
+        });
+        if (!retries.isEmpty()) {
+            log.info("{} of {} emails failed and will be retried", retries.size(), batch.size());
+        }
+        sent.increment(delivered.size());
+        retried.increment(retries.size());
+        dead.increment(deadLetters.size());
+        return delivered.size();
+    }
+
+    /**
+     * Delay before the attempt following attempt number {@code attempts}: the initial backoff,
+     * doubled after each further failure, capped at the maximum.
+     */
+    private Duration backoff(int attempts) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private SimpleMailMessage toMessage(Claimed claimed) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setTo(claimed.recipient());
+        message.setFrom(fromAddress);
+        message.setSubject(claimed.subject());
+        message.setText(claimed.body());
+        return message;
+    }
+
+    private static Map<Object, Exception> allFailed(SimpleMailMessage[] messages, Exception e) {
+        Map<Object, Exception> failures = new IdentityHashMap<>();
+        for (SimpleMailMessage message : messages) {
+            failures.put(message, e);
+        }
+        return failures;
+    }
+
+    private static String errorText(Exception e) {
+        String text = String.valueOf(e.getMessage());
+        return text.length() > MAX_ERROR_LENGTH ? text.substring(0, MAX_ERROR_LENGTH) : text;
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("mail.outbox.messages")
+                .description("Outbound emails by delivery outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record Claimed(long id, String recipient, String subject, String body, int attempts) {
+    }
+}
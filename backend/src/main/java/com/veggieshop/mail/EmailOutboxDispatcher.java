@@ -0,0 +1,62 @@
+package com.veggieshop.mail;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs {@link EmailOutbox#dispatch()} every {@code poll-interval-ms} on a thread of its own.
+ * <p>
+ * Dispatch blocks on SMTP (up to the configured mail timeouts per message), so it stays off the
+ * shared {@code @Scheduled} pool, where a slow relay would hold up cache invalidation and the other
+ * background jobs.
+ */
+@Component
+public class EmailOutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+
+    private final EmailOutbox emailOutbox;
+    private final long pollIntervalMs;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "mail-outbox");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public EmailOutboxDispatcher(
+            EmailOutbox emailOutbox,
+            @Value("${app.mail.outbox.poll-interval-ms:1000}") long pollIntervalMs
+    ) {
+        this.emailOutbox = emailOutbox;
+        this.pollIntervalMs = pollIntervalMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        executor.scheduleWithFixedDelay(this::dispatch, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    // ============== Helper methods ==============
+
+    private void dispatch() {
+        try {
+            emailOutbox.dispatch();
+        } catch (RuntimeException e) {
+            // A task that throws is never run again: log and keep polling
+            log.warn("Mail outbox dispatch failed: {}", e.getMessage());
+        }
+    }
+}
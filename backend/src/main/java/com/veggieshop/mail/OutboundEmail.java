@@ -0,0 +1,58 @@
+package com.veggieshop.mail;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * A message waiting in the outbound mail outbox. Rows are written in the transaction that decides
+ * to send the mail and delivered later by {@link EmailOutbox#dispatch()}; delivered rows are
+ * deleted, rows that ran out of attempts stay behind as {@link Status#DEAD}.
+ */
+@Entity
+@Table(
+        name = "email_outbox",
+        indexes = {
+                @Index(columnList = "status, next_attempt_at")
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboundEmail {
+
+    public enum Status { PENDING, DEAD }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 320)
+    private String recipient;
+
+    @Column(nullable = false)
+    private String subject;
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Status status;
+
+    // Delivery attempts started so far
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @Column(nullable = false, updatable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,13 @@
+package com.veggieshop.mail;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface OutboundEmailRepository extends JpaRepository<OutboundEmail, Long> {
+
+    // Dead-lettered or still pending messages (for inspection)
+    List<OutboundEmail> findByStatus(OutboundEmail.Status status);
+
+    List<OutboundEmail> findByRecipient(String recipient);
+}
@@ -0,0 +1,202 @@
+package com.veggieshop.offer;
+
+import com.veggieshop.cache.CacheInvalidationEvent;
+import com.veggieshop.cache.CacheInvalidationListener;
+import com.veggieshop.pricing.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory interval index over all offers, answering "best active offer of product P on day D"
+ * and "offers active on day D" without scanning offer history.
+ * <p>
+ * Readers see an immutable snapshot (one {@link OfferIntervalTree} per product plus one over
+ * everything) and never lock. Writers replace the snapshot copy-on-write: offer changes reach the
+ * index as {@link CacheInvalidationEvent}s on every node after commit, and only the touched product
+ * is reloaded. Until the first full load, lookups fall back to the database.
+ * <p>
+ * With cross-node invalidation off ({@code app.cache.invalidation.enabled=false}) other nodes'
+ * changes never arrive as events: the index then reloads itself every {@code index-reload-interval-ms}.
+ * Being eventually consistent, the index serves listings only; checkout prices from offers read in
+ * its own transaction.
+ */
+@Component
+public class ActiveOfferIndex implements CacheInvalidationListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ActiveOfferIndex.class);
+
+    private static final String ALL_SQL =
+            "SELECT id, product_id, discount, start_date, end_date FROM offers";
+    private static final String PRODUCT_SQL = ALL_SQL + " WHERE product_id = ?";
+    private static final String BEST_FALLBACK_SQL =
+            "SELECT MAX(discount) FROM offers WHERE product_id = ? AND start_date <= ? AND end_date >= ?";
+
+    private static final RowMapper<OfferIntervalTree.Entry> ENTRY_MAPPER = (rs, rowNum) -> new OfferIntervalTree.Entry(
+            rs.getLong("id"),
+            rs.getLong("product_id"),
+            rs.getObject("start_date", LocalDate.class).toEpochDay(),
+            rs.getObject("end_date", LocalDate.class).toEpochDay(),
+            Money.toCents(rs.getBigDecimal("discount")));
+
+    // Never mutated once published
+    private record Snapshot(Map<Long, OfferIntervalTree> byProduct, OfferIntervalTree all) {
+    }
+
+    /**
+     * An offer active on the requested day, as listings page through it.
+     */
+    public record ActiveOffer(Long id, BigDecimal discount, LocalDate startDate, LocalDate endDate) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean invalidationEnabled;
+
+    private volatile Snapshot snapshot;
+
+    // Writers only; held across the reload query
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    public ActiveOfferIndex(
+            JdbcTemplate jdbcTemplate,
+            @Value("${app.cache.invalidation.enabled:true}") boolean invalidationEnabled
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.invalidationEnabled = invalidationEnabled;
+    }
+
+    public boolean isLoaded() {
+        return snapshot != null;
+    }
+
+    /**
+     * @return Discount in cents of the largest offer of the product active on {@code date}, 0 if none.
+     */
+    public long bestActiveDiscountCents(Long productId, LocalDate date) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            BigDecimal best = jdbcTemplate.queryForObject(BEST_FALLBACK_SQL, BigDecimal.class, productId, date, date);
+            return Money.toCents(best);
+        }
+        OfferIntervalTree tree = current.byProduct().get(productId);
+        if (tree == null) {
+            return 0L;
+        }
+        long best = tree.bestDiscountOn(date.toEpochDay());
+        return best == Long.MIN_VALUE ? 0L : best;
+    }
+
+    /**
+     * @return IDs of all offers active on {@code date}; empty if the index is not loaded yet.
+     */
+    public List<Long> activeOfferIds(LocalDate date) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return List.of();
+        }
+        List<Long> ids = new ArrayList<>();
+        current.all().forEachActiveOn(date.toEpochDay(), ids::add);
+        return ids;
+    }
+
+    /**
+     * @return All offers active on {@code date}, in start-date order; empty if the index is not
+     * loaded yet.
+     */
+    public List<ActiveOffer> activeOffers(LocalDate date) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return List.of();
+        }
+        List<ActiveOffer> offers = new ArrayList<>();
+        current.all().forEachEntryActiveOn(date.toEpochDay(), entry -> offers.add(new ActiveOffer(
+                entry.offerId(),
+                Money.toBigDecimal(entry.discountCents()),
+                LocalDate.ofEpochDay(entry.startDay()),
+                LocalDate.ofEpochDay(entry.endDay()))));
+        return offers;
+    }
+
+    // ================== Maintenance ==================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        writeLock.lock();
+        try {
+            List<OfferIntervalTree.Entry> entries = jdbcTemplate.query(ALL_SQL, ENTRY_MAPPER);
+            Map<Long, OfferIntervalTree> byProduct = new HashMap<>();
+            entries.stream()
+                    .collect(Collectors.groupingBy(OfferIntervalTree.Entry::productId))
+                    .forEach((productId, offers) -> byProduct.put(productId, OfferIntervalTree.of(offers)));
+            snapshot = new Snapshot(byProduct, OfferIntervalTree.of(entries));
+            log.info("Active offer index loaded with {} offers", entries.size());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Periodic full reload, for nodes that receive no invalidation events from the others.
+     */
+    @Scheduled(fixedDelayString = "${app.offers.index-reload-interval-ms:60000}",
+            initialDelayString = "${app.offers.index-reload-interval-ms:60000}")
+    public void reloadIfUninformed() {
+        if (!invalidationEnabled && snapshot != null) {
+            reload();
+        }
+    }
+
+    public void reloadProduct(Long productId) {
+        writeLock.lock();
+        try {
+            Snapshot current = snapshot;
+            if (current == null) {
+                return; // the full load will pick it up
+            }
+            List<OfferIntervalTree.Entry> entries = jdbcTemplate.query(PRODUCT_SQL, ENTRY_MAPPER, productId);
+            Map<Long, OfferIntervalTree> byProduct = new HashMap<>(current.byProduct());
+            if (entries.isEmpty()) {
+                byProduct.remove(productId);
+            } else {
+                byProduct.put(productId, OfferIntervalTree.of(entries));
+            }
+            snapshot = new Snapshot(byProduct, current.all().replaceProduct(productId, entries));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void onInvalidation(CacheInvalidationEvent event) {
+        switch (event.kind()) {
+            case PRODUCT, PRODUCT_VIEWS -> reloadProduct(event.id());
+            case ALL -> reload();
+            case CATEGORY, USER -> {
+                // Categories and users do not affect offers
+            }
+        }
+    }
+
+    /**
+     * Number of offers in the index, for diagnostics.
+     */
+    public int size() {
+        Snapshot current = snapshot;
+        return current == null ? 0 : current.all().size();
+    }
+}
@@ -3,6 +3,8 @@ package com.veggieshop.offer;
 import com.veggieshop.common.ApiResponse;
 import com.veggieshop.common.ApiError;
 import com.veggieshop.common.ApiResponseUtil;
+import com.veggieshop.common.KeysetCursor;
+import com.veggieshop.common.SlicePaging;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -13,6 +15,7 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
@@ -43,9 +46,22 @@ public class OfferController {
     })
     @GetMapping
     public ResponseEntity<ApiResponse<List<OfferDto.OfferResponse>>> getAllPaged(
+            @Parameter(description = "Keyset mode: cursor to continue after (empty for the first rows)")
+            @RequestParam(value = "after", required = false) String after,
+            @Parameter(description = "Keyset mode: cursor to go back before (empty for the last rows)")
+            @RequestParam(value = "before", required = false) String before,
+            @Parameter(description = "Set to false to skip the total count (no totalElements/totalPages)")
+            @RequestParam(value = "count", defaultValue = "true") boolean count,
             @PageableDefault(size = 20, sort = "id", direction = org.springframework.data.domain.Sort.Direction.DESC)
             Pageable pageable
     ) {
+        if (KeysetCursor.requested(after, before)) {
+            KeysetScrollPosition position = KeysetCursor.position(after, before, pageable.getSort(), Offer.class);
+            return ApiResponseUtil.ok(offerService.findAll(position, pageable), pageable, position);
+        }
+        if (!count) {
+            return ApiResponseUtil.ok(SlicePaging.toSlice(offerService.findAll(SlicePaging.position(pageable), pageable), pageable));
+        }
         Page<OfferDto.OfferResponse> page = offerService.findAll(pageable);
         return ApiResponseUtil.ok(page);
     }
@@ -84,8 +100,21 @@ public class OfferController {
     public ResponseEntity<ApiResponse<List<OfferDto.OfferResponse>>> getByProductPaged(
             @Parameter(description = "ID of the product", required = true, example = "1")
             @PathVariable("productId") @NotNull @Min(1) Long productId,
+            @Parameter(description = "Keyset mode: cursor to continue after (empty for the first rows)")
+            @RequestParam(value = "after", required = false) String after,
+            @Parameter(description = "Keyset mode: cursor to go back before (empty for the last rows)")
+            @RequestParam(value = "before", required = false) String before,
+            @Parameter(description = "Set to false to skip the total count (no totalElements/totalPages)")
+            @RequestParam(value = "count", defaultValue = "true") boolean count,
             @PageableDefault(size = 10) Pageable pageable
     ) {
+        if (KeysetCursor.requested(after, before)) {
+            KeysetScrollPosition position = KeysetCursor.position(after, before, pageable.getSort(), Offer.class);
+            return ApiResponseUtil.ok(offerService.findByProduct(productId, position, pageable), pageable, position);
+        }
+        if (!count) {
+            return ApiResponseUtil.ok(SlicePaging.toSlice(offerService.findByProduct(productId, SlicePaging.position(pageable), pageable), pageable));
+        }
         Page<OfferDto.OfferResponse> page = offerService.findByProduct(productId, pageable);
         return ApiResponseUtil.ok(page);
     }
@@ -101,8 +130,21 @@ public class OfferController {
     })
     @GetMapping("/active")
     public ResponseEntity<ApiResponse<List<OfferDto.OfferResponse>>> getActiveOffers(
+            @Parameter(description = "Keyset mode: cursor to continue after (empty for the first rows)")
+            @RequestParam(value = "after", required = false) String after,
+            @Parameter(description = "Keyset mode: cursor to go back before (empty for the last rows)")
+            @RequestParam(value = "before", required = false) String before,
+            @Parameter(description = "Set to false to skip the total count (no totalElements/totalPages)")
+            @RequestParam(value = "count", defaultValue = "true") boolean count,
             @PageableDefault(size = 10, sort = "startDate") Pageable pageable
     ) {
+        if (KeysetCursor.requested(after, before)) {
+            KeysetScrollPosition position = KeysetCursor.position(after, before, pageable.getSort(), Offer.class);
+            return ApiResponseUtil.ok(offerService.findActiveOffers(position, pageable), pageable, position);
+        }
+        if (!count) {
+            return ApiResponseUtil.ok(SlicePaging.toSlice(offerService.findActiveOffers(SlicePaging.position(pageable), pageable), pageable));
+        }
         Page<OfferDto.OfferResponse> page = offerService.findActiveOffers(pageable);
         return ApiResponseUtil.ok(page);
     }
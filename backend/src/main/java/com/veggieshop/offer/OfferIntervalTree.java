@@ -0,0 +1,166 @@
+package com.veggieshop.offer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Immutable augmented interval tree over offer validity periods (epoch days, both ends inclusive).
+ * <p>
+ * The tree is implicit: entries are kept in parallel arrays sorted by start day, the node of a range
+ * is its middle element, and each node stores the latest end day of its subtree. A stabbing query
+ * ("which offers are active on day D") therefore skips every subtree that ends before D or starts
+ * after it, answering in O(log n + k). Best-discount queries allocate nothing.
+ */
+final class OfferIntervalTree {
+
+    /**
+     * One offer as the tree sees it.
+     */
+    record Entry(long offerId, long productId, long startDay, long endDay, long discountCents) {
+    }
+
+    static final OfferIntervalTree EMPTY = new OfferIntervalTree(List.of());
+
+    private static final Comparator<Entry> ORDER =
+            Comparator.comparingLong(Entry::startDay).thenComparingLong(Entry::offerId);
+
+    private final long[] offerIds;
+    private final long[] productIds;
+    private final long[] startDays;
+    private final long[] endDays;
+    private final long[] discountCents;
+    private final long[] maxEnd;
+
+    private OfferIntervalTree(List<Entry> sorted) {
+        int n = sorted.size();
+        offerIds = new long[n];
+        productIds = new long[n];
+        startDays = new long[n];
+        endDays = new long[n];
+        discountCents = new long[n];
+        maxEnd = new long[n];
+        for (int i = 0; i < n; i++) {
+            Entry e = sorted.get(i);
+            offerIds[i] = e.offerId();
+            productIds[i] = e.productId();
+            startDays[i] = e.startDay();
+            endDays[i] = e.endDay();
+            discountCents[i] = e.discountCents();
+        }
+        buildMaxEnd(0, n);
+    }
+
+    static OfferIntervalTree of(List<Entry> entries) {
+        if (entries.isEmpty()) {
+            return EMPTY;
+        }
+        List<Entry> sorted = new ArrayList<>(entries);
+        sorted.sort(ORDER);
+        return new OfferIntervalTree(sorted);
+    }
+
+    int size() {
+        return offerIds.length;
+    }
+
+    /**
+     * A copy of this tree in which the offers of {@code productId} are replaced by {@code replacement}.
+     * Linear: a filter and a merge of two sorted sequences, no re-sort of the whole tree.
+     */
+    OfferIntervalTree replaceProduct(long productId, List<Entry> replacement) {
+        List<Entry> incoming = new ArrayList<>(replacement);
+        incoming.sort(ORDER);
+        List<Entry> merged = new ArrayList<>(offerIds.length + incoming.size());
+        int j = 0;
+        for (int i = 0; i < offerIds.length; i++) {
+            if (productIds[i] == productId) {
+                continue;
+            }
+            Entry kept = entry(i);
+            while (j < incoming.size() && ORDER.compare(incoming.get(j), kept) < 0) {
+                merged.add(incoming.get(j++));
+            }
+            merged.add(kept);
+        }
+        while (j < incoming.size()) {
+            merged.add(incoming.get(j++));
+        }
+        return merged.isEmpty() ? EMPTY : new OfferIntervalTree(merged);
+    }
+
+    /**
+     * @return The largest discount among offers active on {@code day}, or {@link Long#MIN_VALUE} if none is.
+     */
+    long bestDiscountOn(long day) {
+        return best(0, offerIds.length, day, Long.MIN_VALUE);
+    }
+
+    /**
+     * Passes the ID of every offer active on {@code day} to {@code consumer}, in start-day order.
+     */
+    void forEachActiveOn(long day, LongConsumer consumer) {
+        visit(0, offerIds.length, day, i -> consumer.accept(offerIds[i]));
+    }
+
+    /**
+     * Passes every offer active on {@code day} to {@code consumer}, in start-day order.
+     */
+    void forEachEntryActiveOn(long day, Consumer<Entry> consumer) {
+        visit(0, offerIds.length, day, i -> consumer.accept(entry(i)));
+    }
+
+    // ================== Implicit tree ==================
+
+    private long buildMaxEnd(int lo, int hi) {
+        if (lo >= hi) {
+            return Long.MIN_VALUE;
+        }
+        int mid = (lo + hi) >>> 1;
+        long max = Math.max(endDays[mid], Math.max(buildMaxEnd(lo, mid), buildMaxEnd(mid + 1, hi)));
+        maxEnd[mid] = max;
+        return max;
+    }
+
+    private long best(int lo, int hi, long day, long best) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (maxEnd[mid] < day) {
+                return best; // everything below ended before that day
+            }
+            best = best(lo, mid, day, best);
+            if (startDays[mid] > day) {
+                return best; // mid and everything right of it starts later
+            }
+            if (endDays[mid] >= day && discountCents[mid] > best) {
+                best = discountCents[mid];
+            }
+            lo = mid + 1;
+        }
+        return best;
+    }
+
+    private void visit(int lo, int hi, long day, IntConsumer consumer) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (maxEnd[mid] < day) {
+                return;
+            }
+            visit(lo, mid, day, consumer);
+            if (startDays[mid] > day) {
+                return;
+            }
+            if (endDays[mid] >= day) {
+                consumer.accept(mid);
+            }
+            lo = mid + 1;
+        }
+    }
+
+    private Entry entry(int i) {
+        return new Entry(offerIds[i], productIds[i], startDays[i], endDays[i], discountCents[i]);
+    }
+}
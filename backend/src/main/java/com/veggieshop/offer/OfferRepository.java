@@ -1,14 +1,38 @@
 package com.veggieshop.offer;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface OfferRepository extends JpaRepository<Offer, Long> {
     Page<Offer> findAll(Pageable pageable);
 
     Page<Offer> findByProductId(Long productId, Pageable pageable);
 
+    // All offers for a set of products in one query (order creation)
+    List<Offer> findByProductIdIn(Collection<Long> productIds);
+
+    // Offers that start or end within [from, to] (see OfferTransitionScheduler)
+    List<Offer> findByEndDateGreaterThanEqualAndStartDateLessThanEqual(
+            java.time.LocalDate from, java.time.LocalDate to
+    );
+
+    // Keyset (seek) variants of the listings: rows after/before a cursor on (sort keys, id)
+    Window<Offer> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    Window<Offer> findByProductId(Long productId, ScrollPosition position, Sort sort, Limit limit);
+
+    Window<Offer> findByStartDateLessThanEqualAndEndDateGreaterThanEqual(
+            java.time.LocalDate start, java.time.LocalDate end, ScrollPosition position, Sort sort, Limit limit
+    );
+
     // Example: Filtering by active offers for today
     Page<Offer> findByStartDateLessThanEqualAndEndDateGreaterThanEqual(
             java.time.LocalDate start, java.time.LocalDate end, Pageable pageable
@@ -2,6 +2,8 @@ package com.veggieshop.offer;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 
 public interface OfferService {
     OfferDto.OfferResponse create(OfferDto.OfferCreateRequest request);
@@ -16,4 +18,11 @@ public interface OfferService {
 
     // Example: Active offers (current date within offer period)
     Page<OfferDto.OfferResponse> findActiveOffers(Pageable pageable);
+
+    // Keyset (seek) variants: size and sort come from the pageable, the page number is ignored
+    Window<OfferDto.OfferResponse> findAll(ScrollPosition position, Pageable pageable);
+
+    Window<OfferDto.OfferResponse> findByProduct(Long productId, ScrollPosition position, Pageable pageable);
+
+    Window<OfferDto.OfferResponse> findActiveOffers(ScrollPosition position, Pageable pageable);
 }
@@ -1,15 +1,36 @@
 package com.veggieshop.offer;
 
+import com.veggieshop.cache.CacheInvalidationBus;
+import com.veggieshop.cache.CacheInvalidationEvent;
+import com.veggieshop.pricing.EffectivePriceIndex;
 import com.veggieshop.product.Product;
+import com.veggieshop.exception.BadRequestException;
 import com.veggieshop.exception.ResourceNotFoundException;
 import com.veggieshop.product.ProductRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.OffsetScrollPosition;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.Clock;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -19,10 +40,21 @@ public class OfferServiceImpl implements OfferService {
     private final OfferRepository offerRepository;
     private final ProductRepository productRepository;
     private final OfferMapper offerMapper;
+    private final CacheInvalidationBus invalidationBus;
+    private final EffectivePriceIndex priceIndex;
+    private final ActiveOfferIndex activeOfferIndex;
+    private final Clock clock;
+
+    // Sort keys the interval index holds, so it can order active offers itself
+    private static final Map<String, Function<ActiveOfferIndex.ActiveOffer, Comparable<?>>> INDEX_SORT_KEYS = Map.of(
+            "id", ActiveOfferIndex.ActiveOffer::id,
+            "discount", ActiveOfferIndex.ActiveOffer::discount,
+            "startDate", ActiveOfferIndex.ActiveOffer::startDate,
+            "endDate", ActiveOfferIndex.ActiveOffer::endDate);
 
     @Override
     public OfferDto.OfferResponse create(OfferDto.OfferCreateRequest request) {
-        Product product = productRepository.findById(request.getProductId())
+        Product product = productRepository.findByIdForUpdate(request.getProductId())
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found"));
         Offer offer = Offer.builder()
                 .product(product)
@@ -31,15 +63,19 @@ public class OfferServiceImpl implements OfferService {
                 .endDate(request.getEndDate())
                 .build();
         Offer saved = offerRepository.save(offer);
+        priceIndex.reprice(product);
+        invalidationBus.publish(CacheInvalidationEvent.productViews(product.getId()));
         return offerMapper.toOfferResponse(saved);
     }
 
     @Override
     public void delete(Long id) {
-        if (!offerRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Offer not found");
-        }
-        offerRepository.deleteById(id);
+        Offer offer = offerRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Offer not found"));
+        productRepository.findByIdForUpdate(offer.getProduct().getId());
+        offerRepository.delete(offer);
+        priceIndex.reprice(offer.getProduct());
+        invalidationBus.publish(CacheInvalidationEvent.productViews(offer.getProduct().getId()));
     }
 
     @Override
@@ -67,9 +103,165 @@ public class OfferServiceImpl implements OfferService {
     @Override
     @Transactional(readOnly = true)
     public Page<OfferDto.OfferResponse> findActiveOffers(Pageable pageable) {
-        LocalDate today = LocalDate.now();
+        LocalDate today = LocalDate.now(clock);
+        Comparator<ActiveOfferIndex.ActiveOffer> order = indexOrder(pageable.getSort());
+        if (activeOfferIndex.isLoaded() && order != null) {
+            // The interval index sorts and counts; only the page's own offers are read, by primary key
+            List<ActiveOfferIndex.ActiveOffer> active = sorted(today, order);
+            int from = (int) Math.min(pageable.getOffset(), active.size());
+            int to = Math.min(from + pageable.getPageSize(), active.size());
+            return new PageImpl<>(load(active.subList(from, to)), pageable, active.size());
+        }
         return offerRepository.findByStartDateLessThanEqualAndEndDateGreaterThanEqual(
                 today, today, pageable
         ).map(offerMapper::toOfferResponse);
     }
+
+    // ================== Keyset (seek) listings ==================
+
+    @Override
+    @Transactional(readOnly = true)
+    public Window<OfferDto.OfferResponse> findAll(ScrollPosition position, Pageable pageable) {
+        return offerRepository.findAllBy(position, pageable.getSort(), Limit.of(pageable.getPageSize()))
+                .map(offerMapper::toOfferResponse);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Window<OfferDto.OfferResponse> findByProduct(Long productId, ScrollPosition position, Pageable pageable) {
+        return offerRepository.findByProductId(productId, position, pageable.getSort(), Limit.of(pageable.getPageSize()))
+                .map(offerMapper::toOfferResponse);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Window<OfferDto.OfferResponse> findActiveOffers(ScrollPosition position, Pageable pageable) {
+        LocalDate today = LocalDate.now(clock);
+        Comparator<ActiveOfferIndex.ActiveOffer> order = indexOrder(pageable.getSort());
+        if (activeOfferIndex.isLoaded() && order != null) {
+            return window(sorted(today, order), order, position, pageable);
+        }
+        return offerRepository.findByStartDateLessThanEqualAndEndDateGreaterThanEqual(
+                today, today, position, pageable.getSort(), Limit.of(pageable.getPageSize())
+        ).map(offerMapper::toOfferResponse);
+    }
+
+    // ============== Helper methods ==============
+
+    /**
+     * Comparator for {@code sort} over the index's offers, ties broken by ascending id like the
+     * keyset queries do; {@code null} if a sort key is not held by the index (the database sorts then).
+     */
+    private static Comparator<ActiveOfferIndex.ActiveOffer> indexOrder(Sort sort) {
+        Comparator<ActiveOfferIndex.ActiveOffer> order = null;
+        for (Sort.Order sortOrder : sort) {
+            Function<ActiveOfferIndex.ActiveOffer, Comparable<?>> key = INDEX_SORT_KEYS.get(sortOrder.getProperty());
+            if (key == null) {
+                return null;
+            }
+            Comparator<ActiveOfferIndex.ActiveOffer> byKey = (a, b) -> compareKeys(key.apply(a), key.apply(b));
+            byKey = sortOrder.isDescending() ? byKey.reversed() : byKey;
+            order = order == null ? byKey : order.thenComparing(byKey);
+        }
+        Comparator<ActiveOfferIndex.ActiveOffer> byId = Comparator.comparing(ActiveOfferIndex.ActiveOffer::id);
+        return order == null ? byId : order.thenComparing(byId);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareKeys(Comparable a, Comparable b) {
+        return a.compareTo(b);
+    }
+
+    private List<ActiveOfferIndex.ActiveOffer> sorted(LocalDate date, Comparator<ActiveOfferIndex.ActiveOffer> order) {
+        List<ActiveOfferIndex.ActiveOffer> active = new ArrayList<>(activeOfferIndex.activeOffers(date));
+        active.sort(order);
+        return active;
+    }
+
+    /**
+     * Cuts one window out of the sorted active offers, for offset positions (count-free paging) and
+     * keyset cursors alike.
+     */
+    private Window<OfferDto.OfferResponse> window(List<ActiveOfferIndex.ActiveOffer> sorted,
+                                                  Comparator<ActiveOfferIndex.ActiveOffer> order,
+                                                  ScrollPosition position, Pageable pageable) {
+        int limit = pageable.getPageSize();
+        if (position instanceof OffsetScrollPosition offset) {
+            // Offset positions point at the last row already seen
+            int from = (int) Math.min(offset.isInitial() ? 0 : offset.getOffset() + 1, sorted.size());
+            int to = Math.min(from + limit, sorted.size());
+            return Window.from(load(sorted.subList(from, to)), i -> ScrollPosition.offset(from + i), to < sorted.size());
+        }
+        KeysetScrollPosition keyset = (KeysetScrollPosition) position;
+        int from;
+        int to;
+        boolean more;
+        if (keyset.scrollsForward()) {
+            from = keyset.isInitial() ? 0 : countUpTo(sorted, order, probe(keyset.getKeys(), pageable.getSort()), true);
+            to = Math.min(from + limit, sorted.size());
+            more = to < sorted.size();
+        } else {
+            // A backward window ends just before the cursor; its hasNext() means more rows before it
+            to = keyset.isInitial() ? sorted.size() : countUpTo(sorted, order, probe(keyset.getKeys(), pageable.getSort()), false);
+            from = Math.max(0, to - limit);
+            more = from > 0;
+        }
+        List<ActiveOfferIndex.ActiveOffer> page = sorted.subList(from, to);
+        return Window.from(load(page), i -> ScrollPosition.forward(keysOf(page.get(i), pageable.getSort())), more);
+    }
+
+    /**
+     * Number of leading offers ordered before {@code probe} (and equal to it, if {@code inclusive}).
+     */
+    private static int countUpTo(List<ActiveOfferIndex.ActiveOffer> sorted, Comparator<ActiveOfferIndex.ActiveOffer> order,
+                                 ActiveOfferIndex.ActiveOffer probe, boolean inclusive) {
+        int lo = 0;
+        int hi = sorted.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = order.compare(sorted.get(mid), probe);
+            if (cmp < 0 || (cmp == 0 && inclusive)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // The cursor's row, as far as the sort keys go
+    private static ActiveOfferIndex.ActiveOffer probe(Map<String, Object> keys, Sort sort) {
+        if (keys.get("id") == null || sort.stream().anyMatch(order -> keys.get(order.getProperty()) == null)) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        return new ActiveOfferIndex.ActiveOffer((Long) keys.get("id"), (BigDecimal) keys.get("discount"),
+                (LocalDate) keys.get("startDate"), (LocalDate) keys.get("endDate"));
+    }
+
+    private static Map<String, Object> keysOf(ActiveOfferIndex.ActiveOffer offer, Sort sort) {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        for (Sort.Order order : sort) {
+            keys.put(order.getProperty(), INDEX_SORT_KEYS.get(order.getProperty()).apply(offer));
+        }
+        keys.put("id", offer.id());
+        return keys;
+    }
+
+    /**
+     * Reads the given offers by primary key, in the given order. Offers deleted since the index
+     * last saw them are skipped.
+     */
+    private List<OfferDto.OfferResponse> load(List<ActiveOfferIndex.ActiveOffer> offers) {
+        if (offers.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Offer> byId = offerRepository.findAllById(offers.stream().map(ActiveOfferIndex.ActiveOffer::id).toList())
+                .stream()
+                .collect(Collectors.toMap(Offer::getId, Function.identity()));
+        return offers.stream()
+                .map(offer -> byId.get(offer.id()))
+                .filter(Objects::nonNull)
+                .map(offerMapper::toOfferResponse)
+                .toList();
+    }
 }
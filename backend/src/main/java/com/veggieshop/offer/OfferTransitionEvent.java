@@ -0,0 +1,17 @@
+package com.veggieshop.offer;
+
+import java.time.LocalDate;
+
+/**
+ * Published (as a Spring application event) when an offer starts or ends, at the start of that day
+ * in the shop's time zone.
+ *
+ * @param offerId   The offer.
+ * @param productId The product it applies to.
+ * @param type      Whether the offer just became active or just expired.
+ * @param date      The first day of the new state (start date, or the day after the end date).
+ */
+public record OfferTransitionEvent(Long offerId, Long productId, Type type, LocalDate date) {
+
+    public enum Type { ACTIVATED, EXPIRED }
+}
@@ -0,0 +1,256 @@
+package com.veggieshop.offer;
+
+import com.veggieshop.cache.CacheInvalidationEvent;
+import com.veggieshop.cache.CacheInvalidationListener;
+import com.veggieshop.pricing.EffectivePriceIndex;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fires offer activations and expiries exactly at the day boundary in the shop's time zone.
+ * <p>
+ * Upcoming transitions within a rolling horizon ({@code app.offers.transition-horizon-days}) are
+ * kept in a time-ordered queue, and a single task is scheduled for the earliest one. When it fires,
+ * only the products whose offers changed state are repriced, and an {@link OfferTransitionEvent} is
+ * published for each transition. Offer changes arrive as {@link CacheInvalidationEvent}s after
+ * commit, so the queue follows creates and deletes on any node.
+ */
+@Component
+@RequiredArgsConstructor
+public class OfferTransitionScheduler implements CacheInvalidationListener {
+
+    private static final Logger log = LoggerFactory.getLogger(OfferTransitionScheduler.class);
+
+    /**
+     * One upcoming state change of an offer.
+     *
+     * @param at   Start of {@code date} in the shop's zone.
+     * @param date First day of the new state.
+     */
+    record Transition(Instant at, LocalDate date, OfferTransitionEvent.Type type, Long offerId, Long productId) {
+    }
+
+    private static final Comparator<Transition> ORDER = Comparator.comparing(Transition::at)
+            .thenComparing(Transition::offerId)
+            .thenComparing(Transition::type);
+
+    private final OfferRepository offerRepository;
+    private final EffectivePriceIndex priceIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TaskScheduler taskScheduler;
+    private final Clock clock;
+
+    @Value("${app.offers.transition-horizon-days:7}")
+    private int horizonDays = 7;
+
+    @Value("${app.offers.transition-retry-delay:1m}")
+    private Duration retryDelay = Duration.ofMinutes(1);
+
+    private final PriorityQueue<Transition> queue = new PriorityQueue<>(ORDER);
+    private LocalDate today;
+    private LocalDate horizonEnd; // last day queued, inclusive
+    private ScheduledFuture<?> wakeup;
+    private boolean running;
+
+    // Guards the queue and the wakeup; held across repository reads, hence not synchronized
+    private final ReentrantLock lock = new ReentrantLock();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        lock.lock();
+        try {
+            running = true;
+            rebuildOrRetry();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        lock.lock();
+        try {
+            running = false;
+            if (wakeup != null) {
+                wakeup.cancel(false);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of transitions waiting to fire, for diagnostics.
+     */
+    public int pendingTransitions() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void onInvalidation(CacheInvalidationEvent event) {
+        lock.lock();
+        try {
+            // Before the first successful load there is nothing to patch: the pending retry loads it all
+            if (!running || today == null) {
+                return;
+            }
+            switch (event.kind()) {
+                case PRODUCT, PRODUCT_VIEWS -> reloadProduct(event.id());
+                case ALL -> rebuild();
+                case CATEGORY, USER -> {
+                    // Categories and users do not affect offers
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ================== Queue ==================
+
+    /**
+     * Queues every transition after today up to the horizon. Transitions of today already happened:
+     * the startup and nightly full reprice cover them. The queue is only replaced once the offers
+     * are loaded, so a failed query leaves it as it was.
+     */
+    private void rebuild() {
+        LocalDate newToday = LocalDate.now(clock);
+        LocalDate newHorizonEnd = newToday.plusDays(horizonDays);
+        List<Offer> offers = offerRepository.findByEndDateGreaterThanEqualAndStartDateLessThanEqual(newToday, newHorizonEnd);
+        today = newToday;
+        horizonEnd = newHorizonEnd;
+        queue.clear();
+        offers.forEach(this::enqueue);
+        reschedule();
+    }
+
+    /**
+     * Like {@link #rebuild()}, but on failure schedules another attempt after {@code retryDelay}
+     * instead of throwing: without a wakeup nothing would ever fire again.
+     */
+    private void rebuildOrRetry() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("Loading offer transitions failed, retrying in {}: {}", retryDelay, e.getMessage());
+            if (wakeup != null) {
+                wakeup.cancel(false);
+            }
+            if (running) {
+                wakeup = taskScheduler.schedule(this::retryRebuild, clock.instant().plus(retryDelay));
+            }
+        }
+    }
+
+    private void retryRebuild() {
+        lock.lock();
+        try {
+            rebuildOrRetry();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void reloadProduct(Long productId) {
+        List<Offer> offers = offerRepository.findByProductIdIn(List.of(productId));
+        queue.removeIf(t -> t.productId().equals(productId));
+        offers.forEach(this::enqueue);
+        reschedule();
+    }
+
+    private void enqueue(Offer offer) {
+        Long productId = offer.getProduct().getId();
+        enqueue(offer.getStartDate(), OfferTransitionEvent.Type.ACTIVATED, offer.getId(), productId);
+        enqueue(offer.getEndDate().plusDays(1), OfferTransitionEvent.Type.EXPIRED, offer.getId(), productId);
+    }
+
+    private void enqueue(LocalDate date, OfferTransitionEvent.Type type, Long offerId, Long productId) {
+        if (date.isAfter(today) && !date.isAfter(horizonEnd)) {
+            queue.add(new Transition(date.atStartOfDay(clock.getZone()).toInstant(), date, type, offerId, productId));
+        }
+    }
+
+    private void reschedule() {
+        if (wakeup != null) {
+            wakeup.cancel(false);
+        }
+        if (!running) {
+            return;
+        }
+        // Wake up for the next transition, or at the horizon to queue the following days
+        Instant next = horizonEnd.atStartOfDay(clock.getZone()).toInstant();
+        Transition head = queue.peek();
+        if (head != null && head.at().isBefore(next)) {
+            next = head.at();
+        }
+        wakeup = taskScheduler.schedule(this::fire, next);
+    }
+
+    // ================== Firing ==================
+
+    /**
+     * Runs the transitions that are due, then schedules the next wakeup. Called by the scheduler.
+     */
+    public void fire() {
+        List<Transition> due = pollDue();
+        if (due.isEmpty()) {
+            return;
+        }
+        Set<Long> productIds = new TreeSet<>();
+        due.forEach(t -> productIds.add(t.productId()));
+        try {
+            int changed = priceIndex.repriceProducts(productIds, LocalDate.now(clock));
+            log.info("{} offer transitions, repriced {} of {} products", due.size(), changed, productIds.size());
+        } catch (RuntimeException e) {
+            // The nightly full reprice will catch up
+            log.warn("Repricing after offer transitions failed: {}", e.getMessage());
+        }
+        due.forEach(t -> eventPublisher.publishEvent(
+                new OfferTransitionEvent(t.offerId(), t.productId(), t.type(), t.date())));
+    }
+
+    private List<Transition> pollDue() {
+        lock.lock();
+        try {
+            Instant now = clock.instant();
+            List<Transition> due = new ArrayList<>();
+            while (!queue.isEmpty() && !queue.peek().at().isAfter(now)) {
+                due.add(queue.poll());
+            }
+            if (!now.isBefore(horizonEnd.atStartOfDay(clock.getZone()).toInstant())) {
+                rebuildOrRetry();
+            } else {
+                reschedule();
+            }
+            return due;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.veggieshop.order;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Moves many orders to one status with set-based statements instead of one load-and-save per order.
+ * <p>
+ * Orders are processed in chunks of {@code chunk-size}, each in its own transaction of two
+ * statements: the chunk's rows are locked in id order ({@code SELECT ... WHERE id = ANY(?) FOR
+ * UPDATE}), then those whose current status may move to the target ({@link Order.Status#canTransitionTo})
+ * are updated with one {@code UPDATE ... WHERE id = ANY(?)}. Each committed chunk's per-order
+ * outcomes are handed to a callback, so a caller can stream progress; a failure stops the run but
+ * leaves earlier chunks committed. Outcomes are counted as {@code orders.bulk.status{result}}.
+ */
+@Component
+public class BulkStatusUpdater {
+
+    private static final String LOCK_SQL =
+            "SELECT id, status FROM orders WHERE id = ANY(?) ORDER BY id FOR UPDATE";
+    private static final String UPDATE_SQL =
+            "UPDATE orders SET status = ? WHERE id = ANY(?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final Map<OrderDto.BulkStatusResult, Counter> counters = new EnumMap<>(OrderDto.BulkStatusResult.class);
+
+    public BulkStatusUpdater(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.orders.bulk-status.chunk-size:500}") int chunkSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+        for (OrderDto.BulkStatusResult result : OrderDto.BulkStatusResult.values()) {
+            counters.put(result, Counter.builder("orders.bulk.status")
+                    .description("Orders handled by bulk status updates, by outcome")
+                    .tag("result", result.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Moves the given orders to {@code target}. Outcomes come in request order within each chunk;
+     * duplicate ids are handled once.
+     */
+    public void updateByIds(List<Long> ids, Order.Status target, Consumer<List<OrderDto.BulkStatusOutcome>> onChunk) {
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        for (int from = 0; from < distinct.size(); from += chunkSize) {
+            onChunk.accept(applyChunk(distinct.subList(from, Math.min(from + chunkSize, distinct.size())), target));
+        }
+    }
+
+    /**
+     * Moves every order currently in {@code current} status, created in [{@code createdFrom},
+     * {@code createdTo}) (either bound optional), to {@code target}. The filter is walked in id
+     * order one chunk at a time, so the run holds no long transaction and no cursor. Callers
+     * check {@code current.canTransitionTo(target)} first: otherwise every match is reported as
+     * {@link OrderDto.BulkStatusResult#INVALID_TRANSITION}.
+     */
+    public void updateByFilter(Order.Status current, LocalDateTime createdFrom, LocalDateTime createdTo,
+                               Order.Status target, Consumer<List<OrderDto.BulkStatusOutcome>> onChunk) {
+        StringBuilder sql = new StringBuilder("SELECT id FROM orders WHERE status = ? AND id > ?");
+        List<Object> args = new ArrayList<>(List.of(current.name(), 0L));
+        if (createdFrom != null) {
+            sql.append(" AND created_at >= ?");
+            args.add(Timestamp.valueOf(createdFrom));
+        }
+        if (createdTo != null) {
+            sql.append(" AND created_at < ?");
+            args.add(Timestamp.valueOf(createdTo));
+        }
+        sql.append(" ORDER BY id LIMIT ?");
+        args.add(chunkSize);
+
+        while (true) {
+            List<Long> ids = jdbcTemplate.queryForList(sql.toString(), Long.class, args.toArray());
+            if (ids.isEmpty()) {
+                return;
+            }
+            onChunk.accept(applyChunk(ids, target));
+            if (ids.size() < chunkSize) {
+                return;
+            }
+            args.set(1, ids.get(ids.size() - 1));
+        }
+    }
+
+    // ============== Helper methods ==============
+
+    private List<OrderDto.BulkStatusOutcome> applyChunk(List<Long> ids, Order.Status target) {
+        List<OrderDto.BulkStatusOutcome> outcomes = transactionTemplate.execute(status -> {
+            Map<Long, Order.Status> current = new HashMap<>();
+            jdbcTemplate.query(LOCK_SQL,
+                    rs -> {
+                        current.put(rs.getLong("id"), Order.Status.valueOf(rs.getString("status")));
+                    },
+                    (Object) ids.toArray(Long[]::new));
+
+            List<OrderDto.BulkStatusOutcome> chunk = new ArrayList<>(ids.size());
+            List<Long> movable = new ArrayList<>();
+            for (Long id : ids) {
+                Order.Status previous = current.get(id);
+                OrderDto.BulkStatusResult result;
+                if (previous == null) {
+                    result = OrderDto.BulkStatusResult.NOT_FOUND;
+                } else if (previous == target) {
+                    result = OrderDto.BulkStatusResult.UNCHANGED;
+                } else if (previous.canTransitionTo(target)) {
+                    result = OrderDto.BulkStatusResult.UPDATED;
+                    movable.add(id);
+                } else {
+                    result = OrderDto.BulkStatusResult.INVALID_TRANSITION;
+                }
+                chunk.add(new OrderDto.BulkStatusOutcome(id, result, previous == null ? null : previous.name()));
+            }
+            if (!movable.isEmpty()) {
+                jdbcTemplate.update(UPDATE_SQL, target.name(), movable.toArray(Long[]::new));
+            }
+            return chunk;
+        });
+        outcomes.forEach(outcome -> counters.get(outcome.getResult()).increment());
+        return outcomes;
+    }
+}
@@ -8,7 +8,17 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+// Composite indexes serve keyset pagination on the default (createdAt, id) sort, and the periodic
+// sold-count replay's lookup of unapplied orders
+@Table(
+        name = "orders",
+        indexes = {
+                @Index(columnList = "created_at, id"),
+                @Index(columnList = "user_id, created_at, id"),
+                @Index(columnList = "status, created_at, id"),
+                @Index(columnList = "sold_count_applied, created_at")
+        }
+)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -36,8 +46,24 @@ public class Order {
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<OrderItem> orderItems;
 
+    // Set once this order's quantities have been added to products.sold_count (see SoldCountAccumulator)
+    @Column(nullable = false)
+    private boolean soldCountApplied;
+
     public enum Status {
-        PENDING, PAID, SHIPPED, CANCELLED
+        PENDING, PAID, SHIPPED, CANCELLED;
+
+        /**
+         * Allowed lifecycle moves (enforced by bulk updates): pending orders get paid or cancelled,
+         * paid ones shipped or cancelled; shipped and cancelled orders are final.
+         */
+        public boolean canTransitionTo(Status target) {
+            return switch (this) {
+                case PENDING -> target == PAID || target == CANCELLED;
+                case PAID -> target == SHIPPED || target == CANCELLED;
+                case SHIPPED, CANCELLED -> false;
+            };
+        }
     }
 
     @PrePersist
@@ -1,8 +1,12 @@
 package com.veggieshop.order;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.veggieshop.common.ApiResponse;
 import com.veggieshop.common.ApiError;
 import com.veggieshop.common.ApiResponseUtil;
+import com.veggieshop.common.KeysetCursor;
+import com.veggieshop.common.SlicePaging;
+import com.veggieshop.exception.BadRequestException;
 import com.veggieshop.security.CustomUserDetails;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -14,16 +18,31 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -32,7 +51,14 @@ import java.util.List;
 @Tag(name = "Order Controller", description = "APIs for managing orders and order status")
 public class OrderController {
 
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
     private final OrderService orderService;
+    private final OrderIdempotencyService orderIdempotencyService;
+    private final BulkStatusUpdater bulkStatusUpdater;
+    private final OrderExporter orderExporter;
+    private final ObjectMapper objectMapper;
 
     // ================== CREATE NEW ORDER (USER ONLY) ==================
     @Operation(
@@ -47,6 +73,8 @@ public class OrderController {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Forbidden",
                     content = @Content(schema = @Schema(implementation = com.veggieshop.common.ApiError.class))),
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "409", description = "Duplicate order",
+                    content = @Content(schema = @Schema(implementation = com.veggieshop.common.ApiError.class))),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "422", description = "Idempotency-Key reused for a different order",
                     content = @Content(schema = @Schema(implementation = com.veggieshop.common.ApiError.class)))
     })
     @PostMapping
@@ -58,11 +86,18 @@ public class OrderController {
                     content = @Content(schema = @Schema(implementation = OrderDto.OrderCreateRequest.class))
             )
             @RequestBody @Valid OrderDto.OrderCreateRequest request,
+            @Parameter(description = "Client-generated key; a retry with the same key returns the first response instead of ordering again")
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             @Parameter(hidden = true) @AuthenticationPrincipal CustomUserDetails userDetails
     ) {
         Long userId = userDetails.getId();
-        OrderDto.OrderResponse created = orderService.create(userId, request);
-        return ApiResponseUtil.created(created);
+        if (idempotencyKey == null) {
+            return ApiResponseUtil.created(orderService.create(userId, request));
+        }
+        OrderIdempotencyService.Result result = orderIdempotencyService.create(userId, idempotencyKey, request);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header(IDEMPOTENT_REPLAYED_HEADER, String.valueOf(result.replayed()))
+                .body(ApiResponse.success(result.response()));
     }
 
     // ================== GET ALL ORDERS (ADMIN ONLY, PAGED) ==================
@@ -79,9 +114,22 @@ public class OrderController {
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<ApiResponse<List<OrderDto.OrderResponse>>> getAll(
+            @Parameter(description = "Keyset mode: cursor to continue after (empty for the first rows)")
+            @RequestParam(value = "after", required = false) String after,
+            @Parameter(description = "Keyset mode: cursor to go back before (empty for the last rows)")
+            @RequestParam(value = "before", required = false) String before,
+            @Parameter(description = "Set to false to skip the total count (no totalElements/totalPages)")
+            @RequestParam(value = "count", defaultValue = "true") boolean count,
             @PageableDefault(size = 20, sort = "createdAt", direction = org.springframework.data.domain.Sort.Direction.DESC)
             Pageable pageable
     ) {
+        if (KeysetCursor.requested(after, before)) {
+            KeysetScrollPosition position = KeysetCursor.position(after, before, pageable.getSort(), Order.class);
+            return ApiResponseUtil.ok(orderService.findAll(position, pageable), pageable, position);
+        }
+        if (!count) {
+            return ApiResponseUtil.ok(SlicePaging.toSlice(orderService.findAll(SlicePaging.position(pageable), pageable), pageable));
+        }
         Page<OrderDto.OrderResponse> page = orderService.findAll(pageable);
         return ApiResponseUtil.ok(page);
     }
@@ -102,9 +150,22 @@ public class OrderController {
     public ResponseEntity<ApiResponse<List<OrderDto.OrderResponse>>> getByUser(
             @Parameter(description = "ID of the user", required = true, example = "1")
             @PathVariable("userId") @NotNull @Min(1) Long userId,
+            @Parameter(description = "Keyset mode: cursor to continue after (empty for the first rows)")
+            @RequestParam(value = "after", required = false) String after,
+            @Parameter(description = "Keyset mode: cursor to go back before (empty for the last rows)")
+            @RequestParam(value = "before", required = false) String before,
+            @Parameter(description = "Infinite-scroll list: totals are only counted with count=true")
+            @RequestParam(value = "count", defaultValue = "false") boolean count,
             @PageableDefault(size = 10, sort = "createdAt", direction = org.springframework.data.domain.Sort.Direction.DESC)
             Pageable pageable
     ) {
+        if (KeysetCursor.requested(after, before)) {
+            KeysetScrollPosition position = KeysetCursor.position(after, before, pageable.getSort(), Order.class);
+            return ApiResponseUtil.ok(orderService.findByUser(userId, position, pageable), pageable, position);
+        }
+        if (!count) {
+            return ApiResponseUtil.ok(SlicePaging.toSlice(orderService.findByUser(userId, SlicePaging.position(pageable), pageable), pageable));
+        }
         Page<OrderDto.OrderResponse> page = orderService.findByUser(userId, pageable);
         return ApiResponseUtil.ok(page);
     }
@@ -125,8 +186,21 @@ public class OrderController {
     public ResponseEntity<ApiResponse<List<OrderDto.OrderResponse>>> getByStatus(
             @Parameter(description = "Status of the orders", required = true, example = "PAID")
             @PathVariable("status") @NotNull String status,
+            @Parameter(description = "Keyset mode: cursor to continue after (empty for the first rows)")
+            @RequestParam(value = "after", required = false) String after,
+            @Parameter(description = "Keyset mode: cursor to go back before (empty for the last rows)")
+            @RequestParam(value = "before", required = false) String before,
+            @Parameter(description = "Set to false to skip the total count (no totalElements/totalPages)")
+            @RequestParam(value = "count", defaultValue = "true") boolean count,
             @PageableDefault(size = 20, sort = "createdAt") Pageable pageable
     ) {
+        if (KeysetCursor.requested(after, before)) {
+            KeysetScrollPosition position = KeysetCursor.position(after, before, pageable.getSort(), Order.class);
+            return ApiResponseUtil.ok(orderService.findByStatus(status, position, pageable), pageable, position);
+        }
+        if (!count) {
+            return ApiResponseUtil.ok(SlicePaging.toSlice(orderService.findByStatus(status, SlicePaging.position(pageable), pageable), pageable));
+        }
         Page<OrderDto.OrderResponse> page = orderService.findByStatus(status, pageable);
         return ApiResponseUtil.ok(page);
     }
@@ -147,8 +221,21 @@ public class OrderController {
     public ResponseEntity<ApiResponse<List<OrderDto.OrderResponse>>> getByUserAndStatus(
             @PathVariable("userId") @NotNull @Min(1) Long userId,
             @PathVariable("status") @NotNull String status,
+            @Parameter(description = "Keyset mode: cursor to continue after (empty for the first rows)")
+            @RequestParam(value = "after", required = false) String after,
+            @Parameter(description = "Keyset mode: cursor to go back before (empty for the last rows)")
+            @RequestParam(value = "before", required = false) String before,
+            @Parameter(description = "Set to false to skip the total count (no totalElements/totalPages)")
+            @RequestParam(value = "count", defaultValue = "true") boolean count,
             @PageableDefault(size = 10, sort = "createdAt") Pageable pageable
     ) {
+        if (KeysetCursor.requested(after, before)) {
+            KeysetScrollPosition position = KeysetCursor.position(after, before, pageable.getSort(), Order.class);
+            return ApiResponseUtil.ok(orderService.findByUserAndStatus(userId, status, position, pageable), pageable, position);
+        }
+        if (!count) {
+            return ApiResponseUtil.ok(SlicePaging.toSlice(orderService.findByUserAndStatus(userId, status, SlicePaging.position(pageable), pageable), pageable));
+        }
         Page<OrderDto.OrderResponse> page = orderService.findByUserAndStatus(userId, status, pageable);
         return ApiResponseUtil.ok(page);
     }
@@ -167,7 +254,7 @@ public class OrderController {
                     content = @Content(schema = @Schema(implementation = com.veggieshop.common.ApiError.class)))
     })
     @GetMapping("/{id}")
-    @PreAuthorize("hasRole('ADMIN') or @orderSecurity.isOrderOwner(#id, principal.user.id)")
+    @PreAuthorize("hasRole('ADMIN') or @orderSecurity.isOrderOwner(#id)")
     public ResponseEntity<ApiResponse<OrderDto.OrderResponse>> getById(
             @Parameter(description = "ID of the order to retrieve", required = true, example = "1")
             @PathVariable("id") @NotNull @Min(1) Long id
@@ -200,4 +287,158 @@ public class OrderController {
         orderService.updateStatus(id, status);
         return ApiResponseUtil.noContent();
     }
+
+    // ================== BULK UPDATE ORDER STATUS (ADMIN ONLY) ==================
+    @Operation(
+            summary = "Update the status of many orders (ADMIN only)",
+            description = "Moves the listed orders, or all orders matching a filter (current status and "
+                    + "optional createdAt range), to a new status. Only PENDING -> PAID/CANCELLED and "
+                    + "PAID -> SHIPPED/CANCELLED are applied. Orders are updated in chunks, each committed "
+                    + "on its own; the response streams one NDJSON line per order as its chunk commits "
+                    + "(UPDATED, UNCHANGED, INVALID_TRANSITION or NOT_FOUND), then a summary line."
+    )
+    @io.swagger.v3.oas.annotations.responses.ApiResponses({
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Per-order outcomes, then a summary (application/x-ndjson)"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid status, both or neither of ids and filter, or a filter whose status cannot move to the target",
+                    content = @Content(schema = @Schema(implementation = com.veggieshop.common.ApiError.class))),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Forbidden",
+                    content = @Content(schema = @Schema(implementation = com.veggieshop.common.ApiError.class)))
+    })
+    @PostMapping("/status")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> bulkUpdateStatus(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Target status, and either ids or a filter",
+                    required = true,
+                    content = @Content(schema = @Schema(implementation = OrderDto.BulkStatusRequest.class))
+            )
+            @RequestBody @Valid OrderDto.BulkStatusRequest request
+    ) {
+        boolean hasIds = request.getIds() != null && !request.getIds().isEmpty();
+        if (hasIds == (request.getFilter() != null)) {
+            throw new BadRequestException("Provide either ids or filter");
+        }
+        Order.Status target = parseStatus(request.getStatus());
+        Order.Status current = hasIds ? null : parseStatus(request.getFilter().getStatus());
+        if (current != null && !current.canTransitionTo(target)) {
+            throw new BadRequestException("Orders cannot move from " + current + " to " + target);
+        }
+
+        StreamingResponseBody body = out -> {
+            OrderDto.BulkStatusSummary summary = new OrderDto.BulkStatusSummary();
+            summary.setStatus(target.name());
+            Consumer<List<OrderDto.BulkStatusOutcome>> onChunk = outcomes -> {
+                try {
+                    for (OrderDto.BulkStatusOutcome outcome : outcomes) {
+                        count(summary, outcome.getResult());
+                        writeLine(out, outcome);
+                    }
+                    out.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+            try {
+                if (hasIds) {
+                    bulkStatusUpdater.updateByIds(request.getIds(), target, onChunk);
+                } else {
+                    bulkStatusUpdater.updateByFilter(current, request.getFilter().getCreatedFrom(),
+                            request.getFilter().getCreatedTo(), target, onChunk);
+                }
+            } catch (UncheckedIOException e) {
+                // Client went away; chunks already committed stay committed
+                throw e.getCause();
+            } catch (RuntimeException e) {
+                // Status and headers are already sent: report the failure in the stream itself
+                summary.setError(e.getMessage());
+            }
+            writeLine(out, summary);
+            out.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    // ================== EXPORT ORDERS (ADMIN ONLY, STREAMED) ==================
+    @Operation(
+            summary = "Export orders with their items (ADMIN only)",
+            description = "Streams every matching order, oldest first, as NDJSON (one order with its items per "
+                    + "line) or CSV (one line per item) straight from a database cursor, so any number of "
+                    + "orders can be exported in one request. Gzip-compressed when the client accepts gzip. "
+                    + "Each running export holds one database connection until it finishes."
+    )
+    @io.swagger.v3.oas.annotations.responses.ApiResponses({
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Export file (application/x-ndjson or text/csv)"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid format, status or date",
+                    content = @Content(schema = @Schema(implementation = com.veggieshop.common.ApiError.class))),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Forbidden",
+                    content = @Content(schema = @Schema(implementation = com.veggieshop.common.ApiError.class)))
+    })
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> export(
+            @Parameter(description = "ndjson or csv", example = "csv")
+            @RequestParam(name = "format", defaultValue = "ndjson") String format,
+            @Parameter(description = "Only orders in this status", example = "SHIPPED")
+            @RequestParam(name = "status", required = false) String status,
+            @Parameter(description = "Created at or after (ISO date-time)", example = "2024-05-01T00:00:00")
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Created before (ISO date-time)", example = "2024-06-01T00:00:00")
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(hidden = true) @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        OrderExporter.Format exportFormat = OrderExporter.Format.parse(format);
+        OrderExporter.Filter filter = new OrderExporter.Filter(
+                status == null ? null : parseStatus(status), from, to);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024);
+                orderExporter.export(filter, exportFormat, compressed);
+                compressed.finish();
+            } else {
+                orderExporter.export(filter, exportFormat, out);
+            }
+            out.flush();
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(exportFormat.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("orders." + exportFormat.extension())
+                        .build()
+                        .toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    // ================== Helper methods ==================
+
+    private void writeLine(OutputStream out, Object value) throws IOException {
+        // writeValue(OutputStream, ...) would close the response stream
+        out.write(objectMapper.writeValueAsBytes(value));
+        out.write('\n');
+    }
+
+    private static void count(OrderDto.BulkStatusSummary summary, OrderDto.BulkStatusResult result) {
+        switch (result) {
+            case UPDATED -> summary.setUpdated(summary.getUpdated() + 1);
+            case UNCHANGED -> summary.setUnchanged(summary.getUnchanged() + 1);
+            case INVALID_TRANSITION -> summary.setInvalidTransition(summary.getInvalidTransition() + 1);
+            case NOT_FOUND -> summary.setNotFound(summary.getNotFound() + 1);
+        }
+    }
+
+    private static Order.Status parseStatus(String status) {
+        try {
+            return Order.Status.valueOf(status.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Unknown order status " + status + "; expected one of "
+                    + Arrays.toString(Order.Status.values()));
+        }
+    }
 }
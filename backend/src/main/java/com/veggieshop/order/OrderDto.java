@@ -1,6 +1,10 @@
 package com.veggieshop.order;
 
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import jakarta.validation.constraints.NotNull;
 import java.math.BigDecimal;
@@ -25,4 +29,60 @@ public class OrderDto {
         @NotNull
         private List<OrderItemDto.OrderItemCreateRequest> items;
     }
+
+    @Data
+    public static class BulkStatusRequest {
+        // Target status
+        @NotNull
+        private String status;
+        // Either explicit ids...
+        @Size(max = 10000)
+        private List<@NotNull Long> ids;
+        // ...or a filter
+        @Valid
+        private BulkStatusFilter filter;
+    }
+
+    @Data
+    public static class BulkStatusFilter {
+        // Current status of the orders to move
+        @NotNull
+        private String status;
+        // Created at or after (optional)
+        private LocalDateTime createdFrom;
+        // Created before (optional)
+        private LocalDateTime createdTo;
+    }
+
+    /**
+     * One line of the bulk status stream: what happened to one order.
+     */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class BulkStatusOutcome {
+        private Long id;
+        private BulkStatusResult result;
+        // Status before the update; null if the order does not exist
+        private String previousStatus;
+    }
+
+    public enum BulkStatusResult {
+        UPDATED, UNCHANGED, INVALID_TRANSITION, NOT_FOUND
+    }
+
+    /**
+     * Last line of the bulk status stream.
+     */
+    @Data
+    @NoArgsConstructor
+    public static class BulkStatusSummary {
+        private String status;
+        private long updated;
+        private long unchanged;
+        private long invalidTransition;
+        private long notFound;
+        // Set if the run stopped early; chunks streamed before it are committed
+        private String error;
+    }
 }
@@ -0,0 +1,329 @@
+package com.veggieshop.order;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.veggieshop.exception.BadRequestException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes orders with their items straight from a database cursor to an output stream.
+ * <p>
+ * One query joins orders, items, users and products, ordered by order id then item id, and runs in
+ * a read-only transaction so the Postgres driver honours {@code fetch-size}: rows arrive
+ * {@code fetch-size} at a time through a forward-only cursor and each is written out before the
+ * next is read. Memory stays constant whatever the row count (at most one order's items are held,
+ * for NDJSON), with no count query and no offset paging. Exported orders are counted as
+ * {@code orders.exported{format}}.
+ * <p>
+ * Ordering by the identity key, which follows creation order, lets Postgres walk the primary key
+ * (or the {@code (created_at, id)} index for a date filter) and the {@code order_id} index on
+ * items in a merge or nested-loop join that returns the first rows at once; ordering by
+ * {@code created_at} first would sort the whole join before the first row. The cursor needs its
+ * transaction, so each export holds one pooled connection for as long as it runs: size the pool
+ * with concurrent exports in mind.
+ */
+@Component
+public class OrderExporter {
+
+    public enum Format {
+        NDJSON(MediaType.APPLICATION_NDJSON, "ndjson"),
+        CSV(new MediaType("text", "csv", StandardCharsets.UTF_8), "csv");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        Format(MediaType mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public MediaType mediaType() {
+            return mediaType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        public static Format parse(String format) {
+            try {
+                return valueOf(format.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Unknown export format " + format + "; expected ndjson or csv");
+            }
+        }
+    }
+
+    /**
+     * Which orders to export; every field is optional. {@code createdTo} is exclusive.
+     */
+    public record Filter(Order.Status status, LocalDateTime createdFrom, LocalDateTime createdTo) {
+    }
+
+    private static final String SELECT_SQL = """
+            SELECT o.id, o.user_id, u.name AS user_name, o.total_price, o.status, o.created_at,
+                   oi.id AS item_id, oi.product_id, p.name AS product_name, oi.quantity, oi.price
+            FROM orders o
+            JOIN users u ON u.id = o.user_id
+            LEFT JOIN order_items oi ON oi.order_id = o.id
+            LEFT JOIN products p ON p.id = oi.product_id
+            WHERE 1 = 1""";
+
+    // Leading characters that make Excel, LibreOffice or Sheets treat a cell as a formula
+    private static final String FORMULA_TRIGGERS = "=+-@\t\r";
+    private static final String CSV_HEADER =
+            "order_id,created_at,status,user_id,user_name,total_price,item_id,product_id,product_name,quantity,price";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+    private final Map<Format, Counter> exported = new EnumMap<>(Format.class);
+
+    public OrderExporter(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${app.orders.export.fetch-size:1000}") int fetchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+        for (Format format : Format.values()) {
+            exported.put(format, Counter.builder("orders.exported")
+                    .description("Orders written by the order export")
+                    .tag("format", format.extension())
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Writes the matching orders, in id (creation) order, to {@code out}: for NDJSON one
+     * {@link OrderDto.OrderResponse} per line, for CSV one line per item (an order without items
+     * gets one line with empty item columns). {@code out} is flushed but not closed.
+     */
+    public void export(Filter filter, Format format, OutputStream out) throws IOException {
+        StringBuilder sql = new StringBuilder(SELECT_SQL);
+        List<Object> args = new ArrayList<>();
+        if (filter.status() != null) {
+            sql.append(" AND o.status = ?");
+            args.add(filter.status().name());
+        }
+        if (filter.createdFrom() != null) {
+            sql.append(" AND o.created_at >= ?");
+            args.add(Timestamp.valueOf(filter.createdFrom()));
+        }
+        if (filter.createdTo() != null) {
+            sql.append(" AND o.created_at < ?");
+            args.add(Timestamp.valueOf(filter.createdTo()));
+        }
+        sql.append(" ORDER BY o.id, oi.id");
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        RowWriter rows = format == Format.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer);
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(
+                    con -> {
+                        PreparedStatement ps = con.prepareStatement(sql.toString(),
+                                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                        ps.setFetchSize(fetchSize);
+                        new ArgumentPreparedStatementSetter(args.toArray()).setValues(ps);
+                        return ps;
+                    },
+                    rows));
+            rows.finish();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        exported.get(format).increment(rows.orders);
+    }
+
+    // ============== Helper methods ==============
+
+    /**
+     * Rows arrive grouped by order; subclasses see each row and are told when an order ends.
+     */
+    private abstract static class RowWriter implements RowCallbackHandler {
+
+        final Writer writer;
+        long orders;
+        private long currentOrderId = -1;
+
+        RowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public final void processRow(ResultSet rs) throws SQLException {
+            try {
+                long orderId = rs.getLong("id");
+                if (orderId != currentOrderId) {
+                    if (currentOrderId != -1) {
+                        endOrder();
+                    }
+                    currentOrderId = orderId;
+                    orders++;
+                }
+                row(rs);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void finish() {
+            if (currentOrderId != -1) {
+                try {
+                    endOrder();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        abstract void row(ResultSet rs) throws SQLException, IOException;
+
+        abstract void endOrder() throws IOException;
+    }
+
+    private final class NdjsonRowWriter extends RowWriter {
+
+        private OrderDto.OrderResponse order;
+
+        NdjsonRowWriter(Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        void row(ResultSet rs) throws SQLException {
+            if (order == null) {
+                order = new OrderDto.OrderResponse();
+                order.setId(rs.getLong("id"));
+                order.setUserId(rs.getLong("user_id"));
+                order.setUserName(rs.getString("user_name"));
+                order.setTotalPrice(rs.getBigDecimal("total_price"));
+                order.setStatus(rs.getString("status"));
+                order.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+                order.setItems(new ArrayList<>());
+            }
+            long itemId = rs.getLong("item_id");
+            if (!rs.wasNull()) {
+                OrderItemDto.OrderItemResponse item = new OrderItemDto.OrderItemResponse();
+                item.setId(itemId);
+                item.setProductId(rs.getLong("product_id"));
+                item.setProductName(rs.getString("product_name"));
+                item.setQuantity(rs.getInt("quantity"));
+                item.setPrice(rs.getBigDecimal("price"));
+                order.getItems().add(item);
+            }
+        }
+
+        @Override
+        void endOrder() throws IOException {
+            writer.write(objectMapper.writeValueAsString(order));
+            writer.write('\n');
+            order = null;
+        }
+    }
+
+    private static final class CsvRowWriter extends RowWriter {
+
+        CsvRowWriter(Writer writer) throws IOException {
+            super(writer);
+            writer.write(CSV_HEADER);
+            writer.write("\r\n");
+        }
+
+        @Override
+        void row(ResultSet rs) throws SQLException, IOException {
+            writer.write(String.valueOf(rs.getLong("id")));
+            writer.write(',');
+            writer.write(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(rs.getTimestamp("created_at").toLocalDateTime()));
+            writer.write(',');
+            writer.write(rs.getString("status"));
+            writer.write(',');
+            writer.write(String.valueOf(rs.getLong("user_id")));
+            writer.write(',');
+            writeText(rs.getString("user_name"));
+            writer.write(',');
+            writeDecimal(rs.getBigDecimal("total_price"));
+            writer.write(',');
+            long itemId = rs.getLong("item_id");
+            if (!rs.wasNull()) {
+                writer.write(String.valueOf(itemId));
+                writer.write(',');
+                writer.write(String.valueOf(rs.getLong("product_id")));
+                writer.write(',');
+                writeText(rs.getString("product_name"));
+                writer.write(',');
+                writer.write(String.valueOf(rs.getInt("quantity")));
+                writer.write(',');
+                writeDecimal(rs.getBigDecimal("price"));
+            } else {
+                writer.write(",,,,");
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        void endOrder() {
+        }
+
+        // RFC 4180: quote fields holding a separator, quote or line break; double embedded quotes.
+        // User-supplied names a spreadsheet would evaluate as a formula get a leading ' and are quoted
+        private void writeText(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            boolean formula = !value.isEmpty() && FORMULA_TRIGGERS.indexOf(value.charAt(0)) >= 0;
+            if (!formula && value.indexOf(',') < 0 && value.indexOf('"') < 0
+                    && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            if (formula) {
+                writer.write('\'');
+            }
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        private void writeDecimal(BigDecimal value) throws IOException {
+            if (value != null) {
+                writer.write(value.toPlainString());
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.veggieshop.order;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * An {@code Idempotency-Key} a user sent with {@code POST /api/orders}, with a digest of the request
+ * and the response it produced. Written in the same transaction as the order, by
+ * {@link OrderIdempotencyService}; rows past {@code expiresAt} are purged by the token purge job.
+ */
+@Entity
+@Table(
+        name = "order_idempotency_keys",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "idempotency_key"}),
+        indexes = {
+                @Index(columnList = "expires_at")
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderIdempotencyKey {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "idempotency_key", nullable = false, length = OrderIdempotencyService.MAX_KEY_LENGTH)
+    private String idempotencyKey;
+
+    // SHA-256 of the request body, to reject a key reused for a different order
+    @Column(nullable = false, length = 32)
+    private byte[] requestHash;
+
+    // Null while the order is being created
+    private Long orderId;
+
+    // The OrderResponse as JSON, replayed to retries
+    @Column(columnDefinition = "text")
+    private String response;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
@@ -0,0 +1,239 @@
+package com.veggieshop.order;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.veggieshop.exception.BadRequestException;
+import com.veggieshop.exception.DuplicateException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@code Idempotency-Key} support for order creation: a retried request gets the response of the
+ * first one instead of creating the order again.
+ * <p>
+ * Keys are scoped to the user and kept in two tiers:
+ * <ul>
+ *   <li>In memory, each key maps to the future result of its first request. A concurrent duplicate
+ *   on the same node waits on that future (up to {@code wait-timeout}) and never enters checkout;
+ *   recent keys are answered from here without a query.</li>
+ *   <li>In Postgres ({@code order_idempotency_keys}, unique on user and key), the key is claimed
+ *   with one {@code INSERT ... ON CONFLICT} in the same transaction as the order. A duplicate on
+ *   another node blocks on the unique index until the first transaction ends, then reads the stored
+ *   response; if the first one rolled back, it claims the key and creates the order itself.</li>
+ * </ul>
+ * A key reused with a different request body is rejected with 422. Keys expire after
+ * {@code retention}; an expired key is claimed afresh. Outcomes are counted as
+ * {@code orders.idempotency{result=created|replayed}}.
+ */
+@Service
+public class OrderIdempotencyService {
+
+    public static final int MAX_KEY_LENGTH = 255;
+
+    /**
+     * The order response, and whether it was replayed from an earlier request with the same key.
+     */
+    public record Result(OrderDto.OrderResponse response, boolean replayed) {
+    }
+
+    private record Key(long userId, String idempotencyKey) {
+    }
+
+    private record Stored(byte[] requestHash, OrderDto.OrderResponse response) {
+    }
+
+    // Claims a new key, or one whose previous use has expired; returns nothing if the key is taken
+    private static final String CLAIM_SQL = """
+            INSERT INTO order_idempotency_keys AS k (user_id, idempotency_key, request_hash, created_at, expires_at)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (user_id, idempotency_key) DO UPDATE
+                SET request_hash = EXCLUDED.request_hash, created_at = EXCLUDED.created_at,
+                    expires_at = EXCLUDED.expires_at, order_id = NULL, response = NULL
+                WHERE k.expires_at < EXCLUDED.created_at
+            RETURNING id
+            """;
+    private static final String COMPLETE_SQL =
+            "UPDATE order_idempotency_keys SET order_id = ?, response = ? WHERE id = ?";
+    private static final String FIND_SQL =
+            "SELECT request_hash, response FROM order_idempotency_keys WHERE user_id = ? AND idempotency_key = ?";
+
+    private final OrderService orderService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+    private final Cache<Key, CompletableFuture<Stored>> recent;
+    private final Duration retention;
+    private final Duration waitTimeout;
+    private final Counter created;
+    private final Counter replayed;
+
+    public OrderIdempotencyService(
+            OrderService orderService,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            ObjectMapper objectMapper,
+            Clock clock,
+            MeterRegistry meterRegistry,
+            @Value("${app.orders.idempotency.retention:24h}") Duration retention,
+            @Value("${app.orders.idempotency.memory-ttl:10m}") Duration memoryTtl,
+            @Value("${app.orders.idempotency.memory-max-keys:10000}") long memoryMaxKeys,
+            @Value("${app.orders.idempotency.wait-timeout:30s}") Duration waitTimeout
+    ) {
+        this.orderService = orderService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+        this.retention = retention;
+        this.waitTimeout = waitTimeout;
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(memoryMaxKeys)
+                .expireAfterWrite(memoryTtl)
+                .build();
+        this.created = counter(meterRegistry, "created");
+        this.replayed = counter(meterRegistry, "replayed");
+    }
+
+    /**
+     * Creates the order, unless this user already sent {@code idempotencyKey}: then returns the
+     * first request's response, waiting for it if that request is still running.
+     */
+    public Result create(Long userId, String idempotencyKey, OrderDto.OrderCreateRequest request) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        Key key = new Key(userId, idempotencyKey);
+        byte[] requestHash = hash(request);
+
+        CompletableFuture<Stored> mine = new CompletableFuture<>();
+        CompletableFuture<Stored> first = recent.asMap().putIfAbsent(key, mine);
+        if (first != null) {
+            OrderDto.OrderResponse response = checked(await(first), requestHash);
+            replayed.increment();
+            return new Result(response, true);
+        }
+
+        Stored stored;
+        boolean isReplay;
+        try {
+            OrderDto.OrderResponse response = transactionTemplate.execute(status -> claimAndCreate(key, requestHash, request));
+            // No response: an earlier request (maybe on another node) has the key and committed its order
+            isReplay = response == null;
+            stored = isReplay ? find(key) : new Stored(requestHash, response);
+        } catch (RuntimeException e) {
+            // Nothing was stored: let the next retry run checkout again
+            recent.asMap().remove(key, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+        mine.complete(stored);
+        OrderDto.OrderResponse response = checked(stored, requestHash);
+        (isReplay ? replayed : created).increment();
+        return new Result(response, isReplay);
+    }
+
+    // ============== Helper methods ==============
+
+    /**
+     * @return The new order, or null if the key was already taken.
+     */
+    private OrderDto.OrderResponse claimAndCreate(Key key, byte[] requestHash, OrderDto.OrderCreateRequest request) {
+        Instant now = clock.instant();
+        List<Long> claimed = jdbcTemplate.queryForList(CLAIM_SQL, Long.class,
+                key.userId(), key.idempotencyKey(), requestHash,
+                Timestamp.from(now), Timestamp.from(now.plus(retention)));
+        if (claimed.isEmpty()) {
+            return null;
+        }
+        OrderDto.OrderResponse response = orderService.create(key.userId(), request);
+        jdbcTemplate.update(COMPLETE_SQL, response.getId(), toJson(response), claimed.get(0));
+        return response;
+    }
+
+    private Stored find(Key key) {
+        return jdbcTemplate.query(FIND_SQL, rs -> {
+            if (!rs.next() || rs.getString("response") == null) {
+                throw new DuplicateException("A request with this Idempotency-Key is still being processed");
+            }
+            return new Stored(rs.getBytes("request_hash"), fromJson(rs.getString("response")));
+        }, key.userId(), key.idempotencyKey());
+    }
+
+    private Stored await(CompletableFuture<Stored> first) {
+        try {
+            return first.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new DuplicateException("A request with this Idempotency-Key is still being processed");
+        } catch (ExecutionException e) {
+            // The first request failed; this one reports the same failure
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the original request", e);
+        }
+    }
+
+    private static OrderDto.OrderResponse checked(Stored stored, byte[] requestHash) {
+        if (!Arrays.equals(stored.requestHash(), requestHash)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Idempotency-Key was already used for a different request");
+        }
+        return stored.response();
+    }
+
+    private byte[] hash(OrderDto.OrderCreateRequest request) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String toJson(OrderDto.OrderResponse response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private OrderDto.OrderResponse fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, OrderDto.OrderResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("orders.idempotency")
+                .description("Order creations with an Idempotency-Key, by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,204 @@
+package com.veggieshop.order;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Order id to owner user id, for ownership checks without a query. Ownership never changes after
+ * an order is created and order ids are never reused, so entries need no invalidation.
+ * <p>
+ * The map is a fixed-size, primitive open-addressing table ({@code long[]} keys and values, no
+ * boxing, about 16 bytes per entry): each key may live in one of {@value #WAYS} consecutive slots
+ * of its home position, and when all of them are taken the new entry overwrites one of them. The
+ * table therefore never grows past {@code max-entries} and never needs rehashing, and an evicted
+ * order simply costs one query on its next check. It is split into segments, each guarded by a
+ * {@link StampedLock}: reads are optimistic and take no lock unless they race with a write.
+ */
+@Component
+public class OrderOwnershipCache {
+
+    // Slots a key may occupy, starting at its home slot
+    static final int WAYS = 4;
+
+    private static final int SEGMENTS = 16;
+
+    // Order ids are positive; 0 marks an empty slot
+    private static final long EMPTY = 0L;
+
+    /** Returned by {@link #ownerOf(long)} when the order is not cached. */
+    public static final long UNKNOWN = -1L;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final Counter hits;
+    private final Counter misses;
+
+    public OrderOwnershipCache(
+            @Value("${app.orders.ownership-cache.max-entries:100000}") int maxEntries,
+            MeterRegistry meterRegistry
+    ) {
+        int slotsPerSegment = Integer.highestOneBit(Math.max(WAYS, maxEntries / SEGMENTS));
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(slotsPerSegment);
+        }
+        this.hits = Counter.builder("orders.ownership.cache")
+                .description("Order ownership checks answered from memory")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("orders.ownership.cache")
+                .description("Order ownership checks that needed a query")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("orders.ownership.cache.size", this, OrderOwnershipCache::size)
+                .description("Orders whose owner is cached")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return The owner's user id, or {@link #UNKNOWN} if the order is not cached.
+     */
+    public long ownerOf(long orderId) {
+        if (orderId <= 0) {
+            return UNKNOWN;
+        }
+        long hash = mix(orderId);
+        long owner = segment(hash).get(orderId, (int) hash);
+        (owner == UNKNOWN ? misses : hits).increment();
+        return owner;
+    }
+
+    public void put(long orderId, long userId) {
+        if (orderId <= 0) {
+            return;
+        }
+        long hash = mix(orderId);
+        segment(hash).put(orderId, userId, (int) hash);
+    }
+
+    /**
+     * Number of cached orders (at most the table's slot count).
+     */
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    // ============== Helper methods ==============
+
+    private Segment segment(long hash) {
+        return segments[(int) (hash >>> 60) & (SEGMENTS - 1)];
+    }
+
+    // Murmur3 finalizer: spreads sequential ids over the whole table
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private static final class Segment {
+
+        private final StampedLock lock = new StampedLock();
+        private final long[] keys;
+        private final long[] values;
+        private final int mask;
+        private int size;
+        // Rotates the victim among a full group's slots
+        private int nextVictim;
+
+        Segment(int slots) {
+            this.keys = new long[slots];
+            this.values = new long[slots];
+            this.mask = slots - 1;
+        }
+
+        long get(long key, int hash) {
+            long stamp = lock.tryOptimisticRead();
+            long value = find(key, hash);
+            if (lock.validate(stamp)) {
+                return value;
+            }
+            stamp = lock.readLock();
+            try {
+                return find(key, hash);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        void put(long key, long value, int hash) {
+            long stamp = lock.writeLock();
+            try {
+                int home = hash & mask;
+                int free = -1;
+                for (int i = 0; i < WAYS; i++) {
+                    int slot = (home + i) & mask;
+                    if (keys[slot] == key) {
+                        values[slot] = value;
+                        return;
+                    }
+                    if (free < 0 && keys[slot] == EMPTY) {
+                        free = slot;
+                    }
+                }
+                if (free < 0) {
+                    free = (home + nextVictim) & mask;
+                    nextVictim = (nextVictim + 1) % WAYS;
+                } else {
+                    size++;
+                }
+                values[free] = value;
+                keys[free] = key;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        long size() {
+            long stamp = lock.readLock();
+            try {
+                return size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        void clear() {
+            long stamp = lock.writeLock();
+            try {
+                Arrays.fill(keys, EMPTY);
+                size = 0;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private long find(long key, int hash) {
+            int home = hash & mask;
+            for (int i = 0; i < WAYS; i++) {
+                int slot = (home + i) & mask;
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            return UNKNOWN;
+        }
+    }
+}
@@ -1,21 +1,55 @@
 package com.veggieshop.order;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Optional;
+
+// Listings join the owner in; line items and their products are batch-fetched for the whole page
+// (hibernate.default_batch_fetch_size), since fetch-joining a collection would break LIMIT/OFFSET
 public interface OrderRepository extends JpaRepository<Order, Long> {
+    // Single order with everything OrderMapper reads, in one query
+    @EntityGraph(attributePaths = {"user", "orderItems", "orderItems.product"})
+    Optional<Order> findDetailedById(Long id);
+
     // Paged retrieval of all orders
+    @EntityGraph(attributePaths = "user")
     Page<Order> findAll(Pageable pageable);
 
     // Paged retrieval of orders by user
+    @EntityGraph(attributePaths = "user")
     Page<Order> findByUserId(Long userId, Pageable pageable);
 
     // Optionally filter by status
+    @EntityGraph(attributePaths = "user")
     Page<Order> findByStatus(Order.Status status, Pageable pageable);
 
     // Filter by user and status
+    @EntityGraph(attributePaths = "user")
     Page<Order> findByUserIdAndStatus(Long userId, Order.Status status, Pageable pageable);
 
-    boolean existsByIdAndUserId(Long orderId, Long userId);
+    // Keyset (seek) variants: rows after/before a cursor on (sort keys, id), no OFFSET scan
+    @EntityGraph(attributePaths = "user")
+    Window<Order> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    @EntityGraph(attributePaths = "user")
+    Window<Order> findByUserId(Long userId, ScrollPosition position, Sort sort, Limit limit);
+
+    @EntityGraph(attributePaths = "user")
+    Window<Order> findByStatus(Order.Status status, ScrollPosition position, Sort sort, Limit limit);
+
+    @EntityGraph(attributePaths = "user")
+    Window<Order> findByUserIdAndStatus(Long userId, Order.Status status, ScrollPosition position, Sort sort, Limit limit);
+
+    // Owner of an order, without loading it
+    @Query("SELECT o.user.id FROM Order o WHERE o.id = :orderId")
+    Optional<Long> findUserIdById(@Param("orderId") Long orderId);
 }
@@ -2,6 +2,8 @@ package com.veggieshop.order;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 
 public interface OrderService {
     OrderDto.OrderResponse create(Long userId, OrderDto.OrderCreateRequest request);
@@ -18,4 +20,13 @@ public interface OrderService {
     Page<OrderDto.OrderResponse> findByUserAndStatus(Long userId, String status, Pageable pageable);
 
     void updateStatus(Long orderId, String status);
+
+    // Keyset (seek) variants: size and sort come from the pageable, the page number is ignored
+    Window<OrderDto.OrderResponse> findByUser(Long userId, ScrollPosition position, Pageable pageable);
+
+    Window<OrderDto.OrderResponse> findAll(ScrollPosition position, Pageable pageable);
+
+    Window<OrderDto.OrderResponse> findByStatus(String status, ScrollPosition position, Pageable pageable);
+
+    Window<OrderDto.OrderResponse> findByUserAndStatus(Long userId, String status, ScrollPosition position, Pageable pageable);
 }
@@ -3,19 +3,30 @@ package com.veggieshop.order;
 import com.veggieshop.offer.Offer;
 import com.veggieshop.exception.ResourceNotFoundException;
 import com.veggieshop.offer.OfferRepository;
+import com.veggieshop.pricing.Money;
+import com.veggieshop.pricing.PricingEngine;
 import com.veggieshop.product.Product;
 import com.veggieshop.product.ProductRepository;
+import com.veggieshop.product.SoldCountAccumulator;
 import com.veggieshop.user.User;
 import com.veggieshop.user.UserRepository;
-import com.veggieshop.util.PriceCalculator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -28,6 +39,9 @@ public class OrderServiceImpl implements OrderService {
     private final UserRepository userRepository;
     private final OfferRepository offerRepository;
     private final OrderMapper orderMapper;
+    private final SoldCountAccumulator soldCountAccumulator;
+    private final OrderOwnershipCache orderOwnershipCache;
+    private final Clock clock;
 
     @Override
     public OrderDto.OrderResponse create(Long userId, OrderDto.OrderCreateRequest request) {
@@ -39,37 +53,53 @@ public class OrderServiceImpl implements OrderService {
                 .status(Order.Status.PENDING)
                 .build();
 
-        List<OrderItem> items = request.getItems().stream().map(itemReq -> {
-            Product product = productRepository.findById(itemReq.getProductId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Product not found"));
-
-            // NOTE: Pass Pageable.unpaged() to get all offers
-            List<Offer> offers = offerRepository.findByProductId(product.getId(), Pageable.unpaged()).getContent();
-            BigDecimal finalPrice = PriceCalculator.calculateFinalPrice(product, offers, java.time.LocalDate.now());
-
-            return OrderItem.builder()
+        // Resolve all products and their offers up front: one IN query each instead of two per line.
+        // Offers are read in this transaction, never from the eventually consistent ActiveOfferIndex,
+        // so an order is never charged an offer deleted or expired on another node.
+        Set<Long> productIds = request.getItems().stream()
+                .map(OrderItemDto.OrderItemCreateRequest::getProductId)
+                .collect(Collectors.toSet());
+        Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        Map<Long, List<Offer>> offersByProduct = productIds.isEmpty()
+                ? Map.of()
+                : offerRepository.findByProductIdIn(productIds).stream()
+                        .collect(Collectors.groupingBy(offer -> offer.getProduct().getId()));
+        LocalDate today = LocalDate.now(clock);
+
+        // Prices are computed in cents; BigDecimal only appears on the entities
+        List<OrderItem> items = new ArrayList<>(request.getItems().size());
+        long totalCents = 0L;
+        for (OrderItemDto.OrderItemCreateRequest itemReq : request.getItems()) {
+            Product product = products.get(itemReq.getProductId());
+            if (product == null) {
+                throw new ResourceNotFoundException("Product not found");
+            }
+
+            List<Offer> offers = offersByProduct.getOrDefault(product.getId(), List.of());
+            long unitCents = PricingEngine.finalPriceCents(product, offers, today);
+            totalCents = Math.addExact(totalCents, Money.times(unitCents, itemReq.getQuantity()));
+
+            items.add(OrderItem.builder()
                     .order(order)
                     .product(product)
                     .quantity(itemReq.getQuantity())
-                    .price(finalPrice)
-                    .build();
-        }).toList();
+                    .price(Money.toBigDecimal(unitCents))
+                    .build());
+        }
 
-        // Calculate total price
-        BigDecimal total = items.stream()
-                .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        order.setTotalPrice(total);
+        order.setTotalPrice(Money.toBigDecimal(totalCents));
         order.setOrderItems(items);
         Order savedOrder = orderRepository.save(order);
 
-        // Update sold count for each product
-        items.forEach(item -> {
-            Product product = item.getProduct();
-            product.setSoldCount(product.getSoldCount() + item.getQuantity());
-            productRepository.save(product);
-        });
+        // Sold counts are aggregated in memory and flushed in batches after commit,
+        // so hot products no longer serialize checkouts on their products row.
+        Map<Long, Long> soldQuantities = items.stream()
+                .collect(Collectors.groupingBy(item -> item.getProduct().getId(),
+                        Collectors.summingLong(OrderItem::getQuantity)));
+        soldCountAccumulator.record(savedOrder.getId(), soldQuantities);
+        // Ids are never reused, so an entry left behind by a rollback is harmless
+        orderOwnershipCache.put(savedOrder.getId(), userId);
 
         return orderMapper.toOrderResponse(savedOrder);
     }
@@ -77,7 +107,7 @@ public class OrderServiceImpl implements OrderService {
     @Override
     @Transactional(readOnly = true)
     public OrderDto.OrderResponse findById(Long id) {
-        Order order = orderRepository.findById(id)
+        Order order = orderRepository.findDetailedById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found"));
         return orderMapper.toOrderResponse(order);
     }
@@ -119,4 +149,37 @@ public class OrderServiceImpl implements OrderService {
         order.setStatus(Order.Status.valueOf(status.toUpperCase()));
         orderRepository.save(order);
     }
+
+    // ================== Keyset (seek) listings ==================
+
+    @Override
+    @Transactional(readOnly = true)
+    public Window<OrderDto.OrderResponse> findByUser(Long userId, ScrollPosition position, Pageable pageable) {
+        return orderRepository.findByUserId(userId, position, pageable.getSort(), Limit.of(pageable.getPageSize()))
+                .map(orderMapper::toOrderResponse);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Window<OrderDto.OrderResponse> findAll(ScrollPosition position, Pageable pageable) {
+        return orderRepository.findAllBy(position, pageable.getSort(), Limit.of(pageable.getPageSize()))
+                .map(orderMapper::toOrderResponse);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Window<OrderDto.OrderResponse> findByStatus(String status, ScrollPosition position, Pageable pageable) {
+        Order.Status orderStatus = Order.Status.valueOf(status.toUpperCase());
+        return orderRepository.findByStatus(orderStatus, position, pageable.getSort(), Limit.of(pageable.getPageSize()))
+                .map(orderMapper::toOrderResponse);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Window<OrderDto.OrderResponse> findByUserAndStatus(Long userId, String status, ScrollPosition position, Pageable pageable) {
+        Order.Status orderStatus = Order.Status.valueOf(status.toUpperCase());
+        return orderRepository.findByUserIdAndStatus(userId, orderStatus, position, pageable.getSort(),
+                        Limit.of(pageable.getPageSize()))
+                .map(orderMapper::toOrderResponse);
+    }
 }
@@ -0,0 +1,156 @@
+package com.veggieshop.pricing;
+
+import com.veggieshop.cache.CacheInvalidationBus;
+import com.veggieshop.cache.CacheInvalidationEvent;
+import com.veggieshop.offer.Offer;
+import com.veggieshop.offer.OfferRepository;
+import com.veggieshop.product.Product;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains {@link Product#getFinalPrice()}: the price customers pay today, after the product's
+ * discount and its best active offer.
+ * <p>
+ * It is recomputed incrementally whenever a product or one of its offers changes, for just the
+ * affected products when an offer starts or ends (see {@code OfferTransitionScheduler}), and for the
+ * whole catalog on startup and as a nightly safety net. Because it is a column, listings can return,
+ * sort and filter by it without loading offers.
+ * <p>
+ * Every reprice row-locks its products before reading their offers, and offer and product writes
+ * take the same lock first ({@code ProductRepository#findByIdForUpdate}). A reprice therefore either
+ * waits for an in-flight offer change and sees it, or finishes before that change starts; it never
+ * writes a price computed from offers that changed underneath it.
+ */
+@Component
+@RequiredArgsConstructor
+public class EffectivePriceIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(EffectivePriceIndex.class);
+
+    private static final String BEST_OFFERS_SQL =
+            "SELECT product_id, MAX(discount) FROM offers WHERE start_date <= ? AND end_date >= ?";
+    private static final String PRODUCTS_SQL =
+            "SELECT id, price, discount, final_price FROM products";
+    private static final String BY_PRODUCT_IDS = " AND product_id = ANY(?)";
+    private static final String BY_IDS = " WHERE id = ANY(?)";
+    // In id order, so two reprices of overlapping products cannot deadlock
+    private static final String LOCK_SQL = "SELECT id FROM products";
+    private static final String LOCK_ORDER = " ORDER BY id FOR UPDATE";
+    private static final String UPDATE_SQL =
+            "UPDATE products SET final_price = ? WHERE id = ?";
+
+    private final OfferRepository offerRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheInvalidationBus invalidationBus;
+    private final Clock clock;
+
+    /**
+     * Recomputes the final price of one product from its current offers. The product must be
+     * managed (or about to be saved): the new value is written with the caller's transaction. An
+     * existing product must have been loaded with {@code ProductRepository#findByIdForUpdate}.
+     */
+    public void reprice(Product product) {
+        List<Offer> offers = product.getId() == null
+                ? List.of()
+                : offerRepository.findByProductIdIn(List.of(product.getId()));
+        long cents = PricingEngine.finalPriceCents(product, offers, LocalDate.now(clock));
+        product.setFinalPrice(Money.toBigDecimal(cents));
+    }
+
+    /**
+     * Recomputes every product for today in two reads and one batched write of the rows that changed.
+     *
+     * @return The number of products whose final price changed.
+     */
+    @Scheduled(cron = "${app.pricing.reprice-cron:0 0 0 * * *}", zone = "${app.shop.zone-id:}")
+    @EventListener(ApplicationReadyEvent.class)
+    public int repriceAll() {
+        LocalDate today = LocalDate.now(clock);
+        int changed = reprice(null, today);
+        if (changed > 0) {
+            log.info("Repriced {} products for {}", changed, today);
+        }
+        return changed;
+    }
+
+    /**
+     * Recomputes the given products as of {@code date}, e.g. when one of their offers starts or ends.
+     *
+     * @return The number of products whose final price changed.
+     */
+    public int repriceProducts(Collection<Long> productIds, LocalDate date) {
+        if (productIds.isEmpty()) {
+            return 0;
+        }
+        return reprice(productIds.toArray(Long[]::new), date);
+    }
+
+    // productIds null means all products
+    private int reprice(Long[] productIds, LocalDate date) {
+        Integer changed = transactionTemplate.execute(status -> {
+            // Locked first: offers read after this include every change committed while we waited
+            if (productIds == null) {
+                jdbcTemplate.queryForList(LOCK_SQL + LOCK_ORDER, Long.class);
+            } else {
+                jdbcTemplate.queryForList(LOCK_SQL + BY_IDS + LOCK_ORDER, Long.class, (Object) productIds);
+            }
+            Map<Long, Long> bestOfferCents = new HashMap<>();
+            String bestOffersSql = (productIds == null ? BEST_OFFERS_SQL : BEST_OFFERS_SQL + BY_PRODUCT_IDS)
+                    + " GROUP BY product_id";
+            Object[] bestOffersArgs = productIds == null
+                    ? new Object[]{date, date}
+                    : new Object[]{date, date, productIds};
+            jdbcTemplate.query(bestOffersSql,
+                    rs -> {
+                        bestOfferCents.put(rs.getLong(1), Money.toCents(rs.getBigDecimal(2)));
+                    },
+                    bestOffersArgs);
+
+            List<Object[]> updates = new ArrayList<>();
+            String productsSql = productIds == null ? PRODUCTS_SQL : PRODUCTS_SQL + BY_IDS;
+            Object[] productsArgs = productIds == null ? new Object[0] : new Object[]{productIds};
+            jdbcTemplate.query(productsSql,
+                    rs -> {
+                        long id = rs.getLong(1);
+                        BigDecimal price = rs.getBigDecimal(2);
+                        BigDecimal discount = rs.getBigDecimal(3);
+                        BigDecimal current = rs.getBigDecimal(4);
+                        long cents = PricingEngine.finalPriceCents(
+                                Money.toCents(price), Money.toCents(discount), bestOfferCents.getOrDefault(id, 0L));
+                        if (current == null || Money.toCents(current) != cents) {
+                            updates.add(new Object[]{Money.toBigDecimal(cents), id});
+                        }
+                    },
+                    productsArgs);
+            if (updates.isEmpty()) {
+                return 0;
+            }
+            jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+            if (productIds == null) {
+                invalidationBus.publish(CacheInvalidationEvent.all());
+            } else {
+                updates.forEach(u -> invalidationBus.publish(CacheInvalidationEvent.productViews((Long) u[1])));
+            }
+            return updates.size();
+        });
+        return changed == null ? 0 : changed;
+    }
+}
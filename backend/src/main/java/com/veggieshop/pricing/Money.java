@@ -0,0 +1,43 @@
+package com.veggieshop.pricing;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money as a {@code long} count of minor units (cents).
+ * <p>
+ * Amounts are stored as {@code numeric(38,2)}, so two decimals is all the precision the database
+ * keeps. Values entering the engine are rounded to that scale the same way Postgres does on insert
+ * (half up); values leaving it are exact.
+ */
+public final class Money {
+
+    public static final int SCALE = 2;
+    public static final RoundingMode ROUNDING = RoundingMode.HALF_UP;
+
+    private Money() {
+    }
+
+    /**
+     * @param amount An amount in major units, null meaning zero.
+     * @return The amount in cents.
+     * @throws ArithmeticException if it does not fit in a long.
+     */
+    public static long toCents(BigDecimal amount) {
+        if (amount == null) {
+            return 0L;
+        }
+        return amount.setScale(SCALE, ROUNDING).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    /**
+     * @throws ArithmeticException on overflow rather than silently wrapping.
+     */
+    public static long times(long cents, long quantity) {
+        return Math.multiplyExact(cents, quantity);
+    }
+}
@@ -0,0 +1,72 @@
+package com.veggieshop.pricing;
+
+import com.veggieshop.offer.Offer;
+import com.veggieshop.product.Product;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Computes final prices in cents.
+ * <p>
+ * Rules: the product's own discount is applied first, then the largest discount among the offers
+ * active on the given date (start and end inclusive), and the result never goes below zero.
+ * Evaluation allocates nothing: offers are compared in place and only the winner is converted to
+ * cents. Convert back with {@link Money#toBigDecimal(long)} at the DTO or entity boundary.
+ */
+public final class PricingEngine {
+
+    private PricingEngine() {
+    }
+
+    /**
+     * @param priceCents           List price.
+     * @param productDiscountCents The product's own discount.
+     * @param offerDiscountCents   Discount of the best active offer, 0 if none.
+     * @return Final price in cents, never negative.
+     */
+    public static long finalPriceCents(long priceCents, long productDiscountCents, long offerDiscountCents) {
+        long price = priceCents - productDiscountCents - offerDiscountCents;
+        return price < 0 ? 0L : price;
+    }
+
+    /**
+     * @param product The product (must not be null).
+     * @param offers  Offers of that product, active or not (can be empty).
+     * @param date    Day the price applies to.
+     * @return Final price in cents, never negative.
+     */
+    public static long finalPriceCents(Product product, List<Offer> offers, LocalDate date) {
+        return finalPriceCents(
+                Money.toCents(product.getPrice()),
+                Money.toCents(product.getDiscount()),
+                bestActiveOfferCents(offers, date));
+    }
+
+    /**
+     * @param product            The product (must not be null).
+     * @param offerDiscountCents Discount of its best active offer, 0 if none (see ActiveOfferIndex).
+     * @return Final price in cents, never negative.
+     */
+    public static long finalPriceCents(Product product, long offerDiscountCents) {
+        return finalPriceCents(Money.toCents(product.getPrice()), Money.toCents(product.getDiscount()), offerDiscountCents);
+    }
+
+    /**
+     * @return Discount of the largest offer active on {@code date}, in cents, or 0 if none is active.
+     */
+    public static long bestActiveOfferCents(List<Offer> offers, LocalDate date) {
+        Offer best = null;
+        for (int i = 0, n = offers.size(); i < n; i++) {
+            Offer offer = offers.get(i);
+            if (isActive(offer, date) && (best == null || offer.getDiscount().compareTo(best.getDiscount()) > 0)) {
+                best = offer;
+            }
+        }
+        return best == null ? 0L : Money.toCents(best.getDiscount());
+    }
+
+    public static boolean isActive(Offer offer, LocalDate date) {
+        return !date.isBefore(offer.getStartDate()) && !date.isAfter(offer.getEndDate());
+    }
+}
@@ -0,0 +1,122 @@
+package com.veggieshop.product;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+
+/**
+ * Read-through cache in front of {@link ProductServiceImpl} for the public catalog endpoints.
+ * <p>
+ * It sits outside the transactional service on purpose: a cache hit never opens a transaction or
+ * borrows a DB connection. Writes go straight to the delegate, which evicts after commit.
+ * Admin and free-text queries, and keyset (cursor) listings, are not cached.
+ */
+@Service
+@Primary
+@RequiredArgsConstructor
+public class CachingProductService implements ProductService {
+
+    private final ProductServiceImpl delegate;
+    private final ProductCatalogCache cache;
+
+    @Override
+    public ProductDto.ProductResponse create(ProductDto.ProductCreateRequest request) {
+        return delegate.create(request);
+    }
+
+    @Override
+    public ProductDto.ProductResponse update(Long id, ProductDto.ProductUpdateRequest request) {
+        return delegate.update(id, request);
+    }
+
+    @Override
+    public void delete(Long id) {
+        delegate.delete(id);
+    }
+
+    @Override
+    public ProductDto.ProductResponse findById(Long id) {
+        return cache.getProduct(id, () -> delegate.findById(id));
+    }
+
+    @Override
+    public Page<ProductDto.ProductResponse> findAll(Pageable pageable) {
+        return cache.getPage(ProductCatalogCache.PageKey.all(pageable), () -> delegate.findAll(pageable));
+    }
+
+    @Override
+    public Page<ProductDto.ProductResponse> findByCategory(Long categoryId, Pageable pageable) {
+        return cache.getPage(ProductCatalogCache.PageKey.category(categoryId, pageable),
+                () -> delegate.findByCategory(categoryId, pageable));
+    }
+
+    @Override
+    public Page<ProductDto.ProductResponse> findFeatured(Pageable pageable) {
+        return cache.getPage(ProductCatalogCache.PageKey.featured(pageable), () -> delegate.findFeatured(pageable));
+    }
+
+    @Override
+    public Page<ProductDto.ProductResponse> findAllIncludingInactive(Pageable pageable) {
+        return delegate.findAllIncludingInactive(pageable);
+    }
+
+    @Override
+    public Page<ProductDto.ProductResponse> findByCategoryIncludingInactive(Long categoryId, Pageable pageable) {
+        return delegate.findByCategoryIncludingInactive(categoryId, pageable);
+    }
+
+    @Override
+    public Page<ProductDto.ProductResponse> searchByName(String name, Pageable pageable) {
+        return delegate.searchByName(name, pageable);
+    }
+
+    @Override
+    public Page<ProductDto.ProductResponse> filterByPrice(BigDecimal min, BigDecimal max, Pageable pageable) {
+        return delegate.filterByPrice(min, max, pageable);
+    }
+
+    @Override
+    public Page<ProductDto.ProductResponse> filterByFinalPrice(BigDecimal min, BigDecimal max, Pageable pageable) {
+        return delegate.filterByFinalPrice(min, max, pageable);
+    }
+
+    // ================== Keyset (seek) listings, not cached ==================
+
+    @Override
+    public Window<ProductDto.ProductResponse> findAll(ScrollPosition position, Pageable pageable) {
+        return delegate.findAll(position, pageable);
+    }
+
+    @Override
+    public Window<ProductDto.ProductResponse> findByCategory(Long categoryId, ScrollPosition position, Pageable pageable) {
+        return delegate.findByCategory(categoryId, position, pageable);
+    }
+
+    @Override
+    public Window<ProductDto.ProductResponse> findFeatured(ScrollPosition position, Pageable pageable) {
+        return delegate.findFeatured(position, pageable);
+    }
+
+    @Override
+    public Window<ProductDto.ProductResponse> searchByName(String name, ScrollPosition position, Pageable pageable) {
+        return delegate.searchByName(name, position, pageable);
+    }
+
+    @Override
+    public Window<ProductDto.ProductResponse> filterByPrice(BigDecimal min, BigDecimal max,
+                                                           ScrollPosition position, Pageable pageable) {
+        return delegate.filterByPrice(min, max, position, pageable);
+    }
+
+    @Override
+    public Window<ProductDto.ProductResponse> filterByFinalPrice(BigDecimal min, BigDecimal max,
+                                                                ScrollPosition position, Pageable pageable) {
+        return delegate.filterByFinalPrice(min, max, position, pageable);
+    }
+}
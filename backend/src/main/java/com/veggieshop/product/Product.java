@@ -1,6 +1,8 @@
 package com.veggieshop.product;
 
 import com.veggieshop.category.Category;
+import com.veggieshop.pricing.Money;
+import com.veggieshop.pricing.PricingEngine;
 import jakarta.persistence.*;
 import lombok.*;
 import java.math.BigDecimal;
@@ -33,10 +35,16 @@ public class Product {
     @Column(nullable = false)
     private BigDecimal discount; // 0 if no discount
 
+    // Price after discount and best active offer, maintained by EffectivePriceIndex
     @Column(nullable = false)
-    private boolean featured;
+    private BigDecimal finalPrice;
 
     @Column(nullable = false)
+    private boolean featured;
+
+    // Only SoldCountAccumulator's SQL increments it: JPA writes it on insert and never on update,
+    // so saving a product loaded before a flush cannot roll the counter back
+    @Column(nullable = false, updatable = false)
     private Long soldCount;
 
     @Column(nullable = false)
@@ -61,6 +69,10 @@ public class Product {
         this.updatedAt = LocalDateTime.now();
         if (this.soldCount == null) this.soldCount = 0L;
         if (this.discount == null) this.discount = BigDecimal.ZERO;
+        if (this.finalPrice == null) {
+            this.finalPrice = Money.toBigDecimal(
+                    PricingEngine.finalPriceCents(Money.toCents(price), Money.toCents(discount), 0L));
+        }
         if (this.active == false) this.active = true;
     }
 
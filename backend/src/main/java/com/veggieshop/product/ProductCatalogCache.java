@@ -0,0 +1,162 @@
+package com.veggieshop.product;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.veggieshop.cache.CacheInvalidationEvent;
+import com.veggieshop.cache.CacheInvalidationListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded in-process cache for public catalog reads (single products and listing pages).
+ * <p>
+ * Entries are evicted by size and TTL, and precisely by the change events the product, offer and
+ * category write paths publish on the {@link com.veggieshop.cache.CacheInvalidationBus} (after commit,
+ * on every node). Hit/miss/eviction counters are published as
+ * {@code cache.*{cache=catalog.products|catalog.pages}} meters.
+ */
+@Component
+public class ProductCatalogCache implements CacheInvalidationListener {
+
+    public enum Scope { ALL, FEATURED, CATEGORY }
+
+    /**
+     * Identifies one cached listing page.
+     *
+     * @param scope      Which listing (all active, featured, or one category).
+     * @param categoryId Category for {@link Scope#CATEGORY}, null otherwise.
+     * @param pageable   Page number, size and sort requested by the client.
+     */
+    public record PageKey(Scope scope, Long categoryId, Pageable pageable) {
+        public static PageKey all(Pageable pageable) {
+            return new PageKey(Scope.ALL, null, pageable);
+        }
+
+        public static PageKey featured(Pageable pageable) {
+            return new PageKey(Scope.FEATURED, null, pageable);
+        }
+
+        public static PageKey category(Long categoryId, Pageable pageable) {
+            return new PageKey(Scope.CATEGORY, categoryId, pageable);
+        }
+    }
+
+    private final Cache<Long, ProductDto.ProductResponse> products;
+    private final Cache<PageKey, Page<ProductDto.ProductResponse>> pages;
+
+    // Bumped by every eviction; a load that overlaps an eviction is not kept (see read()).
+    private final AtomicLong generation = new AtomicLong();
+
+    public ProductCatalogCache(
+            MeterRegistry meterRegistry,
+            @Value("${app.cache.catalog.max-products:10000}") long maxProducts,
+            @Value("${app.cache.catalog.max-pages:2000}") long maxPages,
+            @Value("${app.cache.catalog.ttl:10m}") Duration ttl
+    ) {
+        this.products = Caffeine.newBuilder()
+                .maximumSize(maxProducts)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.pages = Caffeine.newBuilder()
+                .maximumSize(maxPages)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, products, "catalog.products");
+        CaffeineCacheMetrics.monitor(meterRegistry, pages, "catalog.pages");
+    }
+
+    public ProductDto.ProductResponse getProduct(Long id, Supplier<ProductDto.ProductResponse> loader) {
+        return read(products, id, loader);
+    }
+
+    public Page<ProductDto.ProductResponse> getPage(PageKey key, Supplier<Page<ProductDto.ProductResponse>> loader) {
+        return read(pages, key, loader);
+    }
+
+    // ================== Invalidation ==================
+
+    @Override
+    public void onInvalidation(CacheInvalidationEvent event) {
+        switch (event.kind()) {
+            case PRODUCT -> evictProduct(event.id(), event.categoryIds());
+            case PRODUCT_VIEWS -> evictProductViews(event.id());
+            case CATEGORY -> evictCategory(event.id());
+            case ALL -> clear();
+            case USER -> {
+                // Not catalog data
+            }
+        }
+    }
+
+    /**
+     * A product was created, updated or deleted: drop it, every page showing it, and the listings
+     * it may enter or leave (all, featured, and the given categories, e.g. old and new).
+     */
+    public void evictProduct(Long productId, Set<Long> categoryIds) {
+        generation.incrementAndGet();
+        products.invalidate(productId);
+        pages.asMap().entrySet().removeIf(e -> {
+            PageKey key = e.getKey();
+            return key.scope() != Scope.CATEGORY
+                    || categoryIds.contains(key.categoryId())
+                    || contains(e.getValue(), productId);
+        });
+    }
+
+    /**
+     * Something that only changes how a product is displayed (e.g. its offers) changed.
+     */
+    public void evictProductViews(Long productId) {
+        generation.incrementAndGet();
+        products.invalidate(productId);
+        pages.asMap().values().removeIf(page -> contains(page, productId));
+    }
+
+    /**
+     * A category was renamed or removed: drop its listing and everything that shows its name.
+     */
+    public void evictCategory(Long categoryId) {
+        generation.incrementAndGet();
+        products.asMap().values().removeIf(p -> categoryId.equals(p.getCategoryId()));
+        pages.asMap().entrySet().removeIf(e -> categoryId.equals(e.getKey().categoryId())
+                || e.getValue().getContent().stream().anyMatch(p -> categoryId.equals(p.getCategoryId())));
+    }
+
+    public void clear() {
+        generation.incrementAndGet();
+        products.invalidateAll();
+        pages.invalidateAll();
+    }
+
+    // ================== Helpers ==================
+
+    private <K, V> V read(Cache<K, V> cache, K key, Supplier<V> loader) {
+        V cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        long loadGeneration = generation.get();
+        V loaded = loader.get();
+        cache.put(key, loaded);
+        if (generation.get() != loadGeneration) {
+            // An eviction ran while we were reading from the DB: what we loaded may be stale
+            cache.invalidate(key);
+        }
+        return loaded;
+    }
+
+    private static boolean contains(Page<ProductDto.ProductResponse> page, Long productId) {
+        return page.getContent().stream().anyMatch(p -> productId.equals(p.getId()));
+    }
+}
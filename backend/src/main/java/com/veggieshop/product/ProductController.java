@@ -4,6 +4,8 @@ import com.veggieshop.common.ApiResponse;
 import com.veggieshop.common.ApiError;
 import com.veggieshop.common.Meta;
 import com.veggieshop.common.ApiResponseUtil;
+import com.veggieshop.common.KeysetCursor;
+import com.veggieshop.common.SlicePaging;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -15,6 +17,7 @@ import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
@@ -37,7 +40,7 @@ public class ProductController {
     // ================== GET ALL PRODUCTS (PAGINATED & SORTABLE) ==================
     @Operation(
             summary = "Get all products (paginated and sortable)",
-            description = "Retrieves a paged list of all active products. Supports query params: page (0), size (20), sort (e.g. sort=name,asc)."
+            description = "Retrieves a paged list of all active products. Supports query params: page (0), size (20), sort (e.g. sort=name,asc or sort=finalPrice,asc)."
     )
     @io.swagger.v3.oas.annotations.responses.ApiResponses({
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Paged list of products",
@@ -46,7 +49,22 @@ public class ProductController {
                     content = @Content(schema = @Schema(implementation = com.veggieshop.common.ApiError.class)))
     })
     @GetMapping
-    public ResponseEntity<ApiResponse<List<ProductDto.ProductResponse>>> getAll(Pageable pageable) {
+    public ResponseEntity<ApiResponse<List<ProductDto.ProductResponse>>> getAll(
+            @Parameter(description = "Keyset mode: cursor to continue after (empty for the first rows)")
+            @RequestParam(value = "after", required = false) String after,
+            @Parameter(description = "Keyset mode: cursor to go back before (empty for the last rows)")
+            @RequestParam(value = "before", required = false) String before,
+            @Parameter(description = "Set to false to skip the total count (no totalElements/totalPages)")
+            @RequestParam(value = "count", defaultValue = "true") boolean count,
+            Pageable pageable
+    ) {
+        if (KeysetCursor.requested(after, before)) {
+            KeysetScrollPosition position = KeysetCursor.position(after, before, pageable.getSort(), Product.class);
+            return ApiResponseUtil.ok(productService.findAll(position, pageable), pageable, position);
+        }
+        if (!count) {
+            return ApiResponseUtil.ok(SlicePaging.toSlice(productService.findAll(SlicePaging.position(pageable), pageable), pageable));
+        }
         Page<ProductDto.ProductResponse> page = productService.findAll(pageable);
         return ApiResponseUtil.ok(page);
     }
@@ -82,7 +100,22 @@ public class ProductController {
                     content = @Content(schema = @Schema(implementation = com.veggieshop.common.ApiResponse.class)))
     })
     @GetMapping("/featured")
-    public ResponseEntity<ApiResponse<List<ProductDto.ProductResponse>>> getFeatured(Pageable pageable) {
+    public ResponseEntity<ApiResponse<List<ProductDto.ProductResponse>>> getFeatured(
+            @Parameter(description = "Keyset mode: cursor to continue after (empty for the first rows)")
+            @RequestParam(value = "after", required = false) String after,
+            @Parameter(description = "Keyset mode: cursor to go back before (empty for the last rows)")
+            @RequestParam(value = "before", required = false) String before,
+            @Parameter(description = "Set to false to skip the total count (no totalElements/totalPages)")
+            @RequestParam(value = "count", defaultValue = "true") boolean count,
+            Pageable pageable
+    ) {
+        if (KeysetCursor.requested(after, before)) {
+            KeysetScrollPosition position = KeysetCursor.position(after, before, pageable.getSort(), Product.class);
+            return ApiResponseUtil.ok(productService.findFeatured(position, pageable), pageable, position);
+        }
+        if (!count) {
+            return ApiResponseUtil.ok(SlicePaging.toSlice(productService.findFeatured(SlicePaging.position(pageable), pageable), pageable));
+        }
         return ApiResponseUtil.ok(productService.findFeatured(pageable));
     }
 
@@ -101,8 +134,21 @@ public class ProductController {
     public ResponseEntity<ApiResponse<List<ProductDto.ProductResponse>>> getByCategory(
             @Parameter(description = "ID of the category", required = true, example = "2")
             @PathVariable("categoryId") @NotNull @Min(1) Long categoryId,
+            @Parameter(description = "Keyset mode: cursor to continue after (empty for the first rows)")
+            @RequestParam(value = "after", required = false) String after,
+            @Parameter(description = "Keyset mode: cursor to go back before (empty for the last rows)")
+            @RequestParam(value = "before", required = false) String before,
+            @Parameter(description = "Set to false to skip the total count (no totalElements/totalPages)")
+            @RequestParam(value = "count", defaultValue = "true") boolean count,
             Pageable pageable
     ) {
+        if (KeysetCursor.requested(after, before)) {
+            KeysetScrollPosition position = KeysetCursor.position(after, before, pageable.getSort(), Product.class);
+            return ApiResponseUtil.ok(productService.findByCategory(categoryId, position, pageable), pageable, position);
+        }
+        if (!count) {
+            return ApiResponseUtil.ok(SlicePaging.toSlice(productService.findByCategory(categoryId, SlicePaging.position(pageable), pageable), pageable));
+        }
         return ApiResponseUtil.ok(productService.findByCategory(categoryId, pageable));
     }
 
@@ -119,15 +165,29 @@ public class ProductController {
     public ResponseEntity<ApiResponse<List<ProductDto.ProductResponse>>> searchByName(
             @Parameter(description = "Substring to search in product name", required = true)
             @RequestParam("name") @NotBlank String name,
+            @Parameter(description = "Keyset mode: cursor to continue after (empty for the first rows)")
+            @RequestParam(value = "after", required = false) String after,
+            @Parameter(description = "Keyset mode: cursor to go back before (empty for the last rows)")
+            @RequestParam(value = "before", required = false) String before,
+            @Parameter(description = "Infinite-scroll list: totals are only counted with count=true")
+            @RequestParam(value = "count", defaultValue = "false") boolean count,
             Pageable pageable
     ) {
+        if (KeysetCursor.requested(after, before)) {
+            KeysetScrollPosition position = KeysetCursor.position(after, before, pageable.getSort(), Product.class);
+            return ApiResponseUtil.ok(productService.searchByName(name, position, pageable), pageable, position);
+        }
+        if (!count) {
+            return ApiResponseUtil.ok(SlicePaging.toSlice(productService.searchByName(name, SlicePaging.position(pageable), pageable), pageable));
+        }
         return ApiResponseUtil.ok(productService.searchByName(name, pageable));
     }
 
     // ================== FILTER PRODUCTS BY PRICE RANGE ==================
     @Operation(
             summary = "Filter products by price (paginated and sortable)",
-            description = "Finds active products within a price range (inclusive, paginated, sortable)."
+            description = "Finds active products within a price range (inclusive, paginated, sortable). "
+                    + "With effective=true the range applies to finalPrice (after discount and offers) instead of the list price."
     )
     @io.swagger.v3.oas.annotations.responses.ApiResponses({
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Paged filtered results",
@@ -141,9 +201,30 @@ public class ProductController {
             @RequestParam("min") @NotNull @Min(0) BigDecimal min,
             @Parameter(description = "Maximum price (inclusive)", required = true, example = "100.00")
             @RequestParam("max") @NotNull @Min(0) BigDecimal max,
+            @Parameter(description = "Filter on finalPrice instead of the list price", example = "true")
+            @RequestParam(value = "effective", defaultValue = "false") boolean effective,
+            @Parameter(description = "Keyset mode: cursor to continue after (empty for the first rows)")
+            @RequestParam(value = "after", required = false) String after,
+            @Parameter(description = "Keyset mode: cursor to go back before (empty for the last rows)")
+            @RequestParam(value = "before", required = false) String before,
+            @Parameter(description = "Set to false to skip the total count (no totalElements/totalPages)")
+            @RequestParam(value = "count", defaultValue = "true") boolean count,
             Pageable pageable
     ) {
-        return ApiResponseUtil.ok(productService.filterByPrice(min, max, pageable));
+        if (KeysetCursor.requested(after, before)) {
+            KeysetScrollPosition position = KeysetCursor.position(after, before, pageable.getSort(), Product.class);
+            return ApiResponseUtil.ok(effective
+                    ? productService.filterByFinalPrice(min, max, position, pageable)
+                    : productService.filterByPrice(min, max, position, pageable), pageable, position);
+        }
+        if (!count) {
+            return ApiResponseUtil.ok(SlicePaging.toSlice(effective
+                    ? productService.filterByFinalPrice(min, max, SlicePaging.position(pageable), pageable)
+                    : productService.filterByPrice(min, max, SlicePaging.position(pageable), pageable), pageable));
+        }
+        return ApiResponseUtil.ok(effective
+                ? productService.filterByFinalPrice(min, max, pageable)
+                : productService.filterByPrice(min, max, pageable));
     }
 
     // ================== CREATE NEW PRODUCT ==================
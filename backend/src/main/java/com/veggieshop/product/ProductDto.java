@@ -15,6 +15,7 @@ public class ProductDto {
         private String description;
         private BigDecimal price;
         private BigDecimal discount;
+        private BigDecimal finalPrice; // What the customer pays today (discount and best active offer applied)
         private boolean featured;
         private Long soldCount;
         private String imageUrl;
@@ -1,35 +1,90 @@
 package com.veggieshop.product;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import jakarta.persistence.LockModeType;
 
+import java.util.Optional;
+
+// Every read joins the category in, since ProductMapper reads its name
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
+    @Override
+    @EntityGraph(attributePaths = "category")
+    Optional<Product> findById(Long id);
+
+    // Row-locks the product until commit. Writers of its pricing inputs (offers, price, discount) take
+    // it first, so they and EffectivePriceIndex's reprices run one after another, never on stale offers
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id = :id")
+    Optional<Product> findByIdForUpdate(@Param("id") Long id);
+
     // All products, paginated and sorted (admin)
+    @EntityGraph(attributePaths = "category")
     Page<Product> findAll(Pageable pageable);
 
     // Only active products (public, users)
+    @EntityGraph(attributePaths = "category")
     Page<Product> findByActiveTrue(Pageable pageable);
 
     // Only active products in a specific category (public, users)
+    @EntityGraph(attributePaths = "category")
     Page<Product> findByCategoryIdAndActiveTrue(Long categoryId, Pageable pageable);
 
     // All products in a specific category (admin)
+    @EntityGraph(attributePaths = "category")
     Page<Product> findByCategoryId(Long categoryId, Pageable pageable);
 
     // Only active featured products (public, users)
+    @EntityGraph(attributePaths = "category")
     Page<Product> findByFeaturedTrueAndActiveTrue(Pageable pageable);
 
     // All featured products, active or inactive (admin)
+    @EntityGraph(attributePaths = "category")
     Page<Product> findByFeaturedTrue(Pageable pageable);
 
     // Search by name containing (case-insensitive)
+    @EntityGraph(attributePaths = "category")
     Page<Product> findByNameContainingIgnoreCaseAndActiveTrue(String name, Pageable pageable);
 
     // Filter by price range (active products)
+    @EntityGraph(attributePaths = "category")
     Page<Product> findByPriceBetweenAndActiveTrue(java.math.BigDecimal min, java.math.BigDecimal max, Pageable pageable);
 
+    // Filter by final (effective) price range (active products)
+    @EntityGraph(attributePaths = "category")
+    Page<Product> findByFinalPriceBetweenAndActiveTrue(java.math.BigDecimal min, java.math.BigDecimal max, Pageable pageable);
+
+    // Keyset (seek) variants of the public listings above: rows after/before a cursor on (sort keys, id)
+    @EntityGraph(attributePaths = "category")
+    Window<Product> findByActiveTrue(ScrollPosition position, Sort sort, Limit limit);
+
+    @EntityGraph(attributePaths = "category")
+    Window<Product> findByCategoryIdAndActiveTrue(Long categoryId, ScrollPosition position, Sort sort, Limit limit);
+
+    @EntityGraph(attributePaths = "category")
+    Window<Product> findByFeaturedTrueAndActiveTrue(ScrollPosition position, Sort sort, Limit limit);
+
+    @EntityGraph(attributePaths = "category")
+    Window<Product> findByNameContainingIgnoreCaseAndActiveTrue(String name, ScrollPosition position, Sort sort, Limit limit);
+
+    @EntityGraph(attributePaths = "category")
+    Window<Product> findByPriceBetweenAndActiveTrue(java.math.BigDecimal min, java.math.BigDecimal max,
+                                                    ScrollPosition position, Sort sort, Limit limit);
+
+    @EntityGraph(attributePaths = "category")
+    Window<Product> findByFinalPriceBetweenAndActiveTrue(java.math.BigDecimal min, java.math.BigDecimal max,
+                                                         ScrollPosition position, Sort sort, Limit limit);
+
     // Prevent duplicate product names
     boolean existsByName(String name);
 
@@ -2,6 +2,8 @@ package com.veggieshop.product;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 
 public interface ProductService {
     ProductDto.ProductResponse create(ProductDto.ProductCreateRequest request);
@@ -28,4 +30,21 @@ public interface ProductService {
     Page<ProductDto.ProductResponse> searchByName(String name, Pageable pageable);
 
     Page<ProductDto.ProductResponse> filterByPrice(java.math.BigDecimal min, java.math.BigDecimal max, Pageable pageable);
+
+    Page<ProductDto.ProductResponse> filterByFinalPrice(java.math.BigDecimal min, java.math.BigDecimal max, Pageable pageable);
+
+    // Keyset (seek) variants of the public listings: size and sort come from the pageable, the page number is ignored
+    Window<ProductDto.ProductResponse> findAll(ScrollPosition position, Pageable pageable);
+
+    Window<ProductDto.ProductResponse> findByCategory(Long categoryId, ScrollPosition position, Pageable pageable);
+
+    Window<ProductDto.ProductResponse> findFeatured(ScrollPosition position, Pageable pageable);
+
+    Window<ProductDto.ProductResponse> searchByName(String name, ScrollPosition position, Pageable pageable);
+
+    Window<ProductDto.ProductResponse> filterByPrice(java.math.BigDecimal min, java.math.BigDecimal max,
+                                                    ScrollPosition position, Pageable pageable);
+
+    Window<ProductDto.ProductResponse> filterByFinalPrice(java.math.BigDecimal min, java.math.BigDecimal max,
+                                                         ScrollPosition position, Pageable pageable);
 }
@@ -1,16 +1,26 @@
 package com.veggieshop.product;
 
+import com.veggieshop.cache.CacheInvalidationBus;
+import com.veggieshop.cache.CacheInvalidationEvent;
 import com.veggieshop.category.Category;
 import com.veggieshop.exception.DuplicateException;
 import com.veggieshop.exception.ResourceNotFoundException;
 import com.veggieshop.category.CategoryRepository;
 import com.veggieshop.order.OrderItemRepository;
+import com.veggieshop.pricing.EffectivePriceIndex;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 @Service
 @RequiredArgsConstructor
 @Transactional
@@ -20,6 +30,8 @@ public class ProductServiceImpl implements ProductService {
     private final CategoryRepository categoryRepository;
     private final OrderItemRepository orderItemRepository;
     private final ProductMapper productMapper;
+    private final CacheInvalidationBus invalidationBus;
+    private final EffectivePriceIndex priceIndex;
 
     @Override
     public ProductDto.ProductResponse create(ProductDto.ProductCreateRequest request) {
@@ -39,16 +51,19 @@ public class ProductServiceImpl implements ProductService {
                 .active(true)
                 .category(category)
                 .build();
+        priceIndex.reprice(product);
         Product saved = productRepository.save(product);
+        invalidationBus.publish(CacheInvalidationEvent.product(saved.getId(), Set.of(category.getId())));
         return productMapper.toProductResponse(saved);
     }
 
     @Override
     public ProductDto.ProductResponse update(Long id, ProductDto.ProductUpdateRequest request) {
-        Product product = productRepository.findById(id)
+        Product product = productRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found"));
         Category category = categoryRepository.findById(request.getCategoryId())
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found"));
+        Long previousCategoryId = product.getCategory().getId();
         product.setName(request.getName());
         product.setDescription(request.getDescription());
         product.setPrice(request.getPrice());
@@ -56,7 +71,10 @@ public class ProductServiceImpl implements ProductService {
         product.setFeatured(request.isFeatured());
         product.setCategory(category);
         product.setImageUrl(request.getImageUrl());
+        priceIndex.reprice(product);
         Product updated = productRepository.save(product);
+        invalidationBus.publish(CacheInvalidationEvent.product(id,
+                new HashSet<>(List.of(previousCategoryId, category.getId()))));
         return productMapper.toProductResponse(updated);
     }
 
@@ -64,6 +82,7 @@ public class ProductServiceImpl implements ProductService {
     public void delete(Long id) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found"));
+        invalidationBus.publish(CacheInvalidationEvent.product(id, Set.of(product.getCategory().getId())));
 
         if (orderItemRepository.existsByProductId(id)) {
             if (!product.isActive()) {
@@ -135,4 +154,62 @@ public class ProductServiceImpl implements ProductService {
         return productRepository.findByPriceBetweenAndActiveTrue(min, max, pageable)
                 .map(productMapper::toProductResponse);
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<ProductDto.ProductResponse> filterByFinalPrice(java.math.BigDecimal min, java.math.BigDecimal max, Pageable pageable) {
+        return productRepository.findByFinalPriceBetweenAndActiveTrue(min, max, pageable)
+                .map(productMapper::toProductResponse);
+    }
+
+    // ================== Keyset (seek) listings ==================
+
+    @Override
+    @Transactional(readOnly = true)
+    public Window<ProductDto.ProductResponse> findAll(ScrollPosition position, Pageable pageable) {
+        return productRepository.findByActiveTrue(position, pageable.getSort(), Limit.of(pageable.getPageSize()))
+                .map(productMapper::toProductResponse);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Window<ProductDto.ProductResponse> findByCategory(Long categoryId, ScrollPosition position, Pageable pageable) {
+        if (!categoryRepository.existsById(categoryId)) {
+            throw new ResourceNotFoundException("Category not found");
+        }
+        return productRepository.findByCategoryIdAndActiveTrue(categoryId, position, pageable.getSort(),
+                        Limit.of(pageable.getPageSize()))
+                .map(productMapper::toProductResponse);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Window<ProductDto.ProductResponse> findFeatured(ScrollPosition position, Pageable pageable) {
+        return productRepository.findByFeaturedTrueAndActiveTrue(position, pageable.getSort(), Limit.of(pageable.getPageSize()))
+                .map(productMapper::toProductResponse);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Window<ProductDto.ProductResponse> searchByName(String name, ScrollPosition position, Pageable pageable) {
+        return productRepository.findByNameContainingIgnoreCaseAndActiveTrue(name, position, pageable.getSort(),
+                        Limit.of(pageable.getPageSize()))
+                .map(productMapper::toProductResponse);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Window<ProductDto.ProductResponse> filterByPrice(java.math.BigDecimal min, java.math.BigDecimal max, ScrollPosition position, Pageable pageable) {
+        return productRepository.findByPriceBetweenAndActiveTrue(min, max, position, pageable.getSort(),
+                        Limit.of(pageable.getPageSize()))
+                .map(productMapper::toProductResponse);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Window<ProductDto.ProductResponse> filterByFinalPrice(java.math.BigDecimal min, java.math.BigDecimal max, ScrollPosition position, Pageable pageable) {
+        return productRepository.findByFinalPriceBetweenAndActiveTrue(min, max, position, pageable.getSort(),
+                        Limit.of(pageable.getPageSize()))
+                .map(productMapper::toProductResponse);
+    }
 }
@@ -0,0 +1,178 @@
+package com.veggieshop.product;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Write-behind aggregator for {@link Product#getSoldCount()}.
+ * <p>
+ * Order creation only enqueues the sold quantities (lock-free, no row lock on {@code products}).
+ * A scheduled flush aggregates everything queued since the last run into one batched
+ * {@code UPDATE products SET sold_count = sold_count + ?} per product and marks the contributing
+ * orders as applied in the same transaction. Orders whose counts never got flushed (crash, kill -9)
+ * are replayed from the orders table on startup and every {@code replay-interval-ms}, so a node
+ * that dies for good does not leave them uncounted until some node restarts.
+ */
+@Component
+@RequiredArgsConstructor
+public class SoldCountAccumulator {
+
+    private static final Logger log = LoggerFactory.getLogger(SoldCountAccumulator.class);
+
+    private static final String MARK_APPLIED_SQL =
+            "UPDATE orders SET sold_count_applied = true WHERE id = ANY(?) AND sold_count_applied = false RETURNING id";
+    private static final String INCREMENT_SQL =
+            "UPDATE products SET sold_count = sold_count + ? WHERE id = ?";
+    private static final String REPLAY_SQL = """
+            WITH replayed AS (
+                UPDATE orders SET sold_count_applied = true
+                WHERE sold_count_applied = false AND created_at < now() - make_interval(secs => ?)
+                RETURNING id
+            )
+            UPDATE products p SET sold_count = p.sold_count + s.qty
+            FROM (SELECT oi.product_id, SUM(oi.quantity) AS qty
+                  FROM order_items oi JOIN replayed r ON r.id = oi.order_id
+                  GROUP BY oi.product_id) s
+            WHERE p.id = s.product_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ConcurrentLinkedQueue<PendingOrder> pending = new ConcurrentLinkedQueue<>();
+
+    @Value("${app.sold-count.max-orders-per-flush:5000}")
+    private int maxOrdersPerFlush = 5000;
+
+    @Value("${app.sold-count.replay-grace-seconds:600}")
+    private long replayGraceSeconds = 600;
+
+    /**
+     * Queues the sold quantities of an order. When called inside a transaction the quantities are
+     * only queued once it commits, so rolled-back orders never count.
+     *
+     * @param orderId            The order the quantities belong to.
+     * @param quantitiesByProduct Product ID → quantity sold in this order.
+     */
+    public void record(Long orderId, Map<Long, Long> quantitiesByProduct) {
+        PendingOrder entry = new PendingOrder(orderId, Map.copyOf(quantitiesByProduct));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pending.add(entry);
+                }
+            });
+        } else {
+            pending.add(entry);
+        }
+    }
+
+    /**
+     * Number of orders queued but not yet written to the database.
+     */
+    public int pendingOrders() {
+        return pending.size();
+    }
+
+    /**
+     * Writes everything queued so far. Only orders this flush managed to mark as applied contribute,
+     * so an order replayed by another node in the meantime is never counted twice.
+     */
+    @Scheduled(fixedDelayString = "${app.sold-count.flush-interval-ms:2000}")
+    public void flush() {
+        List<PendingOrder> batch = drain();
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> apply(batch));
+        } catch (RuntimeException e) {
+            // Keep the counts for the next run; the orders stay unapplied in the DB either way
+            log.warn("Sold-count flush of {} orders failed, will retry: {}", batch.size(), e.getMessage());
+            pending.addAll(batch);
+        }
+    }
+
+    /**
+     * Replays orders that were committed but whose sold counts were never flushed.
+     * Orders younger than the grace period are left alone: they may still be queued on a live node.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void replayUnapplied() {
+        int updated = transactionTemplate.execute(status -> jdbcTemplate.update(REPLAY_SQL, replayGraceSeconds));
+        if (updated > 0) {
+            log.info("Replayed unflushed sold counts for {} products", updated);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.sold-count.replay-interval-ms:60000}",
+            initialDelayString = "${app.sold-count.replay-interval-ms:60000}")
+    public void replayPeriodically() {
+        try {
+            replayUnapplied();
+        } catch (RuntimeException e) {
+            log.warn("Sold-count replay failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        while (!pending.isEmpty()) {
+            int before = pending.size();
+            flush();
+            if (pending.size() >= before) {
+                break; // DB unavailable: startup replay will pick these orders up
+            }
+        }
+    }
+
+    private List<PendingOrder> drain() {
+        List<PendingOrder> batch = new ArrayList<>();
+        PendingOrder next;
+        while (batch.size() < maxOrdersPerFlush && (next = pending.poll()) != null) {
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    private void apply(List<PendingOrder> batch) {
+        Long[] orderIds = batch.stream().map(PendingOrder::orderId).toArray(Long[]::new);
+        Set<Long> applied = new HashSet<>(jdbcTemplate.queryForList(MARK_APPLIED_SQL, Long.class, (Object) orderIds));
+
+        // Sorted by product id so concurrent flushes on several nodes lock rows in the same order
+        Map<Long, Long> deltas = new TreeMap<>();
+        for (PendingOrder order : batch) {
+            if (applied.contains(order.orderId())) {
+                order.quantities().forEach((productId, qty) -> deltas.merge(productId, qty, Long::sum));
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        deltas.forEach((productId, qty) -> args.add(new Object[]{qty, productId}));
+        jdbcTemplate.batchUpdate(INCREMENT_SQL, args);
+    }
+
+    private record PendingOrder(Long orderId, Map<Long, Long> quantities) {
+    }
+}
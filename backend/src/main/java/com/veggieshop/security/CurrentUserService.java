@@ -3,23 +3,72 @@ package com.veggieshop.security;
 import com.veggieshop.user.User;
 import com.veggieshop.user.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
+/**
+ * The authenticated principal of the current request.
+ * <p>
+ * {@link JwtAuthFilter} builds the principal once per request (from the token's claims, or one
+ * lookup when the token predates them), so its id and role are answered without a query. The full
+ * {@link User} is loaded at most once per request and memoized in the request attributes. Both the
+ * security context and the request attributes follow the request into async dispatches and onto
+ * executor threads ({@link com.veggieshop.config.RequestContextTaskDecorator}).
+ */
 @Service
 @RequiredArgsConstructor
 public class CurrentUserService {
 
+    private static final String CURRENT_USER_ATTRIBUTE = CurrentUserService.class.getName() + ".user";
+
     private final UserRepository userRepository;
 
+    public CustomUserDetails getPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof CustomUserDetails userDetails) {
+            return userDetails;
+        }
+        throw new AuthenticationCredentialsNotFoundException("No authenticated user");
+    }
+
     public Long getCurrentUserId() {
-        return getCurrentUser().getId();
+        // Access tokens carry the id: no lookup needed
+        Long id = getPrincipal().getId();
+        return id != null ? id : getCurrentUser().getId();
+    }
+
+    public User.Role getCurrentRole() {
+        return getPrincipal().getRole();
     }
 
     public User getCurrentUser() {
-        String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userRepository.findByEmail(email)
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null
+                && attributes.getAttribute(CURRENT_USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof User user) {
+            return user;
+        }
+        User user = loadCurrentUser();
+        if (attributes != null) {
+            attributes.setAttribute(CURRENT_USER_ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
+        }
+        return user;
+    }
+
+    // ============== Helper methods ==============
+
+    private User loadCurrentUser() {
+        CustomUserDetails principal = getPrincipal();
+        if (principal.isLoaded()) {
+            return principal.getUser();
+        }
+        return (principal.getId() != null
+                ? userRepository.findById(principal.getId())
+                : userRepository.findByEmail(principal.getUsername()))
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
     }
 }
@@ -39,12 +39,24 @@ public class CustomUserDetails implements UserDetails {
     public boolean isCredentialsNonExpired() { return true; }
 
     @Override
-    public boolean isEnabled() { return true; }
+    public boolean isEnabled() { return user.isEnabled(); }
 
     public Long getId() {
         return user.getId();
     }
 
+    public User.Role getRole() {
+        return user.getRole();
+    }
+
+    /**
+     * Whether this wraps the user entity as loaded from the database, rather than one rebuilt from
+     * access-token claims (which has no password, name or other profile fields).
+     */
+    public boolean isLoaded() {
+        return user.getPassword() != null;
+    }
+
     public User getUser() {
         return user;
     }
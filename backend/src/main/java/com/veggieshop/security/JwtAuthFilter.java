@@ -1,18 +1,24 @@
 package com.veggieshop.security;
 
+import com.veggieshop.user.User;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -21,14 +27,47 @@ import io.jsonwebtoken.ExpiredJwtException;
 
 import java.io.IOException;
 
+/**
+ * Authenticates requests carrying a bearer access token.
+ * <p>
+ * The token is verified once, and {@link VerifiedTokenCache} remembers it for later requests. In
+ * stateless mode (the default) the principal is built from the token's id, role and version claims
+ * without a database lookup, and revocation is enforced by {@link TokenVersionRegistry}: every
+ * change a token does not reflect (role, email, password, disabling the user) bumps the version.
+ * Tokens issued without those claims, or {@code app.jwt.stateless=false}, load the user from the
+ * database instead.
+ * <p>
+ * Stateless mode needs cross-node cache invalidation: without it, a revocation on one node never
+ * reaches the others' registries. With {@code app.cache.invalidation.enabled=false} the filter
+ * therefore fails closed and always loads the user.
+ * <p>
+ * The principal is built once per request: it is also saved as a request attribute, from which
+ * Spring Security restores it on the request's async and error dispatches (which skip this filter).
+ */
 @Component
-@RequiredArgsConstructor
 public class JwtAuthFilter extends OncePerRequestFilter {
 
     private static final Logger log = LoggerFactory.getLogger(JwtAuthFilter.class);
 
-    private final JwtUtil jwtUtil;
+    private final VerifiedTokenCache verifiedTokenCache;
     private final UserDetailsService userDetailsService;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final boolean stateless;
+    private final SecurityContextRepository securityContextRepository = new RequestAttributeSecurityContextRepository();
+
+    public JwtAuthFilter(VerifiedTokenCache verifiedTokenCache,
+                         UserDetailsService userDetailsService,
+                         TokenVersionRegistry tokenVersionRegistry,
+                         @Value("${app.jwt.stateless:true}") boolean stateless,
+                         @Value("${app.cache.invalidation.enabled:true}") boolean invalidationEnabled) {
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.userDetailsService = userDetailsService;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        if (stateless && !invalidationEnabled) {
+            log.warn("Cache invalidation is disabled: access tokens are checked against the database on every request");
+        }
+        this.stateless = stateless && invalidationEnabled;
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -43,13 +82,13 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         }
 
         final String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
-        String jwtToken = null;
-        String username = null;
+        Claims claims = null;
 
-        if (StringUtils.hasText(authHeader) && authHeader.startsWith("Bearer ")) {
-            jwtToken = authHeader.substring(7);
+        if (StringUtils.hasText(authHeader) && authHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String jwtToken = authHeader.substring(7);
             try {
-                username = jwtUtil.getUsernameFromToken(jwtToken);
+                claims = verifiedTokenCache.verify(jwtToken);
             } catch (ExpiredJwtException e) {
                 log.warn("JWT expired: {}", e.getMessage());
             } catch (JwtException | IllegalArgumentException e) {
@@ -57,18 +96,64 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             }
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-            if (jwtUtil.validateToken(jwtToken, userDetails)) {
+        if (claims != null) {
+            UserDetails userDetails = resolveUser(claims);
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken auth =
                         new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(auth);
+                SecurityContext context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(auth);
+                SecurityContextHolder.setContext(context);
+                // Async and error dispatches of this request restore the principal from here
+                securityContextRepository.saveContext(context, request, response);
             } else {
-                log.debug("JWT validation failed for user: {}", username);
+                log.debug("JWT validation failed for user: {}", claims.getSubject());
             }
         }
 
         filterChain.doFilter(request, response);
     }
+
+    // ============== Helper methods ==============
+
+    /**
+     * The principal for verified claims, or null if the token was revoked or its user is gone.
+     */
+    private UserDetails resolveUser(Claims claims) {
+        Long userId = claims.get(JwtUtil.CLAIM_USER_ID, Long.class);
+        Long tokenVersion = claims.get(JwtUtil.CLAIM_TOKEN_VERSION, Long.class);
+        String role = claims.get(JwtUtil.CLAIM_ROLE, String.class);
+
+        if (userId != null && tokenVersion != null && role != null) {
+            if (!tokenVersionRegistry.isCurrent(userId, tokenVersion)) {
+                return null;
+            }
+            if (stateless) {
+                // A current version implies an enabled user: disabling bumps it
+                return new CustomUserDetails(User.builder()
+                        .id(userId)
+                        .email(claims.getSubject())
+                        .role(User.Role.valueOf(role))
+                        .tokenVersion(tokenVersion)
+                        .enabled(true)
+                        .build());
+            }
+        }
+
+        UserDetails userDetails;
+        try {
+            userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+        } catch (UsernameNotFoundException e) {
+            return null;
+        }
+        if (!userDetails.isEnabled()) {
+            return null;
+        }
+        if (tokenVersion != null && userDetails instanceof CustomUserDetails custom
+                && custom.getUser().getTokenVersion() != tokenVersion) {
+            return null;
+        }
+        return userDetails;
+    }
 }
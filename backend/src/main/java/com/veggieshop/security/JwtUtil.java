@@ -1,38 +1,119 @@
 package com.veggieshop.security;
 
+import com.veggieshop.user.User;
 import io.jsonwebtoken.*;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
+import javax.crypto.SecretKey;
+import java.security.Key;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 
 /**
  * Utility class for creating and validating JWT tokens.
  * Only used for Access Tokens (short-lived).
+ * <p>
+ * The signing key and the parser are built once and shared by all threads. Tokens are signed with
+ * {@code app.jwt.secret} and, if {@code app.jwt.key-id} is set, carry it as their {@code kid} header.
+ * To rotate keys, move the old secret to {@code app.jwt.previous-keys} ({@code kid:base64secret},
+ * comma-separated) under its id and configure a new secret and id: tokens signed with either key
+ * verify until the old ones expire. Tokens without a {@code kid} verify with the current key.
  */
 @Component
 public class JwtUtil {
 
-    @Value("${app.jwt.secret}")
-    private String jwtSecret;
+    // Claims that let the filter authenticate without loading the user
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_TOKEN_VERSION = "ver";
 
-    @Value("${app.jwt.expiration-ms}")
-    private long jwtExpirationMs;
+    private final String signingKeyId;
+    private final SecretKey signingKey;
+    private final Map<String, SecretKey> verificationKeys;
+    private final JwtParser parser;
+
+    private final long jwtExpirationMs;
+
+    public JwtUtil(@Value("${app.jwt.secret}") String jwtSecret,
+                   @Value("${app.jwt.expiration-ms}") long jwtExpirationMs,
+                   @Value("${app.jwt.key-id:}") String keyId,
+                   @Value("${app.jwt.previous-keys:}") List<String> previousKeys) {
+        this.jwtExpirationMs = jwtExpirationMs;
+        this.signingKeyId = StringUtils.hasText(keyId) ? keyId : null;
+        this.signingKey = hmacKey(jwtSecret);
+
+        Map<String, SecretKey> keys = new HashMap<>();
+        for (String entry : previousKeys) {
+            if (!StringUtils.hasText(entry)) {
+                continue;
+            }
+            int separator = entry.indexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("app.jwt.previous-keys entries must be 'kid:base64secret'");
+            }
+            keys.put(entry.substring(0, separator).trim(), hmacKey(entry.substring(separator + 1).trim()));
+        }
+        if (signingKeyId != null) {
+            keys.put(signingKeyId, signingKey);
+        }
+        this.verificationKeys = Map.copyOf(keys);
+
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return verificationKey(header.getKeyId());
+                    }
+                })
+                .build();
+    }
 
     /**
      * Generates a JWT access token for the given UserDetails.
      */
     public String generateAccessToken(UserDetails userDetails) {
         return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signingKeyId)
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpirationMs))
-                .signWith(SignatureAlgorithm.HS512, jwtSecret)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
 
+    /**
+     * Generates a JWT access token for the given user, carrying its id, role and token version.
+     */
+    public String generateAccessToken(User user) {
+        return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signingKeyId)
+                .setSubject(user.getEmail())
+                .claim(CLAIM_USER_ID, user.getId())
+                .claim(CLAIM_ROLE, user.getRole().name())
+                .claim(CLAIM_TOKEN_VERSION, user.getTokenVersion())
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + jwtExpirationMs))
+                .signWith(signingKey, SignatureAlgorithm.HS512)
+                .compact();
+    }
+
+    /**
+     * Verifies the signature and expiration once and returns all claims.
+     * @throws ExpiredJwtException if token is expired
+     * @throws JwtException if token is invalid
+     */
+    public Claims parseClaims(String token) {
+        return parseToken(token);
+    }
+
     /**
      * Retrieves the username (subject) from the JWT token.
      * @throws ExpiredJwtException if token is expired
@@ -93,9 +174,21 @@ public class JwtUtil {
      * @throws JwtException if token is invalid
      */
     private Claims parseToken(String token) {
-        return Jwts.parser()
-                .setSigningKey(jwtSecret)
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    private Key verificationKey(String keyId) {
+        if (keyId == null) {
+            return signingKey;
+        }
+        SecretKey key = verificationKeys.get(keyId);
+        if (key == null) {
+            throw new UnsupportedJwtException("Unknown signing key: " + keyId);
+        }
+        return key;
+    }
+
+    private static SecretKey hmacKey(String base64Secret) {
+        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret));
     }
 }
@@ -1,14 +1,29 @@
 package com.veggieshop.security;
 
+import com.veggieshop.order.OrderOwnershipCache;
 import com.veggieshop.order.OrderRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
+import java.util.Optional;
+
 @Component("orderSecurity")
 @RequiredArgsConstructor
 public class OrderSecurity {
 
     private final OrderRepository orderRepository;
+    private final OrderOwnershipCache orderOwnershipCache;
+    private final CurrentUserService currentUserService;
+
+    /**
+     * Checks if the current user is the owner of the order.
+     *
+     * @param orderId The order ID.
+     * @return true if the authenticated user owns the order, false otherwise.
+     */
+    public boolean isOrderOwner(Long orderId) {
+        return isOrderOwner(orderId, currentUserService.getCurrentUserId());
+    }
 
     /**
      * Checks if the given user is the owner of the order.
@@ -19,7 +34,16 @@ public class OrderSecurity {
      */
     public boolean isOrderOwner(Long orderId, Long userId) {
         if (orderId == null || userId == null) return false;
-        // Exists with both IDs? Safe and performant.
-        return orderRepository.existsByIdAndUserId(orderId, userId);
+        // Ownership never changes: after the first check (or the order's creation) no query is needed
+        long owner = orderOwnershipCache.ownerOf(orderId);
+        if (owner == OrderOwnershipCache.UNKNOWN) {
+            Optional<Long> stored = orderRepository.findUserIdById(orderId);
+            if (stored.isEmpty()) {
+                return false;
+            }
+            owner = stored.get();
+            orderOwnershipCache.put(orderId, owner);
+        }
+        return owner == userId;
     }
 }
@@ -0,0 +1,25 @@
+package com.veggieshop.security;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * A rate-limit bucket shared by all replicas (see {@link RateLimiter}); only used with
+ * {@code app.security.rate-limit.shared=true}. Written with plain SQL, mapped here for the schema.
+ */
+@Entity
+@Table(name = "rate_limit_buckets")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RateLimitBucket {
+
+    @Id
+    @Column(name = "bucket_key", length = 200)
+    private String bucketKey;
+
+    // Theoretical arrival time, epoch ms on the database clock
+    @Column(nullable = false)
+    private long tat;
+}
@@ -0,0 +1,229 @@
+package com.veggieshop.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.veggieshop.common.ApiError;
+import com.veggieshop.common.ApiResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Throttles the unauthenticated auth endpoints, each of which ends in BCrypt, a database write or
+ * an outgoing email. Runs ahead of {@link JwtAuthFilter}.
+ * <p>
+ * Every request to these endpoints takes a token from its client IP's bucket; login and
+ * forgot-password also take one from the bucket of the email in the body, so a distributed
+ * credential-stuffing run against one account is throttled too. Over the limit the answer is 429
+ * with {@code Retry-After} (seconds), counted as {@code auth.rate.limited{scope=ip|account}}. Their
+ * bodies are read whatever {@code Content-Length} says (chunked requests send none), and one too
+ * large to parse is refused with 413 rather than let through without an account.
+ * <p>
+ * The client IP is {@link HttpServletRequest#getRemoteAddr()}: behind a reverse proxy, set
+ * {@code server.forward-headers-strategy} so it is the real client's.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Set<String> LIMITED_PATHS = Set.of(
+            "/api/auth/login", "/api/auth/register", "/api/auth/forgot-password",
+            "/api/auth/reset-password", "/api/auth/refresh");
+    private static final Set<String> ACCOUNT_LIMITED_PATHS = Set.of(
+            "/api/auth/login", "/api/auth/forgot-password");
+
+    // Auth request bodies are tiny; anything larger is refused on the account-limited endpoints
+    private static final int MAX_BODY_BYTES = 8 * 1024;
+
+    private final RateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final RateLimiter.Limit ipLimit;
+    private final RateLimiter.Limit accountLimit;
+    private final Counter ipRejected;
+    private final Counter accountRejected;
+
+    public RateLimitFilter(
+            RateLimiter rateLimiter,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${app.security.rate-limit.enabled:true}") boolean enabled,
+            @Value("${app.security.rate-limit.ip.capacity:30}") int ipCapacity,
+            @Value("${app.security.rate-limit.ip.refill-period:1m}") Duration ipRefillPeriod,
+            @Value("${app.security.rate-limit.account.capacity:5}") int accountCapacity,
+            @Value("${app.security.rate-limit.account.refill-period:1m}") Duration accountRefillPeriod
+    ) {
+        this.rateLimiter = rateLimiter;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.ipLimit = new RateLimiter.Limit(ipCapacity, ipRefillPeriod);
+        this.accountLimit = new RateLimiter.Limit(accountCapacity, accountRefillPeriod);
+        this.ipRejected = counter(meterRegistry, "ip");
+        this.accountRejected = counter(meterRegistry, "account");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled
+                || !HttpMethod.POST.matches(request.getMethod())
+                || !LIMITED_PATHS.contains(path(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+
+        long waitMs = rateLimiter.tryAcquire("ip:" + request.getRemoteAddr(), ipLimit);
+        if (waitMs > 0) {
+            ipRejected.increment();
+            reject(request, response, waitMs);
+            return;
+        }
+
+        String path = path(request);
+        if (ACCOUNT_LIMITED_PATHS.contains(path)) {
+            CachedBodyRequest cached = CachedBodyRequest.of(request);
+            if (cached == null) {
+                // Padding a body past the limit must not skip the account bucket
+                writeError(request, response, HttpStatus.PAYLOAD_TOO_LARGE, "Request body too large.");
+                return;
+            }
+            request = cached;
+            String email = email(cached.body);
+            if (email != null) {
+                waitMs = rateLimiter.tryAcquire("account:" + path + ":" + email, accountLimit);
+                if (waitMs > 0) {
+                    accountRejected.increment();
+                    reject(request, response, waitMs);
+                    return;
+                }
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    // ============== Helper methods ==============
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, long waitMs) throws IOException {
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (waitMs + 999) / 1000)));
+        writeError(request, response, HttpStatus.TOO_MANY_REQUESTS, "Too many requests, please retry later.");
+    }
+
+    private void writeError(HttpServletRequest request, HttpServletResponse response,
+                            HttpStatus status, String message) throws IOException {
+        ApiError apiError = ApiError.builder()
+                .status(status.value())
+                .error(status.getReasonPhrase())
+                .message(message)
+                .path(request.getRequestURI())
+                .timestamp(Instant.now())
+                .build();
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), ApiResponse.error(apiError));
+    }
+
+    private String email(byte[] body) {
+        try {
+            JsonNode email = objectMapper.readTree(body).path("email");
+            return email.isTextual() ? email.asText().trim().toLowerCase(Locale.ROOT) : null;
+        } catch (IOException e) {
+            // Malformed body: the controller rejects it
+            return null;
+        }
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String scope) {
+        return Counter.builder("auth.rate.limited")
+                .description("Auth requests rejected by the rate limiter")
+                .tag("scope", scope)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Request whose body was read up front (to find the account) and is replayed to the controller.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        /**
+         * Reads the body, trusting the stream rather than {@code Content-Length}, or returns null if it
+         * is larger than {@link #MAX_BODY_BYTES} (the stream is then partly consumed).
+         */
+        static CachedBodyRequest of(HttpServletRequest request) throws IOException {
+            byte[] body = request.getInputStream().readNBytes(MAX_BODY_BYTES + 1);
+            return body.length > MAX_BODY_BYTES ? null : new CachedBodyRequest(request, body);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
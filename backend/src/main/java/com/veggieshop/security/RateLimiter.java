@@ -0,0 +1,152 @@
+package com.veggieshop.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets keyed by arbitrary strings (client IP, account, ...).
+ * <p>
+ * Each bucket is stored in its GCRA form: a single "theoretical arrival time" (TAT) that advances
+ * by {@code period / capacity} per request. A request is allowed while the TAT stays within one
+ * {@code period} of now, i.e. at most {@code capacity} requests in a burst, refilling at
+ * {@code capacity} per {@code period}. Locally the TAT is an {@link AtomicLong} updated with a CAS
+ * loop, so buckets are lock-free; they live in a size-bounded Caffeine map and are evicted once idle
+ * for {@code idle-eviction} (by then they are full again, so nothing is lost).
+ * <p>
+ * With {@code app.security.rate-limit.shared=true} a request allowed locally is also charged to a
+ * bucket in Postgres ({@code rate_limit_buckets}) with one upsert, so the limit holds across
+ * replicas. A local rejection never reaches the database: this node's traffic alone is already
+ * over the limit. If the database cannot be reached, the local decision stands.
+ */
+@Component
+public class RateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimiter.class);
+
+    /**
+     * At most {@code capacity} requests at once, refilled at {@code capacity} per {@code period}.
+     */
+    public record Limit(int capacity, Duration period) {
+
+        long intervalNanos() {
+            return period.toNanos() / capacity;
+        }
+    }
+
+    // Database clock in ms, so all replicas share one time base
+    private static final String NOW_MS = "(extract(epoch FROM clock_timestamp()) * 1000)::bigint";
+
+    // EXCLUDED.tat is now + interval: the new TAT is max(tat, now) + interval, kept only if within the period
+    private static final String ACQUIRE_SQL = """
+            INSERT INTO rate_limit_buckets AS b (bucket_key, tat)
+            SELECT ?, %s + ?
+            ON CONFLICT (bucket_key) DO UPDATE
+                SET tat = GREATEST(b.tat + ?, EXCLUDED.tat)
+                WHERE GREATEST(b.tat + ?, EXCLUDED.tat) <= EXCLUDED.tat - ? + ?
+            RETURNING tat
+            """.formatted(NOW_MS);
+    private static final String WAIT_SQL =
+            "SELECT tat - " + NOW_MS + " - ? FROM rate_limit_buckets WHERE bucket_key = ?";
+    private static final String CLEANUP_SQL =
+            "DELETE FROM rate_limit_buckets WHERE tat < " + NOW_MS;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean shared;
+    private final Cache<String, AtomicLong> buckets;
+
+    public RateLimiter(
+            JdbcTemplate jdbcTemplate,
+            @Value("${app.security.rate-limit.shared:false}") boolean shared,
+            @Value("${app.security.rate-limit.max-keys:100000}") long maxKeys,
+            @Value("${app.security.rate-limit.idle-eviction:5m}") Duration idleEviction
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shared = shared;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(idleEviction)
+                .build();
+    }
+
+    /**
+     * Takes one token from the bucket of {@code key}.
+     *
+     * @return 0 if allowed, otherwise how long to wait before retrying, in milliseconds (at least 1).
+     */
+    public long tryAcquire(String key, Limit limit) {
+        long waitNanos = tryAcquireLocal(key, limit, System.nanoTime());
+        if (waitNanos > 0) {
+            return Math.max(1, Duration.ofNanos(waitNanos).toMillis());
+        }
+        return shared ? tryAcquireShared(key, limit) : 0;
+    }
+
+    /**
+     * Number of buckets currently held in memory, for diagnostics.
+     */
+    public long localBuckets() {
+        return buckets.estimatedSize();
+    }
+
+    /**
+     * Drops shared buckets that have refilled completely; a missing bucket is a full one.
+     */
+    @Scheduled(fixedDelayString = "${app.security.rate-limit.cleanup-interval-ms:60000}")
+    public void cleanupShared() {
+        if (!shared) {
+            return;
+        }
+        try {
+            jdbcTemplate.update(CLEANUP_SQL);
+        } catch (DataAccessException e) {
+            log.warn("Rate-limit bucket cleanup failed: {}", e.getMessage());
+        }
+    }
+
+    // ============== Helper methods ==============
+
+    private long tryAcquireLocal(String key, Limit limit, long now) {
+        AtomicLong tat = buckets.get(key, k -> new AtomicLong(now));
+        long interval = limit.intervalNanos();
+        long period = limit.period().toNanos();
+        while (true) {
+            long current = tat.get();
+            long next = Math.max(current, now) + interval;
+            long wait = next - now - period;
+            if (wait > 0) {
+                return wait;
+            }
+            if (tat.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private long tryAcquireShared(String key, Limit limit) {
+        long interval = Math.max(1, limit.period().toMillis() / limit.capacity());
+        long period = limit.period().toMillis();
+        try {
+            List<Long> granted = jdbcTemplate.queryForList(ACQUIRE_SQL, Long.class,
+                    key, interval, interval, interval, interval, period);
+            if (!granted.isEmpty()) {
+                return 0;
+            }
+            List<Long> wait = jdbcTemplate.queryForList(WAIT_SQL, Long.class, period - interval, key);
+            return wait.isEmpty() ? interval : Math.max(1, wait.get(0));
+        } catch (DataAccessException e) {
+            log.warn("Shared rate limit unavailable, using the local limit only: {}", e.getMessage());
+            return 0;
+        }
+    }
+}
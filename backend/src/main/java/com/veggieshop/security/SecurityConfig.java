@@ -1,6 +1,8 @@
 package com.veggieshop.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -17,12 +19,15 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 
 import jakarta.servlet.http.HttpServletResponse;
 
+import java.time.Duration;
+
 @Configuration
 @EnableMethodSecurity
 @RequiredArgsConstructor
 public class SecurityConfig {
 
     private final JwtAuthFilter jwtAuthFilter;
+    private final RateLimitFilter rateLimitFilter;
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -77,6 +82,10 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.DELETE, "/api/users/{id}").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.PUT, "/api/users/{id}/role").hasRole("ADMIN")
 
+                        // Actuator: health is public, metrics (cache stats etc.) are admin-only
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
+
                         // Any other API
                         .requestMatchers("/api/**").authenticated()
                         .anyRequest().permitAll()
@@ -86,12 +95,24 @@ public class SecurityConfig {
                         .accessDeniedHandler((req, res, e) -> res.sendError(HttpServletResponse.SC_FORBIDDEN))
                 )
                 .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterBefore(rateLimitFilter, JwtAuthFilter.class)
                 .build();
     }
 
+    /**
+     * BCrypt on its own bounded pool (see {@link BoundedPasswordEncoder}). Raising the strength
+     * re-hashes each password at its owner's next login.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            MeterRegistry meterRegistry,
+            @Value("${app.security.password-hashing.strength:10}") int strength,
+            @Value("${app.security.password-hashing.threads:4}") int threads,
+            @Value("${app.security.password-hashing.queue-capacity:200}") int queueCapacity,
+            @Value("${app.security.password-hashing.max-wait:5s}") Duration maxWait
+    ) {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength), threads, queueCapacity, maxWait,
+                meterRegistry);
     }
 
     @Bean
@@ -0,0 +1,155 @@
+package com.veggieshop.security;
+
+import com.veggieshop.cache.CacheInvalidationBus;
+import com.veggieshop.cache.CacheInvalidationEvent;
+import com.veggieshop.cache.CacheInvalidationListener;
+import com.veggieshop.user.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Revocation check for stateless access tokens.
+ * <p>
+ * Each token carries the user's {@link User#getTokenVersion() token version} at issue time, and is
+ * accepted only while it is not older than the current one. Only users whose version was ever bumped
+ * are kept, as two sorted primitive arrays replaced copy-on-write, so the per-request check is a
+ * binary search without allocation or locking. Changes arrive as {@link CacheInvalidationEvent.Kind#USER}
+ * events after commit, from this node or over the bus from others. Deleted users leave a
+ * {@link com.veggieshop.user.DeletedUser tombstone}, so full reloads keep their tokens revoked.
+ */
+@Component
+@RequiredArgsConstructor
+public class TokenVersionRegistry implements CacheInvalidationListener {
+
+    // Deleted users: every token is revoked
+    private static final long DELETED = Long.MAX_VALUE;
+
+    private static final String LOAD_ALL_SQL = "SELECT id, token_version FROM users WHERE token_version > 0"
+            + " UNION ALL SELECT id, " + DELETED + " FROM deleted_users ORDER BY 1";
+    private static final String LOAD_ONE_SQL = "SELECT token_version FROM users WHERE id = ?";
+    private static final String TOMBSTONE_SQL =
+            "INSERT INTO deleted_users (id, deleted_at) VALUES (?, now()) ON CONFLICT (id) DO NOTHING";
+
+    private record Versions(long[] userIds, long[] versions) {
+        long versionOf(long userId) {
+            int i = Arrays.binarySearch(userIds, userId);
+            return i >= 0 ? versions[i] : 0L;
+        }
+
+        Versions with(long userId, long version) {
+            int i = Arrays.binarySearch(userIds, userId);
+            if (i >= 0) {
+                long[] newVersions = versions.clone();
+                newVersions[i] = version;
+                return new Versions(userIds, newVersions);
+            }
+            int at = -i - 1;
+            long[] newIds = new long[userIds.length + 1];
+            long[] newVersions = new long[versions.length + 1];
+            System.arraycopy(userIds, 0, newIds, 0, at);
+            System.arraycopy(versions, 0, newVersions, 0, at);
+            newIds[at] = userId;
+            newVersions[at] = version;
+            System.arraycopy(userIds, at, newIds, at + 1, userIds.length - at);
+            System.arraycopy(versions, at, newVersions, at + 1, versions.length - at);
+            return new Versions(newIds, newVersions);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheInvalidationBus invalidationBus;
+
+    private volatile Versions snapshot;
+
+    // Serializes reloads, which run queries (a lock rather than synchronized, so virtual threads do not pin)
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    /**
+     * Whether a token issued at {@code tokenVersion} is still valid for the user.
+     */
+    public boolean isCurrent(long userId, long tokenVersion) {
+        Versions current = snapshot;
+        if (current == null) {
+            reload();
+            current = snapshot;
+        }
+        return tokenVersion >= current.versionOf(userId);
+    }
+
+    /**
+     * Revokes every access token issued to the user so far. Call inside the transaction that saves
+     * the user: the new version takes effect on all nodes once it commits.
+     */
+    public void revokeTokens(User user) {
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        invalidationBus.publish(CacheInvalidationEvent.user(user.getId()));
+    }
+
+    /**
+     * Revokes the tokens of a user being deleted, for good: call inside the deleting transaction,
+     * which also records the user's tombstone.
+     */
+    public void revokeTokens(Long userId) {
+        jdbcTemplate.update(TOMBSTONE_SQL, userId);
+        invalidationBus.publish(CacheInvalidationEvent.user(userId));
+    }
+
+    @Override
+    public void onInvalidation(CacheInvalidationEvent event) {
+        switch (event.kind()) {
+            case USER -> reloadUser(event.id());
+            case ALL -> reload();
+            case PRODUCT, PRODUCT_VIEWS, CATEGORY -> {
+                // Catalog data
+            }
+        }
+    }
+
+    void reload() {
+        reloadLock.lock();
+        try {
+            List<long[]> rows = new ArrayList<>();
+            jdbcTemplate.query(LOAD_ALL_SQL, rs -> {
+                rows.add(new long[]{rs.getLong(1), rs.getLong(2)});
+            });
+            long[] userIds = new long[rows.size()];
+            long[] versions = new long[rows.size()];
+            for (int i = 0; i < rows.size(); i++) {
+                userIds[i] = rows.get(i)[0];
+                versions[i] = rows.get(i)[1];
+            }
+            snapshot = new Versions(userIds, versions);
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private void reloadUser(Long userId) {
+        reloadLock.lock();
+        try {
+            if (snapshot == null) {
+                reload();
+                return;
+            }
+            List<Long> found = jdbcTemplate.queryForList(LOAD_ONE_SQL, Long.class, userId);
+            long version = found.isEmpty() ? DELETED : found.get(0);
+            snapshot = snapshot.with(userId, version);
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    /**
+     * Number of users with a tracked version, for diagnostics.
+     */
+    public int size() {
+        Versions current = snapshot;
+        return current == null ? 0 : current.userIds().length;
+    }
+}
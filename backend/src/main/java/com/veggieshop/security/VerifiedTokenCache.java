@@ -0,0 +1,118 @@
+package com.veggieshop.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Date;
+
+/**
+ * Bounded cache of verified access tokens, so a burst of requests with the same token verifies
+ * its signature once.
+ * <p>
+ * Keyed by the SHA-256 of the token (the token itself is never kept). A verified token stays until
+ * its {@code exp}, so nothing is served past expiration; a token that failed verification is
+ * remembered for a short time and fails again without re-parsing. Concurrent first requests for a
+ * token wait for a single verification. Hit/miss counters are published as
+ * {@code cache.*{cache=jwt.verified}} meters.
+ * <p>
+ * Revocation is not cached: callers still check the token version on every request.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    /**
+     * Outcome of verifying one token: its claims, or why it was rejected.
+     */
+    private record Verification(Claims claims, JwtException failure) {
+    }
+
+    private final JwtUtil jwtUtil;
+    private final Cache<ByteBuffer, Verification> cache;
+
+    public VerifiedTokenCache(
+            JwtUtil jwtUtil,
+            MeterRegistry meterRegistry,
+            @Value("${app.jwt.verified-cache.max-size:10000}") long maxSize,
+            @Value("${app.jwt.verified-cache.negative-ttl:30s}") Duration negativeTtl
+    ) {
+        this.jwtUtil = jwtUtil;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<ByteBuffer, Verification>() {
+                    @Override
+                    public long expireAfterCreate(ByteBuffer key, Verification value, long currentTime) {
+                        if (value.failure() != null) {
+                            return negativeTtl.toNanos();
+                        }
+                        Date expiration = value.claims().getExpiration();
+                        if (expiration == null) {
+                            // Not issued by us: do not keep it
+                            return 0L;
+                        }
+                        long remainingMs = expiration.getTime() - System.currentTimeMillis();
+                        return Duration.ofMillis(Math.max(remainingMs, 0L)).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(ByteBuffer key, Verification value, long currentTime,
+                                                  long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(ByteBuffer key, Verification value, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.verified");
+    }
+
+    /**
+     * Returns the claims of a valid token, verifying it only if it was not seen recently.
+     * @throws io.jsonwebtoken.ExpiredJwtException if token is expired
+     * @throws JwtException if token is invalid
+     */
+    public Claims verify(String token) {
+        Verification verification = cache.get(digest(token), key -> {
+            try {
+                return new Verification(jwtUtil.parseClaims(token), null);
+            } catch (JwtException e) {
+                return new Verification(null, e);
+            } catch (IllegalArgumentException e) {
+                return new Verification(null, new JwtException(e.getMessage(), e));
+            }
+        });
+        if (verification.failure() != null) {
+            throw verification.failure();
+        }
+        return verification.claims();
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    private static ByteBuffer digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
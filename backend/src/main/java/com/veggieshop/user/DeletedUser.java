@@ -0,0 +1,26 @@
+package com.veggieshop.user;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Tombstone of a hard-deleted user. Users are deleted outright, so this row is what keeps their
+ * access tokens revoked across full reloads of the token-version registry and restarts (see
+ * {@code TokenVersionRegistry}). Identity ids are never reused, so a tombstone never hits a new user.
+ */
+@Entity
+@Table(name = "deleted_users")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeletedUser {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private Instant deletedAt;
+}
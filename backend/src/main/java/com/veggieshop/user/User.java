@@ -35,10 +35,15 @@ public class User {
     @Column(nullable = false, length = 20)
     private Role role = Role.USER;
 
-    // Optional: Enable/disable user (soft delete, suspension)
+    // Disabled users cannot log in, and disabling revokes their tokens (see UserService#changeEnabled)
     @Column(nullable = false)
+    @Builder.Default
     private boolean enabled = true;
 
+    // Bumped when credentials, role, email or the enabled flag change: access tokens carrying an older version are rejected
+    @Column(nullable = false)
+    private long tokenVersion;
+
     // Optional: Track when user registered
     @Column(nullable = false, updatable = false)
     private Instant createdAt = Instant.now();
@@ -3,6 +3,8 @@ package com.veggieshop.user;
 import com.veggieshop.common.ApiResponse;
 import com.veggieshop.common.ApiError;
 import com.veggieshop.common.ApiResponseUtil;
+import com.veggieshop.common.KeysetCursor;
+import com.veggieshop.common.SlicePaging;
 import com.veggieshop.security.CustomUserDetails;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -13,6 +15,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
@@ -136,8 +139,25 @@ public class UserController {
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<ApiResponse<List<UserDto.UserResponse>>> getAll(
             @RequestParam(value = "q", required = false) String query,
+            @Parameter(description = "Keyset mode: cursor to continue after (empty for the first rows)")
+            @RequestParam(value = "after", required = false) String after,
+            @Parameter(description = "Keyset mode: cursor to go back before (empty for the last rows)")
+            @RequestParam(value = "before", required = false) String before,
+            @Parameter(description = "Set to false to skip the total count (no totalElements/totalPages)")
+            @RequestParam(value = "count", defaultValue = "true") boolean count,
             @PageableDefault(size = 20, sort = "id") Pageable pageable
     ) {
+        if (KeysetCursor.requested(after, before)) {
+            KeysetScrollPosition position = KeysetCursor.position(after, before, pageable.getSort(), User.class);
+            return ApiResponseUtil.ok(query != null && !query.isEmpty()
+                    ? userService.search(query, position, pageable)
+                    : userService.findAll(position, pageable), pageable, position);
+        }
+        if (!count) {
+            return ApiResponseUtil.ok(SlicePaging.toSlice(query != null && !query.isEmpty()
+                    ? userService.search(query, SlicePaging.position(pageable), pageable)
+                    : userService.findAll(SlicePaging.position(pageable), pageable), pageable));
+        }
         Page<UserDto.UserResponse> page;
         if (query != null && !query.isEmpty()) {
             page = userService.search(query, pageable);
@@ -247,4 +267,31 @@ public class UserController {
         UserDto.UserResponse updated = userService.changeRole(id, request.getRole());
         return ApiResponseUtil.ok(updated);
     }
+
+    // ================== ENABLE / DISABLE USER (ADMIN ONLY) ==================
+    @Operation(
+            summary = "Enable or disable a user (admin only)",
+            description = "ADMIN: Enable or disable a user. Disabling revokes the user's access and refresh tokens at once."
+    )
+    @ApiResponses({
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "User updated",
+                    content = @Content(schema = @Schema(implementation = com.veggieshop.common.ApiResponse.class))),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "User not found",
+                    content = @Content(schema = @Schema(implementation = com.veggieshop.common.ApiError.class)))
+    })
+    @PutMapping("/{id}/enabled")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<UserDto.UserResponse>> changeEnabled(
+            @Parameter(description = "ID of the user", required = true, example = "1")
+            @PathVariable("id") @NotNull Long id,
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Enabled flag",
+                    required = true,
+                    content = @Content(schema = @Schema(implementation = UserDto.EnabledChangeRequest.class))
+            )
+            @RequestBody @Valid UserDto.EnabledChangeRequest request
+    ) {
+        UserDto.UserResponse updated = userService.changeEnabled(id, request.getEnabled());
+        return ApiResponseUtil.ok(updated);
+    }
 }
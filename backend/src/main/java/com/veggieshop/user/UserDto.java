@@ -14,7 +14,8 @@ public class UserDto {
         private String name;
         private String email;
         private User.Role role;
-        // Add fields like active, createdAt, updatedAt if needed
+        private boolean enabled;
+        // Add fields like createdAt, updatedAt if needed
     }
 
     @Data
@@ -59,4 +60,10 @@ public class UserDto {
         @NotNull(message = "Role is required")
         private User.Role role;
     }
+
+    @Data
+    public static class EnabledChangeRequest {
+        @NotNull(message = "Enabled is required")
+        private Boolean enabled;
+    }
 }
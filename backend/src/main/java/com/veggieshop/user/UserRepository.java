@@ -1,7 +1,11 @@
 package com.veggieshop.user;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.Optional;
@@ -28,5 +32,13 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     Page<User> findByNameContainingIgnoreCaseOrEmailContainingIgnoreCase(String name, String email, Pageable pageable);
 
+    /**
+     * Keyset (seek) variants of the admin listing and search.
+     */
+    Window<User> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    Window<User> findByNameContainingIgnoreCaseOrEmailContainingIgnoreCase(String name, String email,
+                                                                           ScrollPosition position, Sort sort, Limit limit);
+
     // Add more custom queries if needed
 }
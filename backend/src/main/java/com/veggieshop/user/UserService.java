@@ -2,6 +2,8 @@ package com.veggieshop.user;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 
 public interface UserService {
 
@@ -24,4 +26,11 @@ public interface UserService {
     void changePassword(Long userId, UserDto.PasswordChangeRequest request);
 
     UserDto.UserResponse changeRole(Long userId, User.Role newRole);
+
+    UserDto.UserResponse changeEnabled(Long userId, boolean enabled);
+
+    // Keyset (seek) variants: size and sort come from the pageable, the page number is ignored
+    Window<UserDto.UserResponse> findAll(ScrollPosition position, Pageable pageable);
+
+    Window<UserDto.UserResponse> search(String query, ScrollPosition position, Pageable pageable);
 }
@@ -1,15 +1,22 @@
 package com.veggieshop.user;
 
+import com.veggieshop.auth.RefreshTokenService;
 import com.veggieshop.exception.BadRequestException;
 import com.veggieshop.exception.DuplicateException;
 import com.veggieshop.exception.ResourceNotFoundException;
+import com.veggieshop.security.TokenVersionRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Objects;
+
 @Service
 @RequiredArgsConstructor
 @Transactional
@@ -18,6 +25,8 @@ public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final UserMapper userMapper;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final RefreshTokenService refreshTokenService;
 
     @Override
     public UserDto.UserResponse register(UserDto.UserCreateRequest request) {
@@ -39,7 +48,11 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
         user.setName(request.getName());
-        user.setEmail(request.getEmail());
+        if (!Objects.equals(request.getEmail(), user.getEmail())) {
+            // Access tokens are issued for the old email
+            user.setEmail(request.getEmail());
+            tokenVersionRegistry.revokeTokens(user);
+        }
         User updated = userRepository.save(user);
         return userMapper.toUserResponse(updated);
     }
@@ -50,6 +63,7 @@ public class UserServiceImpl implements UserService {
             throw new ResourceNotFoundException("User not found");
         }
         userRepository.deleteById(id);
+        tokenVersionRegistry.revokeTokens(id);
     }
 
     @Override
@@ -97,6 +111,7 @@ public class UserServiceImpl implements UserService {
             throw new BadRequestException("Old password is incorrect");
         }
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
+        tokenVersionRegistry.revokeTokens(user);
         userRepository.save(user);
     }
 
@@ -104,8 +119,45 @@ public class UserServiceImpl implements UserService {
     public UserDto.UserResponse changeRole(Long userId, User.Role newRole) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-        user.setRole(newRole);
+        if (user.getRole() != newRole) {
+            // Access tokens carry the role
+            user.setRole(newRole);
+            tokenVersionRegistry.revokeTokens(user);
+        }
+        User updated = userRepository.save(user);
+        return userMapper.toUserResponse(updated);
+    }
+
+    @Override
+    public UserDto.UserResponse changeEnabled(Long userId, boolean enabled) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        if (user.isEnabled() != enabled) {
+            user.setEnabled(enabled);
+            if (!enabled) {
+                // Access tokens do not carry the flag: revoke them, and end every session
+                tokenVersionRegistry.revokeTokens(user);
+                refreshTokenService.revokeAllUserTokens(user);
+            }
+        }
         User updated = userRepository.save(user);
         return userMapper.toUserResponse(updated);
     }
+
+    // ================== Keyset (seek) listings ==================
+
+    @Override
+    @Transactional(readOnly = true)
+    public Window<UserDto.UserResponse> findAll(ScrollPosition position, Pageable pageable) {
+        return userRepository.findAllBy(position, pageable.getSort(), Limit.of(pageable.getPageSize()))
+                .map(userMapper::toUserResponse);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Window<UserDto.UserResponse> search(String query, ScrollPosition position, Pageable pageable) {
+        return userRepository.findByNameContainingIgnoreCaseOrEmailContainingIgnoreCase(query, query, position,
+                        pageable.getSort(), Limit.of(pageable.getPageSize()))
+                .map(userMapper::toUserResponse);
+    }
 }
@@ -138,6 +138,29 @@ class AuthIntegrationTest {
         assertThat(data.get("userEmail")).isEqualTo(TEST_USER_EMAIL);
     }
 
+    @Test
+    void refreshToken_shouldFail_whenReused() throws Exception {
+        loginAsTestUser();
+        Cookie original = refreshTokenCookie;
+
+        Cookie rotated = mockMvc.perform(post("/api/auth/refresh")
+                        .cookie(original)
+                        .header("User-Agent", TEST_USER_AGENT))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getCookie("refreshToken");
+        assertThat(rotated.getValue()).isNotEqualTo(original.getValue());
+
+        mockMvc.perform(post("/api/auth/refresh")
+                        .cookie(original)
+                        .header("User-Agent", TEST_USER_AGENT))
+                .andExpect(status().isUnauthorized());
+
+        mockMvc.perform(post("/api/auth/refresh")
+                        .cookie(rotated)
+                        .header("User-Agent", TEST_USER_AGENT))
+                .andExpect(status().isOk());
+    }
+
     @Test
     void refreshToken_shouldFail_withInvalidToken() throws Exception {
         mockMvc.perform(post("/api/auth/refresh")
@@ -0,0 +1,220 @@
+package com.veggieshop.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.veggieshop.order.BulkStatusUpdater;
+import com.veggieshop.order.Order;
+import com.veggieshop.order.OrderDto;
+import com.veggieshop.order.OrderRepository;
+import com.veggieshop.user.User;
+import com.veggieshop.user.UserRepository;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Shares the MockMvc tests' context: a context of its own would recreate the schema under them
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BulkOrderStatusIntegrationTest {
+
+    // Far outside any other test's orders, so filters only match this class's fixtures
+    private static final LocalDateTime FIXTURE_DAY = LocalDateTime.of(2001, 1, 1, 0, 0);
+
+    @Autowired BulkStatusUpdater bulkStatusUpdater;
+    @Autowired OrderRepository orderRepository;
+    @Autowired UserRepository userRepository;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired MockMvc mockMvc;
+
+    User user;
+    List<Long> fixtures = new ArrayList<>();
+
+    @BeforeAll
+    void setup() {
+        user = userRepository.save(User.builder()
+                .name("Bulk Status User")
+                .email("bulk-status-" + UUID.randomUUID().toString().substring(0, 8) + "@veggie.com")
+                .password("irrelevant")
+                .role(User.Role.USER)
+                .enabled(true)
+                .build());
+        // Small chunks so a run needs several of them
+        ReflectionTestUtils.setField(bulkStatusUpdater, "chunkSize", 2);
+    }
+
+    @AfterAll
+    void restore() {
+        ReflectionTestUtils.setField(bulkStatusUpdater, "chunkSize", 500);
+    }
+
+    @AfterEach
+    void cleanup() {
+        orderRepository.deleteAllById(fixtures);
+        fixtures.clear();
+    }
+
+    @Test
+    void updateByIds_shouldApplyAllowedTransitions_andReportEveryId() {
+        Long pending = order(Order.Status.PENDING, FIXTURE_DAY);
+        Long paid = order(Order.Status.PAID, FIXTURE_DAY);
+        Long shipped = order(Order.Status.SHIPPED, FIXTURE_DAY);
+        Long cancelled = order(Order.Status.CANCELLED, FIXTURE_DAY);
+        List<List<OrderDto.BulkStatusOutcome>> chunks = new ArrayList<>();
+
+        bulkStatusUpdater.updateByIds(List.of(pending, paid, shipped, cancelled, pending, -1L),
+                Order.Status.SHIPPED, chunks::add);
+
+        assertThat(chunks).hasSize(3);
+        assertThat(chunks.stream().flatMap(List::stream).toList())
+                .extracting(OrderDto.BulkStatusOutcome::getId, OrderDto.BulkStatusOutcome::getResult,
+                        OrderDto.BulkStatusOutcome::getPreviousStatus)
+                .containsExactly(
+                        tuple(pending, OrderDto.BulkStatusResult.INVALID_TRANSITION, "PENDING"),
+                        tuple(paid, OrderDto.BulkStatusResult.UPDATED, "PAID"),
+                        tuple(shipped, OrderDto.BulkStatusResult.UNCHANGED, "SHIPPED"),
+                        tuple(cancelled, OrderDto.BulkStatusResult.INVALID_TRANSITION, "CANCELLED"),
+                        tuple(-1L, OrderDto.BulkStatusResult.NOT_FOUND, null));
+        assertThat(statusOf(pending)).isEqualTo("PENDING");
+        assertThat(statusOf(paid)).isEqualTo("SHIPPED");
+        assertThat(statusOf(cancelled)).isEqualTo("CANCELLED");
+    }
+
+    @Test
+    void updateByFilter_shouldMoveOnlyMatchingOrders_acrossChunks() {
+        List<Long> matching = List.of(
+                order(Order.Status.PAID, FIXTURE_DAY),
+                order(Order.Status.PAID, FIXTURE_DAY.plusHours(1)),
+                order(Order.Status.PAID, FIXTURE_DAY.plusHours(2)),
+                order(Order.Status.PAID, FIXTURE_DAY.plusHours(3)),
+                order(Order.Status.PAID, FIXTURE_DAY.plusHours(4)));
+        Long pending = order(Order.Status.PENDING, FIXTURE_DAY);
+        Long nextDay = order(Order.Status.PAID, FIXTURE_DAY.plusDays(1));
+        List<OrderDto.BulkStatusOutcome> outcomes = new ArrayList<>();
+
+        bulkStatusUpdater.updateByFilter(Order.Status.PAID, FIXTURE_DAY, FIXTURE_DAY.plusDays(1),
+                Order.Status.SHIPPED, outcomes::addAll);
+
+        assertThat(outcomes).extracting(OrderDto.BulkStatusOutcome::getId).containsExactlyElementsOf(matching);
+        assertThat(outcomes).allMatch(o -> o.getResult() == OrderDto.BulkStatusResult.UPDATED);
+        assertThat(matching).allMatch(id -> statusOf(id).equals("SHIPPED"));
+        assertThat(statusOf(pending)).isEqualTo("PENDING");
+        assertThat(statusOf(nextDay)).isEqualTo("PAID");
+    }
+
+    @Test
+    @WithMockUser(username = "jane@example.com", roles = {"ADMIN"})
+    void endpoint_shouldRejectForbiddenFilterTransition_beforeTouchingAnything() throws Exception {
+        Long shipped = order(Order.Status.SHIPPED, FIXTURE_DAY);
+
+        mockMvc.perform(post("/api/orders/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"status": "PENDING", "filter": {"status": "SHIPPED", "createdFrom": "2001-01-01T00:00:00"}}
+                                """))
+                .andExpect(status().isBadRequest());
+        assertThat(statusOf(shipped)).isEqualTo("SHIPPED");
+    }
+
+    @Test
+    @WithMockUser(username = "jane@example.com", roles = {"ADMIN"})
+    void endpoint_shouldStreamOneLinePerOrder_thenSummary() throws Exception {
+        Long pending = order(Order.Status.PENDING, FIXTURE_DAY);
+        Long paid = order(Order.Status.PAID, FIXTURE_DAY);
+        Long shipped = order(Order.Status.SHIPPED, FIXTURE_DAY);
+
+        MvcResult started = mockMvc.perform(post("/api/orders/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"status": "cancelled", "ids": [%d, %d, %d]}
+                                """.formatted(pending, paid, shipped)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        List<JsonNode> lines = body.lines().map(this::readTree).toList();
+        assertThat(lines).hasSize(4);
+        assertThat(lines.subList(0, 3)).extracting(line -> line.get("result").asText())
+                .containsExactly("UPDATED", "UPDATED", "INVALID_TRANSITION");
+        JsonNode summary = lines.get(3);
+        assertThat(summary.get("status").asText()).isEqualTo("CANCELLED");
+        assertThat(summary.get("updated").asLong()).isEqualTo(2);
+        assertThat(summary.get("invalidTransition").asLong()).isEqualTo(1);
+        assertThat(summary.hasNonNull("error")).isFalse();
+        assertThat(statusOf(pending)).isEqualTo("CANCELLED");
+        assertThat(statusOf(paid)).isEqualTo("CANCELLED");
+    }
+
+    @Test
+    @WithMockUser(username = "jane@example.com", roles = {"ADMIN"})
+    void endpoint_shouldRejectIdsAndFilterTogether() throws Exception {
+        mockMvc.perform(post("/api/orders/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"status": "SHIPPED", "ids": [1], "filter": {"status": "PAID"}}
+                                """))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "alice@example.com", roles = {"USER"})
+    void endpoint_shouldBeAdminOnly() throws Exception {
+        mockMvc.perform(post("/api/orders/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"status": "SHIPPED", "ids": [1]}
+                                """))
+                .andExpect(status().isForbidden());
+    }
+
+    // ========== Helpers ==========
+
+    private Long order(Order.Status status, LocalDateTime createdAt) {
+        Long id = orderRepository.save(Order.builder()
+                .user(user)
+                .totalPrice(BigDecimal.TEN)
+                .status(status)
+                .build()).getId();
+        // createdAt is set on persist and not updatable through JPA
+        jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE id = ?", createdAt, id);
+        fixtures.add(id);
+        return id;
+    }
+
+    private String statusOf(Long id) {
+        return jdbcTemplate.queryForObject("SELECT status FROM orders WHERE id = ?", String.class, id);
+    }
+
+    private JsonNode readTree(String line) {
+        try {
+            return objectMapper.readTree(line);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
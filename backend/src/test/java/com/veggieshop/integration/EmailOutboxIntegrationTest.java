@@ -0,0 +1,184 @@
+package com.veggieshop.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.veggieshop.auth.AuthDto;
+import com.veggieshop.mail.EmailOutbox;
+import com.veggieshop.mail.OutboundEmail;
+import com.veggieshop.mail.OutboundEmailRepository;
+import com.veggieshop.user.User;
+import com.veggieshop.user.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.ServerSocket;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Password-reset mail through the outbox, delivered to an in-process GreenMail SMTP server.
+ * <p>
+ * Other cached test contexts share the database and run their own dispatchers (against an SMTP
+ * host that does not exist here), just like other replicas would. The tests therefore dispatch
+ * through outboxes whose clocks are ahead: rows another dispatcher claimed and backed off are due
+ * for them, and rows they queue are never due for anyone else.
+ */
+@SpringBootTest(properties = "app.mail.outbox.poll-interval-ms=3600000")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class EmailOutboxIntegrationTest {
+
+    static final GreenMail greenMail = new GreenMail(ServerSetupTest.SMTP.dynamicPort());
+
+    static final String USER_EMAIL = "outbox-user@veggie.com";
+
+    @Autowired MockMvc mockMvc;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired UserRepository userRepository;
+    @Autowired PasswordEncoder passwordEncoder;
+    @Autowired OutboundEmailRepository outboundEmailRepository;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @DynamicPropertySource
+    static void mailProperties(DynamicPropertyRegistry registry) {
+        greenMail.start();
+        registry.add("spring.mail.host", () -> "localhost");
+        registry.add("spring.mail.port", () -> greenMail.getSmtp().getPort());
+        registry.add("spring.mail.properties.mail.smtp.auth", () -> "false");
+        registry.add("spring.mail.properties.mail.smtp.starttls.enable", () -> "false");
+    }
+
+    @BeforeAll
+    void setup() {
+        userRepository.save(User.builder()
+                .name("Outbox User")
+                .email(USER_EMAIL)
+                .password(passwordEncoder.encode("password123"))
+                .role(User.Role.USER)
+                .enabled(true)
+                .build());
+    }
+
+    @AfterAll
+    void stopSmtp() {
+        greenMail.stop();
+    }
+
+    @Test
+    void forgotPassword_shouldQueueMail_thenDispatcherDeliversIt() throws Exception {
+        forgotPassword(USER_EMAIL);
+
+        // Nothing went out during the request
+        assertThat(greenMail.getReceivedMessages()).isEmpty();
+        assertThat(outboundEmailRepository.findByRecipient(USER_EMAIL)).hasSize(1);
+
+        JavaMailSenderImpl smtp = new JavaMailSenderImpl();
+        smtp.setHost("localhost");
+        smtp.setPort(greenMail.getSmtp().getPort());
+        assertThat(outboxAt(smtp, Instant.now().plus(Duration.ofHours(2))).dispatch()).isGreaterThanOrEqualTo(1);
+
+        assertThat(greenMail.waitForIncomingEmail(5_000, 1)).isTrue();
+        MimeMessage received = Arrays.stream(greenMail.getReceivedMessages())
+                .filter(message -> USER_EMAIL.equals(recipientOf(message)))
+                .findFirst()
+                .orElseThrow();
+        assertThat(received.getSubject()).isEqualTo("Password Reset Request");
+        assertThat(GreenMailUtil.getBody(received)).contains("reset-password?token=");
+        assertThat(outboundEmailRepository.findByRecipient(USER_EMAIL)).isEmpty();
+    }
+
+    @Test
+    void forgotPassword_shouldQueueNothing_forUnknownEmail() throws Exception {
+        forgotPassword("nobody@veggie.com");
+
+        assertThat(outboundEmailRepository.findByRecipient("nobody@veggie.com")).isEmpty();
+    }
+
+    @Test
+    void failedDelivery_shouldBackOff_thenDeadLetter() throws Exception {
+        String recipient = "unreachable@veggie.com";
+        JavaMailSenderImpl unreachable = new JavaMailSenderImpl();
+        unreachable.setHost("localhost");
+        unreachable.setPort(closedPort());
+
+        Instant start = Instant.now().plus(Duration.ofDays(1));
+        EmailOutbox outbox = outboxAt(unreachable, start);
+        transactionTemplate.executeWithoutResult(status -> outbox.enqueue(recipient, "Hello", "Body"));
+
+        assertThat(outbox.dispatch()).isZero();
+        OutboundEmail queued = outboundEmailRepository.findByRecipient(recipient).get(0);
+        assertThat(queued.getStatus()).isEqualTo(OutboundEmail.Status.PENDING);
+        assertThat(queued.getAttempts()).isEqualTo(1);
+        assertThat(queued.getNextAttemptAt()).isAfterOrEqualTo(start.plusSeconds(29));
+        assertThat(queued.getLastError()).isNotBlank();
+
+        // Not due again before the backoff has passed
+        assertThat(outboxAt(unreachable, start.plusSeconds(10)).dispatch()).isZero();
+        assertThat(outboundEmailRepository.findByRecipient(recipient).get(0).getAttempts()).isEqualTo(1);
+
+        EmailOutbox later = outboxAt(unreachable, start.plus(Duration.ofMinutes(1)));
+        ReflectionTestUtils.setField(later, "maxAttempts", 2);
+        later.dispatch();
+
+        List<OutboundEmail> rows = outboundEmailRepository.findByRecipient(recipient);
+        assertThat(rows).hasSize(1);
+        assertThat(rows.get(0).getStatus()).isEqualTo(OutboundEmail.Status.DEAD);
+        assertThat(rows.get(0).getAttempts()).isEqualTo(2);
+    }
+
+    // ========== Helpers ==========
+
+    private void forgotPassword(String email) throws Exception {
+        AuthDto.ForgotPasswordRequest request = new AuthDto.ForgotPasswordRequest();
+        request.setEmail(email);
+        mockMvc.perform(post("/api/auth/forgot-password")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("User-Agent", "JUnitTest/1.0")
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isNoContent());
+    }
+
+    private EmailOutbox outboxAt(JavaMailSenderImpl mailSender, Instant now) {
+        return new EmailOutbox(outboundEmailRepository, jdbcTemplate, transactionTemplate, mailSender,
+                Clock.fixed(now, ZoneOffset.UTC), new SimpleMeterRegistry());
+    }
+
+    private static String recipientOf(MimeMessage message) {
+        try {
+            return GreenMailUtil.getAddressList(message.getAllRecipients());
+        } catch (MessagingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int closedPort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -4,6 +4,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.veggieshop.offer.Offer;
 import com.veggieshop.offer.OfferDto.OfferCreateRequest;
 import com.veggieshop.offer.OfferRepository;
+import com.veggieshop.offer.OfferService;
+import com.veggieshop.pricing.EffectivePriceIndex;
 import com.veggieshop.product.Product;
 import com.veggieshop.product.ProductRepository;
 import com.veggieshop.category.Category;
@@ -15,10 +17,15 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
@@ -35,6 +42,9 @@ class OfferIntegrationTest {
     @Autowired private ProductRepository productRepository;
     @Autowired private CategoryRepository categoryRepository;
     @Autowired private ObjectMapper objectMapper;
+    @Autowired private OfferService offerService;
+    @Autowired private EffectivePriceIndex priceIndex;
+    @Autowired private TransactionTemplate transactionTemplate;
 
     // Test constants
     private static final String BASE_URL = "/api/offers";
@@ -135,6 +145,10 @@ class OfferIntegrationTest {
         var node = objectMapper.readTree(res.getResponse().getContentAsString());
         testOfferId = node.at("/data/id").asLong();
         assertThat(testOfferId).isNotNull();
+
+        // The product's effective price follows the new offer: 50 - 15
+        assertThat(productRepository.findById(testProductId).orElseThrow().getFinalPrice())
+                .isEqualByComparingTo("35");
     }
 
     @Test @Order(2)
@@ -287,4 +301,107 @@ class OfferIntegrationTest {
         assertThat(res.getResponse().getStatus()).isEqualTo(403);
     }
 
+    @Test @Order(16)
+    void getOffersByProduct_keyset_walksForwardAndBack() throws Exception {
+        // Five offers with tied start dates, so the id breaks ties
+        Product product = productRepository.findById(testProductId).orElseThrow();
+        Product keysetProduct = productRepository.save(Product.builder()
+                .name("KeysetOfferProduct").description("Keyset paging").price(BigDecimal.TEN)
+                .discount(BigDecimal.ZERO).featured(false).soldCount(0L).active(true)
+                .category(product.getCategory()).imageUrl("https://img/keyset.png").build());
+        for (int i = 0; i < 5; i++) {
+            offerRepository.save(Offer.builder().product(keysetProduct).discount(BigDecimal.valueOf(i + 1))
+                    .startDate(LocalDate.now().minusDays(i / 2)).endDate(LocalDate.now().plusDays(5)).build());
+        }
+        String url = BASE_URL + "/product/" + keysetProduct.getId();
+
+        var first = objectMapper.readTree(mockMvc.perform(get(url).param("after", "")
+                        .param("size", "2").param("sort", "startDate,desc")
+                        .header("Authorization", bearer(userToken)))
+                .andReturn().getResponse().getContentAsString());
+        assertThat(first.at("/data").size()).isEqualTo(2);
+        assertThat(first.at("/meta/first").asBoolean()).isTrue();
+        assertThat(first.at("/meta/totalElements").isMissingNode()).isTrue();
+        assertThat(first.at("/meta/prevCursor").isMissingNode()).isTrue();
+
+        var second = objectMapper.readTree(mockMvc.perform(get(url).param("after", first.at("/meta/nextCursor").asText())
+                        .param("size", "2").param("sort", "startDate,desc")
+                        .header("Authorization", bearer(userToken)))
+                .andReturn().getResponse().getContentAsString());
+        var third = objectMapper.readTree(mockMvc.perform(get(url).param("after", second.at("/meta/nextCursor").asText())
+                        .param("size", "2").param("sort", "startDate,desc")
+                        .header("Authorization", bearer(userToken)))
+                .andReturn().getResponse().getContentAsString());
+        assertThat(third.at("/data").size()).isEqualTo(1);
+        assertThat(third.at("/meta/last").asBoolean()).isTrue();
+        assertThat(third.at("/meta/nextCursor").isMissingNode()).isTrue();
+
+        var seen = new java.util.ArrayList<Long>();
+        for (var page : java.util.List.of(first, second, third)) {
+            page.at("/data").forEach(o -> seen.add(o.get("id").asLong()));
+        }
+        assertThat(seen).doesNotHaveDuplicates().hasSize(5);
+
+        // Back from the third page lands on the second one again
+        var back = objectMapper.readTree(mockMvc.perform(get(url).param("before", third.at("/meta/prevCursor").asText())
+                        .param("size", "2").param("sort", "startDate,desc")
+                        .header("Authorization", bearer(userToken)))
+                .andReturn().getResponse().getContentAsString());
+        assertThat(back.at("/data")).isEqualTo(second.at("/data"));
+        assertThat(back.at("/meta/first").asBoolean()).isFalse();
+    }
+
+    @Test @Order(17)
+    void getAllOffers_keyset_rejectsMalformedCursor() throws Exception {
+        var res = mockMvc.perform(get(BASE_URL).param("after", "not-a-cursor")
+                        .header("Authorization", bearer(userToken)))
+                .andReturn();
+        assertThat(res.getResponse().getStatus()).isEqualTo(400);
+    }
+
+    @Test @Order(18)
+    void reprice_shouldWaitForInFlightOfferCreate_andPriceWithIt() throws Exception {
+        Product product = productRepository.save(Product.builder()
+                .name("RepriceRaceProduct")
+                .description("Reprice racing an offer create")
+                .price(BigDecimal.valueOf(20))
+                .discount(BigDecimal.ZERO)
+                .featured(false)
+                .soldCount(0L)
+                .active(true)
+                .category(productRepository.findById(testProductId).orElseThrow().getCategory())
+                .imageUrl("https://img/reprice_race.png")
+                .build());
+        OfferCreateRequest req = new OfferCreateRequest();
+        req.setProductId(product.getId());
+        req.setDiscount(BigDecimal.valueOf(5));
+        req.setStartDate(LocalDate.now().minusDays(1));
+        req.setEndDate(LocalDate.now().plusDays(1));
+
+        CountDownLatch created = new CountDownLatch(1);
+        CountDownLatch releaseCommit = new CountDownLatch(1);
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() ->
+                transactionTemplate.executeWithoutResult(status -> {
+                    offerService.create(req);
+                    created.countDown();
+                    try {
+                        releaseCommit.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+        assertTrue(created.await(10, TimeUnit.SECONDS));
+
+        CompletableFuture<Integer> reprice = CompletableFuture.supplyAsync(() ->
+                priceIndex.repriceProducts(List.of(product.getId()), LocalDate.now()));
+        Thread.sleep(300);
+        assertFalse(reprice.isDone(), "Reprice must wait for the uncommitted offer's product lock");
+
+        releaseCommit.countDown();
+        writer.get(10, TimeUnit.SECONDS);
+        reprice.get(10, TimeUnit.SECONDS);
+
+        assertThat(productRepository.findById(product.getId()).orElseThrow().getFinalPrice())
+                .isEqualByComparingTo("15.00");
+    }
 }
@@ -0,0 +1,251 @@
+package com.veggieshop.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.veggieshop.category.Category;
+import com.veggieshop.category.CategoryRepository;
+import com.veggieshop.order.Order;
+import com.veggieshop.order.OrderExporter;
+import com.veggieshop.order.OrderItem;
+import com.veggieshop.order.OrderRepository;
+import com.veggieshop.product.Product;
+import com.veggieshop.product.ProductRepository;
+import com.veggieshop.user.User;
+import com.veggieshop.user.UserRepository;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Shares the MockMvc tests' context: a context of its own would recreate the schema under them
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class OrderExportIntegrationTest {
+
+    // Far outside any other test's orders, so date filters only match this class's fixtures
+    private static final LocalDateTime FIXTURE_DAY = LocalDateTime.of(2002, 3, 1, 0, 0);
+
+    @Autowired OrderExporter orderExporter;
+    @Autowired OrderRepository orderRepository;
+    @Autowired ProductRepository productRepository;
+    @Autowired CategoryRepository categoryRepository;
+    @Autowired UserRepository userRepository;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired MockMvc mockMvc;
+
+    User user;
+    Product carrots;
+    Product quoted;
+    Long twoItems;
+    Long oneItem;
+    Long noItems;
+    Long nextMonth;
+    Long formulas;
+
+    @BeforeAll
+    void seed() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        user = userRepository.save(User.builder()
+                .name("Export User")
+                .email("export-" + suffix + "@veggie.com")
+                .password("irrelevant")
+                .role(User.Role.USER)
+                .enabled(true)
+                .build());
+        Category category = new Category();
+        category.setName("ExportCat-" + suffix);
+        category.setDescription("Export fixtures");
+        category = categoryRepository.save(category);
+        carrots = product("ExportCarrots-" + suffix, category);
+        quoted = product("Tomatoes, \"cherry\" " + suffix, category);
+
+        twoItems = order(Order.Status.PAID, FIXTURE_DAY.plusHours(1), carrots, quoted);
+        oneItem = order(Order.Status.SHIPPED, FIXTURE_DAY.plusHours(2), quoted);
+        noItems = order(Order.Status.PAID, FIXTURE_DAY.plusHours(3));
+        nextMonth = order(Order.Status.PAID, FIXTURE_DAY.plusMonths(1));
+        User attacker = userRepository.save(User.builder()
+                .name("=HYPERLINK(\"http://evil.example\",\"x\")")
+                .email("export-formula-" + suffix + "@veggie.com")
+                .password("irrelevant")
+                .role(User.Role.USER)
+                .enabled(true)
+                .build());
+        formulas = order(attacker, Order.Status.PAID, FIXTURE_DAY.plusMonths(2),
+                product("+cmd|' /C calc'!A0 " + suffix, category),
+                product("@SUM(1+1) " + suffix, category),
+                product("\t-2+3 " + suffix, category));
+        // Tiny fetches so an export spans several cursor round trips
+        ReflectionTestUtils.setField(orderExporter, "fetchSize", 2);
+    }
+
+    @AfterAll
+    void restore() {
+        ReflectionTestUtils.setField(orderExporter, "fetchSize", 1000);
+        orderRepository.deleteAllById(List.of(twoItems, oneItem, noItems, nextMonth, formulas));
+    }
+
+    @Test
+    void ndjson_shouldWriteOneOrderPerLine_withItems_oldestFirst() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        orderExporter.export(new OrderExporter.Filter(null, FIXTURE_DAY, FIXTURE_DAY.plusMonths(1)),
+                OrderExporter.Format.NDJSON, out);
+
+        List<JsonNode> lines = out.toString(StandardCharsets.UTF_8).lines().map(this::readTree).toList();
+        assertThat(lines).extracting(line -> line.get("id").asLong()).containsExactly(twoItems, oneItem, noItems);
+        JsonNode first = lines.get(0);
+        assertThat(first.get("userId").asLong()).isEqualTo(user.getId());
+        assertThat(first.get("userName").asText()).isEqualTo("Export User");
+        assertThat(first.get("status").asText()).isEqualTo("PAID");
+        assertThat(first.get("createdAt").asText()).isEqualTo("2002-03-01T01:00:00");
+        assertThat(first.get("items")).extracting(item -> item.get("productName").asText())
+                .containsExactly(carrots.getName(), quoted.getName());
+        assertThat(lines.get(2).get("items")).isEmpty();
+    }
+
+    @Test
+    void csv_shouldWriteOneLinePerItem_filteredByStatus_andQuoteText() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        orderExporter.export(new OrderExporter.Filter(Order.Status.PAID, FIXTURE_DAY, FIXTURE_DAY.plusMonths(1)),
+                OrderExporter.Format.CSV, out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).hasSize(4);
+        assertThat(lines.get(0)).startsWith("order_id,created_at,status,");
+        assertThat(lines.get(1)).startsWith(twoItems + ",2002-03-01T01:00:00,PAID," + user.getId() + ",Export User,");
+        assertThat(lines.get(2)).contains(",\"Tomatoes, \"\"cherry\"\" ");
+        assertThat(lines.get(3)).startsWith(noItems + ",").endsWith(",,,,");
+    }
+
+    @Test
+    void csv_shouldNeutraliseCellsThatStartLikeFormulas() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        orderExporter.export(new OrderExporter.Filter(null, FIXTURE_DAY.plusMonths(2), FIXTURE_DAY.plusMonths(3)),
+                OrderExporter.Format.CSV, out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).hasSize(4);
+        assertThat(lines.subList(1, 4)).allSatisfy(line ->
+                assertThat(line).contains(",\"'=HYPERLINK(\"\"http://evil.example\"\",\"\"x\"\")\","));
+        assertThat(lines.get(1)).contains(",\"'+cmd|' /C calc'!A0 ");
+        assertThat(lines.get(2)).contains(",\"'@SUM(1+1) ");
+        assertThat(lines.get(3)).contains(",\"'\t-2+3 ");
+    }
+
+    @Test
+    @WithMockUser(username = "jane@example.com", roles = {"ADMIN"})
+    void endpoint_shouldStreamGzippedAttachment_whenClientAcceptsGzip() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/orders/export")
+                        .param("format", "csv")
+                        .param("status", "shipped")
+                        .param("from", FIXTURE_DAY.toString())
+                        .param("to", FIXTURE_DAY.plusMonths(1).toString())
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult done = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"orders.csv\""))
+                .andReturn();
+
+        assertThat(MediaType.parseMediaType(done.getResponse().getContentType()).isCompatibleWith(MediaType.parseMediaType("text/csv")))
+                .isTrue();
+        byte[] body = new GZIPInputStream(new ByteArrayInputStream(done.getResponse().getContentAsByteArray())).readAllBytes();
+        List<String> lines = new String(body, StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(1)).startsWith(oneItem + ",");
+    }
+
+    @Test
+    @WithMockUser(username = "jane@example.com", roles = {"ADMIN"})
+    void endpoint_shouldRejectUnknownFormat() throws Exception {
+        mockMvc.perform(get("/api/orders/export").param("format", "xlsx"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "alice@example.com", roles = {"USER"})
+    void endpoint_shouldBeAdminOnly() throws Exception {
+        mockMvc.perform(get("/api/orders/export"))
+                .andExpect(status().isForbidden());
+    }
+
+    // ========== Helpers ==========
+
+    private Product product(String name, Category category) {
+        return productRepository.save(Product.builder()
+                .name(name)
+                .description("Export fixture")
+                .price(BigDecimal.valueOf(3))
+                .discount(BigDecimal.ZERO)
+                .featured(false)
+                .soldCount(0L)
+                .active(true)
+                .category(category)
+                .imageUrl("https://img/export.png")
+                .build());
+    }
+
+    private Long order(Order.Status status, LocalDateTime createdAt, Product... products) {
+        return order(user, status, createdAt, products);
+    }
+
+    private Long order(User owner, Order.Status status, LocalDateTime createdAt, Product... products) {
+        Order order = Order.builder()
+                .user(owner)
+                .totalPrice(BigDecimal.valueOf(3L * products.length))
+                .status(status)
+                .soldCountApplied(true)
+                .orderItems(new ArrayList<>())
+                .build();
+        for (Product product : products) {
+            order.getOrderItems().add(OrderItem.builder()
+                    .order(order)
+                    .product(product)
+                    .quantity(1)
+                    .price(BigDecimal.valueOf(3))
+                    .build());
+        }
+        Long id = orderRepository.save(order).getId();
+        // createdAt is set on persist and not updatable through JPA
+        jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE id = ?", createdAt, id);
+        return id;
+    }
+
+    private JsonNode readTree(String line) {
+        try {
+            return objectMapper.readTree(line);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
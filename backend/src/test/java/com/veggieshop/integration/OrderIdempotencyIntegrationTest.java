@@ -0,0 +1,201 @@
+package com.veggieshop.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.veggieshop.category.Category;
+import com.veggieshop.category.CategoryRepository;
+import com.veggieshop.exception.ResourceNotFoundException;
+import com.veggieshop.order.OrderDto;
+import com.veggieshop.order.OrderIdempotencyService;
+import com.veggieshop.order.OrderItemDto;
+import com.veggieshop.order.OrderRepository;
+import com.veggieshop.order.OrderService;
+import com.veggieshop.product.Product;
+import com.veggieshop.product.ProductRepository;
+import com.veggieshop.user.User;
+import com.veggieshop.user.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Shares the MockMvc tests' context: a context of its own would recreate the schema under them
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class OrderIdempotencyIntegrationTest {
+
+    @Autowired OrderIdempotencyService idempotencyService;
+    @Autowired OrderService orderService;
+    @Autowired OrderRepository orderRepository;
+    @Autowired ProductRepository productRepository;
+    @Autowired CategoryRepository categoryRepository;
+    @Autowired UserRepository userRepository;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired Clock clock;
+
+    User user;
+    Product product;
+
+    @BeforeAll
+    void seed() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        user = userRepository.save(User.builder()
+                .name("Idempotency User")
+                .email("idempotency-" + suffix + "@veggie.com")
+                .password("irrelevant")
+                .role(User.Role.USER)
+                .enabled(true)
+                .build());
+        Category category = new Category();
+        category.setName("IdempotencyCat-" + suffix);
+        category.setDescription("Idempotency fixtures");
+        category = categoryRepository.save(category);
+        product = productRepository.save(Product.builder()
+                .name("IdempotencyProduct-" + suffix)
+                .description("Idempotency fixture")
+                .price(BigDecimal.valueOf(4))
+                .discount(BigDecimal.ZERO)
+                .featured(false)
+                .soldCount(0L)
+                .active(true)
+                .category(category)
+                .imageUrl("https://img/idempotency.png")
+                .build());
+    }
+
+    @Test
+    void retry_shouldReplayFirstResponse_withoutCreatingAnotherOrder() {
+        String key = UUID.randomUUID().toString();
+        long before = ordersOfUser();
+
+        OrderIdempotencyService.Result first = idempotencyService.create(user.getId(), key, request(2));
+        OrderIdempotencyService.Result retry = idempotencyService.create(user.getId(), key, request(2));
+
+        assertThat(first.replayed()).isFalse();
+        assertThat(retry.replayed()).isTrue();
+        assertThat(retry.response().getId()).isEqualTo(first.response().getId());
+        assertThat(retry.response().getTotalPrice()).isEqualByComparingTo(first.response().getTotalPrice());
+        assertThat(ordersOfUser()).isEqualTo(before + 1);
+    }
+
+    @Test
+    void concurrentDuplicates_shouldWaitForFirst_andRunCheckoutOnce() throws Exception {
+        String key = UUID.randomUUID().toString();
+        long before = ordersOfUser();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<OrderIdempotencyService.Result>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return idempotencyService.create(user.getId(), key, request(1));
+            }));
+        }
+        start.countDown();
+
+        List<OrderIdempotencyService.Result> done = new ArrayList<>();
+        for (Future<OrderIdempotencyService.Result> result : results) {
+            done.add(result.get(30, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+
+        assertThat(done).extracting(r -> r.response().getId()).containsOnly(done.get(0).response().getId());
+        assertThat(done).filteredOn(r -> !r.replayed()).hasSize(1);
+        assertThat(ordersOfUser()).isEqualTo(before + 1);
+    }
+
+    @Test
+    void anotherNode_shouldReplayFromDatabase() {
+        String key = UUID.randomUUID().toString();
+        OrderIdempotencyService.Result first = idempotencyService.create(user.getId(), key, request(3));
+
+        // A second instance has its own, empty in-memory tier
+        OrderIdempotencyService otherNode = new OrderIdempotencyService(orderService, jdbcTemplate,
+                transactionTemplate, objectMapper, clock, new SimpleMeterRegistry(),
+                Duration.ofHours(24), Duration.ofMinutes(10), 100, Duration.ofSeconds(30));
+        OrderIdempotencyService.Result retry = otherNode.create(user.getId(), key, request(3));
+
+        assertThat(retry.replayed()).isTrue();
+        assertThat(retry.response().getId()).isEqualTo(first.response().getId());
+        assertThat(retry.response().getItems()).hasSize(1);
+    }
+
+    @Test
+    void keyReusedForDifferentOrder_shouldBeRejected() {
+        String key = UUID.randomUUID().toString();
+        idempotencyService.create(user.getId(), key, request(1));
+
+        assertThatThrownBy(() -> idempotencyService.create(user.getId(), key, request(4)))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY));
+    }
+
+    @Test
+    void failedCheckout_shouldNotConsumeTheKey() {
+        String key = UUID.randomUUID().toString();
+        OrderDto.OrderCreateRequest unknownProduct = request(1);
+        unknownProduct.getItems().get(0).setProductId(Long.MAX_VALUE);
+
+        assertThatThrownBy(() -> idempotencyService.create(user.getId(), key, unknownProduct))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM order_idempotency_keys WHERE user_id = ? AND idempotency_key = ?",
+                Integer.class, user.getId(), key)).isZero();
+
+        assertThat(idempotencyService.create(user.getId(), key, request(1)).replayed()).isFalse();
+    }
+
+    @Test
+    void expiredKey_shouldBeClaimedAgain() {
+        String key = UUID.randomUUID().toString();
+        OrderIdempotencyService.Result first = idempotencyService.create(user.getId(), key, request(1));
+        jdbcTemplate.update("UPDATE order_idempotency_keys SET expires_at = now() - interval '1 minute' "
+                + "WHERE user_id = ? AND idempotency_key = ?", user.getId(), key);
+
+        OrderIdempotencyService otherNode = new OrderIdempotencyService(orderService, jdbcTemplate,
+                transactionTemplate, objectMapper, clock, new SimpleMeterRegistry(),
+                Duration.ofHours(24), Duration.ofMinutes(10), 100, Duration.ofSeconds(30));
+        OrderIdempotencyService.Result again = otherNode.create(user.getId(), key, request(1));
+
+        assertThat(again.replayed()).isFalse();
+        assertThat(again.response().getId()).isNotEqualTo(first.response().getId());
+    }
+
+    // ========== Helpers ==========
+
+    private OrderDto.OrderCreateRequest request(int quantity) {
+        OrderItemDto.OrderItemCreateRequest item = new OrderItemDto.OrderItemCreateRequest();
+        item.setProductId(product.getId());
+        item.setQuantity(quantity);
+        OrderDto.OrderCreateRequest request = new OrderDto.OrderCreateRequest();
+        request.setItems(new ArrayList<>(List.of(item)));
+        return request;
+    }
+
+    private long ordersOfUser() {
+        return orderRepository.findByUserId(user.getId(), PageRequest.of(0, 1)).getTotalElements();
+    }
+}
@@ -405,4 +405,83 @@ class OrderIntegrationTest {
                 .andReturn();
         assertThat(res.getResponse().getStatus()).isEqualTo(403);
     }
+
+    @org.junit.jupiter.api.Order(24)
+    @Test
+    void getUserOrders_skipsCountByDefault_andCountsOnRequest() throws Exception {
+        var sliced = objectMapper.readTree(mockMvc.perform(get(BASE_URL + "/user/" + userId)
+                        .header("Authorization", bearer(userToken)))
+                .andReturn().getResponse().getContentAsString());
+        var counted = objectMapper.readTree(mockMvc.perform(get(BASE_URL + "/user/" + userId)
+                        .param("count", "true")
+                        .header("Authorization", bearer(userToken)))
+                .andReturn().getResponse().getContentAsString());
+
+        assertThat(sliced.at("/meta/totalElements").isMissingNode()).isTrue();
+        assertThat(sliced.at("/meta/hasNext").isBoolean()).isTrue();
+        assertThat(sliced.at("/data")).isEqualTo(counted.at("/data"));
+        assertThat(counted.at("/meta/totalElements").asLong()).isEqualTo(counted.at("/data").size());
+    }
+
+    @org.junit.jupiter.api.Order(25)
+    @Test
+    void getAllOrders_countFalse_pagesWithoutTotals() throws Exception {
+        var all = objectMapper.readTree(mockMvc.perform(get(BASE_URL)
+                        .param("size", "100")
+                        .header("Authorization", bearer(adminToken)))
+                .andReturn().getResponse().getContentAsString());
+        long total = all.at("/meta/totalElements").asLong();
+        Assumptions.assumeTrue(total >= 2);
+
+        var second = objectMapper.readTree(mockMvc.perform(get(BASE_URL)
+                        .param("count", "false").param("size", "1").param("page", "1")
+                        .header("Authorization", bearer(adminToken)))
+                .andReturn().getResponse().getContentAsString());
+
+        assertThat(second.at("/meta/totalElements").isMissingNode()).isTrue();
+        assertThat(second.at("/meta/page").asInt()).isEqualTo(1);
+        assertThat(second.at("/meta/hasNext").asBoolean()).isEqualTo(total > 2);
+        assertThat(second.at("/data/0")).isEqualTo(all.at("/data/1"));
+    }
+
+    @org.junit.jupiter.api.Order(26)
+    @Test
+    void createOrder_withIdempotencyKey_replaysFirstResponse() throws Exception {
+        OrderItemDto.OrderItemCreateRequest item = new OrderItemDto.OrderItemCreateRequest();
+        item.setProductId(testProductId);
+        item.setQuantity(1);
+        OrderCreateRequest req = new OrderCreateRequest();
+        req.setItems(List.of(item));
+        String key = java.util.UUID.randomUUID().toString();
+
+        var first = mockMvc.perform(post(BASE_URL)
+                        .header("Authorization", bearer(userToken))
+                        .header("Idempotency-Key", key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json(req)))
+                .andReturn().getResponse();
+        var retry = mockMvc.perform(post(BASE_URL)
+                        .header("Authorization", bearer(userToken))
+                        .header("Idempotency-Key", key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json(req)))
+                .andReturn().getResponse();
+
+        assertThat(first.getStatus()).isEqualTo(201);
+        assertThat(first.getHeader("Idempotent-Replayed")).isEqualTo("false");
+        assertThat(retry.getStatus()).isEqualTo(201);
+        assertThat(retry.getHeader("Idempotent-Replayed")).isEqualTo("true");
+        assertThat(objectMapper.readTree(retry.getContentAsString()).at("/data/id").asLong())
+                .isEqualTo(objectMapper.readTree(first.getContentAsString()).at("/data/id").asLong());
+
+        // Same key, different basket
+        item.setQuantity(5);
+        var reused = mockMvc.perform(post(BASE_URL)
+                        .header("Authorization", bearer(userToken))
+                        .header("Idempotency-Key", key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json(req)))
+                .andReturn().getResponse();
+        assertThat(reused.getStatus()).isEqualTo(422);
+    }
 }
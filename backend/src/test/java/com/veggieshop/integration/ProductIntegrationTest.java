@@ -1,9 +1,12 @@
 package com.veggieshop.integration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.veggieshop.order.OrderDto.OrderCreateRequest;
+import com.veggieshop.order.OrderItemDto.OrderItemCreateRequest;
 import com.veggieshop.product.Product;
 import com.veggieshop.product.ProductDto.*;
 import com.veggieshop.product.ProductRepository;
+import com.veggieshop.product.SoldCountAccumulator;
 import com.veggieshop.category.Category;
 import com.veggieshop.category.CategoryRepository;
 import com.veggieshop.user.UserRepository;
@@ -18,6 +21,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -35,6 +39,7 @@ class ProductIntegrationTest {
     @Autowired private UserRepository userRepository;
     @Autowired private PasswordEncoder passwordEncoder;
     @Autowired private ObjectMapper objectMapper;
+    @Autowired private SoldCountAccumulator soldCountAccumulator;
 
     private static final String BASE_URL = "/api/products";
     private static final String ADMIN_EMAIL = "jane@example.com";
@@ -453,7 +458,63 @@ class ProductIntegrationTest {
                 .isEqualTo(403);
     }
 
-//    @Test @Order(23)
+    @Test @Order(23)
+    void updateProduct_keepsSoldCountFlushedInBetween() throws Exception {
+        Product prod = productRepository.save(Product.builder()
+                .name("Sold Count Product")
+                .description("Sold count test product")
+                .price(BigDecimal.valueOf(4))
+                .discount(BigDecimal.ZERO)
+                .featured(false)
+                .soldCount(7L)
+                .active(true)
+                .category(categoryRepository.findById(testCategoryId).orElseThrow())
+                .imageUrl("https://test.img/sold.png")
+                .build());
+        // Loaded before the order is flushed, as an admin edit racing the accumulator would be
+        Product stale = productRepository.findById(prod.getId()).orElseThrow();
+
+        var item = new OrderItemCreateRequest();
+        item.setProductId(prod.getId());
+        item.setQuantity(3);
+        var order = new OrderCreateRequest();
+        order.setItems(List.of(item));
+        var res = mockMvc.perform(post("/api/orders")
+                        .header("Authorization", bearer(userToken))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json(order)))
+                .andReturn();
+        assertThat(res.getResponse().getStatus()).isEqualTo(201);
+        soldCountAccumulator.flush();
+        assertThat(productRepository.findById(prod.getId()).orElseThrow().getSoldCount()).isEqualTo(10L);
+
+        stale.setDescription("edited while the counter moved");
+        productRepository.save(stale);
+
+        var req = new ProductUpdateRequest();
+        req.setName("Sold Count Product");
+        req.setDescription("edited through the API");
+        req.setPrice(BigDecimal.valueOf(5));
+        req.setDiscount(BigDecimal.ZERO);
+        req.setFeatured(false);
+        req.setCategoryId(testCategoryId);
+        req.setImageUrl("https://test.img/sold.png");
+        res = mockMvc.perform(put(BASE_URL + "/" + prod.getId())
+                        .header("Authorization", bearer(adminToken))
+                        .header("User-Agent", TEST_USER_AGENT)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json(req)))
+                .andReturn();
+        assertThat(res.getResponse().getStatus()).isEqualTo(200);
+
+        Product reloaded = productRepository.findById(prod.getId()).orElseThrow();
+        assertThat(reloaded.getDescription()).isEqualTo("edited through the API");
+        assertThat(reloaded.getSoldCount())
+                .withFailMessage("Product updates must not overwrite flushed sold counts")
+                .isEqualTo(10L);
+    }
+
+//    @Test @Order(24)
 //    void deleteProduct_softDeleteWhenHasOrders() throws Exception {
 //        // لن يعمل إلا إذا كان عندك علاقات وربط فعلي بجدول order_item
 //        Product prodWithOrder = ...; // جهز منتج مربوط بـ order item
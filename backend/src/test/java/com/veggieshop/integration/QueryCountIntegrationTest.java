@@ -0,0 +1,196 @@
+package com.veggieshop.integration;
+
+import com.veggieshop.category.Category;
+import com.veggieshop.category.CategoryRepository;
+import com.veggieshop.order.Order;
+import com.veggieshop.order.OrderDto;
+import com.veggieshop.order.OrderItem;
+import com.veggieshop.order.OrderRepository;
+import com.veggieshop.order.OrderService;
+import com.veggieshop.product.Product;
+import com.veggieshop.product.ProductDto;
+import com.veggieshop.product.ProductRepository;
+import com.veggieshop.product.ProductServiceImpl;
+import com.veggieshop.user.User;
+import com.veggieshop.user.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Guards the read paths of the order and product services against N+1 lazy loading: each one must
+ * build its DTOs in a fixed number of SQL statements, whatever the page size.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryCountIntegrationTest {
+
+    private static final int ORDERS = 20;
+    private static final int ITEMS_PER_ORDER = 3;
+
+    @Autowired OrderService orderService;
+    @Autowired ProductServiceImpl productService;
+    @Autowired OrderRepository orderRepository;
+    @Autowired ProductRepository productRepository;
+    @Autowired CategoryRepository categoryRepository;
+    @Autowired UserRepository userRepository;
+    @Autowired EntityManagerFactory entityManagerFactory;
+
+    Statistics statistics;
+    User user;
+    Category category;
+    List<Product> products = new ArrayList<>();
+    List<Order> orders = new ArrayList<>();
+
+    @BeforeAll
+    void seed() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+
+        user = userRepository.save(User.builder()
+                .name("Query Count User")
+                .email("query-count-" + suffix + "@veggie.com")
+                .password("irrelevant")
+                .role(User.Role.USER)
+                .enabled(true)
+                .build());
+        category = new Category();
+        category.setName("QueryCountCat-" + suffix);
+        category.setDescription("Statement count fixtures");
+        category = categoryRepository.save(category);
+
+        for (int i = 0; i < 6; i++) {
+            products.add(productRepository.save(Product.builder()
+                    .name("QueryCountProduct-" + suffix + "-" + i)
+                    .description("Statement count fixture")
+                    .price(BigDecimal.valueOf(10 + i))
+                    .discount(BigDecimal.ZERO)
+                    .featured(i % 2 == 0)
+                    .soldCount(0L)
+                    .active(true)
+                    .category(category)
+                    .imageUrl("https://img/query_count.png")
+                    .build()));
+        }
+
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = Order.builder()
+                    .user(user)
+                    .status(Order.Status.PENDING)
+                    .totalPrice(BigDecimal.valueOf(30))
+                    .build();
+            List<OrderItem> items = new ArrayList<>();
+            for (int j = 0; j < ITEMS_PER_ORDER; j++) {
+                items.add(OrderItem.builder()
+                        .order(order)
+                        .product(products.get((i + j) % products.size()))
+                        .quantity(1)
+                        .price(BigDecimal.TEN)
+                        .build());
+            }
+            order.setOrderItems(items);
+            orders.add(orderRepository.save(order));
+        }
+    }
+
+    @AfterAll
+    void cleanup() {
+        orderRepository.deleteAll(orders);
+        productRepository.deleteAll(products);
+        categoryRepository.delete(category);
+        userRepository.delete(user);
+    }
+
+    // ========== Orders ==========
+
+    @Test
+    void orderById_shouldLoadInOneStatement() {
+        OrderDto.OrderResponse order = counted(1, () -> orderService.findById(orders.get(0).getId()));
+
+        assertThat(order.getUserName()).isEqualTo("Query Count User");
+        assertThat(order.getItems()).hasSize(ITEMS_PER_ORDER).allMatch(i -> i.getProductName() != null);
+    }
+
+    @Test
+    void ordersByUser_shouldLoadPageInFourStatements() {
+        // count + orders joined with users + items of the page + their products
+        Page<OrderDto.OrderResponse> page = counted(4,
+                () -> orderService.findByUser(user.getId(), PageRequest.of(0, ORDERS)));
+
+        assertThat(page.getContent()).hasSize(ORDERS)
+                .allMatch(o -> o.getItems().size() == ITEMS_PER_ORDER);
+    }
+
+    @Test
+    void allOrders_shouldNotScaleWithPageSize() {
+        // Other tests' orders share the table, so only the upper bound is fixed
+        statistics.clear();
+        Page<OrderDto.OrderResponse> page = orderService.findAll(PageRequest.of(0, ORDERS));
+
+        assertThat(page.getContent()).isNotEmpty();
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    void ordersByUser_keyset_shouldLoadWindowInThreeStatements() {
+        // no count query for a window
+        Window<OrderDto.OrderResponse> window = counted(3, () -> orderService.findByUser(user.getId(),
+                ScrollPosition.keyset(), PageRequest.of(0, 10, Sort.by("createdAt", "id"))));
+
+        assertThat(window.getContent()).hasSize(10);
+    }
+
+    // ========== Products ==========
+
+    @Test
+    void productById_shouldLoadInOneStatement() {
+        ProductDto.ProductResponse product = counted(1, () -> productService.findById(products.get(0).getId()));
+
+        assertThat(product.getCategoryName()).isEqualTo(category.getName());
+    }
+
+    @Test
+    void productsByCategory_shouldLoadPageInThreeStatements() {
+        // category exists check + count + products joined with categories (a short page skips the count)
+        Page<ProductDto.ProductResponse> page = counted(3,
+                () -> productService.findByCategory(category.getId(), PageRequest.of(0, 4)));
+
+        assertThat(page.getContent()).hasSize(4)
+                .allMatch(p -> category.getName().equals(p.getCategoryName()));
+    }
+
+    @Test
+    void allProducts_shouldLoadPageInTwoStatements() {
+        // count + products joined with categories
+        Page<ProductDto.ProductResponse> page = counted(2, () -> productService.findAll(PageRequest.of(0, 4)));
+
+        assertThat(page.getContent()).isNotEmpty().allMatch(p -> p.getCategoryName() != null);
+    }
+
+    // ========== Helpers ==========
+
+    private <T> T counted(long expectedStatements, Supplier<T> call) {
+        statistics.clear();
+        T result = call.get();
+        assertThat(statistics.getPrepareStatementCount())
+                .as("SQL statements")
+                .isEqualTo(expectedStatements);
+        return result;
+    }
+}
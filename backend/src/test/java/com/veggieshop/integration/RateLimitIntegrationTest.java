@@ -0,0 +1,55 @@
+package com.veggieshop.integration;
+
+import com.veggieshop.security.RateLimiter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class RateLimitIntegrationTest {
+
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @Test
+    void sharedLimit_shouldHoldAcrossNodes() {
+        // Two limiters stand in for two replicas sharing the database
+        RateLimiter nodeA = new RateLimiter(jdbcTemplate, true, 1000, Duration.ofMinutes(5));
+        RateLimiter nodeB = new RateLimiter(jdbcTemplate, true, 1000, Duration.ofMinutes(5));
+        RateLimiter.Limit limit = new RateLimiter.Limit(4, Duration.ofMinutes(1));
+        String key = "ip:" + UUID.randomUUID();
+
+        assertThat(nodeA.tryAcquire(key, limit)).isZero();
+        assertThat(nodeB.tryAcquire(key, limit)).isZero();
+        assertThat(nodeA.tryAcquire(key, limit)).isZero();
+        assertThat(nodeB.tryAcquire(key, limit)).isZero();
+
+        // Each node has used only half of its local bucket, but the shared one is empty
+        long wait = nodeA.tryAcquire(key, limit);
+        assertThat(wait).isPositive().isLessThanOrEqualTo(15_000L);
+        assertThat(nodeB.tryAcquire(key, limit)).isPositive();
+    }
+
+    @Test
+    void cleanupShared_shouldDropRefilledBuckets() {
+        RateLimiter node = new RateLimiter(jdbcTemplate, true, 1000, Duration.ofMinutes(5));
+        String key = "ip:" + UUID.randomUUID();
+        node.tryAcquire(key, new RateLimiter.Limit(10, Duration.ofMillis(10)));
+        assertThat(count(key)).isEqualTo(1);
+
+        jdbcTemplate.update("UPDATE rate_limit_buckets SET tat = tat - 60000 WHERE bucket_key = ?", key);
+        node.cleanupShared();
+
+        assertThat(count(key)).isZero();
+    }
+
+    private int count(String key) {
+        return jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM rate_limit_buckets WHERE bucket_key = ?", Integer.class, key);
+    }
+}
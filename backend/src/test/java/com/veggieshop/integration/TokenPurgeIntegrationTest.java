@@ -0,0 +1,142 @@
+package com.veggieshop.integration;
+
+import com.veggieshop.auth.ExpiredTokenPurgeJob;
+import com.veggieshop.auth.PasswordResetToken;
+import com.veggieshop.auth.PasswordResetTokenRepository;
+import com.veggieshop.auth.RefreshToken;
+import com.veggieshop.auth.RefreshTokenRepository;
+import com.veggieshop.user.User;
+import com.veggieshop.user.UserRepository;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TokenPurgeIntegrationTest {
+
+    @Autowired ExpiredTokenPurgeJob purgeJob;
+    @Autowired RefreshTokenRepository refreshTokenRepository;
+    @Autowired PasswordResetTokenRepository passwordResetTokenRepository;
+    @Autowired UserRepository userRepository;
+    @Autowired DataSource dataSource;
+
+    User user;
+
+    @BeforeAll
+    void setup() {
+        user = userRepository.save(User.builder()
+                .name("Purge User")
+                .email("purge-user@veggie.com")
+                .password("irrelevant")
+                .role(User.Role.USER)
+                .enabled(true)
+                .build());
+        // Small chunks so a run needs several of them
+        ReflectionTestUtils.setField(purgeJob, "batchSize", 2);
+        ReflectionTestUtils.setField(purgeJob, "pause", Duration.ofMillis(1));
+    }
+
+    @AfterAll
+    void restore() {
+        ReflectionTestUtils.setField(purgeJob, "batchSize", 1000);
+        ReflectionTestUtils.setField(purgeJob, "pause", Duration.ofMillis(200));
+    }
+
+    @BeforeEach
+    void seed() {
+        Instant now = Instant.now();
+        for (int i = 0; i < 3; i++) {
+            refreshToken(now.minusSeconds(60), false);
+        }
+        refreshToken(now.plusSeconds(3600), true);
+        refreshToken(now.plusSeconds(3600), true);
+        refreshToken(now.plusSeconds(3600), false);
+        refreshToken(now.plusSeconds(3600), false);
+
+        resetToken(now.plusSeconds(3600), true);
+        resetToken(now.minusSeconds(60), false);
+        resetToken(now.plusSeconds(3600), false);
+    }
+
+    @AfterEach
+    void cleanup() {
+        refreshTokenRepository.deleteAll(refreshTokenRepository.findByUser(user));
+        passwordResetTokenRepository.deleteAll(passwordResetTokenRepository.findAll().stream()
+                .filter(t -> t.getUser().getId().equals(user.getId()))
+                .toList());
+    }
+
+    @Test
+    void purge_shouldDeleteDeadRowsInChunks_andKeepLiveOnes() {
+        Map<String, Integer> purged = purgeJob.purge();
+
+        assertThat(purged.get("refresh_token")).isGreaterThanOrEqualTo(5);
+        assertThat(purged.get("password_reset_tokens")).isGreaterThanOrEqualTo(2);
+        assertThat(refreshTokenRepository.findByUser(user))
+                .hasSize(2)
+                .allMatch(t -> !t.isRevoked() && t.getExpiryDate().isAfter(Instant.now()));
+        assertThat(passwordResetTokenRepository.findByUserAndUsedFalseAndExpiryDateAfter(user, Instant.now()))
+                .hasSize(1);
+        assertThat(passwordResetTokenRepository.findAll().stream()
+                .filter(t -> t.getUser().getId().equals(user.getId()))).hasSize(1);
+    }
+
+    @Test
+    void purge_shouldSkip_whileAnotherNodeHoldsTheLock() throws Exception {
+        try (Connection otherNode = dataSource.getConnection()) {
+            assertThat(advisoryLock(otherNode, "pg_try_advisory_lock")).isTrue();
+            try {
+                assertThat(purgeJob.purge()).isEmpty();
+                assertThat(refreshTokenRepository.findByUser(user)).hasSize(7);
+            } finally {
+                advisoryLock(otherNode, "pg_advisory_unlock");
+            }
+        }
+
+        assertThat(purgeJob.purge()).isNotEmpty();
+        assertThat(refreshTokenRepository.findByUser(user)).hasSize(2);
+    }
+
+    // ========== Helpers ==========
+
+    private void refreshToken(Instant expiry, boolean revoked) {
+        refreshTokenRepository.save(RefreshToken.builder()
+                .tokenHash(RefreshToken.hash(UUID.randomUUID().toString()))
+                .user(user)
+                .deviceInfo("JUnit")
+                .expiryDate(expiry)
+                .revoked(revoked)
+                .build());
+    }
+
+    private void resetToken(Instant expiry, boolean used) {
+        passwordResetTokenRepository.save(PasswordResetToken.builder()
+                .token(UUID.randomUUID().toString())
+                .user(user)
+                .expiryDate(expiry)
+                .used(used)
+                .build());
+    }
+
+    private static boolean advisoryLock(Connection connection, String function) throws Exception {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT " + function + "(?)")) {
+            statement.setLong(1, ExpiredTokenPurgeJob.LOCK_KEY);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.veggieshop.integration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.veggieshop.cache.CacheInvalidationEvent;
+import com.veggieshop.security.JwtUtil;
+import com.veggieshop.security.TokenVersionRegistry;
 import com.veggieshop.user.User;
 import com.veggieshop.user.UserDto.*;
 import com.veggieshop.user.UserRepository;
@@ -14,10 +17,12 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.time.Instant;
+import java.util.UUID;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @Slf4j
 @SpringBootTest
@@ -29,6 +34,8 @@ class UserIntegrationTest {
     @Autowired private UserRepository userRepository;
     @Autowired private ObjectMapper objectMapper;
     @Autowired private PasswordEncoder passwordEncoder;
+    @Autowired private JwtUtil jwtUtil;
+    @Autowired private TokenVersionRegistry tokenVersionRegistry;
 
     private static final String BASE_URL = "/api/users";
     private static final String TEST_USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/138.0.0.0 Safari/537.36";
@@ -408,4 +415,26 @@ class UserIntegrationTest {
         assertThat(res.getResponse().getStatus()).isEqualTo(400);
         log.info("Validation error on change role: {}", res.getResponse().getContentAsString());
     }
+
+    @Test @Order(20)
+    void deleteUser_keepsTokensRevoked_afterFullReload() throws Exception {
+        log.info("Test: Deleted user's access token stays rejected after the registry reloads");
+        User doomed = userRepository.save(User.builder()
+                .name("Doomed User")
+                .email("doomed-" + UUID.randomUUID().toString().substring(0, 8) + "@example.com")
+                .password(passwordEncoder.encode("password"))
+                .role(User.Role.USER)
+                .build());
+        String doomedToken = "Bearer " + jwtUtil.generateAccessToken(doomed);
+        mockMvc.perform(get(BASE_URL + "/me").header("Authorization", doomedToken))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(delete(BASE_URL + "/" + doomed.getId()).header("Authorization", bearerToken()))
+                .andExpect(status().isNoContent());
+        // Routine on gaps, reconnects and reprices: rebuilds the registry from the database
+        tokenVersionRegistry.onInvalidation(CacheInvalidationEvent.all());
+
+        mockMvc.perform(get(BASE_URL + "/me").header("Authorization", doomedToken))
+                .andExpect(status().isUnauthorized());
+    }
 }
@@ -0,0 +1,92 @@
+package com.veggieshop.security;
+
+import com.veggieshop.user.User;
+import com.veggieshop.user.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class CurrentUserServiceTest {
+
+    @Mock private UserRepository userRepository;
+
+    private CurrentUserService currentUserService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        currentUserService = new CurrentUserService(userRepository);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    @DisplayName("Should answer id and role from the principal without a query")
+    void testIdAndRoleFromPrincipal() {
+        authenticate(User.builder().id(7L).email("a@b.com").role(User.Role.ADMIN).build());
+
+        assertThat(currentUserService.getCurrentUserId()).isEqualTo(7L);
+        assertThat(currentUserService.getCurrentRole()).isEqualTo(User.Role.ADMIN);
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    @DisplayName("Should load the full user once per request")
+    void testUserMemoizedPerRequest() {
+        authenticate(User.builder().id(7L).email("a@b.com").role(User.Role.USER).build());
+        User stored = User.builder().id(7L).email("a@b.com").name("Alice").password("hash").role(User.Role.USER).build();
+        when(userRepository.findById(7L)).thenReturn(Optional.of(stored));
+
+        assertThat(currentUserService.getCurrentUser()).isSameAs(stored);
+        assertThat(currentUserService.getCurrentUser()).isSameAs(stored);
+        verify(userRepository, times(1)).findById(7L);
+
+        // A new request loads it again
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        currentUserService.getCurrentUser();
+        verify(userRepository, times(2)).findById(7L);
+    }
+
+    @Test
+    @DisplayName("Should reuse the entity the filter already loaded in stateful mode")
+    void testLoadedPrincipalReused() {
+        User loaded = User.builder().id(7L).email("a@b.com").password("hash").role(User.Role.USER).build();
+        authenticate(loaded);
+
+        assertThat(currentUserService.getCurrentUser()).isSameAs(loaded);
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    @DisplayName("Should fail when nobody is authenticated")
+    void testNoAuthentication() {
+        assertThatThrownBy(() -> currentUserService.getCurrentUserId())
+                .isInstanceOf(AuthenticationCredentialsNotFoundException.class);
+    }
+
+    private static void authenticate(User user) {
+        CustomUserDetails principal = new CustomUserDetails(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
@@ -1,7 +1,10 @@
 package com.veggieshop.security;
 
+import com.veggieshop.user.User;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -14,21 +17,23 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
 
 import java.io.IOException;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
 class JwtAuthFilterTest {
 
-    @Mock private JwtUtil jwtUtil;
+    @Mock private VerifiedTokenCache verifiedTokenCache;
     @Mock private UserDetailsService userDetailsService;
+    @Mock private TokenVersionRegistry tokenVersionRegistry;
     @Mock private HttpServletRequest request;
     @Mock private HttpServletResponse response;
     @Mock private FilterChain filterChain;
     @Mock private UserDetails userDetails;
 
-    @InjectMocks
     private JwtAuthFilter jwtAuthFilter;
 
     private static final String AUTH_HEADER = "Bearer valid.jwt.token";
@@ -39,25 +44,111 @@ class JwtAuthFilterTest {
     void setUp() {
         MockitoAnnotations.openMocks(this);
         SecurityContextHolder.clearContext();
+        jwtAuthFilter = new JwtAuthFilter(verifiedTokenCache, userDetailsService, tokenVersionRegistry, true, true);
+    }
+
+    private static Claims userClaims(long version) {
+        Claims claims = Jwts.claims().setSubject(USERNAME);
+        claims.put(JwtUtil.CLAIM_USER_ID, 7);
+        claims.put(JwtUtil.CLAIM_ROLE, "ADMIN");
+        claims.put(JwtUtil.CLAIM_TOKEN_VERSION, version);
+        return claims;
     }
 
     @Test
-    @DisplayName("Should authenticate user when JWT is valid")
+    @DisplayName("Should authenticate from the token's claims without loading the user")
     void testValidJwtAuthenticatesUser() throws ServletException, IOException {
         when(request.getHeader("Authorization")).thenReturn(AUTH_HEADER);
-        when(jwtUtil.getUsernameFromToken(JWT_TOKEN)).thenReturn(USERNAME);
+        when(verifiedTokenCache.verify(JWT_TOKEN)).thenReturn(userClaims(2));
+        when(tokenVersionRegistry.isCurrent(7L, 2L)).thenReturn(true);
+
+        jwtAuthFilter.doFilterInternal(request, response, filterChain);
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication).isNotNull();
+        assertThat(authentication.isAuthenticated()).isTrue();
+        assertThat(authentication.getName()).isEqualTo(USERNAME);
+        assertThat(authentication.getAuthorities()).extracting(Object::toString).containsExactly("ROLE_ADMIN");
+        assertThat(((CustomUserDetails) authentication.getPrincipal()).getId()).isEqualTo(7L);
+
+        verify(verifiedTokenCache, times(1)).verify(JWT_TOKEN);
+        verifyNoInteractions(userDetailsService);
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    @DisplayName("Should save the principal for the request's async and error dispatches")
+    void testContextSavedForLaterDispatches() throws ServletException, IOException {
+        when(request.getHeader("Authorization")).thenReturn(AUTH_HEADER);
+        when(verifiedTokenCache.verify(JWT_TOKEN)).thenReturn(userClaims(2));
+        when(tokenVersionRegistry.isCurrent(7L, 2L)).thenReturn(true);
+
+        jwtAuthFilter.doFilterInternal(request, response, filterChain);
+
+        verify(request).setAttribute(RequestAttributeSecurityContextRepository.DEFAULT_REQUEST_ATTR_NAME,
+                SecurityContextHolder.getContext());
+    }
+
+    @Test
+    @DisplayName("Should NOT authenticate when the token version was revoked")
+    void testRevokedTokenVersion() throws ServletException, IOException {
+        when(request.getHeader("Authorization")).thenReturn(AUTH_HEADER);
+        when(verifiedTokenCache.verify(JWT_TOKEN)).thenReturn(userClaims(1));
+        when(tokenVersionRegistry.isCurrent(7L, 1L)).thenReturn(false);
+
+        jwtAuthFilter.doFilterInternal(request, response, filterChain);
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verifyNoInteractions(userDetailsService);
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    @DisplayName("Should load the user for tokens issued without user claims")
+    void testLegacyTokenFallsBackToUserLookup() throws ServletException, IOException {
+        when(request.getHeader("Authorization")).thenReturn(AUTH_HEADER);
+        when(verifiedTokenCache.verify(JWT_TOKEN)).thenReturn(Jwts.claims().setSubject(USERNAME));
         when(userDetailsService.loadUserByUsername(USERNAME)).thenReturn(userDetails);
-        when(jwtUtil.validateToken(JWT_TOKEN, userDetails)).thenReturn(true);
         when(userDetails.getAuthorities()).thenReturn(java.util.Collections.emptyList());
         when(userDetails.getUsername()).thenReturn(USERNAME);
+        when(userDetails.isEnabled()).thenReturn(true);
 
         jwtAuthFilter.doFilterInternal(request, response, filterChain);
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        assert authentication != null;
-        assert authentication.isAuthenticated();
-        assert USERNAME.equals(authentication.getName());
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getName()).isEqualTo(USERNAME);
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    @DisplayName("Should compare the stored token version when stateless mode is off")
+    void testStatefulModeChecksStoredVersion() throws ServletException, IOException {
+        jwtAuthFilter = new JwtAuthFilter(verifiedTokenCache, userDetailsService, tokenVersionRegistry, false, true);
+        User stored = User.builder().id(7L).email(USERNAME).role(User.Role.ADMIN).tokenVersion(3).build();
+        when(request.getHeader("Authorization")).thenReturn(AUTH_HEADER);
+        when(verifiedTokenCache.verify(JWT_TOKEN)).thenReturn(userClaims(2));
+        when(tokenVersionRegistry.isCurrent(7L, 2L)).thenReturn(true);
+        when(userDetailsService.loadUserByUsername(USERNAME)).thenReturn(new CustomUserDetails(stored));
+
+        jwtAuthFilter.doFilterInternal(request, response, filterChain);
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    @DisplayName("Should load the user, and reject a disabled one, when cache invalidation is off")
+    void testFailsClosedWithoutInvalidationBus() throws ServletException, IOException {
+        jwtAuthFilter = new JwtAuthFilter(verifiedTokenCache, userDetailsService, tokenVersionRegistry, true, false);
+        User stored = User.builder().id(7L).email(USERNAME).role(User.Role.ADMIN).tokenVersion(2).enabled(false).build();
+        when(request.getHeader("Authorization")).thenReturn(AUTH_HEADER);
+        when(verifiedTokenCache.verify(JWT_TOKEN)).thenReturn(userClaims(2));
+        when(tokenVersionRegistry.isCurrent(7L, 2L)).thenReturn(true);
+        when(userDetailsService.loadUserByUsername(USERNAME)).thenReturn(new CustomUserDetails(stored));
+
+        jwtAuthFilter.doFilterInternal(request, response, filterChain);
 
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verify(userDetailsService).loadUserByUsername(USERNAME);
         verify(filterChain).doFilter(request, response);
     }
 
@@ -68,20 +159,20 @@ class JwtAuthFilterTest {
 
         jwtAuthFilter.doFilterInternal(request, response, filterChain);
 
-        assert SecurityContextHolder.getContext().getAuthentication() == null;
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
         verify(filterChain).doFilter(request, response);
-        verifyNoInteractions(jwtUtil, userDetailsService);
+        verifyNoInteractions(verifiedTokenCache, userDetailsService);
     }
 
     @Test
     @DisplayName("Should NOT authenticate when token is invalid")
     void testInvalidToken() throws ServletException, IOException {
         when(request.getHeader("Authorization")).thenReturn(AUTH_HEADER);
-        when(jwtUtil.getUsernameFromToken(JWT_TOKEN)).thenThrow(new JwtException("Invalid token"));
+        when(verifiedTokenCache.verify(JWT_TOKEN)).thenThrow(new JwtException("Invalid token"));
 
         jwtAuthFilter.doFilterInternal(request, response, filterChain);
 
-        assert SecurityContextHolder.getContext().getAuthentication() == null;
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
         verify(filterChain).doFilter(request, response);
         verify(userDetailsService, never()).loadUserByUsername(anyString());
     }
@@ -90,29 +181,15 @@ class JwtAuthFilterTest {
     @DisplayName("Should NOT authenticate when token is expired")
     void testExpiredToken() throws ServletException, IOException {
         when(request.getHeader("Authorization")).thenReturn(AUTH_HEADER);
-        when(jwtUtil.getUsernameFromToken(JWT_TOKEN)).thenThrow(new ExpiredJwtException(null, null, "Expired"));
+        when(verifiedTokenCache.verify(JWT_TOKEN)).thenThrow(new ExpiredJwtException(null, null, "Expired"));
 
         jwtAuthFilter.doFilterInternal(request, response, filterChain);
 
-        assert SecurityContextHolder.getContext().getAuthentication() == null;
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
         verify(filterChain).doFilter(request, response);
         verify(userDetailsService, never()).loadUserByUsername(anyString());
     }
 
-    @Test
-    @DisplayName("Should NOT authenticate when token validation fails")
-    void testTokenValidationFails() throws ServletException, IOException {
-        when(request.getHeader("Authorization")).thenReturn(AUTH_HEADER);
-        when(jwtUtil.getUsernameFromToken(JWT_TOKEN)).thenReturn(USERNAME);
-        when(userDetailsService.loadUserByUsername(USERNAME)).thenReturn(userDetails);
-        when(jwtUtil.validateToken(JWT_TOKEN, userDetails)).thenReturn(false);
-
-        jwtAuthFilter.doFilterInternal(request, response, filterChain);
-
-        assert SecurityContextHolder.getContext().getAuthentication() == null;
-        verify(filterChain).doFilter(request, response);
-    }
-
     @Test
     @DisplayName("Should skip if already authenticated")
     void testAlreadyAuthenticated() throws ServletException, IOException {
@@ -124,8 +201,8 @@ class JwtAuthFilterTest {
 
         jwtAuthFilter.doFilterInternal(request, response, filterChain);
 
-        // Should not call userDetailsService.loadUserByUsername at all
-        verify(userDetailsService, never()).loadUserByUsername(anyString());
+        // Should not even parse the token
+        verifyNoInteractions(verifiedTokenCache, userDetailsService);
         verify(filterChain).doFilter(request, response);
     }
 }
@@ -1,5 +1,7 @@
 package com.veggieshop.security;
 
+import com.veggieshop.user.User;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
@@ -14,6 +16,7 @@ import java.lang.reflect.Field;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 import java.util.Date;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.*;
 
@@ -30,15 +33,7 @@ class JwtUtilTest {
 
     @BeforeEach
     void setUp() throws Exception {
-        jwtUtil = new JwtUtil();
-        // Inject secret and expiration via reflection
-        Field secretField = JwtUtil.class.getDeclaredField("jwtSecret");
-        secretField.setAccessible(true);
-        secretField.set(jwtUtil, SECRET);
-
-        Field expField = JwtUtil.class.getDeclaredField("jwtExpirationMs");
-        expField.setAccessible(true);
-        expField.set(jwtUtil, EXPIRATION_MS);
+        jwtUtil = new JwtUtil(SECRET, EXPIRATION_MS, "", List.of());
 
         org.mockito.Mockito.when(userDetails.getUsername()).thenReturn(username);
     }
@@ -116,4 +111,70 @@ class JwtUtilTest {
         assertThatThrownBy(() -> jwtUtil.getUsernameFromToken(token))
                 .isInstanceOf(ExpiredJwtException.class);
     }
+
+    @Test
+    @DisplayName("Should embed user id, role and token version in user tokens")
+    void testGenerateTokenForUserCarriesClaims() {
+        User user = User.builder().id(42L).email(username).role(User.Role.ADMIN).tokenVersion(3).build();
+
+        String token = jwtUtil.generateAccessToken(user);
+        Claims claims = jwtUtil.parseClaims(token);
+
+        assertThat(claims.getSubject()).isEqualTo(username);
+        assertThat(claims.get(JwtUtil.CLAIM_USER_ID, Long.class)).isEqualTo(42L);
+        assertThat(claims.get(JwtUtil.CLAIM_ROLE, String.class)).isEqualTo("ADMIN");
+        assertThat(claims.get(JwtUtil.CLAIM_TOKEN_VERSION, Long.class)).isEqualTo(3L);
+    }
+
+    @Test
+    @DisplayName("Should reject tampered tokens when parsing claims")
+    void testParseClaimsRejectsTamperedToken() {
+        User user = User.builder().id(42L).email(username).role(User.Role.USER).build();
+        String token = jwtUtil.generateAccessToken(user);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThatThrownBy(() -> jwtUtil.parseClaims(tampered))
+                .isInstanceOf(JwtException.class);
+    }
+
+    // ============= Key rotation =============
+
+    private static String newSecret() {
+        return Base64.getEncoder().encodeToString(Keys.secretKeyFor(SignatureAlgorithm.HS512).getEncoded());
+    }
+
+    @Test
+    @DisplayName("Should verify tokens signed with a previous key after rotation")
+    void testPreviousKeyStillVerifies() {
+        JwtUtil before = new JwtUtil(SECRET, EXPIRATION_MS, "k1", List.of());
+        String oldToken = before.generateAccessToken(userDetails);
+
+        JwtUtil after = new JwtUtil(newSecret(), EXPIRATION_MS, "k2", List.of("k1:" + SECRET));
+        String newToken = after.generateAccessToken(userDetails);
+
+        assertThat(after.getUsernameFromToken(oldToken)).isEqualTo(username);
+        assertThat(after.getUsernameFromToken(newToken)).isEqualTo(username);
+        assertThat(after.parseClaims(newToken)).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Should reject tokens signed with an unknown or retired key")
+    void testUnknownKeyIdRejected() {
+        String token = new JwtUtil(SECRET, EXPIRATION_MS, "k1", List.of()).generateAccessToken(userDetails);
+
+        JwtUtil rotated = new JwtUtil(newSecret(), EXPIRATION_MS, "k2", List.of());
+
+        assertThatThrownBy(() -> rotated.parseClaims(token)).isInstanceOf(JwtException.class);
+        assertThat(rotated.validateToken(token, userDetails)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should verify tokens without a key id against the current key")
+    void testTokenWithoutKeyIdUsesCurrentKey() {
+        String token = jwtUtil.generateAccessToken(userDetails);
+
+        JwtUtil withKeyId = new JwtUtil(SECRET, EXPIRATION_MS, "k1", List.of());
+
+        assertThat(withKeyId.getUsernameFromToken(token)).isEqualTo(username);
+    }
 }
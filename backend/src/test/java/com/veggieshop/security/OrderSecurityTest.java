@@ -0,0 +1,65 @@
+package com.veggieshop.security;
+
+import com.veggieshop.order.OrderOwnershipCache;
+import com.veggieshop.order.OrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class OrderSecurityTest {
+
+    @Mock private OrderRepository orderRepository;
+    @Mock private CurrentUserService currentUserService;
+
+    private OrderOwnershipCache ownershipCache;
+    private OrderSecurity orderSecurity;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ownershipCache = new OrderOwnershipCache(1000, new SimpleMeterRegistry());
+        orderSecurity = new OrderSecurity(orderRepository, ownershipCache, currentUserService);
+    }
+
+    @Test
+    @DisplayName("Should query the owner once, then answer repeated checks from the cache")
+    void testOwnerQueriedOnce() {
+        when(orderRepository.findUserIdById(5L)).thenReturn(Optional.of(2L));
+
+        assertThat(orderSecurity.isOrderOwner(5L, 2L)).isTrue();
+        assertThat(orderSecurity.isOrderOwner(5L, 2L)).isTrue();
+        assertThat(orderSecurity.isOrderOwner(5L, 3L)).isFalse();
+
+        verify(orderRepository, times(1)).findUserIdById(5L);
+    }
+
+    @Test
+    @DisplayName("Should not query for orders cached at creation")
+    void testCreatedOrderNeedsNoQuery() {
+        ownershipCache.put(6L, 2L);
+        when(currentUserService.getCurrentUserId()).thenReturn(2L);
+
+        assertThat(orderSecurity.isOrderOwner(6L)).isTrue();
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    @DisplayName("Should deny, and not cache, missing orders")
+    void testMissingOrder() {
+        when(orderRepository.findUserIdById(404L)).thenReturn(Optional.empty());
+
+        assertThat(orderSecurity.isOrderOwner(404L, 2L)).isFalse();
+        assertThat(orderSecurity.isOrderOwner(404L, 2L)).isFalse();
+        assertThat(orderSecurity.isOrderOwner(null, 2L)).isFalse();
+
+        verify(orderRepository, times(2)).findUserIdById(404L);
+    }
+}
@@ -0,0 +1,147 @@
+package com.veggieshop.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class RateLimitFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        RateLimiter rateLimiter = new RateLimiter(mock(JdbcTemplate.class), false, 1000, Duration.ofMinutes(5));
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        // 3 requests per IP, 2 per account
+        filter = new RateLimitFilter(rateLimiter, objectMapper, meterRegistry, true,
+                3, Duration.ofMinutes(1), 2, Duration.ofMinutes(1));
+    }
+
+    @Test
+    @DisplayName("Should answer 429 with Retry-After once an IP is over its limit")
+    void testIpLimit() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertThat(perform(post("/api/auth/refresh", "10.0.0.1", null)).getStatus()).isEqualTo(200);
+        }
+
+        MockHttpServletResponse rejected = perform(post("/api/auth/refresh", "10.0.0.1", null));
+
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(Integer.parseInt(rejected.getHeader("Retry-After"))).isBetween(1, 20);
+        assertThat(rejected.getContentAsString()).contains("\"status\":429");
+        assertThat(meterRegistry.get("auth.rate.limited").tag("scope", "ip").counter().count()).isEqualTo(1.0);
+        // Another client is unaffected
+        assertThat(perform(post("/api/auth/refresh", "10.0.0.2", null)).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("Should limit login attempts per account across IPs, case-insensitively")
+    void testAccountLimit() throws Exception {
+        assertThat(perform(login("10.0.0.1", "Victim@Example.com")).getStatus()).isEqualTo(200);
+        assertThat(perform(login("10.0.0.2", "victim@example.com")).getStatus()).isEqualTo(200);
+
+        assertThat(perform(login("10.0.0.3", "victim@example.com")).getStatus()).isEqualTo(429);
+        assertThat(perform(login("10.0.0.3", "other@example.com")).getStatus()).isEqualTo(200);
+        assertThat(meterRegistry.get("auth.rate.limited").tag("scope", "account").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should pass the request body on to the controller after reading the account")
+    void testBodyIsReplayed() throws Exception {
+        MockHttpServletRequest request = login("10.0.0.1", "user@example.com");
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        byte[] body = chain.getRequest().getInputStream().readAllBytes();
+        assertThat(new String(body, StandardCharsets.UTF_8)).contains("user@example.com");
+    }
+
+    @Test
+    @DisplayName("Should limit chunked login requests per account although they carry no Content-Length")
+    void testAccountLimit_chunkedBody() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            assertThat(perform(chunked(login("10.0.0." + i, "victim@example.com"))).getStatus()).isEqualTo(200);
+        }
+
+        assertThat(perform(chunked(login("10.0.0.9", "victim@example.com"))).getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    @DisplayName("Should refuse an oversized login body instead of skipping the account limit")
+    void testOversizedBodyRejected() throws Exception {
+        String padded = "{\"email\":\"victim@example.com\",\"password\":\"secret\"" + " ".repeat(9000) + "}";
+
+        MockHttpServletResponse response = perform(chunked(post("/api/auth/login", "10.0.0.1", padded)));
+
+        assertThat(response.getStatus()).isEqualTo(413);
+        assertThat(response.getContentAsString()).contains("\"status\":413");
+    }
+
+    @Test
+    @DisplayName("Should leave other endpoints and methods alone")
+    void testOtherRequestsNotLimited() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products");
+            assertThat(perform(request).getStatus()).isEqualTo(200);
+            assertThat(perform(new MockHttpServletRequest("GET", "/api/auth/login")).getStatus()).isEqualTo(200);
+        }
+    }
+
+    // ========== Helpers ==========
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest login(String ip, String email) {
+        return post("/api/auth/login", ip, "{\"email\":\"" + email + "\",\"password\":\"secret\"}");
+    }
+
+    // As sent with Transfer-Encoding: chunked, where the container reports no content length
+    private static MockHttpServletRequest chunked(MockHttpServletRequest request) {
+        MockHttpServletRequest chunked = new MockHttpServletRequest(request.getMethod(), request.getRequestURI()) {
+            @Override
+            public int getContentLength() {
+                return -1;
+            }
+
+            @Override
+            public long getContentLengthLong() {
+                return -1L;
+            }
+        };
+        chunked.setRemoteAddr(request.getRemoteAddr());
+        chunked.setContentType(request.getContentType());
+        chunked.addHeader("Transfer-Encoding", "chunked");
+        chunked.setContent(request.getContentAsByteArray());
+        return chunked;
+    }
+
+    private static MockHttpServletRequest post(String uri, String ip, String json) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        request.setRemoteAddr(ip);
+        if (json != null) {
+            request.setContentType("application/json");
+            request.setContent(json.getBytes(StandardCharsets.UTF_8));
+        }
+        return request;
+    }
+}
@@ -0,0 +1,98 @@
+package com.veggieshop.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class RateLimiterTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        rateLimiter = new RateLimiter(jdbcTemplate, false, 1000, Duration.ofMinutes(5));
+    }
+
+    @Test
+    @DisplayName("Should allow a burst of capacity requests, then ask to wait about one interval")
+    void testBurstThenReject() {
+        RateLimiter.Limit limit = new RateLimiter.Limit(3, Duration.ofMinutes(1));
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(rateLimiter.tryAcquire("ip:1.2.3.4", limit)).isZero();
+        }
+        long wait = rateLimiter.tryAcquire("ip:1.2.3.4", limit);
+
+        assertThat(wait).isBetween(19_000L, 20_000L);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Should keep separate buckets per key")
+    void testKeysAreIndependent() {
+        RateLimiter.Limit limit = new RateLimiter.Limit(1, Duration.ofMinutes(1));
+
+        assertThat(rateLimiter.tryAcquire("ip:1.1.1.1", limit)).isZero();
+        assertThat(rateLimiter.tryAcquire("ip:1.1.1.1", limit)).isPositive();
+        assertThat(rateLimiter.tryAcquire("ip:2.2.2.2", limit)).isZero();
+        assertThat(rateLimiter.localBuckets()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should refill at capacity per period")
+    void testRefill() throws Exception {
+        RateLimiter.Limit limit = new RateLimiter.Limit(2, Duration.ofMillis(200));
+        rateLimiter.tryAcquire("k", limit);
+        rateLimiter.tryAcquire("k", limit);
+        assertThat(rateLimiter.tryAcquire("k", limit)).isPositive();
+
+        Thread.sleep(120);
+
+        assertThat(rateLimiter.tryAcquire("k", limit)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should grant exactly capacity tokens under contention")
+    void testConcurrentAcquire() throws Exception {
+        RateLimiter.Limit limit = new RateLimiter.Limit(50, Duration.ofHours(1));
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                int granted = 0;
+                for (int i = 0; i < 100; i++) {
+                    if (rateLimiter.tryAcquire("hot", limit) == 0) {
+                        granted++;
+                    }
+                }
+                return granted;
+            }));
+        }
+        start.countDown();
+
+        int total = 0;
+        for (Future<Integer> result : results) {
+            total += result.get(10, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertThat(total).isEqualTo(50);
+    }
+}
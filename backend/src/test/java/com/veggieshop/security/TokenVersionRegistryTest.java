@@ -0,0 +1,107 @@
+package com.veggieshop.security;
+
+import com.veggieshop.cache.CacheInvalidationBus;
+import com.veggieshop.cache.CacheInvalidationEvent;
+import com.veggieshop.user.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TokenVersionRegistryTest {
+
+    @Mock private JdbcTemplate jdbcTemplate;
+    @Mock private CacheInvalidationBus invalidationBus;
+
+    private TokenVersionRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        registry = new TokenVersionRegistry(jdbcTemplate, invalidationBus);
+    }
+
+    private void storedVersions(long[]... rows) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (long[] row : rows) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong(1)).thenReturn(row[0]);
+                when(rs.getLong(2)).thenReturn(row[1]);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    @DisplayName("Should accept tokens at or above the stored version and reject older ones")
+    void testIsCurrent() {
+        storedVersions(new long[]{3, 2}, new long[]{9, 1});
+
+        assertThat(registry.isCurrent(3, 2)).isTrue();
+        assertThat(registry.isCurrent(3, 1)).isFalse();
+        assertThat(registry.isCurrent(9, 0)).isFalse();
+        // Users never bumped are not tracked
+        assertThat(registry.isCurrent(5, 0)).isTrue();
+        assertThat(registry.size()).isEqualTo(2);
+        verify(jdbcTemplate, times(1)).query(anyString(), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    @DisplayName("Should pick up a single user's new version on a USER event")
+    void testUserEventReloadsOneUser() {
+        storedVersions(new long[]{3, 2});
+        registry.isCurrent(3, 2);
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(1L))).thenReturn(List.of(1L));
+
+        registry.onInvalidation(CacheInvalidationEvent.user(1L));
+
+        assertThat(registry.isCurrent(1, 0)).isFalse();
+        assertThat(registry.isCurrent(1, 1)).isTrue();
+        assertThat(registry.isCurrent(3, 2)).isTrue();
+        assertThat(registry.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should revoke every token of a deleted user")
+    void testDeletedUserIsRevoked() {
+        storedVersions();
+        registry.isCurrent(1, 0);
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(4L))).thenReturn(List.of());
+
+        registry.onInvalidation(CacheInvalidationEvent.user(4L));
+
+        assertThat(registry.isCurrent(4, 100)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should bump the version and publish a USER event on revoke")
+    void testRevokeTokens() {
+        User user = User.builder().id(6L).tokenVersion(2).build();
+
+        registry.revokeTokens(user);
+
+        assertThat(user.getTokenVersion()).isEqualTo(3);
+        verify(invalidationBus).publish(CacheInvalidationEvent.user(6L));
+    }
+
+    @Test
+    @DisplayName("Should record a tombstone for a deleted user, so full reloads keep it revoked")
+    void testRevokeDeletedUser() {
+        registry.revokeTokens(4L);
+
+        verify(jdbcTemplate).update(contains("INSERT INTO deleted_users"), eq(4L));
+        verify(invalidationBus).publish(CacheInvalidationEvent.user(4L));
+    }
+}
@@ -92,4 +92,26 @@ class UserDetailsServiceImplTest {
         CustomUserDetails custom = (CustomUserDetails) userDetails;
         assertThat(custom.getUser()).isEqualTo(user);
     }
+
+    @Test
+    @DisplayName("should store a re-hashed password on upgrade")
+    void shouldStoreUpgradedPassword() {
+        // Given
+        User user = new User();
+        user.setId(7L);
+        user.setEmail("upgrade@example.com");
+        user.setPassword("$2a$10$old");
+        user.setRole(User.Role.USER);
+
+        when(userRepository.findByEmail("upgrade@example.com")).thenReturn(Optional.of(user));
+        when(userRepository.save(user)).thenReturn(user);
+
+        // When
+        UserDetails updated = userDetailsService.updatePassword(new CustomUserDetails(user), "$2a$12$new");
+
+        // Then
+        assertThat(user.getPassword()).isEqualTo("$2a$12$new");
+        assertThat(updated.getPassword()).isEqualTo("$2a$12$new");
+        verify(userRepository).save(user);
+    }
 }
@@ -0,0 +1,76 @@
+package com.veggieshop.security;
+
+import com.veggieshop.user.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class VerifiedTokenCacheTest {
+
+    private static final String SECRET = Base64.getEncoder()
+            .encodeToString(Keys.secretKeyFor(SignatureAlgorithm.HS512).getEncoded());
+
+    private final User user = User.builder().id(5L).email("user@example.com").role(User.Role.USER).build();
+
+    private JwtUtil jwtUtil;
+    private SimpleMeterRegistry meterRegistry;
+    private VerifiedTokenCache cache;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = spy(new JwtUtil(SECRET, 60_000L, "", List.of()));
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new VerifiedTokenCache(jwtUtil, meterRegistry, 100, Duration.ofSeconds(30));
+    }
+
+    @Test
+    @DisplayName("Should verify a token once and serve repeats from the cache")
+    void testRepeatedTokenVerifiedOnce() {
+        String token = jwtUtil.generateAccessToken(user);
+
+        Claims first = cache.verify(token);
+        Claims second = cache.verify(token);
+
+        assertThat(first.getSubject()).isEqualTo("user@example.com");
+        assertThat(second).isSameAs(first);
+        verify(jwtUtil, times(1)).parseClaims(token);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "jwt.verified").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should remember malformed tokens and reject them without re-parsing")
+    void testNegativeCaching() {
+        assertThatThrownBy(() -> cache.verify("not.a.jwt")).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> cache.verify("not.a.jwt")).isInstanceOf(JwtException.class);
+
+        verify(jwtUtil, times(1)).parseClaims("not.a.jwt");
+    }
+
+    @Test
+    @DisplayName("Should drop a cached token at its expiration")
+    void testEntryExpiresWithToken() throws Exception {
+        jwtUtil = spy(new JwtUtil(SECRET, 1_000L, "", List.of()));
+        cache = new VerifiedTokenCache(jwtUtil, meterRegistry, 100, Duration.ofSeconds(30));
+        String token = jwtUtil.generateAccessToken(user);
+        cache.verify(token);
+
+        Thread.sleep(1_100);
+
+        assertThatThrownBy(() -> cache.verify(token)).isInstanceOf(ExpiredJwtException.class);
+        verify(jwtUtil, times(2)).parseClaims(token);
+    }
+}
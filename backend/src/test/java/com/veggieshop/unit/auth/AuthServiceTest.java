@@ -4,6 +4,7 @@ import com.veggieshop.auth.*;
 import com.veggieshop.exception.BadRequestException;
 import com.veggieshop.exception.DuplicateException;
 import com.veggieshop.security.JwtUtil;
+import com.veggieshop.security.TokenVersionRegistry;
 import com.veggieshop.user.User;
 import com.veggieshop.user.UserDto;
 import com.veggieshop.user.UserMapper;
@@ -36,6 +37,7 @@ class AuthServiceTest {
     @Mock private EmailService emailService;
     @Mock private UserMapper userMapper;
     @Mock private PasswordEncoder passwordEncoder;
+    @Mock private TokenVersionRegistry tokenVersionRegistry;
 
     @InjectMocks
     private AuthServiceImpl authService;
@@ -80,9 +82,7 @@ class AuthServiceTest {
         when(passwordEncoder.encode("password")).thenReturn("hashedpw");
         when(userRepository.save(any(User.class))).thenReturn(user);
 
-        UserDetails userDetails = org.springframework.security.core.userdetails.User
-                .withUsername(user.getEmail()).password(user.getPassword()).roles("USER").build();
-        when(jwtUtil.generateAccessToken(any(UserDetails.class))).thenReturn("accesstoken");
+        when(jwtUtil.generateAccessToken(any(User.class))).thenReturn("accesstoken");
         RefreshToken refreshToken = RefreshToken.builder().token("refreshtoken").user(user).expiryDate(Instant.now().plusSeconds(3600)).build();
         when(refreshTokenService.createToken(user, "chrome")).thenReturn(refreshToken);
 
@@ -120,12 +120,8 @@ class AuthServiceTest {
         Authentication authentication = mock(Authentication.class);
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class))).thenReturn(authentication);
 
-        UserDetails userDetails = org.springframework.security.core.userdetails.User
-                .withUsername(user.getEmail()).password(user.getPassword()).roles("USER").build();
-
         when(userRepository.findByEmail("user@veggieshop.com")).thenReturn(Optional.of(user));
-        when(authentication.getPrincipal()).thenReturn(userDetails);
-        when(jwtUtil.generateAccessToken(userDetails)).thenReturn("accesstoken");
+        when(jwtUtil.generateAccessToken(user)).thenReturn("accesstoken");
         RefreshToken refreshToken = RefreshToken.builder().token("refreshtoken").user(user).expiryDate(Instant.now().plusSeconds(3600)).build();
         when(refreshTokenService.createToken(user, "chrome")).thenReturn(refreshToken);
 
@@ -158,22 +154,19 @@ class AuthServiceTest {
     // ============= Refresh Token =============
     @Test
     void refresh_shouldSucceed_whenTokenValid() {
-        RefreshToken oldToken = RefreshToken.builder().token("oldtoken").user(user).expiryDate(Instant.now().plusSeconds(3600)).build();
         RefreshToken newToken = RefreshToken.builder().token("newtoken").user(user).expiryDate(Instant.now().plusSeconds(3600)).build();
 
-        when(refreshTokenService.validateToken("oldtoken")).thenReturn(oldToken);
-        doNothing().when(refreshTokenService).revokeToken("oldtoken");
-        when(refreshTokenService.createToken(user, "chrome")).thenReturn(newToken);
+        when(refreshTokenService.rotateToken("oldtoken", "chrome")).thenReturn(newToken);
 
-        UserDetails userDetails = org.springframework.security.core.userdetails.User
-                .withUsername(user.getEmail()).password(user.getPassword()).roles("USER").build();
-        when(jwtUtil.generateAccessToken(userDetails)).thenReturn("accesstoken");
+        when(jwtUtil.generateAccessToken(user)).thenReturn("accesstoken");
 
         AuthDto.RefreshResponse result = authService.refresh("oldtoken", "chrome", response);
 
         assertThat(result.getAccessToken()).isEqualTo("accesstoken");
         assertThat(result.getUserEmail()).isEqualTo("user@veggieshop.com");
         verify(response).addCookie(any(Cookie.class));
+        verify(refreshTokenService, never()).validateToken(any());
+        verify(refreshTokenService, never()).createToken(any(), any());
     }
 
     // ============= Logout =============
@@ -227,6 +220,7 @@ class AuthServiceTest {
 
         verify(passwordResetTokenService).markTokenAsUsed(token);
         verify(refreshTokenService).revokeAllUserTokens(user);
+        verify(tokenVersionRegistry).revokeTokens(user);
         verify(userRepository).save(user);
         assertThat(user.getPassword()).isEqualTo("hashednewpass");
     }
@@ -1,11 +1,21 @@
 package com.veggieshop.unit.auth;
 
 import com.veggieshop.auth.RefreshToken;
+import com.veggieshop.auth.RefreshTokenCache;
 import com.veggieshop.auth.RefreshTokenRepository;
 import com.veggieshop.auth.RefreshTokenServiceImpl;
 import com.veggieshop.user.User;
+import com.veggieshop.user.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.*;
 import org.mockito.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
 
@@ -18,7 +28,12 @@ class RefreshTokenServiceTest {
     @Mock
     private RefreshTokenRepository refreshTokenRepository;
 
-    @InjectMocks
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
     private RefreshTokenServiceImpl refreshTokenService;
 
     private AutoCloseable closeable;
@@ -31,6 +46,8 @@ class RefreshTokenServiceTest {
     @BeforeEach
     void setUp() {
         closeable = MockitoAnnotations.openMocks(this);
+        RefreshTokenCache refreshTokenCache = new RefreshTokenCache(new SimpleMeterRegistry(), 100, Duration.ofHours(1));
+        refreshTokenService = new RefreshTokenServiceImpl(refreshTokenRepository, userRepository, jdbcTemplate, refreshTokenCache);
     }
 
     @AfterEach
@@ -55,9 +72,10 @@ class RefreshTokenServiceTest {
         RefreshToken saved = tokenCaptor.getValue();
         assertThat(saved.getUser()).isEqualTo(user);
         assertThat(saved.getDeviceInfo()).isEqualTo(deviceInfo);
-        assertThat(saved.getToken()).isNotBlank();
         assertThat(saved.getExpiryDate()).isAfter(Instant.now());
-        assertThat(result.getToken()).isEqualTo(saved.getToken());
+        assertThat(result.getToken()).isNotBlank();
+        // Only the digest is persisted
+        assertThat(saved.getTokenHash()).isEqualTo(RefreshToken.hash(result.getToken()));
     }
 
     @Test
@@ -69,7 +87,7 @@ class RefreshTokenServiceTest {
                 .revoked(false)
                 .expiryDate(Instant.now().plusSeconds(3000))
                 .build();
-        when(refreshTokenRepository.findByToken(tokenValue)).thenReturn(Optional.of(token));
+        when(refreshTokenRepository.findByTokenHash(RefreshToken.hash(tokenValue))).thenReturn(Optional.of(token));
 
         RefreshToken result = refreshTokenService.validateToken(tokenValue);
         assertThat(result).isEqualTo(token);
@@ -77,7 +95,7 @@ class RefreshTokenServiceTest {
 
     @Test
     void validateToken_shouldThrow_whenNotFound() {
-        when(refreshTokenRepository.findByToken("notfound")).thenReturn(Optional.empty());
+        when(refreshTokenRepository.findByTokenHash(RefreshToken.hash("notfound"))).thenReturn(Optional.empty());
         assertThrows(IllegalArgumentException.class, () -> refreshTokenService.validateToken("notfound"));
     }
 
@@ -90,7 +108,7 @@ class RefreshTokenServiceTest {
                 .revoked(true)
                 .expiryDate(Instant.now().plusSeconds(1000))
                 .build();
-        when(refreshTokenRepository.findByToken(tokenValue)).thenReturn(Optional.of(token));
+        when(refreshTokenRepository.findByTokenHash(RefreshToken.hash(tokenValue))).thenReturn(Optional.of(token));
         assertThrows(IllegalArgumentException.class, () -> refreshTokenService.validateToken(tokenValue));
     }
 
@@ -103,39 +121,147 @@ class RefreshTokenServiceTest {
                 .revoked(false)
                 .expiryDate(Instant.now().minusSeconds(10))
                 .build();
-        when(refreshTokenRepository.findByToken(tokenValue)).thenReturn(Optional.of(token));
+        when(refreshTokenRepository.findByTokenHash(RefreshToken.hash(tokenValue))).thenReturn(Optional.of(token));
         assertThrows(IllegalArgumentException.class, () -> refreshTokenService.validateToken(tokenValue));
     }
 
     @Test
-    void revokeToken_shouldSetRevokedTrue_whenTokenExists() {
-        String tokenValue = "revoke-me";
+    void validateToken_shouldRejectFromHotTier_onRepeat() {
+        String tokenValue = "revoked-token";
         RefreshToken token = RefreshToken.builder()
                 .token(tokenValue)
                 .user(user)
-                .revoked(false)
+                .revoked(true)
                 .expiryDate(Instant.now().plusSeconds(1000))
                 .build();
-        when(refreshTokenRepository.findByToken(tokenValue)).thenReturn(Optional.of(token));
-        when(refreshTokenRepository.save(token)).thenReturn(token);
+        when(refreshTokenRepository.findByTokenHash(RefreshToken.hash(tokenValue))).thenReturn(Optional.of(token));
+
+        assertThrows(IllegalArgumentException.class, () -> refreshTokenService.validateToken(tokenValue));
+        assertThrows(IllegalArgumentException.class, () -> refreshTokenService.validateToken(tokenValue));
+
+        verify(refreshTokenRepository, times(1)).findByTokenHash(any());
+    }
+
+    @Test
+    void revokeToken_shouldRevokeByDigest_withoutLoading() {
+        String tokenValue = "revoke-me";
+        when(refreshTokenRepository.revokeByTokenHash(RefreshToken.hash(tokenValue))).thenReturn(1);
 
         refreshTokenService.revokeToken(tokenValue);
 
-        assertThat(token.isRevoked()).isTrue();
-        verify(refreshTokenRepository).save(token);
+        verify(refreshTokenRepository).revokeByTokenHash(RefreshToken.hash(tokenValue));
+        verify(refreshTokenRepository, never()).findByTokenHash(any());
+        verify(refreshTokenRepository, never()).save(any());
+        // A revoked token is then rejected without a lookup
+        assertThrows(IllegalArgumentException.class, () -> refreshTokenService.validateToken(tokenValue));
+        verify(refreshTokenRepository, never()).findByTokenHash(any());
     }
 
     @Test
     void revokeToken_shouldNotThrow_whenTokenNotFound() {
-        when(refreshTokenRepository.findByToken("notfound")).thenReturn(Optional.empty());
+        when(refreshTokenRepository.revokeByTokenHash(RefreshToken.hash("notfound"))).thenReturn(0);
         // Should not throw
         refreshTokenService.revokeToken("notfound");
         verify(refreshTokenRepository, never()).save(any());
     }
 
+    @Test
+    void rotateToken_shouldIssueReplacement_inOneStatement() {
+        stubRotation(List.<long[]>of(new long[]{9L, 5L}));
+        when(userRepository.findById(5L)).thenReturn(Optional.of(user));
+
+        RefreshToken rotated = refreshTokenService.rotateToken("old-token", "Firefox");
+
+        assertThat(rotated.getId()).isEqualTo(9L);
+        assertThat(rotated.getUser()).isEqualTo(user);
+        assertThat(rotated.getDeviceInfo()).isEqualTo("Firefox");
+        assertThat(rotated.getToken()).isNotBlank().isNotEqualTo("old-token");
+        assertThat(rotated.getTokenHash()).isEqualTo(RefreshToken.hash(rotated.getToken()));
+        verify(refreshTokenRepository, never()).findByTokenHash(any());
+        verify(refreshTokenRepository, never()).save(any());
+    }
+
+    @Test
+    void rotateToken_shouldRejectReuse_fromHotTier() {
+        stubRotation(List.<long[]>of(new long[]{9L, 5L}));
+        when(userRepository.findById(5L)).thenReturn(Optional.of(user));
+        refreshTokenService.rotateToken("old-token", "Firefox");
+
+        assertThatThrownBy(() -> refreshTokenService.rotateToken("old-token", "Firefox"))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("401");
+        verify(jdbcTemplate, times(1)).query(anyString(), ArgumentMatchers.<RowMapper<long[]>>any(),
+                any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void rotateToken_shouldKeepOldTokenUsable_whenTransactionRollsBack() {
+        stubRotation(List.<long[]>of(new long[]{9L, 5L}));
+        when(userRepository.findById(5L)).thenReturn(Optional.of(user));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            refreshTokenService.rotateToken("old-token", "Firefox");
+        } finally {
+            // Rolled back: registered synchronizations never see afterCommit
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        refreshTokenService.rotateToken("old-token", "Firefox");
+
+        verify(jdbcTemplate, times(2)).query(anyString(), ArgumentMatchers.<RowMapper<long[]>>any(),
+                any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void rotateToken_shouldRejectOldToken_onceTransactionCommits() {
+        stubRotation(List.<long[]>of(new long[]{9L, 5L}));
+        when(userRepository.findById(5L)).thenReturn(Optional.of(user));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            refreshTokenService.rotateToken("old-token", "Firefox");
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThatThrownBy(() -> refreshTokenService.rotateToken("old-token", "Firefox"))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("401");
+        verify(jdbcTemplate, times(1)).query(anyString(), ArgumentMatchers.<RowMapper<long[]>>any(),
+                any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void rotateToken_shouldThrow401_whenUserDisabled() {
+        stubRotation(List.<long[]>of(new long[]{9L, 5L}));
+        User disabled = User.builder().id(5L).email("off@example.com").enabled(false).build();
+        when(userRepository.findById(5L)).thenReturn(Optional.of(disabled));
+
+        assertThatThrownBy(() -> refreshTokenService.rotateToken("old-token", "Firefox"))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("401");
+    }
+
+    @Test
+    void rotateToken_shouldThrow401_whenNothingRotated() {
+        stubRotation(List.of());
+
+        assertThatThrownBy(() -> refreshTokenService.rotateToken("unknown", "Firefox"))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("401");
+        verify(userRepository, never()).findById(any());
+    }
+
     @Test
     void revokeAllUserTokens_shouldDeleteByUser() {
         refreshTokenService.revokeAllUserTokens(user);
         verify(refreshTokenRepository).deleteByUser(user);
     }
+
+    // ========== Helpers ==========
+
+    private void stubRotation(List<long[]> inserted) {
+        when(jdbcTemplate.query(anyString(), ArgumentMatchers.<RowMapper<long[]>>any(),
+                any(), any(), any(), any(), any())).thenReturn(inserted);
+    }
 }
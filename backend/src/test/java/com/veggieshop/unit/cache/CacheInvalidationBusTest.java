@@ -0,0 +1,135 @@
+package com.veggieshop.unit.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.veggieshop.cache.CacheInvalidationBus;
+import com.veggieshop.cache.CacheInvalidationEvent;
+import com.veggieshop.cache.CacheInvalidationListener;
+import org.junit.jupiter.api.*;
+import org.mockito.*;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CacheInvalidationBusTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private PreparedStatement preparedStatement;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<CacheInvalidationEvent> received = new ArrayList<>();
+    private CacheInvalidationBus bus;
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    void setUp() {
+        closeable = MockitoAnnotations.openMocks(this);
+        CacheInvalidationListener listener = received::add;
+        bus = new CacheInvalidationBus(List.of(listener), jdbcTemplate, new DataSourceProperties(),
+                objectMapper, true, 3, 1000);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        closeable.close();
+    }
+
+    @Test
+    void publish_shouldApplyLocally_andSendCoalescedNotification() throws Exception {
+        bus.publish(CacheInvalidationEvent.productViews(1L));
+        bus.publish(CacheInvalidationEvent.productViews(1L));
+        bus.publish(CacheInvalidationEvent.category(2L));
+
+        assertThat(received).hasSize(3);
+
+        bus.flushOutbox();
+
+        CacheInvalidationBus.Message sent = lastSentMessage();
+        assertThat(sent.node()).isEqualTo(bus.nodeId());
+        assertThat(sent.seq()).isEqualTo(1L);
+        assertThat(sent.events()).containsExactly(
+                CacheInvalidationEvent.productViews(1L), CacheInvalidationEvent.category(2L));
+    }
+
+    @Test
+    void flushOutbox_shouldCollapseToFullFlush_whenTooManyEvents() throws Exception {
+        for (long id = 1; id <= 4; id++) {
+            bus.publish(CacheInvalidationEvent.productViews(id));
+        }
+
+        bus.flushOutbox();
+
+        assertThat(lastSentMessage().events()).containsExactly(CacheInvalidationEvent.all());
+    }
+
+    @Test
+    void flushOutbox_shouldRetryWithSameSequence_whenNotifyFails() throws Exception {
+        bus.publish(CacheInvalidationEvent.category(2L));
+        when(jdbcTemplate.execute(anyString(), ArgumentMatchers.<PreparedStatementCallback<Boolean>>any()))
+                .thenThrow(new org.springframework.dao.QueryTimeoutException("timeout"));
+        bus.flushOutbox();
+
+        reset(jdbcTemplate);
+        bus.flushOutbox();
+
+        CacheInvalidationBus.Message sent = lastSentMessage();
+        assertThat(sent.seq()).isEqualTo(1L);
+        assertThat(sent.events()).containsExactly(CacheInvalidationEvent.category(2L));
+    }
+
+    @Test
+    void handleNotification_shouldApplyEventsFromOtherNodes() throws Exception {
+        bus.handleNotification(payload("other", 1, CacheInvalidationEvent.product(5L, Set.of(1L, 2L))));
+        bus.handleNotification(payload("other", 2, CacheInvalidationEvent.category(1L)));
+
+        assertThat(received).containsExactly(
+                CacheInvalidationEvent.product(5L, Set.of(1L, 2L)), CacheInvalidationEvent.category(1L));
+    }
+
+    @Test
+    void handleNotification_shouldFlushEverything_whenSequenceHasGap() throws Exception {
+        bus.handleNotification(payload("other", 1, CacheInvalidationEvent.category(1L)));
+        bus.handleNotification(payload("other", 3, CacheInvalidationEvent.category(2L)));
+
+        assertThat(received).containsExactly(CacheInvalidationEvent.category(1L), CacheInvalidationEvent.all());
+    }
+
+    @Test
+    void handleNotification_shouldIgnoreOwnMessages() throws Exception {
+        bus.handleNotification(payload(bus.nodeId(), 1, CacheInvalidationEvent.category(1L)));
+
+        assertThat(received).isEmpty();
+    }
+
+    @Test
+    void handleNotification_shouldFlushEverything_whenPayloadUnreadable() {
+        bus.handleNotification("not json");
+
+        assertThat(received).containsExactly(CacheInvalidationEvent.all());
+    }
+
+    @SuppressWarnings("unchecked")
+    private CacheInvalidationBus.Message lastSentMessage() throws Exception {
+        ArgumentCaptor<PreparedStatementCallback<Boolean>> callback = ArgumentCaptor.forClass(PreparedStatementCallback.class);
+        verify(jdbcTemplate).execute(contains("pg_notify"), callback.capture());
+        callback.getValue().doInPreparedStatement(preparedStatement);
+
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(preparedStatement).setString(eq(2), payload.capture());
+        return objectMapper.readValue(payload.getValue(), CacheInvalidationBus.Message.class);
+    }
+
+    private String payload(String node, long seq, CacheInvalidationEvent... events) throws Exception {
+        return objectMapper.writeValueAsString(new CacheInvalidationBus.Message(node, seq, List.of(events)));
+    }
+}
@@ -1,5 +1,7 @@
 package com.veggieshop.unit.category;
 
+import com.veggieshop.cache.CacheInvalidationBus;
+import com.veggieshop.cache.CacheInvalidationEvent;
 import com.veggieshop.category.*;
 import com.veggieshop.exception.BadRequestException;
 import com.veggieshop.exception.DuplicateException;
@@ -23,6 +25,8 @@ class CategoryServiceTest {
     private ProductRepository productRepository;
     @Mock
     private CategoryMapper categoryMapper;
+    @Mock
+    private CacheInvalidationBus invalidationBus;
 
     @InjectMocks
     private CategoryServiceImpl categoryService;
@@ -102,6 +106,7 @@ class CategoryServiceTest {
         assertThat(result.getName()).isEqualTo("Vegetables");
         assertThat(result.getDescription()).isEqualTo("Fresh vegetables!");
         verify(categoryRepository).save(existing);
+        verify(invalidationBus).publish(CacheInvalidationEvent.category(id));
     }
 
     @Test
@@ -123,6 +128,7 @@ class CategoryServiceTest {
         categoryService.delete(id);
 
         verify(categoryRepository).deleteById(id);
+        verify(invalidationBus).publish(CacheInvalidationEvent.category(id));
     }
 
     @Test
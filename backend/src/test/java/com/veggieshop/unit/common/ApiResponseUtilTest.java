@@ -4,6 +4,7 @@ import com.veggieshop.common.ApiError;
 import com.veggieshop.common.ApiResponse;
 import com.veggieshop.common.ApiResponseUtil;
 import com.veggieshop.common.Meta;
+import com.veggieshop.common.SlicePaging;
 import org.junit.jupiter.api.*;
 import org.springframework.data.domain.*;
 import org.springframework.http.HttpStatus;
@@ -68,6 +69,60 @@ class ApiResponseUtilTest {
         assertThat(meta.getSort()).containsExactly("name,ASC");
     }
 
+    @Test
+    void ok_shouldOmitTotals_withSlice() {
+        Slice<String> slice = new SliceImpl<>(List.of("d", "e"), PageRequest.of(1, 2), true);
+
+        Meta meta = ApiResponseUtil.ok(slice).getBody().getMeta();
+
+        assertThat(meta.getPage()).isEqualTo(1);
+        assertThat(meta.getSize()).isEqualTo(2);
+        assertThat(meta.getTotalElements()).isNull();
+        assertThat(meta.getTotalPages()).isNull();
+        assertThat(meta.isFirst()).isFalse();
+        assertThat(meta.isLast()).isFalse();
+        assertThat(meta.getHasNext()).isTrue();
+    }
+
+    @Test
+    void slicePaging_shouldStartAtPageOffset() {
+        assertThat(SlicePaging.position(PageRequest.of(0, 20)).isInitial()).isTrue();
+        // Offset positions name the last row already seen
+        assertThat(((OffsetScrollPosition) SlicePaging.position(PageRequest.of(3, 20))).getOffset()).isEqualTo(59);
+    }
+
+    @Test
+    void ok_shouldReturnCursors_withWindow() {
+        Window<String> window = Window.from(List.of("b", "c"),
+                i -> ScrollPosition.forward(Map.of("id", (long) i + 2)), true);
+        KeysetScrollPosition requested = ScrollPosition.forward(Map.of("id", 1L));
+
+        ResponseEntity<ApiResponse<List<String>>> response =
+                ApiResponseUtil.ok(window, PageRequest.of(0, 2), requested);
+
+        Meta meta = response.getBody().getMeta();
+        assertThat(response.getBody().getData()).containsExactly("b", "c");
+        assertThat(meta.getPage()).isNull();
+        assertThat(meta.getTotalElements()).isNull();
+        assertThat(meta.getSize()).isEqualTo(2);
+        assertThat(meta.isFirst()).isFalse();
+        assertThat(meta.isLast()).isFalse();
+        assertThat(meta.getNextCursor()).isNotNull().isNotEqualTo(meta.getPrevCursor());
+        assertThat(meta.getPrevCursor()).isNotNull();
+    }
+
+    @Test
+    void ok_shouldOmitPrevCursor_onFirstWindow() {
+        Window<String> window = Window.from(List.of("a"), i -> ScrollPosition.forward(Map.of("id", 1L)), false);
+
+        Meta meta = ApiResponseUtil.ok(window, PageRequest.of(0, 2), ScrollPosition.keyset()).getBody().getMeta();
+
+        assertThat(meta.isFirst()).isTrue();
+        assertThat(meta.isLast()).isTrue();
+        assertThat(meta.getPrevCursor()).isNull();
+        assertThat(meta.getNextCursor()).isNull();
+    }
+
     @Test
     void created_shouldReturnCreatedResponse() {
         String data = "created";
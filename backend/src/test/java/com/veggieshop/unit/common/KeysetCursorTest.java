@@ -0,0 +1,81 @@
+package com.veggieshop.unit.common;
+
+import com.veggieshop.common.KeysetCursor;
+import com.veggieshop.exception.BadRequestException;
+import com.veggieshop.order.Order;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class KeysetCursorTest {
+
+    private static final Sort SORT = Sort.by(Sort.Direction.DESC, "createdAt", "totalPrice", "status");
+
+    @Test
+    void encodeDecode_shouldRestoreTypedKeys() {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put("createdAt", LocalDateTime.of(2024, 8, 10, 13, 45, 7, 123_456_000));
+        keys.put("totalPrice", new BigDecimal("12.50"));
+        keys.put("status", Order.Status.PAID);
+        keys.put("id", 42L);
+        String cursor = KeysetCursor.encode(ScrollPosition.forward(keys));
+
+        KeysetScrollPosition after = KeysetCursor.position(cursor, null, SORT, Order.class);
+        KeysetScrollPosition before = KeysetCursor.position(null, cursor, SORT, Order.class);
+
+        assertThat(after.getKeys()).isEqualTo(keys);
+        assertThat(after.scrollsForward()).isTrue();
+        assertThat(before.getKeys()).isEqualTo(keys);
+        assertThat(before.scrollsBackward()).isTrue();
+        assertThat(cursor).doesNotContain("=", "+", "/");
+    }
+
+    @Test
+    void position_shouldStartFromEitherEnd_whenCursorIsEmpty() {
+        KeysetScrollPosition first = KeysetCursor.position("", null, SORT, Order.class);
+        KeysetScrollPosition last = KeysetCursor.position(null, "", SORT, Order.class);
+
+        assertThat(first.isInitial()).isTrue();
+        assertThat(first.scrollsForward()).isTrue();
+        assertThat(last.isInitial()).isTrue();
+        assertThat(last.scrollsBackward()).isTrue();
+    }
+
+    @Test
+    void position_shouldRejectBothCursors() {
+        assertThatThrownBy(() -> KeysetCursor.position("", "", SORT, Order.class))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void position_shouldRejectMalformedOrTamperedCursors() {
+        String unknownProperty = KeysetCursor.encode(ScrollPosition.forward(Map.of("password", "x")));
+        String wrongType = KeysetCursor.encode(ScrollPosition.forward(Map.of("createdAt", "yesterday")));
+
+        assertThatThrownBy(() -> KeysetCursor.position("%%%", null, SORT, Order.class))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> KeysetCursor.position(unknownProperty, null, SORT, Order.class))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> KeysetCursor.position(wrongType, null, SORT, Order.class))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void position_shouldReject_whenSortChangedSinceCursorWasIssued() {
+        String cursor = KeysetCursor.encode(ScrollPosition.forward(Map.of("id", 7L)));
+
+        assertThatThrownBy(() -> KeysetCursor.position(cursor, null, Sort.by("createdAt"), Order.class))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("sort");
+        assertThat(KeysetCursor.position(cursor, null, Sort.unsorted(), Order.class).getKeys())
+                .containsEntry("id", 7L);
+    }
+}
@@ -0,0 +1,59 @@
+package com.veggieshop.unit.config;
+
+import com.veggieshop.config.RequestContextTaskDecorator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestContextTaskDecoratorTest {
+
+    private final RequestContextTaskDecorator decorator = new RequestContextTaskDecorator();
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void decorate_shouldCarryPrincipalAndRequestOntoWorkerThread_andRestoreAfterwards() throws Exception {
+        Authentication authentication = new TestingAuthenticationToken("alice", null, "ROLE_USER");
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        RequestAttributes attributes = new ServletRequestAttributes(new MockHttpServletRequest());
+        RequestContextHolder.setRequestAttributes(attributes);
+
+        AtomicReference<Authentication> seenAuthentication = new AtomicReference<>();
+        AtomicReference<RequestAttributes> seenAttributes = new AtomicReference<>();
+        AtomicReference<Authentication> afterwards = new AtomicReference<>();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(decorator.decorate(() -> {
+                seenAuthentication.set(SecurityContextHolder.getContext().getAuthentication());
+                seenAttributes.set(RequestContextHolder.getRequestAttributes());
+            })).get(5, TimeUnit.SECONDS);
+            // Same pooled thread, next task: nothing left over
+            executor.submit(() -> afterwards.set(SecurityContextHolder.getContext().getAuthentication()))
+                    .get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(seenAuthentication.get()).isSameAs(authentication);
+        assertThat(seenAttributes.get()).isSameAs(attributes);
+        assertThat(afterwards.get()).isNull();
+    }
+}
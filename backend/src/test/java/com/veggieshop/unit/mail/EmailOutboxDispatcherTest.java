@@ -0,0 +1,39 @@
+package com.veggieshop.unit.mail;
+
+import com.veggieshop.mail.EmailOutbox;
+import com.veggieshop.mail.EmailOutboxDispatcher;
+import org.junit.jupiter.api.*;
+import org.mockito.*;
+
+import static org.mockito.Mockito.*;
+
+class EmailOutboxDispatcherTest {
+
+    @Mock
+    private EmailOutbox emailOutbox;
+
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    void setUp() {
+        closeable = MockitoAnnotations.openMocks(this);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        closeable.close();
+    }
+
+    @Test
+    void dispatcher_shouldKeepPolling_afterDispatchFails() {
+        when(emailOutbox.dispatch()).thenThrow(new IllegalStateException("SMTP down")).thenReturn(0);
+        EmailOutboxDispatcher dispatcher = new EmailOutboxDispatcher(emailOutbox, 10);
+
+        dispatcher.start();
+        try {
+            verify(emailOutbox, timeout(2000).atLeast(3)).dispatch();
+        } finally {
+            dispatcher.stop();
+        }
+    }
+}
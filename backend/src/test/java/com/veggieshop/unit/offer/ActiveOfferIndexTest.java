@@ -0,0 +1,176 @@
+package com.veggieshop.unit.offer;
+
+import com.veggieshop.cache.CacheInvalidationEvent;
+import com.veggieshop.offer.ActiveOfferIndex;
+import org.junit.jupiter.api.*;
+import org.mockito.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ActiveOfferIndexTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 8, 10);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private ActiveOfferIndex index;
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    void setUp() {
+        closeable = MockitoAnnotations.openMocks(this);
+        index = new ActiveOfferIndex(jdbcTemplate, true);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        closeable.close();
+    }
+
+    @Test
+    void bestActiveDiscount_shouldPickLargestActiveOffer_withInclusiveBounds() throws Exception {
+        load(List.of(
+                offer(1, 10, "5.00", -3, 0),    // ends today
+                offer(2, 10, "7.50", 0, 3),     // starts today
+                offer(3, 10, "50.00", -20, -1), // expired
+                offer(4, 10, "40.00", 1, 9),    // not started
+                offer(5, 20, "1.25", -1, 1)));
+
+        assertThat(index.bestActiveDiscountCents(10L, TODAY)).isEqualTo(750L);
+        assertThat(index.bestActiveDiscountCents(20L, TODAY)).isEqualTo(125L);
+        assertThat(index.bestActiveDiscountCents(30L, TODAY)).isZero();
+        assertThat(index.bestActiveDiscountCents(10L, TODAY.plusDays(5))).isEqualTo(4000L);
+        assertThat(index.activeOfferIds(TODAY)).containsExactlyInAnyOrder(1L, 2L, 5L);
+    }
+
+    @Test
+    void reloadProduct_shouldReplaceOnlyThatProductsOffers() throws Exception {
+        load(List.of(offer(1, 10, "5.00", -1, 1), offer(2, 20, "3.00", -1, 1)));
+        stubRows(10L, List.<Object[]>of(offer(7, 10, "9.00", 0, 0)));
+
+        index.onInvalidation(CacheInvalidationEvent.productViews(10L));
+
+        assertThat(index.bestActiveDiscountCents(10L, TODAY)).isEqualTo(900L);
+        assertThat(index.bestActiveDiscountCents(20L, TODAY)).isEqualTo(300L);
+        assertThat(index.activeOfferIds(TODAY)).containsExactlyInAnyOrder(2L, 7L);
+    }
+
+    @Test
+    void reloadProduct_shouldDropProduct_whenItHasNoOffersLeft() throws Exception {
+        load(List.of(offer(1, 10, "5.00", -1, 1), offer(2, 20, "3.00", -1, 1)));
+        stubRows(10L, List.of());
+
+        index.reloadProduct(10L);
+
+        assertThat(index.bestActiveDiscountCents(10L, TODAY)).isZero();
+        assertThat(index.activeOfferIds(TODAY)).containsExactly(2L);
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void activeOffers_shouldCarryDatesAndDiscount() throws Exception {
+        load(List.<Object[]>of(offer(1, 10, "5.00", -3, 0), offer(3, 10, "50.00", -20, -1)));
+
+        assertThat(index.activeOffers(TODAY)).containsExactly(
+                new ActiveOfferIndex.ActiveOffer(1L, new BigDecimal("5.00"), TODAY.minusDays(3), TODAY));
+    }
+
+    @Test
+    void withoutInvalidationBus_shouldReloadPeriodically() throws Exception {
+        index = new ActiveOfferIndex(jdbcTemplate, false);
+        index.reloadIfUninformed(); // nothing to refresh before the first load
+        load(List.<Object[]>of(offer(1, 10, "5.00", -1, 1)));
+
+        assertThat(index.bestActiveDiscountCents(10L, TODAY)).isEqualTo(500L);
+
+        index.reloadIfUninformed();
+        verify(jdbcTemplate, times(2)).query(anyString(), ArgumentMatchers.<RowMapper<Object>>any());
+    }
+
+    @Test
+    void bestActiveDiscount_shouldQueryDatabase_untilLoaded() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(BigDecimal.class), eq(10L), eq(TODAY), eq(TODAY)))
+                .thenReturn(new BigDecimal("2.00"));
+
+        assertThat(index.isLoaded()).isFalse();
+        assertThat(index.bestActiveDiscountCents(10L, TODAY)).isEqualTo(200L);
+        assertThat(index.activeOfferIds(TODAY)).isEmpty();
+    }
+
+    @Test
+    void queries_shouldMatchBruteForce_onRandomOfferHistory() throws Exception {
+        Random random = new Random(7);
+        List<Object[]> offers = new ArrayList<>();
+        for (int id = 1; id <= 600; id++) {
+            int start = random.nextInt(400) - 200;
+            offers.add(offer(id, 1 + random.nextInt(25), BigDecimal.valueOf(random.nextInt(5000), 2).toPlainString(),
+                    start, start + random.nextInt(30)));
+        }
+        load(offers);
+
+        for (int day = -210; day <= 240; day += 3) {
+            LocalDate date = TODAY.plusDays(day);
+            long epochDay = date.toEpochDay();
+            Set<Long> expectedIds = new HashSet<>();
+            Map<Long, Long> expectedBest = new HashMap<>();
+            for (Object[] o : offers) {
+                if ((long) o[3] <= epochDay && epochDay <= (long) o[4]) {
+                    expectedIds.add((long) o[0]);
+                    long cents = new BigDecimal((String) o[2]).movePointRight(2).longValueExact();
+                    expectedBest.merge((long) o[1], cents, Math::max);
+                }
+            }
+            assertThat(index.activeOfferIds(date)).containsExactlyInAnyOrderElementsOf(expectedIds);
+            for (long productId = 1; productId <= 25; productId++) {
+                assertThat(index.bestActiveDiscountCents(productId, date))
+                        .as("product %d on %s", productId, date)
+                        .isEqualTo(expectedBest.getOrDefault(productId, 0L));
+            }
+        }
+    }
+
+    // ========== Helpers ==========
+
+    // {id, productId, discount, startEpochDay, endEpochDay}
+    private static Object[] offer(long id, long productId, String discount, int startOffset, int endOffset) {
+        return new Object[]{id, productId, discount,
+                TODAY.plusDays(startOffset).toEpochDay(), TODAY.plusDays(endOffset).toEpochDay()};
+    }
+
+    @SuppressWarnings("unchecked")
+    private void load(List<Object[]> rows) throws Exception {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class))).thenAnswer(inv -> map(inv.getArgument(1), rows));
+        index.reload();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubRows(long productId, List<Object[]> rows) {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(productId)))
+                .thenAnswer(inv -> map(inv.getArgument(1), rows));
+    }
+
+    private static List<Object> map(RowMapper<Object> mapper, List<Object[]> rows) throws Exception {
+        List<Object> mapped = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            Object[] row = rows.get(i);
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong("id")).thenReturn((long) row[0]);
+            when(rs.getLong("product_id")).thenReturn((long) row[1]);
+            when(rs.getBigDecimal("discount")).thenReturn(new BigDecimal((String) row[2]));
+            when(rs.getObject("start_date", LocalDate.class)).thenReturn(LocalDate.ofEpochDay((long) row[3]));
+            when(rs.getObject("end_date", LocalDate.class)).thenReturn(LocalDate.ofEpochDay((long) row[4]));
+            mapped.add(mapper.mapRow(rs, i));
+        }
+        return mapped;
+    }
+}
@@ -1,7 +1,10 @@
 package com.veggieshop.unit.offer;
 
+import com.veggieshop.cache.CacheInvalidationBus;
+import com.veggieshop.cache.CacheInvalidationEvent;
 import com.veggieshop.exception.ResourceNotFoundException;
 import com.veggieshop.offer.*;
+import com.veggieshop.pricing.EffectivePriceIndex;
 import com.veggieshop.product.Product;
 import com.veggieshop.product.ProductRepository;
 import org.junit.jupiter.api.*;
@@ -9,6 +12,7 @@ import org.mockito.*;
 import org.springframework.data.domain.*;
 
 import java.math.BigDecimal;
+import java.time.Clock;
 import java.time.LocalDate;
 import java.util.*;
 
@@ -24,6 +28,14 @@ class OfferServiceTest {
     private ProductRepository productRepository;
     @Mock
     private OfferMapper offerMapper;
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+    @Mock
+    private EffectivePriceIndex priceIndex;
+    @Mock
+    private ActiveOfferIndex activeOfferIndex;
+    @Spy
+    private Clock clock = Clock.systemDefaultZone();
 
     @InjectMocks
     private OfferServiceImpl offerService;
@@ -52,7 +64,7 @@ class OfferServiceTest {
         req.setStartDate(LocalDate.of(2024, 8, 1));
         req.setEndDate(LocalDate.of(2024, 8, 15));
 
-        when(productRepository.findById(1L)).thenReturn(Optional.of(tomato));
+        when(productRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(tomato));
 
         Offer offer = Offer.builder()
                 .id(10L)
@@ -79,13 +91,15 @@ class OfferServiceTest {
         assertThat(result.getProductId()).isEqualTo(1L);
         assertThat(result.getDiscount()).isEqualTo(BigDecimal.valueOf(0.25));
         verify(offerRepository).save(any(Offer.class));
+        verify(priceIndex).reprice(tomato);
+        verify(invalidationBus).publish(CacheInvalidationEvent.productViews(1L));
     }
 
     @Test
     void create_shouldThrow_whenProductMissing() {
         OfferDto.OfferCreateRequest req = new OfferDto.OfferCreateRequest();
         req.setProductId(99L);
-        when(productRepository.findById(99L)).thenReturn(Optional.empty());
+        when(productRepository.findByIdForUpdate(99L)).thenReturn(Optional.empty());
         assertThrows(ResourceNotFoundException.class, () -> offerService.create(req));
         verify(offerRepository, never()).save(any());
     }
@@ -93,16 +107,23 @@ class OfferServiceTest {
     // ========== Delete ==========
     @Test
     void delete_shouldSucceed_whenOfferExists() {
-        when(offerRepository.existsById(5L)).thenReturn(true);
+        Offer offer = Offer.builder().id(5L).product(tomato).build();
+        when(offerRepository.findById(5L)).thenReturn(Optional.of(offer));
         offerService.delete(5L);
-        verify(offerRepository).deleteById(5L);
+        // The product row is locked before its offers change, so a concurrent reprice cannot miss it
+        InOrder inOrder = inOrder(productRepository, offerRepository, priceIndex);
+        inOrder.verify(productRepository).findByIdForUpdate(1L);
+        inOrder.verify(offerRepository).delete(offer);
+        inOrder.verify(priceIndex).reprice(tomato);
+        verify(invalidationBus).publish(CacheInvalidationEvent.productViews(1L));
     }
 
     @Test
     void delete_shouldThrow_whenOfferMissing() {
-        when(offerRepository.existsById(77L)).thenReturn(false);
+        when(offerRepository.findById(77L)).thenReturn(Optional.empty());
         assertThrows(ResourceNotFoundException.class, () -> offerService.delete(77L));
-        verify(offerRepository, never()).deleteById(any());
+        verify(offerRepository, never()).delete(any());
+        verify(invalidationBus, never()).publish(any());
     }
 
     // ========== Find By Id ==========
@@ -187,4 +208,98 @@ class OfferServiceTest {
 
         assertThat(result.getContent()).hasSize(2);
     }
+
+    @Test
+    void findActiveOffers_shouldSortAndCountInIndex_andReadOnlyThePage() {
+        LocalDate today = LocalDate.now();
+        Pageable pageable = PageRequest.of(1, 2, Sort.by("startDate"));
+        Offer o5 = Offer.builder().id(5L).product(tomato).build();
+        when(activeOfferIndex.isLoaded()).thenReturn(true);
+        when(activeOfferIndex.activeOffers(today)).thenReturn(List.of(
+                active(4L, "5.00", today.minusDays(3)),
+                active(5L, "1.00", today.minusDays(1)),
+                active(6L, "9.00", today.minusDays(2))));
+        when(offerRepository.findAllById(List.of(5L))).thenReturn(List.of(o5));
+        when(offerMapper.toOfferResponse(o5)).thenReturn(new OfferDto.OfferResponse());
+
+        Page<OfferDto.OfferResponse> result = offerService.findActiveOffers(pageable);
+
+        assertThat(result.getContent()).hasSize(1);
+        assertThat(result.getTotalElements()).isEqualTo(3);
+        verify(offerRepository, never()).findByStartDateLessThanEqualAndEndDateGreaterThanEqual(any(), any(), any(Pageable.class));
+    }
+
+    @Test
+    void findActiveOffers_shouldReturnEmptyPage_whenIndexHasNoActiveOffers() {
+        Pageable pageable = PageRequest.of(0, 2);
+        when(activeOfferIndex.isLoaded()).thenReturn(true);
+        when(activeOfferIndex.activeOffers(any())).thenReturn(List.of());
+
+        Page<OfferDto.OfferResponse> result = offerService.findActiveOffers(pageable);
+
+        assertThat(result.getContent()).isEmpty();
+        verifyNoInteractions(offerRepository);
+    }
+
+    @Test
+    void findActiveOffers_shouldQueryDatabase_whenSortKeyIsNotInIndex() {
+        LocalDate today = LocalDate.now();
+        Pageable pageable = PageRequest.of(0, 2, Sort.by("product.name"));
+        when(activeOfferIndex.isLoaded()).thenReturn(true);
+        when(offerRepository.findByStartDateLessThanEqualAndEndDateGreaterThanEqual(today, today, pageable))
+                .thenReturn(Page.empty(pageable));
+
+        offerService.findActiveOffers(pageable);
+
+        verify(activeOfferIndex, never()).activeOffers(any());
+    }
+
+    @Test
+    void findActiveOffers_keyset_shouldContinueAfterCursor_fromIndex() {
+        LocalDate today = LocalDate.now();
+        Pageable pageable = PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "discount"));
+        Offer o4 = Offer.builder().id(4L).product(tomato).build();
+        when(activeOfferIndex.isLoaded()).thenReturn(true);
+        when(activeOfferIndex.activeOffers(today)).thenReturn(List.of(
+                active(4L, "5.00", today),
+                active(5L, "1.00", today),
+                active(6L, "9.00", today)));
+        when(offerRepository.findAllById(List.of(4L))).thenReturn(List.of(o4));
+        when(offerMapper.toOfferResponse(o4)).thenReturn(new OfferDto.OfferResponse());
+
+        Window<OfferDto.OfferResponse> window = offerService.findActiveOffers(
+                ScrollPosition.forward(Map.of("discount", new BigDecimal("9.0"), "id", 6L)), pageable);
+
+        assertThat(window.getContent()).hasSize(1);
+        assertThat(window.hasNext()).isTrue();
+        assertThat(((KeysetScrollPosition) window.positionAt(0)).getKeys())
+                .containsEntry("id", 4L)
+                .containsEntry("discount", new BigDecimal("5.00"));
+    }
+
+    @Test
+    void findActiveOffers_keyset_shouldEndBeforeCursor_whenScrollingBackward() {
+        LocalDate today = LocalDate.now();
+        Pageable pageable = PageRequest.of(0, 2, Sort.by("id"));
+        Offer o4 = Offer.builder().id(4L).product(tomato).build();
+        when(activeOfferIndex.isLoaded()).thenReturn(true);
+        when(activeOfferIndex.activeOffers(today)).thenReturn(List.of(
+                active(4L, "5.00", today),
+                active(5L, "1.00", today),
+                active(6L, "9.00", today)));
+        when(offerRepository.findAllById(List.of(4L))).thenReturn(List.of(o4));
+        when(offerMapper.toOfferResponse(o4)).thenReturn(new OfferDto.OfferResponse());
+
+        Window<OfferDto.OfferResponse> window = offerService.findActiveOffers(
+                ScrollPosition.backward(Map.of("id", 5L)), pageable);
+
+        assertThat(window.getContent()).hasSize(1);
+        assertThat(window.hasNext()).isFalse();
+    }
+
+    // ========== Helpers ==========
+
+    private static ActiveOfferIndex.ActiveOffer active(Long id, String discount, LocalDate startDate) {
+        return new ActiveOfferIndex.ActiveOffer(id, new BigDecimal(discount), startDate, startDate.plusDays(7));
+    }
 }
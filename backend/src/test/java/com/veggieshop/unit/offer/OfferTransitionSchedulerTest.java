@@ -0,0 +1,226 @@
+package com.veggieshop.unit.offer;
+
+import com.veggieshop.cache.CacheInvalidationEvent;
+import com.veggieshop.offer.*;
+import com.veggieshop.pricing.EffectivePriceIndex;
+import com.veggieshop.product.Product;
+import org.junit.jupiter.api.*;
+import org.mockito.*;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.math.BigDecimal;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.ScheduledFuture;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OfferTransitionSchedulerTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Asia/Amman");
+    private static final LocalDate TODAY = LocalDate.of(2024, 8, 10);
+
+    @Mock
+    private OfferRepository offerRepository;
+    @Mock
+    private EffectivePriceIndex priceIndex;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    private final MutableClock clock = new MutableClock(TODAY.atTime(15, 30).atZone(ZONE).toInstant());
+    private final List<Instant> wakeups = new ArrayList<>();
+    private final List<Runnable> tasks = new ArrayList<>();
+    private OfferTransitionScheduler scheduler;
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    void setUp() {
+        closeable = MockitoAnnotations.openMocks(this);
+        when(taskScheduler.schedule(any(Runnable.class), any(Instant.class))).thenAnswer(inv -> {
+            tasks.add(inv.getArgument(0));
+            wakeups.add(inv.getArgument(1));
+            return mock(ScheduledFuture.class);
+        });
+        scheduler = new OfferTransitionScheduler(offerRepository, priceIndex, eventPublisher, taskScheduler, clock);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        closeable.close();
+    }
+
+    @Test
+    void start_shouldScheduleEarliestTransition_atMidnightInShopZone() {
+        when(offerRepository.findByEndDateGreaterThanEqualAndStartDateLessThanEqual(TODAY, TODAY.plusDays(7)))
+                .thenReturn(List.of(
+                        offer(1L, 10L, TODAY.plusDays(2), TODAY.plusDays(4)),
+                        offer(2L, 20L, TODAY.minusDays(3), TODAY)));
+
+        scheduler.start();
+
+        // Offer 2 expires tomorrow, offer 1 activates in 2 days and expires in 5
+        assertThat(scheduler.pendingTransitions()).isEqualTo(3);
+        assertThat(lastWakeup()).isEqualTo(midnight(TODAY.plusDays(1)));
+    }
+
+    @Test
+    void fire_shouldRepriceOnlyAffectedProducts_andPublishTransitions() {
+        when(offerRepository.findByEndDateGreaterThanEqualAndStartDateLessThanEqual(any(), any()))
+                .thenReturn(List.of(
+                        offer(1L, 10L, TODAY.plusDays(1), TODAY.plusDays(3)),
+                        offer(2L, 20L, TODAY.minusDays(3), TODAY),
+                        offer(3L, 30L, TODAY.plusDays(2), TODAY.plusDays(2))));
+        scheduler.start();
+
+        clock.set(midnight(TODAY.plusDays(1)));
+        scheduler.fire();
+
+        verify(priceIndex).repriceProducts(Set.of(10L, 20L), TODAY.plusDays(1));
+        verify(eventPublisher).publishEvent(
+                new OfferTransitionEvent(1L, 10L, OfferTransitionEvent.Type.ACTIVATED, TODAY.plusDays(1)));
+        verify(eventPublisher).publishEvent(
+                new OfferTransitionEvent(2L, 20L, OfferTransitionEvent.Type.EXPIRED, TODAY.plusDays(1)));
+        verifyNoMoreInteractions(eventPublisher);
+        assertThat(lastWakeup()).isEqualTo(midnight(TODAY.plusDays(2)));
+    }
+
+    @Test
+    void fire_shouldRefillQueue_whenHorizonIsReached() {
+        when(offerRepository.findByEndDateGreaterThanEqualAndStartDateLessThanEqual(any(), any()))
+                .thenReturn(List.of());
+        scheduler.start();
+        assertThat(lastWakeup()).isEqualTo(midnight(TODAY.plusDays(7)));
+
+        when(offerRepository.findByEndDateGreaterThanEqualAndStartDateLessThanEqual(TODAY.plusDays(7), TODAY.plusDays(14)))
+                .thenReturn(List.of(offer(1L, 10L, TODAY.plusDays(9), TODAY.plusDays(20))));
+        clock.set(midnight(TODAY.plusDays(7)));
+        scheduler.fire();
+
+        verifyNoInteractions(priceIndex);
+        assertThat(scheduler.pendingTransitions()).isEqualTo(1);
+        assertThat(lastWakeup()).isEqualTo(midnight(TODAY.plusDays(9)));
+    }
+
+    @Test
+    void fire_shouldStillPublishDueTransitions_andRetry_whenHorizonReloadFails() {
+        when(offerRepository.findByEndDateGreaterThanEqualAndStartDateLessThanEqual(any(), any()))
+                .thenReturn(List.of(offer(1L, 10L, TODAY.minusDays(3), TODAY.plusDays(6))));
+        scheduler.start();
+        assertThat(lastWakeup()).isEqualTo(midnight(TODAY.plusDays(7)));
+
+        when(offerRepository.findByEndDateGreaterThanEqualAndStartDateLessThanEqual(any(), any()))
+                .thenThrow(new IllegalStateException("database down"));
+        clock.set(midnight(TODAY.plusDays(7)));
+        scheduler.fire();
+
+        verify(eventPublisher).publishEvent(
+                new OfferTransitionEvent(1L, 10L, OfferTransitionEvent.Type.EXPIRED, TODAY.plusDays(7)));
+        assertThat(lastWakeup()).isEqualTo(midnight(TODAY.plusDays(7)).plus(Duration.ofMinutes(1)));
+
+        // The retry reloads the queue once the database is back
+        doReturn(List.of(offer(2L, 20L, TODAY.plusDays(9), TODAY.plusDays(20))))
+                .when(offerRepository).findByEndDateGreaterThanEqualAndStartDateLessThanEqual(any(), any());
+        clock.set(midnight(TODAY.plusDays(7)).plus(Duration.ofMinutes(1)));
+        tasks.get(tasks.size() - 1).run();
+
+        assertThat(scheduler.pendingTransitions()).isEqualTo(1);
+        assertThat(lastWakeup()).isEqualTo(midnight(TODAY.plusDays(9)));
+    }
+
+    @Test
+    void start_shouldRetry_whenInitialLoadFails() {
+        when(offerRepository.findByEndDateGreaterThanEqualAndStartDateLessThanEqual(any(), any()))
+                .thenThrow(new IllegalStateException("database down"));
+
+        scheduler.start();
+        scheduler.onInvalidation(CacheInvalidationEvent.product(10L, Set.of()));
+
+        assertThat(scheduler.pendingTransitions()).isZero();
+        assertThat(lastWakeup()).isEqualTo(clock.instant().plus(Duration.ofMinutes(1)));
+        verify(offerRepository, never()).findByProductIdIn(any());
+    }
+
+    @Test
+    void onInvalidation_shouldKeepQueue_whenReloadFails() {
+        when(offerRepository.findByEndDateGreaterThanEqualAndStartDateLessThanEqual(any(), any()))
+                .thenReturn(List.of(offer(1L, 10L, TODAY.plusDays(3), TODAY.plusDays(30))));
+        scheduler.start();
+        when(offerRepository.findByProductIdIn(List.of(10L))).thenThrow(new IllegalStateException("database down"));
+
+        assertThatThrownBy(() -> scheduler.onInvalidation(CacheInvalidationEvent.product(10L, Set.of())))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(scheduler.pendingTransitions()).isEqualTo(1);
+    }
+
+    @Test
+    void onInvalidation_shouldReloadTransitionsOfThatProduct() {
+        when(offerRepository.findByEndDateGreaterThanEqualAndStartDateLessThanEqual(any(), any()))
+                .thenReturn(List.of(
+                        offer(1L, 10L, TODAY.plusDays(3), TODAY.plusDays(30)),
+                        offer(2L, 20L, TODAY.plusDays(4), TODAY.plusDays(30))));
+        scheduler.start();
+        assertThat(lastWakeup()).isEqualTo(midnight(TODAY.plusDays(3)));
+
+        // Offer 1 was deleted and a new one created for product 10
+        when(offerRepository.findByProductIdIn(List.of(10L)))
+                .thenReturn(List.of(offer(5L, 10L, TODAY.minusDays(1), TODAY.plusDays(1))));
+        scheduler.onInvalidation(CacheInvalidationEvent.product(10L, Set.of()));
+
+        assertThat(scheduler.pendingTransitions()).isEqualTo(2);
+        assertThat(lastWakeup()).isEqualTo(midnight(TODAY.plusDays(2)));
+    }
+
+    @Test
+    void onInvalidation_shouldBeIgnored_beforeStart() {
+        scheduler.onInvalidation(CacheInvalidationEvent.all());
+
+        verifyNoInteractions(offerRepository, taskScheduler);
+    }
+
+    // ========== Helpers ==========
+
+    private static Offer offer(Long id, Long productId, LocalDate start, LocalDate end) {
+        return Offer.builder().id(id).product(Product.builder().id(productId).build())
+                .discount(BigDecimal.ONE).startDate(start).endDate(end).build();
+    }
+
+    private static Instant midnight(LocalDate date) {
+        return date.atStartOfDay(ZONE).toInstant();
+    }
+
+    private Instant lastWakeup() {
+        return wakeups.get(wakeups.size() - 1);
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void set(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZONE;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
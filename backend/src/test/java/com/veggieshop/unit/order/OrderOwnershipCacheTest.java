@@ -0,0 +1,82 @@
+package com.veggieshop.unit.order;
+
+import com.veggieshop.order.OrderOwnershipCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderOwnershipCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void ownerOf_shouldReturnCachedOwner_andUnknownOtherwise() {
+        OrderOwnershipCache cache = new OrderOwnershipCache(1000, meterRegistry);
+        cache.put(1L, 10L);
+        cache.put(2L, 20L);
+
+        assertThat(cache.ownerOf(1L)).isEqualTo(10L);
+        assertThat(cache.ownerOf(2L)).isEqualTo(20L);
+        assertThat(cache.ownerOf(3L)).isEqualTo(OrderOwnershipCache.UNKNOWN);
+        assertThat(cache.ownerOf(0L)).isEqualTo(OrderOwnershipCache.UNKNOWN);
+        assertThat(meterRegistry.get("orders.ownership.cache").tag("result", "hit").counter().count()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("orders.ownership.cache").tag("result", "miss").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void put_shouldStayBounded_andEvictInsteadOfGrowing() {
+        OrderOwnershipCache cache = new OrderOwnershipCache(1024, meterRegistry);
+
+        for (long orderId = 1; orderId <= 100_000; orderId++) {
+            cache.put(orderId, orderId * 7);
+        }
+
+        assertThat(cache.size()).isLessThanOrEqualTo(1024);
+        // Whatever survived maps to the right owner; the newest entries are all still there
+        long found = 0;
+        for (long orderId = 1; orderId <= 100_000; orderId++) {
+            long owner = cache.ownerOf(orderId);
+            if (owner != OrderOwnershipCache.UNKNOWN) {
+                assertThat(owner).isEqualTo(orderId * 7);
+                found++;
+            }
+        }
+        assertThat(found).isEqualTo(cache.size());
+        assertThat(cache.ownerOf(100_000L)).isEqualTo(700_000L);
+    }
+
+    @Test
+    void ownerOf_shouldNeverPairAnOrderWithAnotherOrdersOwner_underConcurrentWrites() throws Exception {
+        OrderOwnershipCache cache = new OrderOwnershipCache(256, meterRegistry);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            long offset = t;
+            tasks.add(pool.submit(() -> {
+                for (long orderId = 1 + offset; orderId <= 200_000; orderId += 4) {
+                    cache.put(orderId, -orderId - 100);
+                }
+            }));
+            tasks.add(pool.submit(() -> {
+                for (long orderId = 1; orderId <= 200_000; orderId++) {
+                    long owner = cache.ownerOf(orderId);
+                    if (owner != OrderOwnershipCache.UNKNOWN && owner != -orderId - 100) {
+                        throw new AssertionError("order " + orderId + " mapped to " + owner);
+                    }
+                }
+            }));
+        }
+        for (Future<?> task : tasks) {
+            task.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+    }
+}
@@ -1,20 +1,21 @@
 package com.veggieshop.unit.order;
 
 import com.veggieshop.exception.ResourceNotFoundException;
+import com.veggieshop.offer.Offer;
 import com.veggieshop.offer.OfferRepository;
 import com.veggieshop.order.*;
 import com.veggieshop.order.Order;
 import com.veggieshop.product.Product;
 import com.veggieshop.product.ProductRepository;
+import com.veggieshop.product.SoldCountAccumulator;
 import com.veggieshop.user.User;
 import com.veggieshop.user.UserRepository;
-import com.veggieshop.util.PriceCalculator;
 import org.junit.jupiter.api.*;
 import org.mockito.*;
 import org.springframework.data.domain.*;
 
 import java.math.BigDecimal;
-import java.time.LocalDate;
+import java.time.Clock;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -36,6 +37,12 @@ class OrderServiceTest {
     private OfferRepository offerRepository;
     @Mock
     private OrderMapper orderMapper;
+    @Mock
+    private SoldCountAccumulator soldCountAccumulator;
+    @Mock
+    private OrderOwnershipCache orderOwnershipCache;
+    @Spy
+    private Clock clock = Clock.systemDefaultZone();
 
     @InjectMocks
     private OrderServiceImpl orderService;
@@ -71,54 +78,62 @@ class OrderServiceTest {
         req.setItems(List.of(item1, item2));
 
         when(userRepository.findById(2L)).thenReturn(Optional.of(user));
-        when(productRepository.findById(1L)).thenReturn(Optional.of(tomato));
-        when(productRepository.findById(3L)).thenReturn(Optional.of(cucumber));
-
-        // لا توجد عروض خاصة في هذا السيناريو (dummy)
-        when(offerRepository.findByProductId(eq(1L), any(Pageable.class))).thenReturn(Page.empty());
-        when(offerRepository.findByProductId(eq(3L), any(Pageable.class))).thenReturn(Page.empty());
-
-        // PriceCalculator يجب أن يكون static utility (mock with real)
-        try (MockedStatic<PriceCalculator> priceCalculator = mockStatic(PriceCalculator.class)) {
-            priceCalculator.when(() -> PriceCalculator.calculateFinalPrice(any(Product.class), anyList(), any(LocalDate.class)))
-                    .thenAnswer(invocation -> {
-                        Product p = invocation.getArgument(0);
-                        return p.getPrice();
-                    });
-
-            // build order + items
-            com.veggieshop.order.Order order = com.veggieshop.order.Order.builder()
-                    .id(7L)
-                    .user(user)
-                    .status(com.veggieshop.order.Order.Status.PENDING)
-                    .totalPrice(BigDecimal.valueOf(5.99))
-                    .createdAt(LocalDateTime.now())
-                    .orderItems(new ArrayList<>()) // Will be set in test
-                    .build();
-
-            OrderItem oi1 = OrderItem.builder().id(1L).order(order).product(tomato).quantity(2).price(tomato.getPrice()).build();
-            OrderItem oi2 = OrderItem.builder().id(2L).order(order).product(cucumber).quantity(1).price(cucumber.getPrice()).build();
-            List<OrderItem> items = List.of(oi1, oi2);
-            order.setOrderItems(items);
-
-            when(orderRepository.save(any(com.veggieshop.order.Order.class))).thenReturn(order);
-
-            OrderDto.OrderResponse response = new OrderDto.OrderResponse();
-            response.setId(7L);
-            response.setUserId(2L);
-            response.setUserName("Regular User");
-            response.setTotalPrice(BigDecimal.valueOf(5.99));
-            response.setStatus("PENDING");
-            when(orderMapper.toOrderResponse(order)).thenReturn(response);
-
-            OrderDto.OrderResponse result = orderService.create(2L, req);
-
-            assertThat(result.getId()).isEqualTo(7L);
-            assertThat(result.getTotalPrice()).isEqualTo(BigDecimal.valueOf(5.99));
-            assertThat(result.getStatus()).isEqualTo("PENDING");
-            verify(orderRepository).save(any(com.veggieshop.order.Order.class));
-            verify(productRepository, atLeastOnce()).save(any(Product.class)); // soldCount update
-        }
+        when(productRepository.findAllById(Set.of(1L, 3L))).thenReturn(List.of(tomato, cucumber));
+
+        // Tomato has a 0.50 offer running today and an expired larger one, cucumber has none
+        java.time.LocalDate today = java.time.LocalDate.now();
+        when(offerRepository.findByProductIdIn(Set.of(1L, 3L))).thenReturn(List.of(
+                Offer.builder().id(1L).product(tomato).discount(new BigDecimal("0.50"))
+                        .startDate(today.minusDays(1)).endDate(today.plusDays(1)).build(),
+                Offer.builder().id(2L).product(tomato).discount(new BigDecimal("1.00"))
+                        .startDate(today.minusDays(9)).endDate(today.minusDays(1)).build()));
+
+        // build order + items
+        com.veggieshop.order.Order order = com.veggieshop.order.Order.builder()
+                .id(7L)
+                .user(user)
+                .status(com.veggieshop.order.Order.Status.PENDING)
+                .totalPrice(BigDecimal.valueOf(5.99))
+                .createdAt(LocalDateTime.now())
+                .orderItems(new ArrayList<>()) // Will be set in test
+                .build();
+
+        OrderItem oi1 = OrderItem.builder().id(1L).order(order).product(tomato).quantity(2).price(tomato.getPrice()).build();
+        OrderItem oi2 = OrderItem.builder().id(2L).order(order).product(cucumber).quantity(1).price(cucumber.getPrice()).build();
+        List<OrderItem> items = List.of(oi1, oi2);
+        order.setOrderItems(items);
+
+        when(orderRepository.save(any(com.veggieshop.order.Order.class))).thenReturn(order);
+
+        OrderDto.OrderResponse response = new OrderDto.OrderResponse();
+        response.setId(7L);
+        response.setUserId(2L);
+        response.setUserName("Regular User");
+        response.setTotalPrice(BigDecimal.valueOf(5.99));
+        response.setStatus("PENDING");
+        when(orderMapper.toOrderResponse(order)).thenReturn(response);
+
+        OrderDto.OrderResponse result = orderService.create(2L, req);
+
+        assertThat(result.getId()).isEqualTo(7L);
+        assertThat(result.getTotalPrice()).isEqualTo(BigDecimal.valueOf(5.99));
+        assertThat(result.getStatus()).isEqualTo("PENDING");
+        // Unit prices come from the pricing engine: 2 x (2.00 - 0.50) + 1 x 1.99
+        ArgumentCaptor<com.veggieshop.order.Order> saved = ArgumentCaptor.forClass(com.veggieshop.order.Order.class);
+        verify(orderRepository).save(saved.capture());
+        assertThat(saved.getValue().getTotalPrice()).isEqualByComparingTo("4.99");
+        assertThat(saved.getValue().getOrderItems()).extracting(OrderItem::getPrice)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("1.50"), new BigDecimal("1.99"));
+        // Products and offers are resolved with one query each, whatever the basket size
+        verify(productRepository).findAllById(Set.of(1L, 3L));
+        verify(offerRepository).findByProductIdIn(Set.of(1L, 3L));
+        verify(productRepository, never()).findById(anyLong());
+        // soldCount is handed to the write-behind accumulator instead of updating products rows
+        verify(soldCountAccumulator).record(7L, Map.of(1L, 2L, 3L, 1L));
+        verify(productRepository, never()).save(any(Product.class));
+        // The owner is known from creation, so the first ownership check needs no query
+        verify(orderOwnershipCache).put(7L, 2L);
     }
 
     @Test
@@ -138,7 +153,7 @@ class OrderServiceTest {
         req.setItems(List.of(item1));
 
         when(userRepository.findById(2L)).thenReturn(Optional.of(user));
-        when(productRepository.findById(99L)).thenReturn(Optional.empty());
+        when(productRepository.findAllById(Set.of(99L))).thenReturn(List.of());
 
         assertThrows(ResourceNotFoundException.class, () -> orderService.create(2L, req));
     }
@@ -147,7 +162,7 @@ class OrderServiceTest {
     @Test
     void findById_shouldReturnOrder_whenExists() {
         com.veggieshop.order.Order order = com.veggieshop.order.Order.builder().id(1L).user(user).status(com.veggieshop.order.Order.Status.PAID).totalPrice(BigDecimal.TEN).createdAt(LocalDateTime.now()).build();
-        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+        when(orderRepository.findDetailedById(1L)).thenReturn(Optional.of(order));
         OrderDto.OrderResponse resp = new OrderDto.OrderResponse();
         resp.setId(1L);
         resp.setUserId(2L);
@@ -163,7 +178,7 @@ class OrderServiceTest {
 
     @Test
     void findById_shouldThrow_whenOrderMissing() {
-        when(orderRepository.findById(111L)).thenReturn(Optional.empty());
+        when(orderRepository.findDetailedById(111L)).thenReturn(Optional.empty());
         assertThrows(ResourceNotFoundException.class, () -> orderService.findById(111L));
     }
 
@@ -0,0 +1,144 @@
+package com.veggieshop.unit.pricing;
+
+import com.veggieshop.offer.Offer;
+import com.veggieshop.pricing.Money;
+import com.veggieshop.pricing.PricingEngine;
+import com.veggieshop.product.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Parity of the cents engine with the original BigDecimal implementation of
+ * {@code PriceCalculator.calculateFinalPrice}, kept here as {@link #reference}.
+ */
+class PricingEngineTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 8, 10);
+
+    // ========== PriceCalculatorTest cases ==========
+    @Test
+    void parity_noOffersAndNoProductDiscount() {
+        assertParity(product("100", "0"), List.of());
+    }
+
+    @Test
+    void parity_productDiscountOnly() {
+        assertParity(product("200", "20"), List.of());
+    }
+
+    @Test
+    void parity_offerDiscountOnly() {
+        assertParity(product("50", "0"), List.of(offer("15", -1, 1)));
+    }
+
+    @Test
+    void parity_productDiscountAndOfferDiscount() {
+        assertParity(product("300", "25"), List.of(offer("50", -1, 1)));
+    }
+
+    @Test
+    void parity_bestActiveOfferWins() {
+        assertParity(product("100", "10"), List.of(offer("15", -2, 2), offer("25", -2, 2)));
+    }
+
+    @Test
+    void parity_inactiveOffersIgnored() {
+        assertParity(product("80", "10"), List.of(offer("100", -10, -5)));
+    }
+
+    @Test
+    void parity_neverNegative() {
+        assertParity(product("40", "15"), List.of(offer("50", -1, 1)));
+    }
+
+    @Test
+    void parity_nullProductDiscount() {
+        assertParity(product("99", null), List.of());
+    }
+
+    // ========== Edge cases ==========
+    @Test
+    void parity_offerBoundariesAreInclusive() {
+        assertParity(product("10.00", "0"), List.of(offer("1.50", 0, 5)));
+        assertParity(product("10.00", "0"), List.of(offer("2.50", -5, 0)));
+        assertParity(product("10.00", "0"), List.of(offer("3.50", 1, 5)));
+    }
+
+    @Test
+    void parity_randomizedCentAmounts() {
+        Random random = new Random(42);
+        for (int i = 0; i < 5_000; i++) {
+            Product product = product(cents(random, 100_000), cents(random, 20_000));
+            List<Offer> offers = new ArrayList<>();
+            for (int o = random.nextInt(5); o > 0; o--) {
+                int start = random.nextInt(21) - 10;
+                offers.add(offer(cents(random, 50_000), start, start + random.nextInt(10)));
+            }
+            assertParity(product, offers);
+        }
+    }
+
+    // ========== Money ==========
+    @Test
+    void money_shouldRoundSubCentInputsLikeNumericColumns() {
+        assertThat(Money.toCents(new BigDecimal("1.005"))).isEqualTo(101L);
+        assertThat(Money.toCents(new BigDecimal("1.004"))).isEqualTo(100L);
+        assertThat(Money.toCents(null)).isZero();
+        assertThat(Money.toBigDecimal(199L)).isEqualTo(new BigDecimal("1.99"));
+    }
+
+    @Test
+    void money_shouldFailOnOverflow() {
+        assertThrows(ArithmeticException.class, () -> Money.times(Long.MAX_VALUE / 2, 3));
+        assertThrows(ArithmeticException.class, () -> Money.toCents(new BigDecimal("1e30")));
+    }
+
+    // ========== Helpers ==========
+    private static void assertParity(Product product, List<Offer> offers) {
+        BigDecimal expected = reference(product, offers, TODAY);
+        long actual = PricingEngine.finalPriceCents(product, offers, TODAY);
+        assertThat(Money.toBigDecimal(actual)).isEqualByComparingTo(expected);
+    }
+
+    // The pre-engine implementation, verbatim
+    private static BigDecimal reference(Product product, List<Offer> offers, LocalDate date) {
+        BigDecimal price = product.getPrice();
+        BigDecimal productDiscount = product.getDiscount() != null ? product.getDiscount() : BigDecimal.ZERO;
+        BigDecimal discountedPrice = price.subtract(productDiscount);
+        Optional<Offer> bestActiveOffer = offers.stream()
+                .filter(o -> !date.isBefore(o.getStartDate()) && !date.isAfter(o.getEndDate()))
+                .max((a, b) -> a.getDiscount().compareTo(b.getDiscount()));
+        if (bestActiveOffer.isPresent()) {
+            discountedPrice = discountedPrice.subtract(bestActiveOffer.get().getDiscount());
+        }
+        return discountedPrice.compareTo(BigDecimal.ZERO) < 0 ? BigDecimal.ZERO : discountedPrice;
+    }
+
+    private static Product product(String price, String discount) {
+        return Product.builder()
+                .price(new BigDecimal(price))
+                .discount(discount == null ? null : new BigDecimal(discount))
+                .build();
+    }
+
+    private static Offer offer(String discount, int startOffset, int endOffset) {
+        return Offer.builder()
+                .discount(new BigDecimal(discount))
+                .startDate(TODAY.plusDays(startOffset))
+                .endDate(TODAY.plusDays(endOffset))
+                .build();
+    }
+
+    private static String cents(Random random, int maxCents) {
+        return BigDecimal.valueOf(random.nextInt(maxCents), 2).toPlainString();
+    }
+}
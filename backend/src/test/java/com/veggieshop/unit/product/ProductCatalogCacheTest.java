@@ -0,0 +1,103 @@
+package com.veggieshop.unit.product;
+
+import com.veggieshop.product.ProductCatalogCache;
+import com.veggieshop.product.ProductCatalogCache.PageKey;
+import com.veggieshop.product.ProductDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.*;
+import org.springframework.data.domain.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ProductCatalogCacheTest {
+
+    private ProductCatalogCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        cache = new ProductCatalogCache(new SimpleMeterRegistry(), 100, 100, Duration.ofMinutes(10));
+    }
+
+    @Test
+    void getProduct_shouldLoadOnce_andServeHitsFromCache() {
+        cache.getProduct(1L, () -> load(1L, 10L));
+        ProductDto.ProductResponse second = cache.getProduct(1L, () -> load(1L, 10L));
+
+        assertThat(second.getId()).isEqualTo(1L);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void evictProduct_shouldDropProductAndGlobalListings_butKeepOtherCategories() {
+        Pageable pageable = PageRequest.of(0, 10);
+        cache.getProduct(1L, () -> load(1L, 10L));
+        cache.getPage(PageKey.all(pageable), () -> page(load(1L, 10L)));
+        cache.getPage(PageKey.category(20L, pageable), () -> page(load(2L, 20L)));
+        loads.set(0);
+
+        cache.evictProduct(1L, Set.of(10L));
+
+        cache.getProduct(1L, () -> load(1L, 10L));
+        cache.getPage(PageKey.all(pageable), () -> page(load(1L, 10L)));
+        cache.getPage(PageKey.category(20L, pageable), () -> page(load(2L, 20L)));
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void evictProductViews_shouldDropOnlyPagesShowingTheProduct() {
+        Pageable pageable = PageRequest.of(0, 10);
+        cache.getPage(PageKey.category(10L, pageable), () -> page(load(1L, 10L)));
+        cache.getPage(PageKey.category(20L, pageable), () -> page(load(2L, 20L)));
+        loads.set(0);
+
+        cache.evictProductViews(1L);
+
+        cache.getPage(PageKey.category(10L, pageable), () -> page(load(1L, 10L)));
+        cache.getPage(PageKey.category(20L, pageable), () -> page(load(2L, 20L)));
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void evictCategory_shouldDropProductsOfThatCategory() {
+        cache.getProduct(1L, () -> load(1L, 10L));
+        cache.getProduct(2L, () -> load(2L, 20L));
+        loads.set(0);
+
+        cache.evictCategory(10L);
+
+        cache.getProduct(1L, () -> load(1L, 10L));
+        cache.getProduct(2L, () -> load(2L, 20L));
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void read_shouldNotKeepValue_whenEvictedDuringLoad() {
+        cache.getProduct(1L, () -> {
+            cache.evictProductViews(1L); // a write commits while we are reading
+            return load(1L, 10L);
+        });
+        loads.set(0);
+
+        cache.getProduct(1L, () -> load(1L, 10L));
+
+        assertThat(loads).hasValue(1);
+    }
+
+    private ProductDto.ProductResponse load(Long id, Long categoryId) {
+        loads.incrementAndGet();
+        ProductDto.ProductResponse resp = new ProductDto.ProductResponse();
+        resp.setId(id);
+        resp.setCategoryId(categoryId);
+        return resp;
+    }
+
+    private static Page<ProductDto.ProductResponse> page(ProductDto.ProductResponse... content) {
+        return new PageImpl<>(List.of(content), PageRequest.of(0, 10), content.length);
+    }
+}
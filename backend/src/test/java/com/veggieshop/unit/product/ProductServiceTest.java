@@ -1,10 +1,13 @@
 package com.veggieshop.unit.product;
 
+import com.veggieshop.cache.CacheInvalidationBus;
+import com.veggieshop.cache.CacheInvalidationEvent;
 import com.veggieshop.category.Category;
 import com.veggieshop.category.CategoryRepository;
 import com.veggieshop.exception.DuplicateException;
 import com.veggieshop.exception.ResourceNotFoundException;
 import com.veggieshop.order.OrderItemRepository;
+import com.veggieshop.pricing.EffectivePriceIndex;
 import com.veggieshop.product.*;
 import org.junit.jupiter.api.*;
 import org.mockito.*;
@@ -27,6 +30,10 @@ class ProductServiceTest {
     private OrderItemRepository orderItemRepository;
     @Mock
     private ProductMapper productMapper;
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+    @Mock
+    private EffectivePriceIndex priceIndex;
 
     @InjectMocks
     private ProductServiceImpl productService;
@@ -90,6 +97,7 @@ class ProductServiceTest {
         assertThat(result.getName()).isEqualTo("Carrot");
         assertThat(result.getPrice()).isEqualTo(BigDecimal.valueOf(1.50));
         verify(productRepository).save(any(Product.class));
+        verify(priceIndex).reprice(any(Product.class));
     }
 
     @Test
@@ -127,7 +135,7 @@ class ProductServiceTest {
         req.setCategoryId(2L);
         req.setImageUrl("apple.jpg");
 
-        when(productRepository.findById(id)).thenReturn(Optional.of(oldProduct));
+        when(productRepository.findByIdForUpdate(id)).thenReturn(Optional.of(oldProduct));
         when(categoryRepository.findById(2L)).thenReturn(Optional.of(fruits));
 
         Product updated = Product.builder()
@@ -156,11 +164,36 @@ class ProductServiceTest {
 
         assertThat(result.getName()).isEqualTo("Green Apple");
         assertThat(result.getCategoryName()).isEqualTo("Fruits");
+        verify(invalidationBus).publish(CacheInvalidationEvent.product(id, Set.of(vegetables.getId(), 2L)));
+        // The final price is recomputed from the new price/discount before saving
+        InOrder inOrder = inOrder(priceIndex, productRepository);
+        inOrder.verify(priceIndex).reprice(oldProduct);
+        inOrder.verify(productRepository).save(oldProduct);
+    }
+
+    @Test
+    void update_shouldInvalidateOneCategory_whenCategoryUnchanged() {
+        Long id = 6L;
+        Product product = Product.builder().id(id).name("Carrot").category(vegetables).build();
+        ProductDto.ProductUpdateRequest req = new ProductDto.ProductUpdateRequest();
+        req.setName("Baby Carrot");
+        req.setPrice(BigDecimal.valueOf(1.10));
+        req.setDiscount(BigDecimal.ZERO);
+        req.setCategoryId(vegetables.getId());
+
+        when(productRepository.findByIdForUpdate(id)).thenReturn(Optional.of(product));
+        when(categoryRepository.findById(vegetables.getId())).thenReturn(Optional.of(vegetables));
+        when(productRepository.save(any(Product.class))).thenReturn(product);
+        when(productMapper.toProductResponse(any(Product.class))).thenReturn(new ProductDto.ProductResponse());
+
+        productService.update(id, req);
+
+        verify(invalidationBus).publish(CacheInvalidationEvent.product(id, Set.of(vegetables.getId())));
     }
 
     @Test
     void update_shouldThrowResourceNotFound_whenProductMissing() {
-        when(productRepository.findById(999L)).thenReturn(Optional.empty());
+        when(productRepository.findByIdForUpdate(999L)).thenReturn(Optional.empty());
         ProductDto.ProductUpdateRequest req = new ProductDto.ProductUpdateRequest();
         req.setCategoryId(1L);
         assertThrows(ResourceNotFoundException.class, () -> productService.update(999L, req));
@@ -171,7 +204,7 @@ class ProductServiceTest {
         ProductDto.ProductUpdateRequest req = new ProductDto.ProductUpdateRequest();
         req.setCategoryId(999L);
         Product oldProduct = Product.builder().id(4L).build();
-        when(productRepository.findById(4L)).thenReturn(Optional.of(oldProduct));
+        when(productRepository.findByIdForUpdate(4L)).thenReturn(Optional.of(oldProduct));
         when(categoryRepository.findById(999L)).thenReturn(Optional.empty());
         assertThrows(ResourceNotFoundException.class, () -> productService.update(4L, req));
     }
@@ -180,7 +213,7 @@ class ProductServiceTest {
     @Test
     void delete_shouldSoftDelete_whenOrderExists() {
         Long id = 8L;
-        Product product = Product.builder().id(id).active(true).build();
+        Product product = Product.builder().id(id).active(true).category(vegetables).build();
         when(productRepository.findById(id)).thenReturn(Optional.of(product));
         when(orderItemRepository.existsByProductId(id)).thenReturn(true);
 
@@ -194,7 +227,7 @@ class ProductServiceTest {
     @Test
     void delete_shouldHardDelete_whenNoOrder() {
         Long id = 3L;
-        Product product = Product.builder().id(id).active(true).build();
+        Product product = Product.builder().id(id).active(true).category(vegetables).build();
         when(productRepository.findById(id)).thenReturn(Optional.of(product));
         when(orderItemRepository.existsByProductId(id)).thenReturn(false);
 
@@ -202,12 +235,13 @@ class ProductServiceTest {
 
         verify(productRepository).deleteById(id);
         verify(productRepository, never()).save(any());
+        verify(invalidationBus).publish(CacheInvalidationEvent.product(id, Set.of(vegetables.getId())));
     }
 
     @Test
     void delete_shouldDoNothing_whenInactiveAndOrderExists() {
         Long id = 13L;
-        Product product = Product.builder().id(id).active(false).build();
+        Product product = Product.builder().id(id).active(false).category(vegetables).build();
         when(productRepository.findById(id)).thenReturn(Optional.of(product));
         when(orderItemRepository.existsByProductId(id)).thenReturn(true);
 
@@ -321,4 +355,21 @@ class ProductServiceTest {
 
         assertThat(result.getContent()).hasSize(2);
     }
+
+    @Test
+    void filterByFinalPrice_shouldFilterOnEffectivePrice() {
+        Pageable pageable = PageRequest.of(0, 2, Sort.by("finalPrice"));
+        Product p1 = Product.builder().id(1L).name("Apple").price(BigDecimal.valueOf(4.0)).finalPrice(BigDecimal.valueOf(2.5)).build();
+        Page<Product> page = new PageImpl<>(List.of(p1), pageable, 1);
+
+        when(productRepository.findByFinalPriceBetweenAndActiveTrue(
+                BigDecimal.valueOf(1.0), BigDecimal.valueOf(3.0), pageable)).thenReturn(page);
+        when(productMapper.toProductResponse(p1)).thenReturn(new ProductDto.ProductResponse());
+
+        Page<ProductDto.ProductResponse> result = productService.filterByFinalPrice(
+                BigDecimal.valueOf(1.0), BigDecimal.valueOf(3.0), pageable);
+
+        assertThat(result.getContent()).hasSize(1);
+        verify(productRepository, never()).findByPriceBetweenAndActiveTrue(any(), any(), any());
+    }
 }
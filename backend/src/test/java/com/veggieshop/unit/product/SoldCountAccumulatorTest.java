@@ -0,0 +1,104 @@
+package com.veggieshop.unit.product;
+
+import com.veggieshop.product.SoldCountAccumulator;
+import org.junit.jupiter.api.*;
+import org.mockito.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SoldCountAccumulatorTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SoldCountAccumulator accumulator;
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    void setUp() {
+        closeable = MockitoAnnotations.openMocks(this);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        accumulator = new SoldCountAccumulator(jdbcTemplate, new TransactionTemplate(transactionManager));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        closeable.close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_shouldAggregateQuantitiesPerProduct_inOneBatch() {
+        accumulator.record(1L, Map.of(10L, 2L, 20L, 1L));
+        accumulator.record(2L, Map.of(10L, 3L));
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(Object[].class)))
+                .thenReturn(List.of(1L, 2L));
+
+        accumulator.flush();
+
+        ArgumentCaptor<List<Object[]>> args = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(contains("sold_count = sold_count + ?"), args.capture());
+        assertThat(args.getValue()).containsExactly(new Object[]{5L, 10L}, new Object[]{1L, 20L});
+        assertThat(accumulator.pendingOrders()).isZero();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_shouldSkipOrdersAlreadyAppliedElsewhere() {
+        accumulator.record(1L, Map.of(10L, 2L));
+        accumulator.record(2L, Map.of(10L, 3L));
+        // Order 1 was already replayed by another node
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(Object[].class)))
+                .thenReturn(List.of(2L));
+
+        accumulator.flush();
+
+        ArgumentCaptor<List<Object[]>> args = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), args.capture());
+        assertThat(args.getValue()).containsExactly(new Object[]{3L, 10L});
+    }
+
+    @Test
+    void flush_shouldKeepPendingCounts_whenDatabaseFails() {
+        accumulator.record(1L, Map.of(10L, 2L));
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(Object[].class)))
+                .thenThrow(new org.springframework.dao.QueryTimeoutException("timeout"));
+
+        accumulator.flush();
+
+        assertThat(accumulator.pendingOrders()).isEqualTo(1);
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void flush_shouldDoNothing_whenNothingRecorded() {
+        accumulator.flush();
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void replayPeriodically_shouldReplayOrdersOlderThanGracePeriod() {
+        accumulator.replayPeriodically();
+
+        verify(jdbcTemplate).update(contains("sold_count_applied = false AND created_at < now()"), eq(600L));
+    }
+
+    @Test
+    void replayPeriodically_shouldKeepRunning_whenDatabaseFails() {
+        when(jdbcTemplate.update(anyString(), anyLong()))
+                .thenThrow(new org.springframework.dao.QueryTimeoutException("timeout"));
+
+        assertThatCode(() -> accumulator.replayPeriodically()).doesNotThrowAnyException();
+    }
+}
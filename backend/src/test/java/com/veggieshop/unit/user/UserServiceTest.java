@@ -1,8 +1,10 @@
 package com.veggieshop.unit.user;
 
+import com.veggieshop.auth.RefreshTokenService;
 import com.veggieshop.exception.BadRequestException;
 import com.veggieshop.exception.DuplicateException;
 import com.veggieshop.exception.ResourceNotFoundException;
+import com.veggieshop.security.TokenVersionRegistry;
 import com.veggieshop.user.*;
 import org.junit.jupiter.api.*;
 import org.mockito.*;
@@ -24,6 +26,10 @@ class UserServiceTest {
     private PasswordEncoder passwordEncoder;
     @Mock
     private UserMapper userMapper;
+    @Mock
+    private TokenVersionRegistry tokenVersionRegistry;
+    @Mock
+    private RefreshTokenService refreshTokenService;
 
     @InjectMocks
     private UserServiceImpl userService;
@@ -112,6 +118,7 @@ class UserServiceTest {
         assertThat(result.getName()).isEqualTo("Updated");
         assertThat(result.getEmail()).isEqualTo("updated@demo.com");
         verify(userRepository).save(existing);
+        verify(tokenVersionRegistry).revokeTokens(existing);
     }
 
     @Test
@@ -129,6 +136,7 @@ class UserServiceTest {
         when(userRepository.existsById(userId)).thenReturn(true);
         userService.delete(userId);
         verify(userRepository).deleteById(userId);
+        verify(tokenVersionRegistry).revokeTokens(userId);
     }
 
     @Test
@@ -252,6 +260,7 @@ class UserServiceTest {
         userService.changePassword(userId, req);
 
         verify(userRepository).save(user);
+        verify(tokenVersionRegistry).revokeTokens(user);
         assertThat(user.getPassword()).isEqualTo("hashed_new");
     }
 
@@ -285,6 +294,7 @@ class UserServiceTest {
 
         assertThat(result.getRole()).isEqualTo(User.Role.ADMIN);
         assertThat(user.getRole()).isEqualTo(User.Role.ADMIN);
+        verify(tokenVersionRegistry).revokeTokens(user);
     }
 
     @Test
@@ -293,4 +303,31 @@ class UserServiceTest {
         when(userRepository.findById(userId)).thenReturn(Optional.empty());
         assertThrows(ResourceNotFoundException.class, () -> userService.changeRole(userId, User.Role.ADMIN));
     }
+
+    @Test
+    void changeEnabled_shouldRevokeAccessAndRefreshTokens_whenDisabling() {
+        Long userId = 1L;
+        User user = User.builder().id(userId).enabled(true).build();
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(userRepository.save(user)).thenReturn(user);
+
+        userService.changeEnabled(userId, false);
+
+        assertThat(user.isEnabled()).isFalse();
+        verify(tokenVersionRegistry).revokeTokens(user);
+        verify(refreshTokenService).revokeAllUserTokens(user);
+    }
+
+    @Test
+    void changeEnabled_shouldKeepTokens_whenEnabling() {
+        Long userId = 1L;
+        User user = User.builder().id(userId).enabled(false).build();
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(userRepository.save(user)).thenReturn(user);
+
+        userService.changeEnabled(userId, true);
+
+        assertThat(user.isEnabled()).isTrue();
+        verifyNoInteractions(tokenVersionRegistry, refreshTokenService);
+    }
 }